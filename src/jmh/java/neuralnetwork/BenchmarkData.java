@@ -0,0 +1,59 @@
+package neuralnetwork;
+
+import java.util.Random;
+import neuralnetwork.init.Initializer;
+
+/**
+ * Networks and samples shared by the benchmarks. All data is generated from
+ * fixed seeds, so every run measures the same work.
+ * @author Konstantin Zhdanov
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Parse the sizes of the hidden layers.
+     * @param sizes Comma-separated sizes, e.g. {@code "64,32"}.
+     * @return A new array of the sizes.
+     */
+    public static int[] hiddenLayerSizes(String sizes) {
+        String[] parts = sizes.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    /**
+     * Create a network with random weights and biases.
+     * @param nInputs Number of the inputs.
+     * @param hiddenLayerSizes Comma-separated sizes of the hidden layers.
+     * @param nOutputs Number of the outputs.
+     * @return A new network.
+     */
+    public static NeuralNetwork network(int nInputs, String hiddenLayerSizes, int nOutputs) {
+        return new NeuralNetwork(nInputs, hiddenLayerSizes(hiddenLayerSizes), nOutputs,
+                Initializer.ofStdRandomRange(42));
+    }
+
+    /**
+     * Create samples with values uniformly distributed in [0, 1].
+     * @param nSamples Number of the samples.
+     * @param size Size of every sample.
+     * @param seed Seed of the values.
+     * @return A new array of the samples.
+     */
+    public static double[][] samples(int nSamples, int size, long seed) {
+        Random random = new Random(seed);
+        double[][] samples = new double[nSamples][size];
+        for (double[] sample : samples) {
+            for (int i = 0; i < size; i++) {
+                sample[i] = random.nextDouble();
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,253 @@
+package neuralnetwork;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import neuralnetwork.train.TrainingBenchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Statistics;
+
+/**
+ * Performance regression gate. Runs a fixed set of scenarios with JMH,
+ * writes their throughput, median and 99th percentile latency and allocated
+ * bytes per operation to a properties file and compares them with a baseline.
+ * <p>Usage: {@code PerformanceGate <baseline> <results> [--update]}. The exit
+ * status is 1 if any metric is worse than the baseline by more than its
+ * tolerance, has no baseline or couldn't be measured. With {@code --update} the results are written to the baseline
+ * instead of being compared.</p>
+ * <p>The baseline holds, for every scenario, the keys
+ * {@code <scenario>.throughput} (ops/s), {@code <scenario>.p50} and
+ * {@code <scenario>.p99} (ns) and {@code <scenario>.allocBytes} (B/op), and
+ * the relative tolerances {@code tolerance.throughput}, {@code tolerance.p50},
+ * {@code tolerance.p99} and {@code tolerance.allocBytes}. A tolerance can be
+ * overridden for one scenario by {@code <scenario>.tolerance.<metric>}.</p>
+ * <p>Every scenario runs in {@value #FORKS} forks, so that a single fork's
+ * JIT decisions don't move the baseline.</p>
+ * @author Konstantin Zhdanov
+ */
+public final class PerformanceGate {
+
+    /** A benchmark method with fixed parameters. */
+    private static final class Scenario {
+        final String name;
+        final String benchmark;
+        final String[] params;
+        final int warmupIterations;
+        final int measurementIterations;
+
+        Scenario(String name, Class<?> benchmarkClass, String method,
+                int warmupIterations, int measurementIterations, String... params) {
+            this.name = name;
+            this.benchmark = benchmarkClass.getName() + "." + method;
+            this.params = params;
+            this.warmupIterations = warmupIterations;
+            this.measurementIterations = measurementIterations;
+        }
+    }
+
+    private static final List<Scenario> SCENARIOS = new ArrayList<>();
+
+    static {
+        // Networks by inputs and hidden layers: small 16-32, medium 64-128-64,
+        // wide 64-512; 4 outputs when scoring, 1 when training
+        String[][] networks = {
+            {"small", "16", "32"},
+            {"medium", "64", "128,64"},
+            {"wide", "64", "512"}
+        };
+        for (String[] network : networks) {
+            SCENARIOS.add(new Scenario("inference.heap." + network[0],
+                    ScoringBenchmark.class, "heap", 3, 5,
+                    "nInputs", network[1], "hiddenLayerSizes", network[2], "nOutputs", "4"));
+            SCENARIOS.add(new Scenario("inference.compiled." + network[0],
+                    ScoringBenchmark.class, "compiled", 3, 5,
+                    "nInputs", network[1], "hiddenLayerSizes", network[2], "nOutputs", "4"));
+            SCENARIOS.add(new Scenario("epoch.scg." + network[0] + ".10k",
+                    TrainingBenchmark.class, "epochs", 1, 3, "algorithm", "SCG",
+                    "nInputs", network[1], "hiddenLayerSizes", network[2],
+                    "nSamples", "10000", "epochs", "1", "numThreads", "1"));
+        }
+        // An epoch of the bigger networks on 1M samples takes minutes
+        SCENARIOS.add(new Scenario("epoch.scg.small.1m",
+                TrainingBenchmark.class, "epochs", 1, 3, "algorithm", "SCG",
+                "nInputs", "16", "hiddenLayerSizes", "32",
+                "nSamples", "1000000", "epochs", "1", "numThreads", "1"));
+    }
+
+    private static final String[] METRICS = {"throughput", "p50", "p99", "allocBytes"};
+
+    /** Number of JVMs every scenario runs in. */
+    private static final int FORKS = 3;
+
+    /** Allocation differences below this many bytes per operation are ignored. */
+    private static final double ALLOC_SLACK_BYTES = 64;
+
+    private PerformanceGate() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        if (args.length < 2) {
+            System.err.println("Usage: PerformanceGate <baseline> <results> [--update]");
+            System.exit(2);
+        }
+        Path baselineFile = Paths.get(args[0]);
+        Path resultsFile = Paths.get(args[1]);
+        boolean update = args.length > 2 && "--update".equals(args[2]);
+
+        Properties results = new Properties();
+        for (Scenario scenario : SCENARIOS) {
+            run(scenario, results);
+        }
+        store(results, resultsFile, "Performance gate results");
+
+        Properties baseline = load(baselineFile);
+        if (update) {
+            for (String key : results.stringPropertyNames()) {
+                baseline.setProperty(key, results.getProperty(key));
+            }
+            store(baseline, baselineFile, "Performance gate baseline");
+            System.out.println("Baseline updated: " + baselineFile);
+            return;
+        }
+        List<String> regressions = compare(baseline, results);
+        if (!regressions.isEmpty()) {
+            System.out.println("Performance regressions:");
+            regressions.forEach((regression) -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("No performance regressions");
+    }
+
+    private static void run(Scenario scenario, Properties results) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include("^" + Pattern.quote(scenario.benchmark) + "$")
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .warmupIterations(scenario.warmupIterations)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(scenario.measurementIterations)
+                .measurementTime(TimeValue.seconds(2))
+                .forks(FORKS)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true);
+        for (int i = 0; i < scenario.params.length; i += 2) {
+            options.param(scenario.params[i], scenario.params[i + 1]);
+        }
+        Collection<RunResult> runResults = new Runner(options.build()).run();
+        if (runResults.size() != 1) {
+            throw new IllegalStateException("Scenario " + scenario.name
+                    + " matched " + runResults.size() + " benchmark runs");
+        }
+        RunResult runResult = runResults.iterator().next();
+        BenchmarkParams params = runResult.getParams();
+        double toNanos = TimeUnit.NANOSECONDS.convert(1, params.getTimeUnit());
+        Statistics latency = runResult.getPrimaryResult().getStatistics();
+        Result<?> alloc = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+
+        results.setProperty(scenario.name + ".throughput", format(1e9 / (latency.getMean() * toNanos)));
+        results.setProperty(scenario.name + ".p50", format(latency.getPercentile(50) * toNanos));
+        results.setProperty(scenario.name + ".p99", format(latency.getPercentile(99) * toNanos));
+        results.setProperty(scenario.name + ".allocBytes",
+                format(alloc != null ? alloc.getScore() : Double.NaN));
+    }
+
+    /**
+     * Compare the results with the baseline.
+     * @return Descriptions of the metrics worse than their tolerance allows,
+     * missing from the baseline or the results or not measured.
+     */
+    static List<String> compare(Properties baseline, Properties results) {
+        List<String> regressions = new ArrayList<>();
+        for (Scenario scenario : SCENARIOS) {
+            for (String metric : METRICS) {
+                String key = scenario.name + "." + metric;
+                String base = baseline.getProperty(key);
+                String result = results.getProperty(key);
+                if (base == null || result == null) {
+                    String line = key + ": " + (base == null ? "no baseline" : "no result");
+                    System.out.println("MISSING   " + line);
+                    regressions.add(line);
+                    continue;
+                }
+                double baseValue = Double.parseDouble(base);
+                double value = Double.parseDouble(result);
+                if (Double.isNaN(baseValue) || Double.isNaN(value)) {
+                    // NaN compares as not regressed
+                    String line = key + ": " + result + " (baseline " + base + ")";
+                    System.out.println("MISSING   " + line);
+                    regressions.add(line);
+                    continue;
+                }
+                double tolerance = Double.parseDouble(baseline.getProperty(
+                        scenario.name + ".tolerance." + metric,
+                        baseline.getProperty("tolerance." + metric, "0.2")));
+                boolean regressed;
+                if (metric.equals("throughput")) {
+                    regressed = value < baseValue * (1 - tolerance);
+                }
+                else if (metric.equals("allocBytes")) {
+                    regressed = value > baseValue * (1 + tolerance) + ALLOC_SLACK_BYTES;
+                }
+                else {
+                    regressed = value > baseValue * (1 + tolerance);
+                }
+                String line = String.format(Locale.ROOT, "%s: %s (baseline %s, tolerance %.0f%%)",
+                        key, result, base, tolerance * 100);
+                System.out.println((regressed ? "REGRESSED " : "ok        ") + line);
+                if (regressed) {
+                    regressions.add(line);
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6g", value);
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        return properties;
+    }
+
+    /** Store the properties sorted by key, so the baseline diffs well. */
+    private static void store(Properties properties, Path file, String comment) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        StringBuilder sb = new StringBuilder("# ").append(comment).append('\n');
+        new TreeMap<>(properties).forEach((key, value) ->
+                sb.append(key).append('=').append(value).append('\n'));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+}
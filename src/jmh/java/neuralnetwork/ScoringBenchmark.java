@@ -0,0 +1,85 @@
+package neuralnetwork;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.train.NeuralNetworkEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scoring of one sample by the heap network, the compiled network and
+ * the memory-mapped network holding the same weights.
+ * @author Konstantin Zhdanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+    @Param({"16"})
+    public int nInputs;
+
+    @Param({"32", "256,256"})
+    public String hiddenLayerSizes;
+
+    @Param({"4"})
+    public int nOutputs;
+
+    private Path file;
+    private NeuralNetworkEvaluator heap;
+    private CompiledNeuralNetwork compiled;
+    private MappedNeuralNetwork mapped;
+    private double[] input;
+
+    @Setup
+    public void setup() throws IOException {
+        NeuralNetwork nn = BenchmarkData.network(nInputs, hiddenLayerSizes, nOutputs);
+        file = Files.createTempFile("scoring", ".nnb");
+        NeuralNetworkFormat.write(nn, file);
+        heap = new NeuralNetworkEvaluator(nn);
+        compiled = CompiledNeuralNetwork.of(nn);
+        mapped = MappedNeuralNetwork.map(file);
+        input = BenchmarkData.samples(1, nInputs, 1)[0];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        // The mapping may keep the file open on some platforms
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public double[] heap() {
+        return heap.getOutput(input);
+    }
+
+    @Benchmark
+    public double[] compiled() {
+        return compiled.getOutput(input);
+    }
+
+    @Benchmark
+    public double[] mapped() {
+        return mapped.getOutput(input);
+    }
+}
@@ -0,0 +1,73 @@
+package neuralnetwork.samples;
+
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Normalization of a data set by both normalizers. The normalizers work
+ * in place, so every invocation first restores the raw samples; {@code copy}
+ * measures that restoring alone.
+ * @author Konstantin Zhdanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NormalizerBenchmark {
+
+    @Param({"1000", "100000"})
+    public int nSamples;
+
+    @Param({"16"})
+    public int sampleSize;
+
+    private double[][] raw;
+    private double[][] samples;
+    private NeuralNetworkSamplesNormalizer asym;
+    private NeuralNetworkSamplesNormalizer sym;
+
+    @Setup
+    public void setup() {
+        raw = BenchmarkData.samples(nSamples, sampleSize, 1);
+        samples = new double[nSamples][sampleSize];
+        asym = new NeuralNetworkSamplesNormalizerAsym(raw);
+        sym = new NeuralNetworkSamplesNormalizerSym(raw);
+    }
+
+    private double[][] restore() {
+        for (int i = 0; i < nSamples; i++) {
+            System.arraycopy(raw[i], 0, samples[i], 0, sampleSize);
+        }
+        return samples;
+    }
+
+    @Benchmark
+    public double[][] copy() {
+        return restore();
+    }
+
+    @Benchmark
+    public double[][] asym() {
+        asym.normalize(restore());
+        return samples;
+    }
+
+    @Benchmark
+    public double[][] sym() {
+        sym.normalize(restore());
+        return samples;
+    }
+}
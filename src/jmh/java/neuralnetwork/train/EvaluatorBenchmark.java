@@ -0,0 +1,76 @@
+package neuralnetwork.train;
+
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.BenchmarkData;
+import neuralnetwork.NeuralNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Forward and backward passes of {@code NeuralNetworkEvaluator} on one sample.
+ * @author Konstantin Zhdanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluatorBenchmark {
+
+    @Param({"8", "64"})
+    public int nInputs;
+
+    @Param({"16", "64,64"})
+    public String hiddenLayerSizes;
+
+    @Param({"4"})
+    public int nOutputs;
+
+    private NeuralNetworkEvaluator evaluator;
+    private NeuralNetworkWeights weights;
+    private NeuralNetworkResponse response;
+    private double[] input;
+    private double[] target;
+
+    @Setup
+    public void setup() {
+        NeuralNetwork nn = BenchmarkData.network(nInputs, hiddenLayerSizes, nOutputs);
+        evaluator = new NeuralNetworkEvaluator(nn);
+        weights = NeuralNetworkWeights.newOf(nn);
+        input = BenchmarkData.samples(1, nInputs, 1)[0];
+        target = BenchmarkData.samples(1, nOutputs, 2)[0];
+        response = evaluator.evaluateWithWeights(input, weights);
+    }
+
+    @Benchmark
+    public double[] getOutput() {
+        return evaluator.getOutput(input);
+    }
+
+    @Benchmark
+    public NeuralNetworkResponse evaluateWithWeights() {
+        return evaluator.evaluateWithWeights(input, weights);
+    }
+
+    /** Backward pass only, on a precomputed response. */
+    @Benchmark
+    public NeuralNetworkWeights weightsDerivative() {
+        return evaluator.weightsDerivative(input, target, response);
+    }
+
+    /** Forward and backward pass. */
+    @Benchmark
+    public NeuralNetworkWeights evaluateAndWeightsDerivative() {
+        return evaluator.weightsDerivative(input, target);
+    }
+}
@@ -0,0 +1,142 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.BenchmarkData;
+import neuralnetwork.NeuralNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of one SGD epoch with the number of threads. {@code hogwild} runs
+ * an epoch of {@code HOGWILD_SGD}, where the threads update the shared weights
+ * without locks. {@code synchronous} is the synchronous data-parallel baseline:
+ * every mini-batch is split among the threads, which sum the gradients for
+ * the same weights, and the averaged gradient is applied after all threads
+ * are done. Both process every sample once per operation, so the samples per
+ * second are {@code nSamples} divided by the time of an operation.
+ * <p>{@code hogwild} includes the engine's setup and its thread pool,
+ * {@code synchronous} uses a pool created once per trial.</p>
+ * @author Konstantin Zhdanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSgdBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int numThreads;
+
+    @Param({"16"})
+    public int nInputs;
+
+    @Param({"32", "64,32"})
+    public String hiddenLayerSizes;
+
+    @Param({"10000"})
+    public int nSamples;
+
+    /** Samples per update of the synchronous baseline. */
+    @Param({"256"})
+    public int batchSize;
+
+    @Param({"0.5"})
+    public double learningRate;
+
+    private NeuralNetwork nn;
+    private double[][] inputs;
+    private double[][] targets;
+    private NeuralNetworkEvaluator evaluator;
+    private NeuralNetworkWeights weights;
+    private NeuralNetworkWeights[] threadGradients;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        nn = BenchmarkData.network(nInputs, hiddenLayerSizes, 1);
+        inputs = BenchmarkData.samples(nSamples, nInputs, 1);
+        targets = new double[nSamples][1];
+        // The same smooth target as TrainingBenchmark
+        for (int i = 0; i < nSamples; i++) {
+            double sum = 0;
+            for (double value : inputs[i]) {
+                sum += value;
+            }
+            targets[i][0] = 0.5 + 0.4 * Math.sin(sum);
+        }
+        evaluator = new NeuralNetworkEvaluator(nn);
+        weights = NeuralNetworkWeights.newOf(nn);
+        threadGradients = new NeuralNetworkWeights[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threadGradients[i] = new NeuralNetworkWeights(weights);
+        }
+        executor = TrainerExecutors.newFixedExecutor(numThreads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public NeuralNetwork hogwild() throws Exception {
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.HOGWILD_SGD;
+        opts.maxEpoch = 1;
+        opts.performanceGoal = 0;
+        opts.numThreads = numThreads;
+        opts.learningRate = learningRate;
+        // All samples are used for training, as by the synchronous baseline
+        opts.trainSamplesRatio = 100;
+        return new NeuralNetworkTrainerWorker(nn, inputs, targets, opts, false).call();
+    }
+
+    @Benchmark
+    public NeuralNetworkWeights synchronous() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(numThreads);
+        for (int batchFrom = 0; batchFrom < nSamples; batchFrom += batchSize) {
+            int batchTo = Math.min(nSamples, batchFrom + batchSize);
+            int chunkSize = (batchTo - batchFrom + numThreads - 1) / numThreads;
+            futures.clear();
+            for (int threadNum = 0; threadNum < numThreads; threadNum++) {
+                final NeuralNetworkWeights gradient = threadGradients[threadNum].multiply(0.0);
+                final int from = batchFrom + threadNum * chunkSize;
+                final int to = Math.min(batchTo, from + chunkSize);
+                Callable<Void> chunk = () -> {
+                    for (int i = from; i < to; i++) {
+                        NeuralNetworkResponse resp = evaluator.evaluateWithWeights(inputs[i], weights);
+                        evaluator.addWeightsDerivative(inputs[i], targets[i], resp, weights, gradient);
+                    }
+                    return null;
+                };
+                futures.add(executor.submit(chunk));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            // The threads' work happens-before this point
+            double step = learningRate / (batchTo - batchFrom);
+            for (NeuralNetworkWeights gradient : threadGradients) {
+                weights.subtract(gradient.multiply(step));
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,98 @@
+package neuralnetwork.train;
+
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.BenchmarkData;
+import neuralnetwork.NeuralNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole trainings run by {@code NeuralNetworkTrainerWorker} on the calling
+ * thread. {@code epochs} measures a fixed number of epochs (one SCG epoch by
+ * default, including the engine's setup), {@code timeToTarget} measures the
+ * time to reach {@code performanceGoal}, which compares the algorithms.
+ * <p>The samples are shared by the workers and not copied.</p>
+ * @author Konstantin Zhdanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TrainingBenchmark {
+
+    @Param({"SCG"})
+    public TrainingAlgorithm algorithm;
+
+    @Param({"16"})
+    public int nInputs;
+
+    @Param({"32", "64,32"})
+    public String hiddenLayerSizes;
+
+    @Param({"1000", "10000"})
+    public int nSamples;
+
+    @Param({"1"})
+    public int epochs;
+
+    /** Number of threads of the parallel algorithms. */
+    @Param({"1"})
+    public int numThreads;
+
+    @Param({"1e-3"})
+    public double performanceGoal;
+
+    private NeuralNetwork nn;
+    private double[][] inputs;
+    private double[][] targets;
+
+    @Setup
+    public void setup() {
+        nn = BenchmarkData.network(nInputs, hiddenLayerSizes, 1);
+        inputs = BenchmarkData.samples(nSamples, nInputs, 1);
+        targets = new double[nSamples][1];
+        // A smooth target the network can learn
+        for (int i = 0; i < nSamples; i++) {
+            double sum = 0;
+            for (double value : inputs[i]) {
+                sum += value;
+            }
+            targets[i][0] = 0.5 + 0.4 * Math.sin(sum);
+        }
+    }
+
+    private NeuralNetworkTrainer.Options options(int maxEpoch, double goal) {
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = algorithm;
+        opts.maxEpoch = maxEpoch;
+        opts.performanceGoal = goal;
+        opts.numThreads = numThreads;
+        return opts;
+    }
+
+    @Benchmark
+    public NeuralNetwork epochs() throws Exception {
+        return new NeuralNetworkTrainerWorker(nn, inputs, targets,
+                options(epochs, 0), false).call();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public NeuralNetwork timeToTarget() throws Exception {
+        return new NeuralNetworkTrainerWorker(nn, inputs, targets,
+                options(100000, performanceGoal), false).call();
+    }
+}
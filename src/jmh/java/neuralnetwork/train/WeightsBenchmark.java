@@ -0,0 +1,83 @@
+package neuralnetwork.train;
+
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.BenchmarkData;
+import neuralnetwork.NeuralNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vector operations of {@code NeuralNetworkWeights} used by the optimizers.
+ * The in-place operations alternate signs so the values stay bounded.
+ * @author Konstantin Zhdanov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightsBenchmark {
+
+    @Param({"16", "64,64", "256,256"})
+    public String hiddenLayerSizes;
+
+    @Param({"64"})
+    public int nInputs;
+
+    private NeuralNetworkWeights weights;
+    private NeuralNetworkWeights other;
+    private double[] values;
+
+    @Setup
+    public void setup() {
+        NeuralNetwork nn = BenchmarkData.network(nInputs, hiddenLayerSizes, 4);
+        weights = NeuralNetworkWeights.newOf(nn);
+        other = new NeuralNetworkWeights(weights).multiply(0.5);
+        values = weights.toArray();
+    }
+
+    @Benchmark
+    public NeuralNetworkWeights addSubtract() {
+        return weights.add(other).subtract(other);
+    }
+
+    @Benchmark
+    public NeuralNetworkWeights multiply() {
+        return weights.multiply(-1.0);
+    }
+
+    @Benchmark
+    public double dot() {
+        return weights.dot(other);
+    }
+
+    @Benchmark
+    public double norm() {
+        return weights.norm();
+    }
+
+    @Benchmark
+    public NeuralNetworkWeights copy() {
+        return new NeuralNetworkWeights(weights);
+    }
+
+    @Benchmark
+    public double[] toArray() {
+        return weights.toArray();
+    }
+
+    @Benchmark
+    public NeuralNetworkWeights setFromArray() {
+        return weights.setFromArray(values);
+    }
+}
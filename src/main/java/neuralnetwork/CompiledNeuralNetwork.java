@@ -0,0 +1,219 @@
+package neuralnetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable neural network for inference holding its weights and biases
+ * in one flat array, in the order of {@code NeuralNetworkFormat}.
+ * Instances are thread-safe and can be shared by any number of readers.
+ * @author Konstantin Zhdanov
+ */
+public final class CompiledNeuralNetwork {
+
+    private final int[] hiddenLayerSizes;
+    private final ActivationFunction activationFcn;
+    private final String name;
+
+    /** Weights and biases: for every neuron its weights and then its bias. */
+    private final double[] parameters;
+
+    /** Sizes of the layers from the inputs to the outputs. */
+    private final int[] layerSizes;
+
+    private CompiledNeuralNetwork(int nInputs, int[] hiddenLayerSizes, int nOutputs,
+            ActivationFunction activationFcn, String name, double[] parameters) {
+        this.hiddenLayerSizes = hiddenLayerSizes;
+        this.activationFcn = activationFcn;
+        this.name = name;
+        this.parameters = parameters;
+        this.layerSizes = new int[hiddenLayerSizes.length + 2];
+        layerSizes[0] = nInputs;
+        System.arraycopy(hiddenLayerSizes, 0, layerSizes, 1, hiddenLayerSizes.length);
+        layerSizes[layerSizes.length - 1] = nOutputs;
+    }
+
+    /**
+     * Create a compiled copy of the {@link nn}. Later changes of {@link nn}
+     * don't affect the copy.
+     * @param nn Network to copy.
+     * @return A new compiled network with the name of {@link nn} if it is
+     * a {@code NamedNeuralNetwork}.
+     * @throws NullPointerException if {@link nn} is null.
+     */
+    public static CompiledNeuralNetwork of(NeuralNetwork nn) {
+        if (nn == null) {
+            throw new NullPointerException("Neural network cannot be null");
+        }
+        int[] hiddenLayerSizes = nn.getHiddenLayerSizes();
+        double[] parameters = new double[NeuralNetworkFormat.parameterCount(
+                nn.getNumberInputs(), hiddenLayerSizes, nn.getNumberOutputs())];
+        int pos = 0;
+        for (int layerNum = 0; layerNum <= hiddenLayerSizes.length; layerNum++) {
+            double[] biases = nn.layerBiases(layerNum);
+            for (int neuronNum = 0; neuronNum < biases.length; neuronNum++) {
+                double[] weights = nn.neuronWeights(layerNum, neuronNum);
+                System.arraycopy(weights, 0, parameters, pos, weights.length);
+                pos += weights.length;
+                parameters[pos++] = biases[neuronNum];
+            }
+        }
+        String name = nn instanceof NamedNeuralNetwork ? ((NamedNeuralNetwork)nn).getName() : null;
+        return new CompiledNeuralNetwork(nn.getNumberInputs(), hiddenLayerSizes,
+                nn.getNumberOutputs(), nn.getActivationFunction(), name, parameters);
+    }
+
+    /**
+     * Read a compiled network from a file written by {@code NeuralNetworkFormat}.
+     * The weights and biases are transferred in bulk without creating
+     * a {@code NeuralNetwork}.
+     * @param file Path of the file.
+     * @return A new compiled network.
+     * @throws IOException if an I/O error occurs, the file is not a valid model
+     * or its checksum doesn't match.
+     * @throws NullPointerException if {@link file} is null.
+     */
+    public static CompiledNeuralNetwork read(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File cannot be null");
+        }
+        ByteBuffer model;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            model = NeuralNetworkFormat.readModel(channel).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        NeuralNetworkFormat.Header header = NeuralNetworkFormat.Header.parse(model);
+        NeuralNetworkFormat.verifyChecksum(model, header);
+        double[] parameters = new double[header.nParameters];
+        model.position(header.headerLength);
+        model.asDoubleBuffer().get(parameters);
+        return new CompiledNeuralNetwork(header.nInputs, header.hiddenLayerSizes,
+                header.nOutputs, header.activationFcn, header.name, parameters);
+    }
+
+    /**
+     * Number of this network's inputs.
+     * @return an {@code int} value of the number of the inputs.
+     */
+    public int getNumberInputs() {
+        return layerSizes[0];
+    }
+
+    /**
+     * Sizes of this network's hidden layers.
+     * @return A new array of the sizes of the hidden layers.
+     */
+    public int[] getHiddenLayerSizes() {
+        return hiddenLayerSizes.clone();
+    }
+
+    /**
+     * Number of this network's outputs.
+     * @return an {@code int} value of the number of the outputs.
+     */
+    public int getNumberOutputs() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    /**
+     * The activation function used for every neuron of this network.
+     * @return An instance of {@code ActivationFunction}.
+     */
+    public ActivationFunction getActivationFunction() {
+        return activationFcn;
+    }
+
+    /**
+     * Name of this network.
+     * @return The name or {@code null} if the network is not named.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Memory taken by the weights and biases.
+     * @return Number of bytes of the weights and biases.
+     */
+    public long getWeightBytes() {
+        return 8L * parameters.length;
+    }
+
+    /**
+     * Compute the network's response on the {@link input}.
+     * @param input Values of the inputs.
+     * @return A new array of the outputs' values.
+     * @throws NullPointerException if {@link input} is null.
+     * @throws IllegalArgumentException if the size of {@link input} differs
+     * from the number of inputs.
+     */
+    public double[] getOutput(double[] input) {
+        if (input == null) {
+            throw new NullPointerException("Input cannot be null");
+        }
+        if (input.length != layerSizes[0]) {
+            throw new IllegalArgumentException("Input must be "
+                    + "the same size as the number of inputs of the neural network");
+        }
+        double[] prevLayerResults = input;
+        int pos = 0;
+        for (int layerNum = 1; layerNum < layerSizes.length; layerNum++) {
+            double[] layerResults = new double[layerSizes[layerNum]];
+            for (int neuronNum = 0; neuronNum < layerResults.length; neuronNum++) {
+                double sum = 0.0;
+                for (int prevLayerNeuron = 0; prevLayerNeuron < prevLayerResults.length; prevLayerNeuron++) {
+                    sum += parameters[pos++] * prevLayerResults[prevLayerNeuron];
+                }
+                sum += parameters[pos++];
+                layerResults[neuronNum] = activationFcn.valueAt(sum);
+            }
+            prevLayerResults = layerResults;
+        }
+        return prevLayerResults;
+    }
+
+    /**
+     * Copy this network into a mutable one.
+     * @return A new {@code NamedNeuralNetwork} if this network is named,
+     * a new {@code NeuralNetwork} otherwise.
+     */
+    public NeuralNetwork toNeuralNetwork() {
+        NeuralNetwork nn = name != null
+                ? new NamedNeuralNetwork(getNumberInputs(), hiddenLayerSizes, getNumberOutputs(), name)
+                : new NeuralNetwork(getNumberInputs(), hiddenLayerSizes, getNumberOutputs());
+        nn.setActivationFunction(activationFcn);
+        int pos = 0;
+        for (int layerNum = 0; layerNum <= hiddenLayerSizes.length; layerNum++) {
+            double[] biases = nn.layerBiases(layerNum);
+            for (int neuronNum = 0; neuronNum < biases.length; neuronNum++) {
+                double[] weights = nn.neuronWeights(layerNum, neuronNum);
+                System.arraycopy(parameters, pos, weights, 0, weights.length);
+                pos += weights.length;
+                biases[neuronNum] = parameters[pos++];
+            }
+        }
+        return nn;
+    }
+
+    /**
+     * Get a {@code String} representation of this network's structure
+     * in the format of {@code NeuralNetwork.getSignature()}.
+     * @return {@code String} representing this network's structure.
+     */
+    public String getSignature() {
+        StringBuilder sb = new StringBuilder("(");
+        for (int size : layerSizes) {
+            sb.append(size).append(", ");
+        }
+        sb.setLength(sb.length() - 2);
+        return sb.append(")").toString();
+    }
+
+    @Override
+    public String toString() {
+        return name != null ? String.format("%s %s", name, getSignature()) : getSignature();
+    }
+}
@@ -0,0 +1,205 @@
+package neuralnetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only neural network for inference whose weights and biases are not
+ * copied to the heap but read directly from a memory-mapped model file
+ * written by {@code NeuralNetworkFormat}. The pages of the file are shared
+ * by all processes mapping it, and opening a model only parses its header.
+ * <p>The file must not be modified while it is mapped. Instances are
+ * thread-safe.</p>
+ * @author Konstantin Zhdanov
+ */
+public final class MappedNeuralNetwork {
+
+    private final NeuralNetworkFormat.Header header;
+
+    /** Weights and biases in the order of the model file. */
+    private final DoubleBuffer parameters;
+
+    /** Index of the first parameter of every layer. */
+    private final int[] layerOffsets;
+
+    /** Sizes of the layers from the inputs to the outputs. */
+    private final int[] layerSizes;
+
+    private MappedNeuralNetwork(NeuralNetworkFormat.Header header, ByteBuffer model) {
+        this.header = header;
+        ByteBuffer weights = model.duplicate();
+        weights.position(header.headerLength).limit(header.headerLength + 8 * header.nParameters);
+        this.parameters = weights.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+        int nHiddenLayers = header.hiddenLayerSizes.length;
+        layerSizes = new int[nHiddenLayers + 2];
+        layerSizes[0] = header.nInputs;
+        System.arraycopy(header.hiddenLayerSizes, 0, layerSizes, 1, nHiddenLayers);
+        layerSizes[nHiddenLayers + 1] = header.nOutputs;
+        layerOffsets = new int[nHiddenLayers + 1];
+        int offset = 0;
+        for (int layerNum = 0; layerNum <= nHiddenLayers; layerNum++) {
+            layerOffsets[layerNum] = offset;
+            offset += layerSizes[layerNum + 1] * (layerSizes[layerNum] + 1);
+        }
+    }
+
+    /**
+     * Map a model file verifying its checksum.
+     * @param file Path of a file written by {@code NeuralNetworkFormat}.
+     * @return A new mapped network.
+     * @throws IOException if an I/O error occurs, the file is not a valid model
+     * or its checksum doesn't match.
+     * @throws NullPointerException if {@link file} is null.
+     */
+    public static MappedNeuralNetwork map(Path file) throws IOException {
+        return map(file, true);
+    }
+
+    /**
+     * Map a model file.
+     * @param file Path of a file written by {@code NeuralNetworkFormat}.
+     * @param verifyChecksum Whether to verify the checksum, which reads the whole
+     * file. If {@code false}, only the header is read.
+     * @return A new mapped network.
+     * @throws IOException if an I/O error occurs, the file is not a valid model
+     * or its checksum is verified and doesn't match.
+     * @throws NullPointerException if {@link file} is null.
+     */
+    public static MappedNeuralNetwork map(Path file, boolean verifyChecksum) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File cannot be null");
+        }
+        MappedByteBuffer model;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            model = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        model.order(ByteOrder.LITTLE_ENDIAN);
+        NeuralNetworkFormat.Header header = NeuralNetworkFormat.Header.parse(model);
+        if (verifyChecksum) {
+            NeuralNetworkFormat.verifyChecksum(model, header);
+        }
+        else if (model.limit() < header.modelLength()) {
+            throw new IOException("Truncated model");
+        }
+        return new MappedNeuralNetwork(header, model);
+    }
+
+    /**
+     * Number of this network's inputs.
+     * @return an {@code int} value of the number of the inputs.
+     */
+    public int getNumberInputs() {
+        return header.nInputs;
+    }
+
+    /**
+     * Sizes of this network's hidden layers.
+     * @return A new array of the sizes of the hidden layers.
+     */
+    public int[] getHiddenLayerSizes() {
+        return header.hiddenLayerSizes.clone();
+    }
+
+    /**
+     * Number of this network's outputs.
+     * @return an {@code int} value of the number of the outputs.
+     */
+    public int getNumberOutputs() {
+        return header.nOutputs;
+    }
+
+    /**
+     * The activation function used for every neuron of this network.
+     * @return The {@code ActivationFunction} stored in the model.
+     */
+    public ActivationFunction getActivationFunction() {
+        return header.activationFcn;
+    }
+
+    /**
+     * Name of this network.
+     * @return The stored name or {@code null} if the stored network is not named.
+     */
+    public String getName() {
+        return header.name;
+    }
+
+    /**
+     * Compute the network's response on the {@link input}.
+     * @param input Values of the inputs.
+     * @return A new array of the outputs' values.
+     * @throws NullPointerException if {@link input} is null.
+     * @throws IllegalArgumentException if the size of {@link input} differs
+     * from the number of inputs.
+     */
+    public double[] getOutput(double[] input) {
+        if (input == null) {
+            throw new NullPointerException("Input cannot be null");
+        }
+        if (input.length != header.nInputs) {
+            throw new IllegalArgumentException("Input must be "
+                    + "the same size as the number of inputs of the neural network");
+        }
+        ActivationFunction fcn = header.activationFcn;
+        double[] prevLayerResults = input;
+        for (int layerNum = 0; layerNum < layerOffsets.length; layerNum++) {
+            int prevLayerSize = layerSizes[layerNum];
+            double[] layerResults = new double[layerSizes[layerNum + 1]];
+            int pos = layerOffsets[layerNum];
+            for (int neuronNum = 0; neuronNum < layerResults.length; neuronNum++) {
+                double sum = 0.0;
+                for (int prevLayerNeuron = 0; prevLayerNeuron < prevLayerSize; prevLayerNeuron++) {
+                    sum += parameters.get(pos++) * prevLayerResults[prevLayerNeuron];
+                }
+                sum += parameters.get(pos++);
+                layerResults[neuronNum] = fcn.valueAt(sum);
+            }
+            prevLayerResults = layerResults;
+        }
+        return prevLayerResults;
+    }
+
+    /**
+     * Copy the network to the heap.
+     * @return A new {@code NamedNeuralNetwork} if the stored network is named,
+     * a new {@code NeuralNetwork} otherwise.
+     */
+    public NeuralNetwork toNeuralNetwork() {
+        NeuralNetwork nn = header.name != null
+                ? new NamedNeuralNetwork(header.nInputs, header.hiddenLayerSizes, header.nOutputs, header.name)
+                : new NeuralNetwork(header.nInputs, header.hiddenLayerSizes, header.nOutputs);
+        nn.setActivationFunction(header.activationFcn);
+        DoubleBuffer in = parameters.duplicate();
+        for (int layerNum = 0; layerNum < layerOffsets.length; layerNum++) {
+            double[] biases = nn.layerBiases(layerNum);
+            for (int neuronNum = 0; neuronNum < biases.length; neuronNum++) {
+                in.get(nn.neuronWeights(layerNum, neuronNum));
+                biases[neuronNum] = in.get();
+            }
+        }
+        return nn;
+    }
+
+    /**
+     * Get a {@code String} representation of this network's structure
+     * in the format of {@code NeuralNetwork.getSignature()}.
+     * @return {@code String} representing this network's structure.
+     */
+    public String getSignature() {
+        return header.getSignature();
+    }
+
+    @Override
+    public String toString() {
+        return header.name != null ? String.format("%s %s", header.name, getSignature())
+                : getSignature();
+    }
+}
@@ -1,13 +1,22 @@
 package neuralnetwork;
 
 import neuralnetwork.init.Initializer;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
 /**
  * Neural network with one input layer, at least one hidden layer and one output layer.
  * Inputs and outputs are {@code double}-valued. Activation function is the same for all neurons.
+ * <p>The serialized form keeps the fields of the earlier versions, but the weights
+ * and biases are written after them as one block of doubles instead of
+ * the arrays of arrays. Streams of the earlier versions can still be read.</p>
  * 
  * @author Konstantin Zhdanov
  */
@@ -16,16 +25,16 @@ public class NeuralNetwork implements Serializable {
     private static final long serialVersionUID = 1530372672624601654L;
 
     /** Number of input neurons **/
-    private final int nInputs;
+    private int nInputs;
     
     /** Number of hidden layers of neurons **/
-    private final int nHiddenLayers;
+    private int nHiddenLayers;
     
     /** Sizes of the hidden neurons layers **/
-    private final int[] hiddenLayerSizes;
+    private int[] hiddenLayerSizes;
     
     /** Number of output neurons **/
-    private final int nOutputs;
+    private int nOutputs;
     
     /** Weights of neurons-to-neuron connections **/
     private double[][][] weights;
@@ -215,6 +224,85 @@ public class NeuralNetwork implements Serializable {
         }
     }
     
+    /**
+     * Write the topology and the activation function as serializable fields
+     * and the weights and biases as a block of doubles in the order of
+     * {@code NeuralNetworkFormat}.
+     * @param out Stream to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("nInputs", nInputs);
+        fields.put("nHiddenLayers", nHiddenLayers);
+        fields.put("hiddenLayerSizes", hiddenLayerSizes);
+        fields.put("nOutputs", nOutputs);
+        fields.put("activationFcn", activationFcn);
+        // weights and biases are left null
+        out.writeFields();
+        
+        int nParameters = NeuralNetworkFormat.parameterCount(nInputs, hiddenLayerSizes, nOutputs);
+        ByteBuffer block = ByteBuffer.allocate(8 * nParameters);
+        DoubleBuffer doubles = block.asDoubleBuffer();
+        for (int layerNum = 0; layerNum < weights.length; layerNum++) {
+            for (int neuronNum = 0; neuronNum < weights[layerNum].length; neuronNum++) {
+                doubles.put(weights[layerNum][neuronNum]);
+                doubles.put(biases[layerNum][neuronNum]);
+            }
+        }
+        out.writeInt(nParameters);
+        out.write(block.array());
+    }
+    
+    /**
+     * Read the fields and the block of doubles written by {@code writeObject}
+     * or the fields written by the default serialization of the earlier versions.
+     * @param in Stream to read from.
+     * @throws IOException if an I/O error occurs or the stream is corrupted.
+     * @throws ClassNotFoundException if the activation function's class is not found.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        nInputs = fields.get("nInputs", 0);
+        nHiddenLayers = fields.get("nHiddenLayers", 0);
+        hiddenLayerSizes = (int[])fields.get("hiddenLayerSizes", null);
+        nOutputs = fields.get("nOutputs", 0);
+        activationFcn = (ActivationFunction)fields.get("activationFcn", null);
+        weights = (double[][][])fields.get("weights", null);
+        biases = (double[][])fields.get("biases", null);
+        
+        if (nInputs <= 0 || nOutputs <= 0 || hiddenLayerSizes == null
+                || nHiddenLayers <= 0 || hiddenLayerSizes.length != nHiddenLayers
+                || activationFcn == null) {
+            throw new InvalidObjectException("Invalid neural network");
+        }
+        for (int size : hiddenLayerSizes) {
+            if (size <= 0) {
+                throw new InvalidObjectException("Invalid neural network");
+            }
+        }
+        hiddenLayerSizes = hiddenLayerSizes.clone();
+        if (weights != null && biases != null) {
+            // Stream of an earlier version
+            return;
+        }
+        
+        int nParameters = in.readInt();
+        if (nParameters != NeuralNetworkFormat.parameterCount(nInputs, hiddenLayerSizes, nOutputs)) {
+            throw new InvalidObjectException("Number of parameters doesn't match the topology");
+        }
+        byte[] block = new byte[8 * nParameters];
+        in.readFully(block);
+        init(Initializer.of(0.0, 0.0));
+        DoubleBuffer doubles = ByteBuffer.wrap(block).asDoubleBuffer();
+        for (int layerNum = 0; layerNum < weights.length; layerNum++) {
+            for (int neuronNum = 0; neuronNum < weights[layerNum].length; neuronNum++) {
+                doubles.get(weights[layerNum][neuronNum]);
+                biases[layerNum][neuronNum] = doubles.get();
+            }
+        }
+    }
+    
     /**
      * Number of this network's inputs
      * @return an {@code int} value of the number of the inputs
@@ -350,6 +438,28 @@ public class NeuralNetwork implements Serializable {
         }
     }
     
+    /**
+     * Weights of the connections to the neuron {@link neuronNum} at the layer
+     * {@link layerNum} indexed by the neurons of the layer {@link layerNum} - 1.
+     * Used for bulk reading and writing of the weights.
+     * @param layerNum The layer's index where the neuron {@link neuronNum} is.
+     * @param neuronNum The index of a neuron at the layer {@link layerNum}.
+     * @return The network's own array, not copied.
+     */
+    double[] neuronWeights(int layerNum, int neuronNum) {
+        return weights[layerNum][neuronNum];
+    }
+    
+    /**
+     * Biases of the neurons at the layer {@link layerNum}.
+     * Used for bulk reading and writing of the biases.
+     * @param layerNum The layer's index.
+     * @return The network's own array, not copied.
+     */
+    double[] layerBiases(int layerNum) {
+        return biases[layerNum];
+    }
+    
     /**
      * The activation function used for every neuron of this network.
      * @return An instance of {@code ActivationFunction} representing
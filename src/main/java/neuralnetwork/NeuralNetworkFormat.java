@@ -0,0 +1,513 @@
+package neuralnetwork;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary format of {@code NeuralNetwork} and {@code NamedNeuralNetwork}.
+ * <p>All values are little-endian. A model starts with the header:</p>
+ * <pre>
+ * int     magic number "NNBM"
+ * short   version of the format
+ * short   flags (1 if the network has a name)
+ * int     length of the header in bytes, a multiple of 8
+ * int     number P of weights and biases
+ * int     number of inputs
+ * int     number L of hidden layers
+ * int[L]  sizes of the hidden layers
+ * int     number of outputs
+ * int     length of the activation function's name followed by its UTF-8 bytes
+ * int     length of the network's name followed by its UTF-8 bytes (named networks only)
+ * zero padding up to the length of the header
+ * </pre>
+ * <p>The header is followed by P doubles: for every layer and every neuron
+ * of the layer, the weights of the neuron's incoming connections and then
+ * the neuron's bias. The model ends with the CRC32 checksum of all the
+ * preceding bytes stored as a long.</p>
+ * <p>Only the activation functions enumerated by {@code ActivationFunctions}
+ * can be stored.</p>
+ * @author Konstantin Zhdanov
+ */
+public final class NeuralNetworkFormat {
+
+    /** Magic number, reads "NNBM" in the file. */
+    static final int MAGIC = 0x4D424E4E;
+
+    /** The latest version of the format. */
+    static final short VERSION = 1;
+
+    /** Flag of a model holding the network's name. */
+    static final short FLAG_NAMED = 1;
+
+    /** Length of the header's fields preceding the topology. */
+    private static final int PRELUDE_LENGTH = 16;
+
+    /** Max header length accepted when reading. */
+    private static final int MAX_HEADER_LENGTH = 1 << 20;
+
+    /** Length of the checksum at the end of a model. */
+    private static final int CHECKSUM_LENGTH = 8;
+
+    /**
+     * Header of a model: the topology, the activation function and the name
+     * of the stored network.
+     */
+    public static final class Header {
+        final int headerLength;
+        final int nParameters;
+        final int nInputs;
+        final int[] hiddenLayerSizes;
+        final int nOutputs;
+        final ActivationFunctions activationFcn;
+        /** Name of the network or {@code null} if the network is not named. */
+        final String name;
+
+        private Header(int headerLength, int nParameters, int nInputs, int[] hiddenLayerSizes,
+                int nOutputs, ActivationFunctions activationFcn, String name) {
+            this.headerLength = headerLength;
+            this.nParameters = nParameters;
+            this.nInputs = nInputs;
+            this.hiddenLayerSizes = hiddenLayerSizes;
+            this.nOutputs = nOutputs;
+            this.activationFcn = activationFcn;
+            this.name = name;
+        }
+
+        /**
+         * Number of the stored network's inputs.
+         * @return an {@code int} value of the number of the inputs.
+         */
+        public int getNumberInputs() {
+            return nInputs;
+        }
+
+        /**
+         * Sizes of the stored network's hidden layers.
+         * @return A new array of the sizes of the hidden layers.
+         */
+        public int[] getHiddenLayerSizes() {
+            return hiddenLayerSizes.clone();
+        }
+
+        /**
+         * Number of the stored network's outputs.
+         * @return an {@code int} value of the number of the outputs.
+         */
+        public int getNumberOutputs() {
+            return nOutputs;
+        }
+
+        /**
+         * Activation function of the stored network.
+         * @return One of {@code ActivationFunctions}.
+         */
+        public ActivationFunction getActivationFunction() {
+            return activationFcn;
+        }
+
+        /**
+         * Name of the stored network.
+         * @return The name or {@code null} if the stored network is not named.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Number of the stored weights and biases.
+         * @return an {@code int} number of the parameters.
+         */
+        public int getNumberParameters() {
+            return nParameters;
+        }
+
+        /**
+         * Signature of the stored network in the format of
+         * {@code NeuralNetwork.getSignature()}.
+         * @return {@code String} representing the network's structure.
+         */
+        public String getSignature() {
+            StringBuilder sb = new StringBuilder("(").append(nInputs);
+            for (int size : hiddenLayerSizes) {
+                sb.append(", ").append(size);
+            }
+            return sb.append(", ").append(nOutputs).append(")").toString();
+        }
+
+        /**
+         * Length of the whole model including the checksum.
+         * @return Length in bytes.
+         */
+        long modelLength() {
+            return NeuralNetworkFormat.modelLength(headerLength, nParameters);
+        }
+
+        /**
+         * Parse the header of a model starting at the {@link buffer}'s position.
+         * The {@link buffer}'s position and byte order are not changed.
+         * @param buffer Buffer holding at least the whole header.
+         * @return The parsed header.
+         * @throws IOException if the header is invalid or of an unsupported version.
+         */
+        static Header parse(ByteBuffer buffer) throws IOException {
+            ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            int headerLength = parsePrelude(in);
+            int nParameters = in.getInt(12);
+            if (in.limit() < headerLength) {
+                throw new EOFException("Truncated model header");
+            }
+            in.limit(headerLength).position(PRELUDE_LENGTH);
+            try {
+                int nInputs = in.getInt();
+                int[] hiddenLayerSizes = new int[checkCount(in.getInt(), in.remaining() / 4)];
+                for (int i = 0; i < hiddenLayerSizes.length; i++) {
+                    hiddenLayerSizes[i] = in.getInt();
+                }
+                int nOutputs = in.getInt();
+                String fcnName = getString(in);
+                String name = (in.getShort(6) & FLAG_NAMED) != 0 ? getString(in) : null;
+
+                if (nInputs <= 0 || nOutputs <= 0 || hiddenLayerSizes.length == 0) {
+                    throw new IOException("Invalid network topology");
+                }
+                for (int size : hiddenLayerSizes) {
+                    if (size <= 0) {
+                        throw new IOException("Invalid network topology");
+                    }
+                }
+                if (parameterCount(nInputs, hiddenLayerSizes, nOutputs) != nParameters) {
+                    throw new IOException("Number of parameters doesn't match the topology");
+                }
+                ActivationFunctions activationFcn;
+                try {
+                    activationFcn = ActivationFunctions.valueOf(fcnName);
+                }
+                catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown activation function " + fcnName, e);
+                }
+                return new Header(headerLength, nParameters, nInputs, hiddenLayerSizes,
+                        nOutputs, activationFcn, name);
+            }
+            catch (BufferUnderflowException e) {
+                throw new IOException("Corrupted model header", e);
+            }
+        }
+    }
+
+    private NeuralNetworkFormat() {
+    }
+
+    /**
+     * Write the network to the {@link file} replacing its contents.
+     * @param nn Network to write. If it is a {@code NamedNeuralNetwork}, its name
+     * is written too.
+     * @param file Path of the file.
+     * @throws IOException if an I/O error occurs.
+     * @throws NullPointerException if any argument is null.
+     * @throws IllegalArgumentException if the network's activation function
+     * is not one of {@code ActivationFunctions}.
+     */
+    public static void write(NeuralNetwork nn, Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File cannot be null");
+        }
+        ByteBuffer buffer = encode(nn);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Write the network to the {@link channel}.
+     * @param nn Network to write. If it is a {@code NamedNeuralNetwork}, its name
+     * is written too.
+     * @param channel Channel to write to. Not closed by the call.
+     * @throws IOException if an I/O error occurs.
+     * @throws NullPointerException if any argument is null.
+     * @throws IllegalArgumentException if the network's activation function
+     * is not one of {@code ActivationFunctions}.
+     */
+    public static void write(NeuralNetwork nn, WritableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("Channel cannot be null");
+        }
+        writeFully(channel, encode(nn));
+    }
+
+    /**
+     * Read a network from the {@link file}.
+     * @param file Path of the file.
+     * @return A new {@code NamedNeuralNetwork} if the stored network has a name,
+     * a new {@code NeuralNetwork} otherwise.
+     * @throws IOException if an I/O error occurs, the file is not a valid model
+     * or its checksum doesn't match.
+     * @throws NullPointerException if {@link file} is null.
+     */
+    public static NeuralNetwork read(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    /**
+     * Read the header of the model stored in the {@link file} without
+     * reading the weights and biases.
+     * @param file Path of the file.
+     * @return The header of the model.
+     * @throws IOException if an I/O error occurs or the file is not a valid model.
+     * @throws NullPointerException if {@link file} is null.
+     */
+    public static Header readHeader(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prelude = ByteBuffer.allocate(PRELUDE_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, prelude);
+            ByteBuffer header = ByteBuffer.allocate(parsePrelude(prelude));
+            prelude.flip();
+            header.put(prelude);
+            readFully(channel, header);
+            header.flip();
+            return Header.parse(header);
+        }
+    }
+
+    /**
+     * Read a network from the {@link channel}. Exactly the bytes of one
+     * model are consumed.
+     * @param channel Channel to read from. Not closed by the call.
+     * @return A new {@code NamedNeuralNetwork} if the stored network has a name,
+     * a new {@code NeuralNetwork} otherwise.
+     * @throws IOException if an I/O error occurs, the data is not a valid model
+     * or its checksum doesn't match.
+     * @throws NullPointerException if {@link channel} is null.
+     */
+    public static NeuralNetwork read(ReadableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("Channel cannot be null");
+        }
+        return decode(readModel(channel));
+    }
+
+    /**
+     * Read the bytes of one model from the {@link channel}.
+     * @param channel Channel to read from. Not closed by the call.
+     * @return Heap buffer holding the whole model, positioned at 0.
+     * @throws IOException if an I/O error occurs or the data is not a valid model.
+     */
+    static ByteBuffer readModel(ReadableByteChannel channel) throws IOException {
+        ByteBuffer prelude = ByteBuffer.allocate(PRELUDE_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, prelude);
+        int headerLength = parsePrelude(prelude);
+        long modelLength = modelLength(headerLength, prelude.getInt(12));
+        if (modelLength > Integer.MAX_VALUE) {
+            throw new IOException("Model is too big");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int)modelLength);
+        prelude.flip();
+        buffer.put(prelude);
+        readFully(channel, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encode the network into a new heap buffer.
+     * @param nn Network to encode.
+     * @return Little-endian buffer holding the whole model, positioned at 0.
+     */
+    static ByteBuffer encode(NeuralNetwork nn) {
+        if (nn == null) {
+            throw new NullPointerException("Neural network cannot be null");
+        }
+        if (!(nn.getActivationFunction() instanceof ActivationFunctions)) {
+            throw new IllegalArgumentException("Only ActivationFunctions can be stored");
+        }
+        byte[] fcnName = ((ActivationFunctions)nn.getActivationFunction()).name().
+                getBytes(StandardCharsets.UTF_8);
+        byte[] name = nn instanceof NamedNeuralNetwork
+                ? ((NamedNeuralNetwork)nn).getName().getBytes(StandardCharsets.UTF_8) : null;
+        int[] hiddenLayerSizes = nn.getHiddenLayerSizes();
+        int nParameters = parameterCount(nn.getNumberInputs(), hiddenLayerSizes, nn.getNumberOutputs());
+
+        long unpaddedLength = PRELUDE_LENGTH + 4 * (3L + hiddenLayerSizes.length)
+                + 4 + fcnName.length + (name != null ? 4 + name.length : 0);
+        long headerLength = (unpaddedLength + 7) / 8 * 8;
+        if (nParameters < 0 || headerLength > MAX_HEADER_LENGTH || modelLength((int)headerLength, nParameters) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Neural network is too big to be stored");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int)modelLength((int)headerLength, nParameters)).
+                order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort(name != null ? FLAG_NAMED : 0);
+        buffer.putInt((int)headerLength);
+        buffer.putInt(nParameters);
+        buffer.putInt(nn.getNumberInputs());
+        buffer.putInt(hiddenLayerSizes.length);
+        for (int size : hiddenLayerSizes) {
+            buffer.putInt(size);
+        }
+        buffer.putInt(nn.getNumberOutputs());
+        buffer.putInt(fcnName.length).put(fcnName);
+        if (name != null) {
+            buffer.putInt(name.length).put(name);
+        }
+
+        buffer.position((int)headerLength);
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+        for (int layerNum = 0; layerNum <= hiddenLayerSizes.length; layerNum++) {
+            double[] biases = nn.layerBiases(layerNum);
+            for (int neuronNum = 0; neuronNum < biases.length; neuronNum++) {
+                doubles.put(nn.neuronWeights(layerNum, neuronNum));
+                doubles.put(biases[neuronNum]);
+            }
+        }
+
+        int checksumPos = buffer.capacity() - CHECKSUM_LENGTH;
+        buffer.putLong(checksumPos, checksum(buffer, checksumPos));
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Decode a network from the {@link buffer}'s position.
+     * @param buffer Buffer holding the whole model. Its position and byte order
+     * are not changed.
+     * @return A new {@code NamedNeuralNetwork} if the stored network has a name,
+     * a new {@code NeuralNetwork} otherwise.
+     * @throws IOException if the data is not a valid model or its checksum
+     * doesn't match.
+     */
+    static NeuralNetwork decode(ByteBuffer buffer) throws IOException {
+        Header header = Header.parse(buffer);
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        verifyChecksum(in, header);
+
+        NeuralNetwork nn = header.name != null
+                ? new NamedNeuralNetwork(header.nInputs, header.hiddenLayerSizes, header.nOutputs, header.name)
+                : new NeuralNetwork(header.nInputs, header.hiddenLayerSizes, header.nOutputs);
+        nn.setActivationFunction(header.activationFcn);
+
+        in.position(header.headerLength);
+        DoubleBuffer doubles = in.asDoubleBuffer();
+        for (int layerNum = 0; layerNum <= header.hiddenLayerSizes.length; layerNum++) {
+            double[] biases = nn.layerBiases(layerNum);
+            for (int neuronNum = 0; neuronNum < biases.length; neuronNum++) {
+                doubles.get(nn.neuronWeights(layerNum, neuronNum));
+                biases[neuronNum] = doubles.get();
+            }
+        }
+        return nn;
+    }
+
+    /**
+     * Check the checksum of a model.
+     * @param buffer Little-endian buffer holding the whole model from position 0.
+     * @param header Header of the model.
+     * @throws IOException if the model is truncated or its checksum doesn't match.
+     */
+    static void verifyChecksum(ByteBuffer buffer, Header header) throws IOException {
+        long modelLength = header.modelLength();
+        if (buffer.limit() < modelLength) {
+            throw new EOFException("Truncated model");
+        }
+        int checksumPos = (int)modelLength - CHECKSUM_LENGTH;
+        if (buffer.getLong(checksumPos) != checksum(buffer, checksumPos)) {
+            throw new IOException("Model checksum doesn't match");
+        }
+    }
+
+    /**
+     * Number of weights and biases of a network.
+     * @return The number of parameters or -1 if it doesn't fit an {@code int}.
+     */
+    static int parameterCount(int nInputs, int[] hiddenLayerSizes, int nOutputs) {
+        long count = 0;
+        int prevLayerSize = nInputs;
+        for (int size : hiddenLayerSizes) {
+            count += (long)size * (prevLayerSize + 1);
+            prevLayerSize = size;
+        }
+        count += (long)nOutputs * (prevLayerSize + 1);
+        return count > Integer.MAX_VALUE ? -1 : (int)count;
+    }
+
+    private static long modelLength(int headerLength, int nParameters) {
+        return headerLength + 8L * nParameters + CHECKSUM_LENGTH;
+    }
+
+    /**
+     * Check the magic number, the version and the header length.
+     * @param in Little-endian buffer holding at least the prelude from position 0.
+     * @return The header length.
+     */
+    private static int parsePrelude(ByteBuffer in) throws IOException {
+        if (in.limit() < PRELUDE_LENGTH || in.getInt(0) != MAGIC) {
+            throw new IOException("Not a neural network model");
+        }
+        short version = in.getShort(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported model version " + version);
+        }
+        int headerLength = in.getInt(8);
+        if (headerLength < PRELUDE_LENGTH || headerLength > MAX_HEADER_LENGTH || headerLength % 8 != 0) {
+            throw new IOException("Corrupted model header");
+        }
+        if (in.getInt(12) < 0) {
+            throw new IOException("Corrupted model header");
+        }
+        return headerLength;
+    }
+
+    private static long checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer data = buffer.duplicate();
+        data.position(0).limit(length);
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static String getString(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[checkCount(in.getInt(), in.remaining())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkCount(int count, int max) throws IOException {
+        if (count < 0 || count > max) {
+            throw new IOException("Corrupted model header");
+        }
+        return count;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Truncated model");
+            }
+        }
+    }
+}
@@ -43,6 +43,19 @@ public interface Initializer extends WeightsSupplier, BiasesSupplier{
         return new RandomRangeInitializer(0.0, 1.0, 0.0, 1.0);
     }
     
+    /**
+     * Create instance of {@link Initializer} that initializes all weights
+     * and all biases with pseudorandom {@code double} numbers within range 
+     * {@code [0,1]} generated from the {@code seed}. Initializers created
+     * with equal seeds supply equal sequences of values.
+     * @param seed Seed of the pseudorandom numbers generator.
+     * @return Instance of {@link Initializer} that initializes all weights
+     * and all biases with pseudorandom {@code double} numbers within range {@code [0,1]}.
+     */
+    static Initializer ofStdRandomRange(long seed) {
+        return new RandomRangeInitializer(0.0, 1.0, 0.0, 1.0, seed);
+    }
+    
     /**
      * Create instance of {@link Initializer} that initializes all weights
      * with random {@code double} numbers within range 
@@ -66,6 +79,29 @@ public interface Initializer extends WeightsSupplier, BiasesSupplier{
                 minWeightsValue, maxWeightsValue, 
                 minBiasesValue, maxBiasesValue);
     }
+    
+    /**
+     * Create instance of {@link Initializer} that initializes all weights
+     * with pseudorandom {@code double} numbers within range 
+     * {@code [minWeightsValue,maxWeightsValue]} and
+     * all biases with pseudorandom {@code double} numbers within range 
+     * {@code [minBiasesValue,maxBiasesValue]}, generated from the {@code seed}.
+     * Initializers created with equal arguments supply equal sequences of values.
+     * @param minWeightsValue Lower bound on random numbers used to initialize weights.
+     * @param maxWeightsValue Upper bound on random numbers used to initialize weights.
+     * @param minBiasesValue Lower bound on random numbers used to initialize biases.
+     * @param maxBiasesValue Upper bound on random numbers used to initialize biases.
+     * @param seed Seed of the pseudorandom numbers generator.
+     * @return Instance of {@link Initializer} that initializes all weights
+     * and all biases with pseudorandom {@code double} numbers within the ranges.
+     */
+    static Initializer ofCustomRandomRange(
+            double minWeightsValue, double maxWeightsValue,
+            double minBiasesValue, double maxBiasesValue, long seed) {
+        return new RandomRangeInitializer(
+                minWeightsValue, maxWeightsValue, 
+                minBiasesValue, maxBiasesValue, seed);
+    }
 }
 
 
@@ -18,6 +18,15 @@ class RandomRangeInitializer implements Initializer {
     final Random biasesRandom;
 
     public RandomRangeInitializer(double minWeightsValue, double maxWeightsValue, double minBiasesValue, double maxBiasesValue) {
+        this(minWeightsValue, maxWeightsValue, minBiasesValue, maxBiasesValue, new Random(), new Random());
+    }
+    
+    public RandomRangeInitializer(double minWeightsValue, double maxWeightsValue, double minBiasesValue, double maxBiasesValue, long seed) {
+        this(minWeightsValue, maxWeightsValue, minBiasesValue, maxBiasesValue, new Random(seed), new Random(seed));
+    }
+    
+    private RandomRangeInitializer(double minWeightsValue, double maxWeightsValue, double minBiasesValue, double maxBiasesValue,
+            Random weightsRandom, Random biasesRandom) {
         if (    minWeightsValue >= maxWeightsValue ||
                 minBiasesValue >= maxBiasesValue     ) {
             throw new IllegalArgumentException("Min values must be less than max values");
@@ -28,8 +37,8 @@ class RandomRangeInitializer implements Initializer {
         weightsRange = maxWeightsValue - this.minWeightsValue;
         biasesRange = maxBiasesValue - this.minBiasesValue;
         
-        weightsRandom = new Random();
-        biasesRandom = new Random();
+        this.weightsRandom = weightsRandom;
+        this.biasesRandom = biasesRandom;
     }
     
     @Override
@@ -0,0 +1,410 @@
+package neuralnetwork.serving;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import neuralnetwork.CompiledNeuralNetwork;
+import neuralnetwork.NeuralNetworkFormat;
+
+/**
+ * Registry of the models stored in a directory by {@code NeuralNetworkFormat}.
+ * The models are indexed by their names and signatures (see
+ * {@code NeuralNetwork.getSignature()}); a model without a name is indexed
+ * by its file name without the extension. A model is read and compiled on
+ * its first use and kept in a cache bounded by the total size of the cached
+ * weights and biases, from which the least recently used models are evicted.
+ * <p>Concurrent requests of a model that is being loaded wait for the same
+ * load. Instances are thread-safe.</p>
+ * @author Konstantin Zhdanov
+ */
+public class ModelRegistry {
+
+    /** Snapshot of the registry's counters. */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long loads;
+        private final long evictions;
+        private final int cachedModels;
+        private final long cachedWeightBytes;
+
+        Stats(long hits, long misses, long loads, long evictions,
+                int cachedModels, long cachedWeightBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.loads = loads;
+            this.evictions = evictions;
+            this.cachedModels = cachedModels;
+            this.cachedWeightBytes = cachedWeightBytes;
+        }
+
+        /**
+         * Number of requests served from the cache.
+         * @return {@code long} number of the hits.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Number of requests of models that were not cached, including
+         * the requests that waited for another request's load.
+         * @return {@code long} number of the misses.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Number of models read from the files.
+         * @return {@code long} number of the loads.
+         */
+        public long getLoads() {
+            return loads;
+        }
+
+        /**
+         * Number of models evicted from the cache.
+         * @return {@code long} number of the evictions.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Number of cached models.
+         * @return {@code int} number of the cached models.
+         */
+        public int getCachedModels() {
+            return cachedModels;
+        }
+
+        /**
+         * Total size of the cached weights and biases.
+         * @return {@code long} number of bytes.
+         */
+        public long getCachedWeightBytes() {
+            return cachedWeightBytes;
+        }
+    }
+
+    /** Builder for {@code ModelRegistry}. */
+    public static class Builder {
+        private final Path directory;
+        private String glob = "*.nnb";
+        private long maxWeightBytes = 256L * 1024 * 1024;
+
+        /**
+         * Create a builder of a registry of the models stored in the {@link directory}.
+         * @param directory Directory of the model files.
+         * @throws NullPointerException if {@link directory} is null.
+         */
+        public Builder(Path directory) {
+            if (directory == null) {
+                throw new NullPointerException("Directory cannot be null");
+            }
+            this.directory = directory;
+        }
+
+        /**
+         * Set the pattern of the model files' names. The default is {@code "*.nnb"}.
+         * @param glob Glob pattern (see {@code FileSystem.getPathMatcher}).
+         * @return This builder.
+         * @throws NullPointerException if {@link glob} is null.
+         */
+        public Builder withGlob(String glob) {
+            if (glob == null) {
+                throw new NullPointerException("Glob cannot be null");
+            }
+            this.glob = glob;
+            return this;
+        }
+
+        /**
+         * Set the max total size of the cached weights and biases.
+         * The default is 256 MiB. A model bigger than the limit is returned
+         * but not cached.
+         * @param maxWeightBytes The max number of bytes.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link maxWeightBytes} is nonpositive.
+         */
+        public Builder withMaxWeightBytes(long maxWeightBytes) {
+            if (maxWeightBytes <= 0) {
+                throw new IllegalArgumentException("Max weight bytes cannot be nonpositive");
+            }
+            this.maxWeightBytes = maxWeightBytes;
+            return this;
+        }
+
+        /**
+         * Create the registry and index the directory.
+         * @return A new {@code ModelRegistry}.
+         * @throws IOException if the directory or a model's header cannot be read.
+         */
+        public ModelRegistry build() throws IOException {
+            ModelRegistry registry = new ModelRegistry(this);
+            registry.refresh();
+            return registry;
+        }
+    }
+
+    /** Name and signature of a model. */
+    private static final class Key {
+        final String name;
+        final String signature;
+
+        Key(String name, String signature) {
+            this.name = name;
+            this.signature = signature;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return name.equals(other.name) && signature.equals(other.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + signature.hashCode();
+        }
+    }
+
+    private final Path directory;
+    private final String glob;
+    private final long maxWeightBytes;
+
+    /** Files of the models by name and signature. */
+    private volatile Map<Key, Path> index = Collections.emptyMap();
+
+    /** Signatures of the models by name. */
+    private volatile Map<String, List<String>> signatures = Collections.emptyMap();
+
+    /** Cached models in the access order, guarded by itself. */
+    private final LinkedHashMap<Key, CompiledNeuralNetwork> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedWeightBytes = 0;
+
+    /** Loads in progress. */
+    private final ConcurrentHashMap<Key, CompletableFuture<CompiledNeuralNetwork>> loads =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private ModelRegistry(Builder builder) {
+        this.directory = builder.directory;
+        this.glob = builder.glob;
+        this.maxWeightBytes = builder.maxWeightBytes;
+    }
+
+    /**
+     * Index the directory again. Cached models whose files are no longer
+     * indexed are evicted.
+     * @throws IOException if the directory or a model's header cannot be read.
+     */
+    public void refresh() throws IOException {
+        Map<Key, Path> newIndex = new HashMap<>();
+        Map<String, List<String>> newSignatures = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                NeuralNetworkFormat.Header header = NeuralNetworkFormat.readHeader(file);
+                String name = header.getName() != null ? header.getName() : baseName(file);
+                Key key = new Key(name, header.getSignature());
+                if (newIndex.put(key, file) != null) {
+                    throw new IOException("Duplicate model " + name + " " + key.signature);
+                }
+                newSignatures.computeIfAbsent(name, (k) -> new ArrayList<>()).add(key.signature);
+            }
+        }
+        synchronized (cache) {
+            index = newIndex;
+            signatures = newSignatures;
+            Iterator<Map.Entry<Key, CompiledNeuralNetwork>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, CompiledNeuralNetwork> entry = it.next();
+                if (!newIndex.containsKey(entry.getKey())) {
+                    cachedWeightBytes -= entry.getValue().getWeightBytes();
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Names of the indexed models.
+     * @return A new sorted set of the names.
+     */
+    public Set<String> getNames() {
+        return new TreeSet<>(signatures.keySet());
+    }
+
+    /**
+     * Get the only indexed model with the {@link name}.
+     * @param name Name of the model.
+     * @return The compiled model or {@code null} if no model has the {@link name}.
+     * @throws IOException if the model cannot be read.
+     * @throws IllegalArgumentException if several models of different
+     * signatures have the {@link name}.
+     * @throws NullPointerException if {@link name} is null.
+     */
+    public CompiledNeuralNetwork get(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("Name cannot be null");
+        }
+        List<String> nameSignatures = signatures.get(name);
+        if (nameSignatures == null) {
+            return null;
+        }
+        if (nameSignatures.size() > 1) {
+            throw new IllegalArgumentException("Several models are named " + name
+                    + ", the signature must be specified");
+        }
+        return get(name, nameSignatures.get(0));
+    }
+
+    /**
+     * Get the indexed model with the {@link name} and the {@link signature}.
+     * @param name Name of the model.
+     * @param signature Signature of the model.
+     * @return The compiled model or {@code null} if there is no such model.
+     * @throws IOException if the model cannot be read.
+     * @throws NullPointerException if any argument is null.
+     */
+    public CompiledNeuralNetwork get(String name, String signature) throws IOException {
+        if (name == null || signature == null) {
+            throw new NullPointerException("Name and signature cannot be null");
+        }
+        Key key = new Key(name, signature);
+        synchronized (cache) {
+            CompiledNeuralNetwork model = cache.get(key);
+            if (model != null) {
+                hits.incrementAndGet();
+                return model;
+            }
+        }
+        Path file = index.get(key);
+        if (file == null) {
+            return null;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<CompiledNeuralNetwork> load = new CompletableFuture<>();
+        CompletableFuture<CompiledNeuralNetwork> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            CompiledNeuralNetwork model;
+            synchronized (cache) {
+                // Loaded by another request since the cache was checked
+                model = cache.get(key);
+            }
+            if (model == null) {
+                model = CompiledNeuralNetwork.read(file);
+                loadCount.incrementAndGet();
+                put(key, model);
+            }
+            load.complete(model);
+            return model;
+        }
+        catch (IOException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Current values of the registry's counters.
+     * @return A new snapshot of the counters.
+     */
+    public Stats getStats() {
+        synchronized (cache) {
+            return new Stats(hits.get(), misses.get(), loadCount.get(), evictions.get(),
+                    cache.size(), cachedWeightBytes);
+        }
+    }
+
+    private void put(Key key, CompiledNeuralNetwork model) {
+        long bytes = model.getWeightBytes();
+        if (bytes > maxWeightBytes) {
+            return;
+        }
+        synchronized (cache) {
+            if (!index.containsKey(key)) {
+                // Removed by a refresh during the load
+                return;
+            }
+            Iterator<CompiledNeuralNetwork> lru = cache.values().iterator();
+            while (cachedWeightBytes + bytes > maxWeightBytes && lru.hasNext()) {
+                cachedWeightBytes -= lru.next().getWeightBytes();
+                lru.remove();
+                evictions.incrementAndGet();
+            }
+            CompiledNeuralNetwork previous = cache.put(key, model);
+            if (previous != null) {
+                cachedWeightBytes -= previous.getWeightBytes();
+            }
+            cachedWeightBytes += bytes;
+        }
+    }
+
+    private static CompiledNeuralNetwork await(CompletableFuture<CompiledNeuralNetwork> load)
+            throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return load.get();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw new IOException(cause.getMessage(), cause);
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException)cause;
+                    }
+                    throw new UncheckedIOException(new IOException(cause));
+                }
+            }
+        }
+        finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String baseName(Path file) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,121 @@
+package neuralnetwork.serving;
+
+import neuralnetwork.CompiledNeuralNetwork;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.train.Listener;
+import neuralnetwork.train.NeuralNetworkTrainer;
+import neuralnetwork.train.TrainerEvent;
+
+/**
+ * Handle of the model currently used for serving. A new model is published
+ * by replacing a volatile reference to an immutable {@code CompiledNeuralNetwork},
+ * so the readers never block and every request is computed entirely by
+ * either the previous or the new model.
+ * <p>A handle can be subscribed to a {@code NeuralNetworkTrainer} to publish
+ * every network it trains.</p>
+ * @author Konstantin Zhdanov
+ */
+public class ServingModel {
+
+    /** The published model. */
+    private volatile CompiledNeuralNetwork model;
+
+    /** Create a handle without a published model. */
+    public ServingModel() {
+    }
+
+    /**
+     * Create a handle publishing the {@link model}.
+     * @param model Model to publish.
+     * @throws NullPointerException if {@link model} is null.
+     */
+    public ServingModel(CompiledNeuralNetwork model) {
+        publish(model);
+    }
+
+    /**
+     * The published model. Callers making several calls that must be
+     * computed by the same model should get it once and use that instance.
+     * @return The published model or {@code null} if none has been published.
+     */
+    public CompiledNeuralNetwork get() {
+        return model;
+    }
+
+    /**
+     * Publish the {@link model} replacing the current one.
+     * @param model Model to publish.
+     * @return The replaced model or {@code null} if none has been published.
+     * @throws NullPointerException if {@link model} is null.
+     */
+    public CompiledNeuralNetwork publish(CompiledNeuralNetwork model) {
+        if (model == null) {
+            throw new NullPointerException("Model cannot be null");
+        }
+        CompiledNeuralNetwork previous = this.model;
+        this.model = model;
+        return previous;
+    }
+
+    /**
+     * Publish a compiled copy of the {@link nn} replacing the current model.
+     * Later changes of {@link nn} don't affect the published model.
+     * @param nn Network to publish.
+     * @return The replaced model or {@code null} if none has been published.
+     * @throws NullPointerException if {@link nn} is null.
+     */
+    public CompiledNeuralNetwork publish(NeuralNetwork nn) {
+        return publish(CompiledNeuralNetwork.of(nn));
+    }
+
+    /**
+     * Compute the published model's response on the {@link input}.
+     * @param input Values of the inputs.
+     * @return A new array of the outputs' values.
+     * @throws IllegalStateException if no model has been published.
+     * @throws NullPointerException if {@link input} is null.
+     * @throws IllegalArgumentException if the size of {@link input} differs
+     * from the number of the model's inputs.
+     */
+    public double[] getOutput(double[] input) {
+        CompiledNeuralNetwork snapshot = model;
+        if (snapshot == null) {
+            throw new IllegalStateException("No model has been published");
+        }
+        return snapshot.getOutput(input);
+    }
+
+    /**
+     * Publish the network trained by the {@link trainer} every time its
+     * training completes. Canceled trainings are not published.
+     * @param trainer Trainer whose networks to publish.
+     * @return The listener registered with the {@link trainer}, which can be
+     * passed to {@code removeListener} to unsubscribe.
+     * @throws NullPointerException if {@link trainer} is null.
+     */
+    public Listener subscribe(NeuralNetworkTrainer trainer) {
+        if (trainer == null) {
+            throw new NullPointerException("Trainer cannot be null");
+        }
+        Listener listener = new Listener() {
+            @Override
+            public void onTrainingComplete(TrainerEvent event) {
+                // The event's network, the trainer may have started another training
+                NeuralNetwork trained = event.getTrainedNetwork();
+                if (trained != null) {
+                    publish(trained);
+                }
+            }
+
+            @Override
+            public void onTrainingCanceled(TrainerEvent event) {
+            }
+
+            @Override
+            public void onTrainingEpochComplete(TrainerEvent event) {
+            }
+        };
+        trainer.registerListener(listener);
+        return listener;
+    }
+}
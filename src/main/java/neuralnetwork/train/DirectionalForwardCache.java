@@ -0,0 +1,127 @@
+package neuralnetwork.train;
+
+/**
+ * Cache of the first hidden layer's summed inputs of a set of samples for
+ * the points {@code w + alpha*p} of a line in the weights space.
+ * <p>The summed inputs of the first hidden layer are linear in the weights and
+ * biases: {@code z(w + alpha*p) = z(w) + alpha*z(p)}. The cache keeps
+ * {@code z(w)} (the base) and {@code z(p)} (the direction) for every sample,
+ * so evaluating the network at a new point of the line only costs the layers
+ * starting from the first activation. This pays off for networks with
+ * many inputs, where the first layer accounts for most of the computations.</p>
+ * <p>The cache holds {@code 2 * numSamples * firstHiddenLayerSize} values.</p>
+ * @author Konstantin Zhdanov
+ */
+class DirectionalForwardCache {
+
+    /** Evaluator used to compute the first layer's sums. */
+    private final NeuralNetworkEvaluator evaluator;
+
+    /** Samples the sums are cached for. */
+    private final double[][] samples;
+
+    /** Summed inputs of the first hidden layer for the base point {@code w}. */
+    private final double[][] baseSums;
+
+    /** Summed inputs of the first hidden layer for the direction {@code p}. */
+    private final double[][] directionSums;
+
+    /** Whether the direction has been set. */
+    private boolean directionSet = false;
+
+    /**
+     * Create a cache for the {@link samples}. The cache is empty
+     * until {@code setBase} is called.
+     * @param evaluator {@code NeuralNetworkEvaluator} of the network being trained.
+     * @param samples Samples to cache the sums for. The array is not copied.
+     * @param firstLayerSize Size of the first hidden layer of the network.
+     * @throws NullPointerException if {@link evaluator} or {@link samples} is null.
+     * @throws IllegalArgumentException if {@link firstLayerSize} is not positive.
+     */
+    DirectionalForwardCache(NeuralNetworkEvaluator evaluator, double[][] samples,
+            int firstLayerSize) {
+        if (evaluator == null || samples == null) {
+            throw new NullPointerException("Arguments cannot be null");
+        }
+        if (firstLayerSize <= 0) {
+            throw new IllegalArgumentException("Layer size must be positive");
+        }
+        this.evaluator = evaluator;
+        this.samples = samples;
+        this.baseSums = new double[samples.length][firstLayerSize];
+        this.directionSums = new double[samples.length][firstLayerSize];
+    }
+
+    /**
+     * Compute and cache the first layer's sums for the base point {@link weights}.
+     * @param weights Base point {@code w} of the line.
+     */
+    void setBase(NeuralNetworkWeights weights) {
+        fill(baseSums, weights);
+    }
+
+    /**
+     * Compute and cache the first layer's sums for the direction {@link direction}.
+     * @param direction Direction {@code p} of the line.
+     */
+    void setDirection(NeuralNetworkWeights direction) {
+        fill(directionSums, direction);
+        directionSet = true;
+    }
+
+    /**
+     * Move the base point along the direction: {@code w += alpha*p}.
+     * No sample is re-evaluated.
+     * @param alpha Step along the direction.
+     * @throws IllegalStateException if the direction hasn't been set.
+     */
+    void moveBase(double alpha) {
+        checkDirectionSet();
+        for (int sampleNum = 0; sampleNum < baseSums.length; sampleNum++) {
+            double[] base = baseSums[sampleNum];
+            double[] dir = directionSums[sampleNum];
+            for (int neuron = 0; neuron < base.length; neuron++) {
+                base[neuron] += alpha*dir[neuron];
+            }
+        }
+    }
+
+    /**
+     * Summed inputs of the first hidden layer for the sample {@link sampleNum}
+     * at the point {@code w + alpha*p}.
+     * @param sampleNum Index of the sample.
+     * @param alpha Step along the direction. Zero means the base point.
+     * @return A new array of the first layer's summed inputs.
+     * @throws IllegalStateException if {@link alpha} is not zero and
+     * the direction hasn't been set.
+     */
+    double[] inputSumsAt(int sampleNum, double alpha) {
+        double[] base = baseSums[sampleNum];
+        if (alpha == 0.0) {
+            return base.clone();
+        }
+        checkDirectionSet();
+        double[] dir = directionSums[sampleNum];
+        double[] sums = new double[base.length];
+        for (int neuron = 0; neuron < sums.length; neuron++) {
+            sums[neuron] = base[neuron] + alpha*dir[neuron];
+        }
+        return sums;
+    }
+
+    private void fill(double[][] sums, NeuralNetworkWeights weights) {
+        if (weights == null) {
+            throw new NullPointerException("Weights cannot be null");
+        }
+        for (int sampleNum = 0; sampleNum < samples.length; sampleNum++) {
+            double[] sampleSums = evaluator.firstLayerInputSums(samples[sampleNum], weights);
+            System.arraycopy(sampleSums, 0, sums[sampleNum], 0, sampleSums.length);
+        }
+    }
+
+    private void checkDirectionSet() {
+        if (!directionSet) {
+            throw new IllegalStateException("Direction hasn't been set");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package neuralnetwork.train;
+
+/**
+ * Decides which completed epochs are reported to the listeners. An epoch
+ * is reported if all the enabled conditions hold: its number is a multiple
+ * of {@code everyEpochs}, at least {@code intervalNanos} have passed since
+ * the previous report and, if {@code onImprovement} is set, its performance
+ * is better than the best reported one.
+ * <p>Shared by a trainer and its running trainings, so a change takes effect
+ * at the next epoch of the running training; the state of the reports is kept
+ * by each training. Epochs that are not reported cost neither
+ * a {@code TrainerEvent} nor a {@code TrainingMetrics} snapshot; the metrics
+ * of the next reported epoch cover them.</p>
+ * @author Konstantin Zhdanov
+ */
+final class EpochReportPolicy {
+
+    /** Report every this many epochs. */
+    private volatile int everyEpochs;
+
+    /** Min time between the reports (in nanoseconds) or 0 if not limited. */
+    private volatile long intervalNanos;
+
+    /** Whether only the epochs improving the performance are reported. */
+    private volatile boolean onImprovement;
+
+    EpochReportPolicy() {
+        this.everyEpochs = 1;
+        this.intervalNanos = 0;
+        this.onImprovement = false;
+    }
+
+    EpochReportPolicy(EpochReportPolicy src) {
+        this.everyEpochs = src.everyEpochs;
+        this.intervalNanos = src.intervalNanos;
+        this.onImprovement = src.onImprovement;
+    }
+
+    int getEveryEpochs() {
+        return everyEpochs;
+    }
+
+    /**
+     * Report every {@link epochs} epochs.
+     * @param epochs Number of epochs between the reports, 1 to report every epoch.
+     * @throws IllegalArgumentException if {@link epochs} is nonpositive.
+     */
+    void setEveryEpochs(int epochs) {
+        if (epochs <= 0) {
+            throw new IllegalArgumentException("Number of epochs between reports must be positive");
+        }
+        this.everyEpochs = epochs;
+    }
+
+    long getIntervalMillis() {
+        return intervalNanos / 1_000_000L;
+    }
+
+    /**
+     * Report at most once per {@link millis} milliseconds.
+     * @param millis Min time between the reports or 0 if not limited.
+     * @throws IllegalArgumentException if {@link millis} is negative.
+     */
+    void setIntervalMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Time between reports cannot be negative");
+        }
+        this.intervalNanos = millis * 1_000_000L;
+    }
+
+    boolean isOnImprovement() {
+        return onImprovement;
+    }
+
+    /**
+     * Report only the epochs improving the best reported performance.
+     * @param onImprovement Whether only the improving epochs are reported.
+     */
+    void setOnImprovement(boolean onImprovement) {
+        this.onImprovement = onImprovement;
+    }
+
+    /**
+     * Whether to report the epoch.
+     * @param epoch Number of the completed epoch, starting from 1.
+     * @param performance Performance after the epoch.
+     * @param bestReported Best performance reported by the training or
+     * {@code NaN} if none has been reported.
+     * @param lastReportTime Time of the training's previous report or start
+     * (see {@code System.nanoTime}).
+     * @return {@code true} if the epoch is reported.
+     */
+    boolean shouldReport(int epoch, double performance, double bestReported, long lastReportTime) {
+        if (epoch % everyEpochs != 0) {
+            return false;
+        }
+        if (onImprovement && !Double.isNaN(bestReported) && !(performance < bestReported)) {
+            return false;
+        }
+        long interval = intervalNanos;
+        return interval == 0 || System.nanoTime() - lastReportTime >= interval;
+    }
+}
@@ -0,0 +1,125 @@
+package neuralnetwork.train;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of the training and the inference, recorded
+ * along with the JVM's events (GC, CPU load) when enabled in a recording.
+ * <p>The event classes are loaded only if the JVM has the Flight Recorder
+ * (see {@code AVAILABLE}). The callers create an event only if a recording
+ * enables its type (see {@code isEpochEnabled} etc.), so no event object
+ * is allocated while nothing is recorded.</p>
+ * @author Konstantin Zhdanov
+ */
+final class FlightRecorderEvents {
+
+    /** Whether the JVM has the Flight Recorder. */
+    static final boolean AVAILABLE = isAvailable();
+
+    /** Types of the events, loaded only if the JVM has the Flight Recorder. */
+    private static final class Types {
+        static final EventType EPOCH = EventType.getEventType(EpochEvent.class);
+        static final EventType PASS = EventType.getEventType(PassEvent.class);
+        static final EventType CHECKPOINT = EventType.getEventType(CheckpointEvent.class);
+        static final EventType INFERENCE = EventType.getEventType(InferenceEvent.class);
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    /** Whether a recording enables {@code EpochEvent}. */
+    static boolean isEpochEnabled() {
+        return AVAILABLE && Types.EPOCH.isEnabled();
+    }
+
+    /** Whether a recording enables {@code PassEvent}. */
+    static boolean isPassEnabled() {
+        return AVAILABLE && Types.PASS.isEnabled();
+    }
+
+    /** Whether a recording enables {@code CheckpointEvent}. */
+    static boolean isCheckpointEnabled() {
+        return AVAILABLE && Types.CHECKPOINT.isEnabled();
+    }
+
+    /** Whether a recording enables {@code InferenceEvent}. */
+    static boolean isInferenceEnabled() {
+        return AVAILABLE && Types.INFERENCE.isEnabled();
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /** A training epoch, from the end of the previous one. */
+    @Name("neuralnetwork.TrainingEpoch")
+    @Label("Training Epoch")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class EpochEvent extends Event {
+        @Label("Epoch")
+        int epoch;
+
+        @Label("Loss")
+        @Description("Performance on the training set after the epoch")
+        double loss;
+
+        @Label("Lambda")
+        @Description("Damping of the step: the SCG lambda or the Levenberg-Marquardt mu, NaN for the other algorithms")
+        double lambda;
+
+        @Label("Success")
+        @Description("Whether the epoch's step has reduced the loss")
+        boolean success;
+    }
+
+    /** A pass over the training samples. */
+    @Name("neuralnetwork.TrainingPass")
+    @Label("Training Pass")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class PassEvent extends Event {
+        @Label("Kind")
+        @Description("forward if only the loss is computed, gradient if also its gradient")
+        String kind;
+
+        @Label("Samples")
+        int samples;
+    }
+
+    /** Writing a training checkpoint. */
+    @Name("neuralnetwork.TrainingCheckpoint")
+    @Label("Training Checkpoint")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class CheckpointEvent extends Event {
+        @Label("Epoch")
+        int epoch;
+
+        @Label("File")
+        String file;
+    }
+
+    /** Computing the outputs for a batch of inputs. */
+    @Name("neuralnetwork.InferenceBatch")
+    @Label("Inference Batch")
+    @Category({"Neural Network", "Inference"})
+    @StackTrace(false)
+    static final class InferenceEvent extends Event {
+        @Label("Size")
+        @Description("Number of inputs")
+        int size;
+    }
+}
@@ -0,0 +1,181 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import neuralnetwork.util.Randomizer;
+
+/**
+ * Training engine implementing the lock-free asynchronous stochastic gradient
+ * descent, as described in "F. Niu, B. Recht, C. Re, S. J. Wright. Hogwild!:
+ * A Lock-Free Approach to Parallelizing Stochastic Gradient Descent // NIPS 2011".
+ * <p>Every epoch the training set is shuffled and split among the threads.
+ * Each thread reads the shared flat array of weights and biases, computes
+ * the gradient on one sample and writes the update back without any
+ * synchronization, so updates of different threads may overwrite each other.</p>
+ * <p>The threads are joined at the end of every epoch and a consistent snapshot
+ * of the weights is published. The performance reported for an epoch is the
+ * error averaged over the samples as they were processed during the epoch;
+ * the final performance is computed exactly for the final weights.</p>
+ * @author Konstantin Zhdanov
+ */
+class HogwildSgdTrainingEngine extends TrainingEngine {
+
+    /** Number of threads updating the weights. */
+    private final int nThreads;
+
+    /** Step along the antigradient made for every sample. */
+    private final double learningRate;
+
+    /**
+     * The gradient computed by the evaluator is the gradient of the cross-entropy
+     * summed over the outputs, while the performance is averaged over the outputs.
+     */
+    private final double gradientScale;
+
+    /** Weights and biases shared by the threads. */
+    private double[] sharedWeights;
+
+    private final Randomizer randomizer = new Randomizer();
+
+    /**
+     * Create a Hogwild SGD engine.
+     * @param worker Worker running this engine.
+     * @param nThreads Number of threads updating the weights.
+     * @param learningRate Step along the antigradient made for every sample.
+     * @throws IllegalArgumentException if {@link nThreads} or {@link learningRate}
+     * is nonpositive.
+     */
+    HogwildSgdTrainingEngine(NeuralNetworkTrainerWorker worker, int nThreads, double learningRate) {
+        super(worker);
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        if (!(learningRate > 0)) {
+            throw new IllegalArgumentException("Learning rate must be positive");
+        }
+        this.nThreads = Math.max(1, Math.min(nThreads, worker.getTrainSamples().length));
+        this.learningRate = learningRate;
+        this.gradientScale = 1.0 / worker.getNetwork().getNumberOutputs();
+    }
+
+    @Override
+    void runEpochs() {
+        ExecutorService executor = nThreads > 1 ? TrainerExecutors.newFixedExecutor(nThreads) : null;
+        try {
+            sharedWeights = weights.toArray();
+            int nSamples = worker.getTrainSamples().length;
+            int[] samplesOrder = new int[nSamples];
+            for (int i = 0; i < nSamples; i++) {
+                samplesOrder[i] = i;
+            }
+
+            int maxEpoch = worker.getMaxEpoch();
+            for (epochNum = 0; epochNum < maxEpoch; epochNum++) {
+                int[] order = randomizer.getRandomElements(samplesOrder, nSamples, 0, nSamples);
+                long passStart = System.nanoTime();
+                double errorSum = runEpoch(order, executor);
+                // No average gradient, the per-sample updates are the backpropagation
+                worker.getMetricsRecorder().gradientPass(nSamples, 0, 
+                        System.nanoTime() - passStart, 0, Double.NaN);
+                if (worker.cancelRequested()) {
+                    return;
+                }
+                // All updates of the epoch happen-before this point
+                weights = new NeuralNetworkWeights(weights).setFromArray(sharedWeights);
+                performance = errorSum / nSamples;
+
+                worker.notifyEpochComplete(epochNum, performance);
+
+                if (performance < worker.getPerformanceGoal()) {
+                    // Optimum has been found
+                    break;
+                }
+            }
+            performance = worker.performanceOverTrainSetForWeights(weights);
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    int getThreadCount() {
+        return nThreads;
+    }
+
+    /**
+     * Make one pass over the shuffled training set.
+     * @param order Indices of the train samples in the order of processing.
+     * @param executor Executor for the parallel processing or {@code null}
+     * to process the samples in the calling thread.
+     * @return Sum of the samples' errors, or {@code NaN} if the training
+     * has been canceled.
+     */
+    private double runEpoch(int[] order, ExecutorService executor) {
+        if (executor == null) {
+            return processSamples(order, 0, order.length);
+        }
+        List<Future<Double>> futures = new ArrayList<>(nThreads);
+        int chunkSize = (order.length + nThreads - 1) / nThreads;
+        for (int from = 0; from < order.length; from += chunkSize) {
+            final int chunkFrom = from;
+            final int chunkTo = Math.min(order.length, from + chunkSize);
+            Callable<Double> chunk = () -> processSamples(order, chunkFrom, chunkTo);
+            futures.add(executor.submit(chunk));
+        }
+        double errorSum = 0.0;
+        try {
+            for (Future<Double> future : futures) {
+                errorSum += future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            futures.forEach((future) -> future.cancel(true));
+            // Let the worker see the cancellation
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Stochastic gradient descent failed", e.getCause());
+        }
+        return errorSum;
+    }
+
+    private double processSamples(int[] order, int from, int to) {
+        NeuralNetworkEvaluator evaluator = worker.getEvaluator();
+        double[][] samples = worker.getTrainSamples();
+        double[] shared = sharedWeights;
+        NeuralNetworkWeights localWeights = new NeuralNetworkWeights(weights);
+        double errorSum = 0.0;
+        double step = learningRate * gradientScale;
+        for (int i = from; i < to; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if ((i - from) % NeuralNetworkTrainerWorker.PASS_CHUNK_SIZE == 0 
+                    && worker.timeLimitReached()) {
+                // The worker stops the training after the pass
+                break;
+            }
+            int sampleNum = order[i];
+            // Unsynchronized read: may observe other threads' updates partially
+            localWeights.setFromArray(shared);
+            double[] target = worker.getExpectedOutputForTrainSample(sampleNum);
+            NeuralNetworkResponse resp = evaluator.evaluateWithWeights(samples[sampleNum], localWeights);
+            errorSum += NeuralNetworkTrainer.error(resp.getOutputs(), target);
+            double[] gradient = evaluator.weightsDerivative(samples[sampleNum], target, resp, localWeights).toArray();
+            for (int j = 0; j < gradient.length; j++) {
+                if (gradient[j] != 0.0) {
+                    shared[j] -= step * gradient[j];
+                }
+            }
+        }
+        return errorSum;
+    }
+}
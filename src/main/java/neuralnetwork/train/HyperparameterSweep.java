@@ -0,0 +1,334 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * Runner training many configurations (a network to train and a trainer
+ * providing the options) in parallel on one shared dataset and stopping
+ * the unpromising ones early with the asynchronous successive halving
+ * ("L. Li, K. Jamieson, A. Rostamizadeh et al. A System for Massively Parallel
+ * Hyperparameter Tuning // Proceedings of Machine Learning and Systems, 2020").
+ * <p>Rungs are placed at epochs {@code r, r*eta, r*eta^2, ...}, where {@code r}
+ * is the min number of epochs and {@code eta} is the reduction factor. When
+ * a run completes a rung's epoch, its performance is compared with
+ * the performances recorded at this rung by the runs that have reached it before.
+ * The run continues only if it is among the best {@code 1/eta} of them, otherwise
+ * it is canceled like any other training.</p>
+ * <p>The samples are copied and normalized once, by the first configuration's
+ * trainer, and are shared read-only by all runs.</p>
+ * @author Konstantin Zhdanov
+ */
+public class HyperparameterSweep {
+
+    /** Outcome of one configuration's training. */
+    public static class Result {
+        private final int configurationNum;
+        private final NeuralNetworkTrainer trainer;
+        private final NeuralNetwork network;
+        private final TrainerEvent finalEvent;
+        private final boolean stoppedEarly;
+
+        Result(int configurationNum, NeuralNetworkTrainer trainer, NeuralNetwork network,
+                TrainerEvent finalEvent, boolean stoppedEarly) {
+            this.configurationNum = configurationNum;
+            this.trainer = trainer;
+            this.network = network;
+            this.finalEvent = finalEvent;
+            this.stoppedEarly = stoppedEarly;
+        }
+
+        /**
+         * Index of the configuration in the order of addition to the builder.
+         * @return {@code int} index of the configuration.
+         */
+        public int getConfigurationNum() {
+            return configurationNum;
+        }
+
+        /**
+         * The trainer of the configuration.
+         * @return {@code NeuralNetworkTrainer} passed to the builder.
+         */
+        public NeuralNetworkTrainer getTrainer() {
+            return trainer;
+        }
+
+        /**
+         * The trained network, partially trained if the run has been stopped.
+         * @return A new {@code NeuralNetwork} object.
+         */
+        public NeuralNetwork getNetwork() {
+            return network;
+        }
+
+        /**
+         * The number of epochs performed and the final performance of the run.
+         * @return The last {@code TrainerEvent} of the run.
+         */
+        public TrainerEvent getFinalEvent() {
+            return finalEvent;
+        }
+
+        /**
+         * Whether the run has been stopped by the successive halving.
+         * @return {@code true} if the run has been stopped before completing.
+         */
+        public boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+    }
+
+    /** Builder for {@code HyperparameterSweep}. */
+    public static class Builder {
+        private final double[][] inputs;
+        private final double[][] targets;
+        private final List<NeuralNetwork> networks = new ArrayList<>();
+        private final List<NeuralNetworkTrainer> trainers = new ArrayList<>();
+        private TrainingScheduler scheduler = null;
+        private int minEpochs = 10;
+        private int reductionFactor = 2;
+
+        /**
+         * Create a builder of a sweep over the given samples.
+         * @param inputs Samples to use in training as inputs. Not changed by the sweep.
+         * @param targets Desired (ideal) responses on {@link inputs}. Not changed by the sweep.
+         * @throws NullPointerException if any argument is null.
+         * @throws IllegalArgumentException if the numbers of inputs and targets differ.
+         */
+        public Builder(double[][] inputs, double[][] targets) {
+            if (inputs == null || targets == null) {
+                throw new NullPointerException("Samples cannot be null");
+            }
+            if (inputs.length != targets.length) {
+                throw new IllegalArgumentException("Number of input samples and targets must be equal");
+            }
+            this.inputs = inputs;
+            this.targets = targets;
+        }
+
+        /**
+         * Add a configuration to the sweep.
+         * @param nn Network to train.
+         * @param trainer Trainer providing the options of the training.
+         * @return This builder.
+         * @throws NullPointerException if any argument is null.
+         */
+        public Builder addConfiguration(NeuralNetwork nn, NeuralNetworkTrainer trainer) {
+            if (nn == null || trainer == null) {
+                throw new NullPointerException("Configuration cannot be null");
+            }
+            networks.add(nn);
+            trainers.add(trainer);
+            return this;
+        }
+
+        /**
+         * Set the scheduler running the configurations. By default a new
+         * scheduler is created for every {@code run} call.
+         * @param scheduler The scheduler.
+         * @return This builder.
+         * @throws NullPointerException if {@link scheduler} is null.
+         */
+        public Builder withScheduler(TrainingScheduler scheduler) {
+            if (scheduler == null) {
+                throw new NullPointerException("Scheduler cannot be null");
+            }
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Set the epoch of the first rung. The default is 10.
+         * @param minEpochs Number of epochs every run performs before it can be stopped.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link minEpochs} is nonpositive.
+         */
+        public Builder withMinEpochs(int minEpochs) {
+            if (minEpochs <= 0) {
+                throw new IllegalArgumentException("Min number of epochs cannot be nonpositive");
+            }
+            this.minEpochs = minEpochs;
+            return this;
+        }
+
+        /**
+         * Set the factor by which the number of runs is reduced at every rung.
+         * The default is 2.
+         * @param reductionFactor The reduction factor.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link reductionFactor} is less than 2.
+         */
+        public Builder withReductionFactor(int reductionFactor) {
+            if (reductionFactor < 2) {
+                throw new IllegalArgumentException("Reduction factor cannot be less than 2");
+            }
+            this.reductionFactor = reductionFactor;
+            return this;
+        }
+
+        /**
+         * Create the sweep.
+         * @return A new {@code HyperparameterSweep}.
+         * @throws IllegalStateException if no configuration has been added.
+         * @throws IllegalArgumentException if the samples' sizes don't match
+         * a configuration's network.
+         */
+        public HyperparameterSweep build() {
+            if (networks.isEmpty()) {
+                throw new IllegalStateException("No configuration has been added");
+            }
+            return new HyperparameterSweep(this);
+        }
+    }
+
+    /** Run of one configuration, stopped at a rung if not promoted. */
+    private class Run extends ScheduledRun {
+        final int configurationNum;
+        /** Index of the next rung the run can reach. */
+        int nextRung = 0;
+
+        Run(int configurationNum) {
+            this.configurationNum = configurationNum;
+        }
+
+        @Override
+        public void onTrainingEpochComplete(TrainerEvent event) {
+            if (isStopRequested()) {
+                return;
+            }
+            boolean lastEpoch = event.getEpoch() >= trainers.get(configurationNum).getMaxEpoch();
+            // The trainer's report policy may skip the rungs' epochs, 
+            // so the event counts for every rung it has passed
+            int epoch = rungEpoch(nextRung);
+            while (epoch >= 0 && event.getEpoch() >= epoch) {
+                boolean promoted = promoted(nextRung, event.getPerformance());
+                nextRung++;
+                if (!promoted && !lastEpoch) {
+                    // A run at its last epoch has completed and is not stopped
+                    stop();
+                    return;
+                }
+                epoch = rungEpoch(nextRung);
+            }
+        }
+    }
+
+    private final double[][] preparedInputs;
+    private final double[][] preparedTargets;
+    private final List<NeuralNetwork> networks;
+    private final List<NeuralNetworkTrainer> trainers;
+    private final TrainingScheduler scheduler;
+    private final int minEpochs;
+    private final int reductionFactor;
+
+    /** Performances recorded at every rung. */
+    private final List<List<Double>> rungs = new ArrayList<>();
+
+    private HyperparameterSweep(Builder builder) {
+        this.networks = new ArrayList<>(builder.networks);
+        this.trainers = new ArrayList<>(builder.trainers);
+        this.scheduler = builder.scheduler;
+        this.minEpochs = builder.minEpochs;
+        this.reductionFactor = builder.reductionFactor;
+
+        for (NeuralNetwork nn : networks) {
+            NeuralNetworkTrainer.checkStartTrainArguments(nn, builder.inputs, builder.targets);
+        }
+        NeuralNetworkTrainer first = trainers.get(0);
+        this.preparedInputs = first.normalizedCopyOfSamples(builder.inputs);
+        this.preparedTargets = first.normalizedCopyOfTargets(builder.targets);
+    }
+
+    /**
+     * Number of the configurations.
+     * @return {@code int} number of the configurations.
+     */
+    public int getNumberOfConfigurations() {
+        return networks.size();
+    }
+
+    /**
+     * Train all configurations and wait for them to finish.
+     * @return Results of all configurations, from the least final performance
+     * to the largest one.
+     * @throws InterruptedException if the current thread has been interrupted
+     * while waiting, in which case all runs are canceled.
+     * @throws ExecutionException if a training has thrown an exception.
+     */
+    public List<Result> run() throws InterruptedException, ExecutionException {
+        synchronized (rungs) {
+            rungs.clear();
+        }
+        TrainingScheduler runScheduler = scheduler != null ? scheduler : new TrainingScheduler();
+        List<Run> runs = new ArrayList<>(networks.size());
+        try {
+            for (int configurationNum = 0; configurationNum < networks.size(); configurationNum++) {
+                Run run = new Run(configurationNum);
+                NeuralNetworkTrainerTask task = trainers.get(configurationNum).newTaskOnPreparedSamples(
+                        networks.get(configurationNum), preparedInputs, preparedTargets);
+                runs.add(run);
+                run.submit(runScheduler, task, 0);
+            }
+
+            List<Result> results = new ArrayList<>(runs.size());
+            for (Run run : runs) {
+                NeuralNetwork network = run.awaitNetwork();
+                results.add(new Result(run.configurationNum, trainers.get(run.configurationNum),
+                        network, run.getFinalEvent(), run.isStopRequested()));
+            }
+            Collections.sort(results, Comparator.comparingDouble(
+                    (result) -> result.getFinalEvent().getPerformance()));
+            return results;
+        }
+        catch (InterruptedException | ExecutionException | RuntimeException e) {
+            runs.forEach(Run::stop);
+            throw e;
+        }
+        finally {
+            if (runScheduler != scheduler) {
+                runScheduler.shutdownNow();
+            }
+        }
+    }
+
+    private int rungEpoch(int rung) {
+        long epoch = minEpochs;
+        for (int i = 0; i < rung; i++) {
+            epoch *= reductionFactor;
+            if (epoch > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int)epoch;
+    }
+
+    /**
+     * Record the performance of a run at the rung and decide whether the run
+     * continues.
+     * @return {@code true} if the {@link performance} is among the best
+     * {@code 1/eta} of the performances recorded at the {@link rung}.
+     */
+    // package for testing
+    boolean promoted(int rung, double performance) {
+        synchronized (rungs) {
+            while (rungs.size() <= rung) {
+                rungs.add(new ArrayList<>());
+            }
+            List<Double> recorded = rungs.get(rung);
+            recorded.add(performance);
+            int nBetter = 0;
+            for (double other : recorded) {
+                if (other < performance) {
+                    nBetter++;
+                }
+            }
+            int nPromoted = (recorded.size() + reductionFactor - 1) / reductionFactor;
+            return nBetter < nPromoted;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package neuralnetwork.train;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Training engine implementing the limited-memory BFGS method with a line search
+ * satisfying the strong Wolfe conditions, as described in
+ * "J. Nocedal, S. J. Wright. Numerical Optimization, 2nd ed., Springer, 2006"
+ * (algorithms 7.4, 7.5, 3.5 and 3.6).
+ * <p>One epoch is one L-BFGS iteration. Every evaluation of the objective
+ * is a pass over the training set computing both the performance and its gradient.</p>
+ * @author Konstantin Zhdanov
+ */
+class LbfgsTrainingEngine extends TrainingEngine {
+
+    /** Sufficient decrease parameter of the Wolfe conditions. */
+    private final double c1 = 0.0001;
+
+    /** Curvature parameter of the strong Wolfe conditions. */
+    private final double c2 = 0.9;
+
+    /** Max number of objective evaluations in one line search. */
+    private final int maxLineSearchEvaluations = 20;
+
+    /** Upper bound on the line search step. */
+    private final double maxStep = 1e10;
+
+    /** Number of the last steps used to approximate the inverse Hessian. */
+    private final int historySize;
+
+    /** Pairs of {@code s_i = w_{i+1} - w_i} and {@code y_i = g_{i+1} - g_i}, the newest last. */
+    private final Deque<Correction> corrections = new ArrayDeque<>();
+
+    /** Current gradient of the performance. */
+    private NeuralNetworkWeights gradient;
+
+    /**
+     * The gradient computed by the worker is the gradient of the cross-entropy
+     * summed over the outputs, while the performance is averaged over the
+     * outputs. The factor makes the gradient consistent with the performance,
+     * as required by the line search.
+     */
+    private final double gradientScale;
+
+    /** A pair of the step and the change of the gradient. */
+    private static class Correction {
+        final NeuralNetworkWeights s;
+        final NeuralNetworkWeights y;
+        final double rho;
+
+        Correction(NeuralNetworkWeights s, NeuralNetworkWeights y, double sy) {
+            this.s = s;
+            this.y = y;
+            this.rho = 1 / sy;
+        }
+    }
+
+    /** A point on the search line with its performance and gradient. */
+    private static class LinePoint {
+        final double step;
+        final NeuralNetworkWeights weights;
+        final double performance;
+        final NeuralNetworkWeights gradient;
+        final double slope;
+
+        LinePoint(double step, NeuralNetworkWeights weights, double performance,
+                NeuralNetworkWeights gradient, NeuralNetworkWeights direction) {
+            this.step = step;
+            this.weights = weights;
+            this.performance = performance;
+            this.gradient = gradient;
+            this.slope = gradient.dot(direction);
+        }
+    }
+
+    /**
+     * Create an L-BFGS engine.
+     * @param worker Worker running this engine.
+     * @param historySize Number of the last steps used to approximate the
+     * inverse Hessian.
+     * @throws IllegalArgumentException if {@link historySize} is nonpositive.
+     */
+    LbfgsTrainingEngine(NeuralNetworkTrainerWorker worker, int historySize) {
+        super(worker);
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("History size cannot be nonpositive");
+        }
+        this.historySize = historySize;
+        this.gradientScale = 1.0 / worker.getNetwork().getNumberOutputs();
+    }
+
+    @Override
+    void runEpochs() {
+        NeuralNetworkTrainerWorker.TrainStepResults trainStepResults =
+                worker.makeStepOverTrainSet(weights);
+        performance = trainStepResults.performance;
+        gradient = trainStepResults.weightsDerivatives.multiply(gradientScale);
+
+        if (worker.cancelRequested()) {
+            return;
+        }
+
+        int maxEpoch = worker.getMaxEpoch();
+        for (epochNum = 0; epochNum < maxEpoch; epochNum++) {
+            NeuralNetworkWeights direction = searchDirection();
+            double slope = gradient.dot(direction);
+            if (slope >= 0) {
+                // The approximation lost positive definiteness - restart
+                corrections.clear();
+                direction = new NeuralNetworkWeights(gradient).multiply(-1);
+                slope = gradient.dot(direction);
+            }
+
+            double initialStep = corrections.isEmpty() ?
+                    Math.min(1.0, 1.0 / gradient.norm()) : 1.0;
+            LinePoint next = lineSearch(direction, slope, initialStep);
+            if (worker.cancelRequested()) {
+                return;
+            }
+
+            if (next == null) {
+                if (corrections.isEmpty()) {
+                    // Cannot reduce error even along the antigradient
+                    worker.notifyEpochComplete(epochNum, performance);
+                    break;
+                }
+                // Retry along the antigradient next epoch
+                corrections.clear();
+            }
+            else {
+                NeuralNetworkWeights s = new NeuralNetworkWeights(next.weights).subtract(weights);
+                NeuralNetworkWeights y = new NeuralNetworkWeights(next.gradient).subtract(gradient);
+                double sy = s.dot(y);
+                if (sy > 1e-10 * s.norm() * y.norm()) {
+                    if (corrections.size() == historySize) {
+                        corrections.removeFirst();
+                    }
+                    corrections.addLast(new Correction(s, y, sy));
+                }
+                weights = next.weights;
+                gradient = next.gradient;
+                performance = next.performance;
+            }
+
+            worker.notifyEpochComplete(epochNum, performance);
+
+            if (gradient.norm() <= minGradient) {
+                // Optimum has been found
+                break;
+            }
+            if (performance < worker.getPerformanceGoal()) {
+                // Optimum has been found
+                break;
+            }
+        }
+    }
+
+    /**
+     * Compute {@code -H*g} with the two-loop recursion, where {@code H} is
+     * the L-BFGS approximation of the inverse Hessian.
+     * @return The search direction.
+     */
+    private NeuralNetworkWeights searchDirection() {
+        NeuralNetworkWeights q = new NeuralNetworkWeights(gradient);
+        if (corrections.isEmpty()) {
+            return q.multiply(-1);
+        }
+        double[] alphas = new double[corrections.size()];
+        int i = alphas.length;
+        for (Iterator<Correction> it = corrections.descendingIterator(); it.hasNext();) {
+            Correction c = it.next();
+            i--;
+            alphas[i] = c.rho * c.s.dot(q);
+            q.subtract(new NeuralNetworkWeights(c.y).multiply(alphas[i]));
+        }
+        Correction newest = corrections.getLast();
+        // H_0 = gamma*I
+        double gamma = newest.s.dot(newest.y) / newest.y.dot(newest.y);
+        q.multiply(gamma);
+        i = 0;
+        for (Correction c : corrections) {
+            double beta = c.rho * c.y.dot(q);
+            q.add(new NeuralNetworkWeights(c.s).multiply(alphas[i] - beta));
+            i++;
+        }
+        return q.multiply(-1);
+    }
+
+    /**
+     * Evaluate the performance and its gradient at {@code weights + step*direction}.
+     */
+    private LinePoint evaluateAt(double step, NeuralNetworkWeights direction) {
+        NeuralNetworkWeights point = new NeuralNetworkWeights(direction).multiply(step).add(weights);
+        NeuralNetworkTrainerWorker.TrainStepResults results = worker.makeStepOverTrainSet(point);
+        return new LinePoint(step, point, results.performance,
+                results.weightsDerivatives.multiply(gradientScale), direction);
+    }
+
+    /**
+     * Find a step along {@link direction} satisfying the strong Wolfe conditions.
+     * @param direction Descent direction.
+     * @param slope Directional derivative at the current weights.
+     * @param initialStep The first step to try.
+     * @return The accepted point, the point with the least performance found if
+     * no step satisfies the conditions but the performance has been reduced,
+     * or {@code null} if the performance hasn't been reduced or the training
+     * has been canceled.
+     */
+    private LinePoint lineSearch(NeuralNetworkWeights direction, double slope, double initialStep) {
+        LinePoint prev = new LinePoint(0.0, weights, performance, gradient, direction);
+        LinePoint best = prev;
+        double step = initialStep;
+        for (int evaluation = 0; evaluation < maxLineSearchEvaluations; evaluation++) {
+            LinePoint cur = evaluateAt(step, direction);
+            if (worker.cancelRequested()) {
+                return null;
+            }
+            if (cur.performance < best.performance) {
+                best = cur;
+            }
+            if (cur.performance > performance + c1 * step * slope ||
+                    (evaluation > 0 && cur.performance >= prev.performance)) {
+                return zoom(prev, cur, direction, slope, best,
+                        maxLineSearchEvaluations - evaluation - 1);
+            }
+            if (Math.abs(cur.slope) <= -c2 * slope) {
+                return cur;
+            }
+            if (cur.slope >= 0) {
+                return zoom(cur, prev, direction, slope, best,
+                        maxLineSearchEvaluations - evaluation - 1);
+            }
+            prev = cur;
+            step = Math.min(2 * step, maxStep);
+        }
+        return best.step > 0 ? best : null;
+    }
+
+    /**
+     * Narrow the interval between {@link lo} and {@link hi} until a step
+     * satisfying the strong Wolfe conditions is found.
+     */
+    private LinePoint zoom(LinePoint lo, LinePoint hi, NeuralNetworkWeights direction,
+            double slope, LinePoint best, int evaluationsLeft) {
+        for (int evaluation = 0; evaluation < evaluationsLeft; evaluation++) {
+            double step = interpolate(lo, hi);
+            LinePoint cur = evaluateAt(step, direction);
+            if (worker.cancelRequested()) {
+                return null;
+            }
+            if (cur.performance < best.performance) {
+                best = cur;
+            }
+            if (cur.performance > performance + c1 * step * slope ||
+                    cur.performance >= lo.performance) {
+                hi = cur;
+            }
+            else {
+                if (Math.abs(cur.slope) <= -c2 * slope) {
+                    return cur;
+                }
+                if (cur.slope * (hi.step - lo.step) >= 0) {
+                    hi = lo;
+                }
+                lo = cur;
+            }
+            if (Math.abs(hi.step - lo.step) <= 1e-12 * Math.max(1.0, lo.step)) {
+                break;
+            }
+        }
+        return best.step > 0 ? best : null;
+    }
+
+    /**
+     * Minimizer of the cubic interpolating the performance and the slopes at
+     * {@link lo} and {@link hi}, safeguarded to stay inside the interval.
+     * Falls back to bisection.
+     */
+    private double interpolate(LinePoint lo, LinePoint hi) {
+        double a = lo.step;
+        double b = hi.step;
+        double d1 = lo.slope + hi.slope - 3 * (lo.performance - hi.performance) / (a - b);
+        double radicand = d1 * d1 - lo.slope * hi.slope;
+        double left = Math.min(a, b);
+        double right = Math.max(a, b);
+        double margin = 0.1 * (right - left);
+        if (radicand >= 0) {
+            double d2 = Math.signum(b - a) * Math.sqrt(radicand);
+            double step = b - (b - a) * (hi.slope + d2 - d1) / (hi.slope - lo.slope + 2 * d2);
+            if (!Double.isNaN(step) && step >= left + margin && step <= right - margin) {
+                return step;
+            }
+        }
+        return (a + b) / 2;
+    }
+}
@@ -0,0 +1,329 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Training engine implementing the Levenberg-Marquardt method for the
+ * cross-entropy error function.
+ * <p>Every epoch the Gauss-Newton approximation of the Hessian
+ * {@code A = J^T*diag(y*(1 - y))*J} and the gradient {@code g = J^T*(y - t)}
+ * are accumulated over the training set, where {@code J} is the Jacobian of the
+ * output neurons' summed inputs, {@code y} are the outputs and {@code t} are
+ * the targets. Then the damped system {@code (A + mu*I)*d = -g} is solved
+ * increasing {@code mu} until the step {@code d} reduces the error.</p>
+ * <p>The training set is split into chunks accumulated in parallel, every
+ * thread holding its own {@code P*P} matrix, where {@code P} is the number of
+ * weights and biases. The matrices and the Cholesky factor are allocated once
+ * per engine and reused every epoch. The method is suitable for small
+ * networks only.</p>
+ * @author Konstantin Zhdanov
+ */
+class LevenbergMarquardtTrainingEngine extends TrainingEngine {
+
+    /** Parameters used for the damping factor {@code mu}. */
+    private final double muInit = 0.001;
+    private final double muDecrease = 0.1;
+    private final double muIncrease = 10;
+    private final double muMax = 1e10;
+
+    /** Current damping factor. */
+    private double mu = muInit;
+
+    /** Whether the last epoch has reduced the error. */
+    private boolean reduced = true;
+
+    /** Number of threads accumulating the Gauss-Newton system. */
+    private final int nThreads;
+
+    /** Number of weights and biases. */
+    private final int nParameters;
+
+    /** Systems accumulated by the threads, one per chunk of the training set. */
+    private final GaussNewtonSystem[] systems;
+
+    /** Lower triangular Cholesky factor of the damped matrix. */
+    private final double[][] cholesky;
+
+    /** Gauss-Newton system accumulated over (a part of) the training set. */
+    private static class GaussNewtonSystem {
+        final double[][] hessian;
+        final double[] gradient;
+        double performance;
+
+        GaussNewtonSystem(int nParameters) {
+            hessian = new double[nParameters][nParameters];
+            gradient = new double[nParameters];
+        }
+
+        void clear() {
+            for (double[] row : hessian) {
+                Arrays.fill(row, 0.0);
+            }
+            Arrays.fill(gradient, 0.0);
+            performance = 0.0;
+        }
+
+        void add(GaussNewtonSystem other) {
+            for (int i = 0; i < hessian.length; i++) {
+                for (int j = i; j < hessian.length; j++) {
+                    hessian[i][j] += other.hessian[i][j];
+                }
+                gradient[i] += other.gradient[i];
+            }
+            performance += other.performance;
+        }
+    }
+
+    /**
+     * Create a Levenberg-Marquardt engine.
+     * @param worker Worker running this engine.
+     * @param nThreads Number of threads accumulating the Gauss-Newton system.
+     * @throws IllegalArgumentException if {@link nThreads} is nonpositive.
+     */
+    LevenbergMarquardtTrainingEngine(NeuralNetworkTrainerWorker worker, int nThreads) {
+        super(worker);
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.nThreads = Math.max(1, Math.min(nThreads, worker.getTrainSamples().length));
+        this.nParameters = weights.size();
+        this.systems = new GaussNewtonSystem[this.nThreads];
+        for (int i = 0; i < systems.length; i++) {
+            systems[i] = new GaussNewtonSystem(nParameters);
+        }
+        this.cholesky = new double[nParameters][nParameters];
+    }
+
+    @Override
+    void runEpochs() {
+        ExecutorService executor = nThreads > 1 ? TrainerExecutors.newFixedExecutor(nThreads) : null;
+        try {
+            int maxEpoch = worker.getMaxEpoch();
+            for (epochNum = 0; epochNum < maxEpoch; epochNum++) {
+                GaussNewtonSystem system = accumulate(executor);
+                // Checked first: only cancelRequested marks the training canceled
+                // after an interrupted accumulation has returned null
+                if (worker.cancelRequested() || system == null) {
+                    return;
+                }
+                performance = system.performance;
+
+                reduced = false;
+                double[] w = weights.toArray();
+                while (mu <= muMax) {
+                    double[] step = solveDamped(system, mu);
+                    if (step != null) {
+                        for (int i = 0; i < step.length; i++) {
+                            step[i] += w[i];
+                        }
+                        NeuralNetworkWeights nextWeights = new NeuralNetworkWeights(weights).setFromArray(step);
+                        double nextPerformance = worker.performanceOverTrainSetForWeights(nextWeights);
+                        if (worker.cancelRequested()) {
+                            return;
+                        }
+                        if (nextPerformance < performance) {
+                            weights = nextWeights;
+                            performance = nextPerformance;
+                            mu *= muDecrease;
+                            reduced = true;
+                            break;
+                        }
+                    }
+                    mu *= muIncrease;
+                }
+
+                worker.notifyEpochComplete(epochNum, performance);
+
+                if (!reduced) {
+                    // Cannot reduce error any more
+                    break;
+                }
+                if (norm(system.gradient) <= minGradient) {
+                    // Optimum has been found
+                    break;
+                }
+                if (performance < worker.getPerformanceGoal()) {
+                    // Optimum has been found
+                    break;
+                }
+            }
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    int getThreadCount() {
+        return nThreads;
+    }
+
+    @Override
+    double getDamping() {
+        return mu;
+    }
+
+    @Override
+    boolean isLastStepAccepted() {
+        return reduced;
+    }
+
+    /**
+     * Accumulate the Gauss-Newton system over the training set.
+     * @param executor Executor for the parallel accumulation or {@code null}
+     * to accumulate in the calling thread.
+     * @return The system averaged over the samples and outputs or {@code null}
+     * if the training has been canceled. The system is reused by the next 
+     * accumulation.
+     */
+    private GaussNewtonSystem accumulate(ExecutorService executor) {
+        final double[][] samples = worker.getTrainSamples();
+        final NeuralNetworkWeights curWeights = weights;
+        long passStart = System.nanoTime();
+        GaussNewtonSystem total;
+        if (executor == null) {
+            total = accumulateChunk(systems[0], samples, 0, samples.length, curWeights);
+        }
+        else {
+            List<Future<GaussNewtonSystem>> futures = new ArrayList<>(nThreads);
+            int chunkSize = (samples.length + nThreads - 1) / nThreads;
+            for (int from = 0, chunkNum = 0; from < samples.length; from += chunkSize, chunkNum++) {
+                final GaussNewtonSystem chunkSystem = systems[chunkNum];
+                final int chunkFrom = from;
+                final int chunkTo = Math.min(samples.length, from + chunkSize);
+                Callable<GaussNewtonSystem> chunk =
+                        () -> accumulateChunk(chunkSystem, samples, chunkFrom, chunkTo, curWeights);
+                futures.add(executor.submit(chunk));
+            }
+            try {
+                total = futures.get(0).get();
+                for (int i = 1; i < futures.size(); i++) {
+                    total.add(futures.get(i).get());
+                }
+            }
+            catch (InterruptedException e) {
+                futures.forEach((future) -> future.cancel(true));
+                // Let the worker see the cancellation
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Accumulation of the Gauss-Newton system failed", e.getCause());
+            }
+        }
+
+        // Average over the samples and the outputs
+        long reductionStart = System.nanoTime();
+        double factor = 1.0 / (samples.length * worker.getNetwork().getNumberOutputs());
+        for (int i = 0; i < nParameters; i++) {
+            for (int j = i; j < nParameters; j++) {
+                total.hessian[i][j] *= factor;
+                total.hessian[j][i] = total.hessian[i][j];
+            }
+            total.gradient[i] *= factor;
+        }
+        total.performance /= samples.length;
+        worker.getMetricsRecorder().gradientPass(samples.length, 0, 
+                reductionStart - passStart, System.nanoTime() - reductionStart, 
+                norm(total.gradient));
+        return total;
+    }
+
+    private GaussNewtonSystem accumulateChunk(GaussNewtonSystem system, double[][] samples, 
+            int from, int to, NeuralNetworkWeights curWeights) {
+        NeuralNetworkEvaluator evaluator = worker.getEvaluator();
+        system.clear();
+        for (int sampleNum = from; sampleNum < to; sampleNum++) {
+            if ((sampleNum - from) % NeuralNetworkTrainerWorker.PASS_CHUNK_SIZE == 0
+                    && (Thread.currentThread().isInterrupted() || worker.timeLimitReached())) {
+                // The worker stops the training after the pass
+                break;
+            }
+            NeuralNetworkResponse resp = evaluator.evaluateWithWeights(samples[sampleNum], curWeights);
+            double[] target = worker.getExpectedOutputForTrainSample(sampleNum);
+            system.performance += NeuralNetworkTrainer.error(resp.getOutputs(), target);
+            double[][] jacobian = evaluator.outputSumsJacobian(samples[sampleNum], resp, curWeights);
+            for (int outputNum = 0; outputNum < jacobian.length; outputNum++) {
+                double output = resp.getOutput(outputNum);
+                double residual = output - target[outputNum];
+                double curvature = output * (1 - output);
+                double[] row = jacobian[outputNum];
+                for (int i = 0; i < nParameters; i++) {
+                    double ri = row[i];
+                    if (ri == 0.0) {
+                        continue;
+                    }
+                    system.gradient[i] += residual * ri;
+                    double cri = curvature * ri;
+                    double[] hessianRow = system.hessian[i];
+                    for (int j = i; j < nParameters; j++) {
+                        hessianRow[j] += cri * row[j];
+                    }
+                }
+            }
+        }
+        return system;
+    }
+
+    /**
+     * Solve {@code (A + mu*I)*d = -g} with the Cholesky decomposition.
+     * @return The step {@code d} or {@code null} if the matrix is not
+     * positive definite.
+     */
+    private double[] solveDamped(GaussNewtonSystem system, double mu) {
+        int n = nParameters;
+        // Only the lower triangle is used, each element is written before it's read
+        double[][] l = cholesky;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = system.hessian[i][j] + (i == j ? mu : 0.0);
+                for (int k = 0; k < j; k++) {
+                    sum -= l[i][k] * l[j][k];
+                }
+                if (i == j) {
+                    if (sum <= 0 || Double.isNaN(sum)) {
+                        return null;
+                    }
+                    l[i][i] = Math.sqrt(sum);
+                }
+                else {
+                    l[i][j] = sum / l[j][j];
+                }
+            }
+        }
+        // L*z = -g
+        double[] d = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = -system.gradient[i];
+            for (int k = 0; k < i; k++) {
+                sum -= l[i][k] * d[k];
+            }
+            d[i] = sum / l[i][i];
+        }
+        // L^T*d = z
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = d[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= l[k][i] * d[k];
+            }
+            d[i] = sum / l[i][i];
+        }
+        return d;
+    }
+
+    private static double norm(double[] vector) {
+        double sum = 0.0;
+        for (double value : vector) {
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+}
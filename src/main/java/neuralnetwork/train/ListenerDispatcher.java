@@ -0,0 +1,175 @@
+package neuralnetwork.train;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers a trainer's events to its listeners on the delivery executor's 
+ * thread, so that slow listeners don't stall the training. The events wait
+ * in a bounded queue. An epoch event replaces the undelivered epoch event
+ * queued right before it, so lagging listeners skip to the latest epoch. 
+ * Completion and cancellation events are never dropped.
+ * <p>The events are delivered one at a time in the order they have been
+ * queued. Listeners can be registered and removed from any thread, 
+ * including the delivery thread.</p>
+ * @author Konstantin Zhdanov
+ */
+final class ListenerDispatcher {
+    
+    /** Max number of queued events beyond which epoch events are dropped. */
+    static final int QUEUE_CAPACITY = 64;
+    
+    private enum Kind {
+        EPOCH, COMPLETE, CANCELED
+    }
+    
+    private static final class Delivery {
+        final Kind kind;
+        TrainerEvent event;
+        
+        Delivery(Kind kind, TrainerEvent event) {
+            this.kind = kind;
+            this.event = event;
+        }
+    }
+    
+    /** Registered listeners. */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    
+    /** Executor running the delivery. */
+    private final Executor executor;
+    
+    /** Undelivered events, guarded by itself. */
+    private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+    
+    /** Whether a delivery task is running or submitted, guarded by {@code queue}. */
+    private boolean delivering;
+    
+    /**
+     * Create a dispatcher delivering the events with the {@link executor}.
+     * @param executor Executor running the delivery. A direct executor 
+     * delivers the events on the thread raising them.
+     */
+    ListenerDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+    
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+    
+    void trainingComplete(TrainerEvent event) {
+        enqueue(new Delivery(Kind.COMPLETE, event));
+    }
+    
+    void trainingCanceled(TrainerEvent event) {
+        enqueue(new Delivery(Kind.CANCELED, event));
+    }
+    
+    void trainingEpochComplete(TrainerEvent event) {
+        synchronized (queue) {
+            Delivery last = queue.peekLast();
+            if (last != null && last.kind == Kind.EPOCH) {
+                last.event = event;
+                return;
+            }
+            if (queue.size() >= QUEUE_CAPACITY) {
+                // The next epoch or final event supersedes it
+                return;
+            }
+        }
+        enqueue(new Delivery(Kind.EPOCH, event));
+    }
+    
+    private void enqueue(Delivery delivery) {
+        synchronized (queue) {
+            queue.addLast(delivery);
+        }
+        scheduleDelivery();
+    }
+    
+    /** Submit a delivery task unless one is running or nothing is queued. */
+    private void scheduleDelivery() {
+        synchronized (queue) {
+            if (delivering || queue.isEmpty()) {
+                return;
+            }
+            delivering = true;
+        }
+        try {
+            executor.execute(this::deliverQueued);
+        }
+        catch (RuntimeException e) {
+            synchronized (queue) {
+                delivering = false;
+            }
+            throw e;
+        }
+    }
+    
+    private void deliverQueued() {
+        try {
+            deliverUntilEmpty();
+        }
+        catch (Throwable t) {
+            // A listener has thrown an Error, a new task delivers the rest
+            synchronized (queue) {
+                delivering = false;
+            }
+            try {
+                scheduleDelivery();
+            }
+            catch (RuntimeException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+    }
+    
+    private void deliverUntilEmpty() {
+        while (true) {
+            Delivery delivery;
+            synchronized (queue) {
+                delivery = queue.pollFirst();
+                if (delivery == null) {
+                    delivering = false;
+                    return;
+                }
+            }
+            for (Listener listener : listeners) {
+                try {
+                    deliver(listener, delivery);
+                }
+                catch (RuntimeException e) {
+                    // Keep delivering to the other listeners
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+    
+    private static void deliver(Listener listener, Delivery delivery) {
+        TrainerEvent event = delivery.event;
+        switch (delivery.kind) {
+            case COMPLETE:
+                listener.onTrainingComplete(event);
+                break;
+            case CANCELED:
+                listener.onTrainingCanceled(event);
+                break;
+            default:
+                listener.onTrainingEpochComplete(event);
+                TrainingMetrics metrics = event.getMetrics();
+                if (metrics != null && listener instanceof MetricsListener) {
+                    ((MetricsListener)listener).onEpochMetrics(metrics);
+                }
+        }
+    }
+}
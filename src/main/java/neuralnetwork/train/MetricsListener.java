@@ -0,0 +1,16 @@
+package neuralnetwork.train;
+
+/**
+ * {@code Listener} that also receives the metrics of every training epoch.
+ * @author Konstantin Zhdanov
+ */
+public interface MetricsListener extends Listener {
+    /**
+     * Called after {@code onTrainingEpochComplete} with the measurements 
+     * of the same epoch.
+     * @param metrics {@code TrainingMetrics} of the epoch: processed samples
+     * per second, numbers of passes over the samples, time of every phase
+     * of the computation, gradient's norm and allocated bytes.
+     */
+    void onEpochMetrics(TrainingMetrics metrics);
+}
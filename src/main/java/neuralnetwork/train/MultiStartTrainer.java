@@ -0,0 +1,316 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongFunction;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+
+/**
+ * Trainer running several trainings of the same network concurrently, each
+ * starting from weights and biases supplied by its own seeded {@code Initializer},
+ * and selecting the best result. Once any run reaches the trainer's target
+ * performance, the other runs are canceled.
+ * <p>The samples are copied and normalized once and are shared read-only by
+ * all runs.</p>
+ * @author Konstantin Zhdanov
+ */
+public class MultiStartTrainer {
+
+    /** Statistics of one run. */
+    public static class Run {
+        private final long seed;
+        private final NeuralNetwork network;
+        private final TrainerEvent finalEvent;
+        private final boolean stoppedEarly;
+
+        Run(long seed, NeuralNetwork network, TrainerEvent finalEvent, boolean stoppedEarly) {
+            this.seed = seed;
+            this.network = network;
+            this.finalEvent = finalEvent;
+            this.stoppedEarly = stoppedEarly;
+        }
+
+        /**
+         * Seed of the run's initializer.
+         * @return {@code long} value of the seed.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * The trained network, partially trained if the run has been stopped.
+         * @return A new {@code NeuralNetwork} object.
+         */
+        public NeuralNetwork getNetwork() {
+            return network;
+        }
+
+        /**
+         * The number of epochs performed and the final performance of the run.
+         * @return The last {@code TrainerEvent} of the run.
+         */
+        public TrainerEvent getFinalEvent() {
+            return finalEvent;
+        }
+
+        /**
+         * Whether the run has been stopped because another run has reached
+         * the target performance.
+         * @return {@code true} if the run has been stopped before completing.
+         */
+        public boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+    }
+
+    /** Outcome of a multi-start training. */
+    public static class Result {
+        private final List<Run> runs;
+        private final Run bestRun;
+
+        Result(List<Run> runs, Run bestRun) {
+            this.runs = Collections.unmodifiableList(runs);
+            this.bestRun = bestRun;
+        }
+
+        /**
+         * The run with the least final performance.
+         * @return The best {@code Run}.
+         */
+        public Run getBestRun() {
+            return bestRun;
+        }
+
+        /**
+         * The network trained by the best run.
+         * @return A {@code NeuralNetwork} with the least final performance.
+         */
+        public NeuralNetwork getBestNetwork() {
+            return bestRun.getNetwork();
+        }
+
+        /**
+         * Statistics of all runs in the order of their seeds.
+         * @return Unmodifiable list of the runs.
+         */
+        public List<Run> getRuns() {
+            return runs;
+        }
+    }
+
+    /** Builder for {@code MultiStartTrainer}. */
+    public static class Builder {
+        private final NeuralNetworkTrainer trainer;
+        private int numStarts = 4;
+        private long seed = new Random().nextLong();
+        private LongFunction<Initializer> initializers = Initializer::ofStdRandomRange;
+        private TrainingScheduler scheduler = null;
+
+        /**
+         * Create a builder of a multi-start trainer.
+         * @param trainer Trainer providing the options of every run.
+         * @throws NullPointerException if {@link trainer} is null.
+         */
+        public Builder(NeuralNetworkTrainer trainer) {
+            if (trainer == null) {
+                throw new NullPointerException("Trainer cannot be null");
+            }
+            this.trainer = trainer;
+        }
+
+        /**
+         * Set the number of runs. The default is 4.
+         * @param numStarts The number of runs.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link numStarts} is nonpositive.
+         */
+        public Builder withNumberOfStarts(int numStarts) {
+            if (numStarts <= 0) {
+                throw new IllegalArgumentException("Number of starts cannot be nonpositive");
+            }
+            this.numStarts = numStarts;
+            return this;
+        }
+
+        /**
+         * Set the seed of the first run's initializer. The run {@code i}
+         * uses the seed {@code seed + i}. By default the seed is random.
+         * @param seed The seed.
+         * @return This builder.
+         */
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set the factory of the runs' initializers. The default is
+         * {@code Initializer::ofStdRandomRange}.
+         * @param initializers Function creating an initializer from a seed.
+         * @return This builder.
+         * @throws NullPointerException if {@link initializers} is null.
+         */
+        public Builder withInitializers(LongFunction<Initializer> initializers) {
+            if (initializers == null) {
+                throw new NullPointerException("Initializers factory cannot be null");
+            }
+            this.initializers = initializers;
+            return this;
+        }
+
+        /**
+         * Set the scheduler running the runs. By default a new
+         * scheduler is created for every {@code train} call.
+         * @param scheduler The scheduler.
+         * @return This builder.
+         * @throws NullPointerException if {@link scheduler} is null.
+         */
+        public Builder withScheduler(TrainingScheduler scheduler) {
+            if (scheduler == null) {
+                throw new NullPointerException("Scheduler cannot be null");
+            }
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Create the multi-start trainer.
+         * @return A new {@code MultiStartTrainer}.
+         */
+        public MultiStartTrainer build() {
+            return new MultiStartTrainer(this);
+        }
+    }
+
+    /** Run stopping the others once it has reached the target performance. */
+    private static class StartRun extends ScheduledRun {
+        final long seed;
+        final List<StartRun> allRuns;
+        final double performanceGoal;
+
+        StartRun(long seed, List<StartRun> allRuns, double performanceGoal) {
+            this.seed = seed;
+            this.allRuns = allRuns;
+            this.performanceGoal = performanceGoal;
+        }
+
+        @Override
+        public void onTrainingEpochComplete(TrainerEvent event) {
+            if (event.getPerformance() < performanceGoal) {
+                stopOthers();
+            }
+        }
+
+        @Override
+        public void onTrainingComplete(TrainerEvent event) {
+            super.onTrainingComplete(event);
+            if (event.getPerformance() < performanceGoal) {
+                stopOthers();
+            }
+        }
+
+        private void stopOthers() {
+            for (StartRun run : allRuns) {
+                if (run != this) {
+                    run.stop();
+                }
+            }
+        }
+    }
+
+    private final NeuralNetworkTrainer trainer;
+    private final int numStarts;
+    private final long seed;
+    private final LongFunction<Initializer> initializers;
+    private final TrainingScheduler scheduler;
+
+    private MultiStartTrainer(Builder builder) {
+        this.trainer = builder.trainer;
+        this.numStarts = builder.numStarts;
+        this.seed = builder.seed;
+        this.initializers = builder.initializers;
+        this.scheduler = builder.scheduler;
+    }
+
+    /**
+     * Number of runs.
+     * @return {@code int} number of runs.
+     */
+    public int getNumberOfStarts() {
+        return numStarts;
+    }
+
+    /**
+     * Seed of the first run's initializer.
+     * @return {@code long} value of the seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Train copies of {@link nn} initialized by the seeded initializers on
+     * {@link inputs} samples with {@link targets} results for them, and wait
+     * for all runs to finish.
+     * @param nn Network providing the topology and the activation function.
+     * Its weights and biases are not used.
+     * @param inputs Samples to use in training as inputs. Not changed by the call.
+     * @param targets Desired (ideal) responses on {@link inputs}. Not changed by the call.
+     * @return The best network and the statistics of all runs.
+     * @throws InterruptedException if the current thread has been interrupted
+     * while waiting, in which case all runs are canceled.
+     * @throws ExecutionException if a training has thrown an exception.
+     * @throws NullPointerException if any argument is null.
+     * @throws IllegalArgumentException if the samples' sizes don't match {@link nn}.
+     */
+    public Result train(NeuralNetwork nn, double[][] inputs, double[][] targets)
+            throws InterruptedException, ExecutionException {
+        NeuralNetworkTrainer.checkStartTrainArguments(nn, inputs, targets);
+        double[][] preparedInputs = trainer.normalizedCopyOfSamples(inputs);
+        double[][] preparedTargets = trainer.normalizedCopyOfTargets(targets);
+
+        TrainingScheduler runScheduler = scheduler != null ? scheduler : new TrainingScheduler();
+        List<StartRun> runs = new ArrayList<>(numStarts);
+        for (int i = 0; i < numStarts; i++) {
+            runs.add(new StartRun(seed + i, runs, trainer.getPerformanceGoal()));
+        }
+        try {
+            for (StartRun run : runs) {
+                NeuralNetwork start = new NeuralNetwork(nn.getNumberInputs(),
+                        nn.getHiddenLayerSizes(), nn.getNumberOutputs(),
+                        initializers.apply(run.seed));
+                start.setActivationFunction(nn.getActivationFunction());
+                run.submit(runScheduler,
+                        trainer.newTaskOnPreparedSamples(start, preparedInputs, preparedTargets), 0);
+            }
+
+            List<Run> results = new ArrayList<>(numStarts);
+            Run best = null;
+            for (StartRun run : runs) {
+                NeuralNetwork network = run.awaitNetwork();
+                Run result = new Run(run.seed, network, run.getFinalEvent(), run.isStopRequested());
+                results.add(result);
+                // NaN performance of a run canceled before start is the worst
+                if (best == null || Double.compare(result.getFinalEvent().getPerformance(),
+                        best.getFinalEvent().getPerformance()) < 0) {
+                    best = result;
+                }
+            }
+            return new Result(results, best);
+        }
+        catch (InterruptedException | ExecutionException | RuntimeException e) {
+            runs.forEach(StartRun::stop);
+            throw e;
+        }
+        finally {
+            if (runScheduler != scheduler) {
+                runScheduler.shutdownNow();
+            }
+        }
+    }
+}
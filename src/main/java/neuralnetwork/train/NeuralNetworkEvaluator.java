@@ -27,7 +27,65 @@ public class NeuralNetworkEvaluator {
         return outputs;
     }
     
+    /**
+     * Compute the network's response on the {@link input}.
+     * @param input Values of the inputs.
+     * @return A new array of the outputs' values.
+     * @throws NullPointerException if {@link input} is null.
+     * @throws IllegalArgumentException if the size of {@link input} differs
+     * from the number of the network's inputs.
+     */
     public double[] getOutput(double[] input) {
+        checkInput(input);
+        if (!FlightRecorderEvents.isInferenceEnabled()) {
+            return computeOutput(input);
+        }
+        FlightRecorderEvents.InferenceEvent event = new FlightRecorderEvents.InferenceEvent();
+        event.begin();
+        double[] output = computeOutput(input);
+        event.end();
+        if (event.shouldCommit()) {
+            event.size = 1;
+            event.commit();
+        }
+        return output;
+    }
+    
+    /**
+     * Compute the network's responses on the {@link inputs}.
+     * @param inputs Values of the inputs, one row per input.
+     * @return A new array of the outputs' values, one row per input.
+     * @throws NullPointerException if {@link inputs} or any of its rows is null.
+     * @throws IllegalArgumentException if the size of any row of {@link inputs} 
+     * differs from the number of the network's inputs.
+     */
+    public double[][] getOutputs(double[][] inputs) {
+        if (inputs == null) {
+            throw new NullPointerException("Inputs cannot be null");
+        }
+        for (double[] input : inputs) {
+            checkInput(input);
+        }
+        FlightRecorderEvents.InferenceEvent event = null;
+        if (FlightRecorderEvents.isInferenceEnabled()) {
+            event = new FlightRecorderEvents.InferenceEvent();
+            event.begin();
+        }
+        double[][] outputs = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            outputs[i] = computeOutput(inputs[i]);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.size = inputs.length;
+                event.commit();
+            }
+        }
+        return outputs;
+    }
+    
+    private void checkInput(double[] input) {
         if (input == null) {
             throw new NullPointerException("Input cannot be null");
         }
@@ -35,28 +93,28 @@ public class NeuralNetworkEvaluator {
             throw new IllegalArgumentException("Input must be "
                     + "the same size as the number of inputs of the neural network");
         }
-        
-        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(nn);
-        
+    }
+    
+    private double[] computeOutput(double[] input) {
         int curLayerNum = 0;
         double[] prevLayerResults = input;
         int curLayerSize = nn.getHiddenLayerSize(curLayerNum);
         
         // Input -> first hidden layer
-        prevLayerResults = nextLayerInputSummedWithWeights(prevLayerResults, curLayerSize, curLayerNum, weights);
+        prevLayerResults = nextLayerInputSummed(prevLayerResults, curLayerSize, curLayerNum);
         prevLayerResults = evaluateActivationFcn(prevLayerResults);
 
         // Between hidden layers
         for (curLayerNum = 1; curLayerNum < nn.getNumberHiddenLayers(); curLayerNum++) {
             curLayerSize = nn.getHiddenLayerSize(curLayerNum);
-            prevLayerResults = nextLayerInputSummedWithWeights(prevLayerResults, curLayerSize, curLayerNum, weights);
+            prevLayerResults = nextLayerInputSummed(prevLayerResults, curLayerSize, curLayerNum);
             prevLayerResults = evaluateActivationFcn(prevLayerResults);
         }
         
         // Last hidden layer -> output
         curLayerSize = nn.getNumberOutputs();
         curLayerNum = nn.getNumberHiddenLayers();
-        prevLayerResults = nextLayerInputSummedWithWeights(prevLayerResults, curLayerSize, curLayerNum, weights);
+        prevLayerResults = nextLayerInputSummed(prevLayerResults, curLayerSize, curLayerNum);
         prevLayerResults = evaluateActivationFcn(prevLayerResults);
 
         return prevLayerResults;
@@ -77,13 +135,56 @@ public class NeuralNetworkEvaluator {
         if (nnWeights == null) {
             throw new NullPointerException("Weights cannot be null");
         }
+        return evaluateFromFirstLayerSums(firstLayerInputSums(input, nnWeights), nnWeights);
+    }
+    
+    /**
+     * Compute the summed inputs of the first hidden layer's neurons for
+     * {@link input} with the weights and biases {@link nnWeights}.
+     * <p>The sums are linear in the weights and biases, so the sums for
+     * {@code w + alpha*p} are equal to {@code sums(w) + alpha*sums(p)}.</p>
+     * @param input Neural network's input
+     * @param nnWeights Weights and biases (or a direction in the weights space)
+     * to compute the sums with
+     * @return A new array of the summed inputs of the first hidden layer
+     */
+    double[] firstLayerInputSums(double[] input, NeuralNetworkWeights nnWeights) {
+        if (input == null) {
+            throw new NullPointerException("Input cannot be null");
+        }
+        if (nnWeights == null) {
+            throw new NullPointerException("Weights cannot be null");
+        }
+        return nextLayerInputSummedWithWeights(input, nn.getHiddenLayerSize(0), 0, nnWeights);
+    }
+    
+    /**
+     * Evaluate the response of the network with the weights {@link nnWeights} 
+     * starting from the already computed summed inputs of the first hidden layer.
+     * @param firstLayerSums Summed inputs of the first hidden layer's neurons.
+     * The array is stored in the returned response and must not be modified afterwards.
+     * @param nnWeights Weights and biases to evaluate the rest of the layers with
+     * @return NeuralNetworkResponse object holding inputs and outputs
+     * for every neuron in the neural network
+     */
+    NeuralNetworkResponse evaluateFromFirstLayerSums(double[] firstLayerSums, NeuralNetworkWeights nnWeights) {
+        if (firstLayerSums == null) {
+            throw new NullPointerException("First layer sums cannot be null");
+        }
+        if (nnWeights == null) {
+            throw new NullPointerException("Weights cannot be null");
+        }
+        if (firstLayerSums.length != nn.getHiddenLayerSize(0)) {
+            throw new IllegalArgumentException("First layer sums must be "
+                    + "the same size as the first hidden layer of the neural network");
+        }
         double[][] neuronsInputSummed = new double[nn.getNumberHiddenLayers() + 1][];
         double[][] neuronsOutputs = new double[neuronsInputSummed.length][];
 
-        // Input -> first hidden layer
+        // First hidden layer's activation
         int curLayerNum = 0;
-        int curLayerSize = nn.getHiddenLayerSize(curLayerNum);
-        neuronsInputSummed[curLayerNum] = nextLayerInputSummedWithWeights(input, curLayerSize, curLayerNum, nnWeights);
+        int curLayerSize;
+        neuronsInputSummed[curLayerNum] = firstLayerSums;
         neuronsOutputs[curLayerNum] = evaluateActivationFcn(neuronsInputSummed[curLayerNum]);
 
         // Between hidden layers
@@ -104,6 +205,24 @@ public class NeuralNetworkEvaluator {
         return resp;
     }
     
+    /**
+     * Same as {@code nextLayerInputSummedWithWeights} with the weights and 
+     * biases read from the network, so scoring doesn't copy them.
+     */
+    private double[] nextLayerInputSummed(double[] prevLayerResults, int currentLayerSize, int curLayerNum) {
+        double[] currentLayerResults = new double[currentLayerSize];
+        
+        for (int curLayerNeuron = 0; curLayerNeuron < currentLayerResults.length; curLayerNeuron++) {
+            for (int prevLayerNeuron = 0; prevLayerNeuron < prevLayerResults.length; prevLayerNeuron++) {
+                currentLayerResults[curLayerNeuron] += 
+                        nn.getWeight(curLayerNum, prevLayerNeuron, curLayerNeuron)*
+                        prevLayerResults[prevLayerNeuron];
+            }
+            currentLayerResults[curLayerNeuron] += nn.getBias(curLayerNum, curLayerNeuron);
+        }
+        return currentLayerResults;
+    }
+    
     private double[] nextLayerInputSummedWithWeights(double[] prevLayerResults, int currentLayerSize, int curLayerNum, NeuralNetworkWeights nnWeights) {
         double[] currentLayerResults = new double[currentLayerSize];
         
@@ -145,6 +264,33 @@ public class NeuralNetworkEvaluator {
                                                 NeuralNetworkResponse response, 
                                                 NeuralNetworkWeights weights) {
         
+        NeuralNetworkWeights nnwDerivs = new NeuralNetworkWeights(
+                nn.getNumberInputs(), 
+                nn.getHiddenLayerSizes(), 
+                nn.getNumberOutputs()
+        );
+        addWeightsDerivative(input, targets, response, weights, nnwDerivs);
+        return nnwDerivs;
+    }
+    
+    /**
+     * <p>Adds derivative of the weights for the Cross-entropy error function 
+     * to {@link sum}. Doesn't allocate anything of the size of the weights, 
+     * so summing the derivatives over the train set costs only 
+     * the per-neuron arrays for every sample.<p>
+     * @param input Neural network's input
+     * @param targets Target outputs for the provided input
+     * @param response NeuralNetworkResponse object holding inputs and outputs 
+     * for every neuron in the neural network for the provided {@link input}
+     * @param weights NeuralNetworkWeights object for which to compute the derivatives
+     * @param sum Object to add the derivative of weights and biases to
+     */
+    void addWeightsDerivative(double[] input, 
+                                double[] targets, 
+                                NeuralNetworkResponse response, 
+                                NeuralNetworkWeights weights,
+                                NeuralNetworkWeights sum) {
+        
         // Compute errors - differences between target and output
         double[] errors = new double[targets.length];
         for (int i = 0; i < errors.length; i++) {
@@ -155,10 +301,41 @@ public class NeuralNetworkEvaluator {
         double[][] deltas = computeDeltas(errors, response, weights);
 
         // Propagate deltas forward
-        NeuralNetworkWeights nnwDerivs = propagateDeltasForward(deltas, input, response);
-        
-        return nnwDerivs;
-        
+        addDeltasForward(deltas, input, response, sum);
+    }
+    
+    /**
+     * <p>Computes the Jacobian of the output neurons' summed inputs with respect
+     * to the weights and biases of the neural network.</p>
+     * <p>For the cross-entropy error function the gradient of the error is
+     * {@code J^T*(outputs - targets)} and its Gauss-Newton approximation of
+     * the Hessian is {@code J^T*diag(outputs*(1 - outputs))*J}.</p>
+     * @param input Neural network's input
+     * @param response NeuralNetworkResponse object holding inputs and outputs 
+     * for every neuron in the neural network for the provided {@link input}
+     * @param weights NeuralNetworkWeights object for which to compute the derivatives
+     * @return Array with a row for every output neuron. Row {@code k} holds 
+     * the derivatives of the summed input of the output neuron {@code k}
+     * in the order of {@code NeuralNetworkWeights.toArray()}
+     */
+    double[][] outputSumsJacobian(double[] input, 
+                                    NeuralNetworkResponse response, 
+                                    NeuralNetworkWeights weights) {
+        if (input == null || response == null || weights == null) {
+            throw new NullPointerException("Arguments cannot be null");
+        }
+        int nOutputs = nn.getNumberOutputs();
+        double[][] jacobian = new double[nOutputs][];
+        double[] unitOutput = new double[nOutputs];
+        for (int outputNum = 0; outputNum < nOutputs; outputNum++) {
+            unitOutput[outputNum] = 1.0;
+            // Backpropagating a unit delta from the output gives 
+            // the derivatives of the output's summed input
+            double[][] deltas = computeDeltas(unitOutput, response, weights);
+            jacobian[outputNum] = propagateDeltasForward(deltas, input, response).toArray();
+            unitOutput[outputNum] = 0.0;
+        }
+        return jacobian;
     }
     
     private double[][] computeDeltas(
@@ -210,15 +387,27 @@ public class NeuralNetworkEvaluator {
     }
     
     private NeuralNetworkWeights propagateDeltasForward(
-            double[][] deltas, 
-            double[] input, 
+            double[][] deltas,
+            double[] input,
             NeuralNetworkResponse response) {
-        
+
         NeuralNetworkWeights nnwDerivs = new NeuralNetworkWeights(
-                nn.getNumberInputs(), 
-                nn.getHiddenLayerSizes(), 
+                nn.getNumberInputs(),
+                nn.getHiddenLayerSizes(),
                 nn.getNumberOutputs()
         );
+        addDeltasForward(deltas, input, response, nnwDerivs);
+        return nnwDerivs;
+    }
+
+    private void addDeltasForward(
+            double[][] deltas, 
+            double[] input, 
+            NeuralNetworkResponse response,
+            NeuralNetworkWeights nnwDerivs) {
+        
+        double[][][] derivWeights = nnwDerivs.weights;
+        double[][] derivBiases = nnwDerivs.biases;
         // Input layer
         int nHiddenLayers = nn.getNumberHiddenLayers();
         int nOutputs = nn.getNumberOutputs();
@@ -227,12 +416,11 @@ public class NeuralNetworkEvaluator {
         int prevLayerSize = nn.getNumberInputs();
         for (int curLayerNeuron = 0; curLayerNeuron < curLayerSize; curLayerNeuron++) {
             for (int prevLayerNeuron = 0; prevLayerNeuron < prevLayerSize; prevLayerNeuron++) {
-                nnwDerivs.setWeight(curLayerNum, prevLayerNeuron, curLayerNeuron,  
+                derivWeights[curLayerNum][curLayerNeuron][prevLayerNeuron] += 
                         deltas[curLayerNum][curLayerNeuron]*
-                        input[prevLayerNeuron]
-                );
+                        input[prevLayerNeuron];
             } 
-            nnwDerivs.setBias(curLayerNum, curLayerNeuron, deltas[curLayerNum][curLayerNeuron]);
+            derivBiases[curLayerNum][curLayerNeuron] += deltas[curLayerNum][curLayerNeuron];
         }
 
         // Hidden layers
@@ -241,12 +429,11 @@ public class NeuralNetworkEvaluator {
             prevLayerSize = nn.getHiddenLayerSize(curLayerNum - 1);
             for (int curLayerNeuron = 0; curLayerNeuron < curLayerSize; curLayerNeuron++) {
                 for (int prevLayerNeuron = 0; prevLayerNeuron < prevLayerSize; prevLayerNeuron++) {
-                    nnwDerivs.setWeight(curLayerNum, prevLayerNeuron, curLayerNeuron, 
+                    derivWeights[curLayerNum][curLayerNeuron][prevLayerNeuron] += 
                             deltas[curLayerNum][curLayerNeuron]*
-                            response.getNeuronOutput(curLayerNum - 1, prevLayerNeuron)
-                    );
+                            response.getNeuronOutput(curLayerNum - 1, prevLayerNeuron);
                 }
-                nnwDerivs.setBias(curLayerNum, curLayerNeuron, deltas[curLayerNum][curLayerNeuron]);
+                derivBiases[curLayerNum][curLayerNeuron] += deltas[curLayerNum][curLayerNeuron];
             }
         }
 
@@ -256,15 +443,12 @@ public class NeuralNetworkEvaluator {
         prevLayerSize = nn.getHiddenLayerSize(curLayerNum - 1);
         for (int curLayerNeuron = 0; curLayerNeuron < curLayerSize; curLayerNeuron++) {
             for (int prevLayerNeuron = 0; prevLayerNeuron < prevLayerSize; prevLayerNeuron++) {
-                nnwDerivs.setWeight(curLayerNum, prevLayerNeuron, curLayerNeuron,
+                derivWeights[curLayerNum][curLayerNeuron][prevLayerNeuron] += 
                         deltas[curLayerNum][curLayerNeuron]*
-                        response.getNeuronOutput(curLayerNum - 1, prevLayerNeuron)
-                );
+                        response.getNeuronOutput(curLayerNum - 1, prevLayerNeuron);
             } 
-            nnwDerivs.setBias(curLayerNum, curLayerNeuron, deltas[curLayerNum][curLayerNeuron]);
+            derivBiases[curLayerNum][curLayerNeuron] += deltas[curLayerNum][curLayerNeuron];
         }
-
-        return nnwDerivs;
     }
 }
 
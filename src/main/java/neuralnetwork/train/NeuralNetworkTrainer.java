@@ -3,16 +3,15 @@ package neuralnetwork.train;
 import neuralnetwork.NeuralNetwork;
 import neuralnetwork.samples.NeuralNetworkSamplesNormalizer;
 import neuralnetwork.samples.NeuralNetworkSamplesNormalizerAsym;
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.FutureTask;
 
 /**
  * The trainer starts a separate thread for performing the actual optimization
- * of a network.
+ * of a network with the chosen {@link TrainingAlgorithm}.
  * The trainer uses the cross-entropy error function for calculating
  * the error between the real and the target outputs of a network.
  * Input and target values must be in [0,1] for the training algorithm
@@ -23,7 +22,7 @@ import java.util.concurrent.FutureTask;
 public class NeuralNetworkTrainer {
     
     /** Holder of optimization options. */
-    static class Options {
+    static class Options implements Cloneable {
     
         /** Maximum number of iterations (epochs) of training loop. */
         int maxEpoch;
@@ -40,6 +39,45 @@ public class NeuralNetworkTrainer {
         /** Ratio of test samples with respect to the number of all samples (in per cent). */
         int testSamplesRatio;
         
+        /** Whether to cache the first layer's sums along the search directions. */
+        boolean directionalForwardCache;
+        
+        /** Optimization algorithm. */
+        TrainingAlgorithm algorithm;
+        
+        /** Number of the last steps remembered by the L-BFGS algorithm. */
+        int lbfgsHistorySize;
+        
+        /** Number of threads used by the parallel algorithms. */
+        int numThreads;
+        
+        /** Max number of weights and biases trained with the Levenberg-Marquardt algorithm. */
+        int levenbergMarquardtMaxParameters;
+        
+        /** Learning rate of the stochastic gradient descent. */
+        double learningRate;
+        
+        /** Number of train samples the subsampled SCG starts with. */
+        int initialSubsampleSize;
+        
+        /** File the checkpoints are written to or {@code null} if disabled. */
+        Path checkpointFile;
+        
+        /** Number of epochs between the checkpoints or 0 if not limited. */
+        int checkpointEveryEpochs;
+        
+        /** Time between the checkpoints (in milliseconds) or 0 if not limited. */
+        long checkpointIntervalMillis;
+        
+        /** Min time between the published snapshots (in milliseconds) or 0 if disabled. */
+        long snapshotIntervalMillis;
+        
+        /** Max duration of a training (in milliseconds) or 0 if not limited. */
+        long timeLimitMillis;
+        
+        /** Which completed epochs are reported to the listeners. */
+        EpochReportPolicy epochReportPolicy = new EpochReportPolicy();
+        
         /** Create an {@code Options} object holding the passed values. */
         Options(int maxEpoch, int performanceGoal, int trainRatio, int validationRatio, int testRatio) {
             this.maxEpoch = maxEpoch;
@@ -56,14 +94,42 @@ public class NeuralNetworkTrainer {
             trainSamplesRatio = 100;
             validationSamplesRatio = 0;
             testSamplesRatio = 0;
+            directionalForwardCache = false;
+            algorithm = TrainingAlgorithm.SCG;
+            lbfgsHistorySize = 10;
+            numThreads = Runtime.getRuntime().availableProcessors();
+            levenbergMarquardtMaxParameters = 2000;
+            learningRate = 0.5;
+            initialSubsampleSize = 1000;
+            checkpointFile = null;
+            checkpointEveryEpochs = 100;
+            checkpointIntervalMillis = 0;
+            snapshotIntervalMillis = 1000;
+            timeLimitMillis = 0;
+        }
+        
+        /** 
+         * Create a copy holding the same values. The copy has its own
+         * {@code epochReportPolicy}, so changing it at runtime doesn't affect
+         * the other trainers.
+         */
+        Options copy() {
+            try {
+                Options copy = (Options)super.clone();
+                copy.epochReportPolicy = new EpochReportPolicy(epochReportPolicy);
+                return copy;
+            }
+            catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
         }
     }
     
     /** Optimization options. */
     private Options options;
     
-    /** List of user-attached listeners. */
-    private List<Listener> listeners;
+    /** Delivery of the events to the user-attached listeners. */
+    private final ListenerDispatcher dispatcher;
     
     /** Listener to register with {@code NeuralNetworkTrainerTask} object. */
     private final Listener trainingListener = new Listener() {
@@ -84,7 +150,19 @@ public class NeuralNetworkTrainer {
     private final ExecutorService executor;
     
     /** Currently running or last finished/canceled training async task. */
-    private FutureTask<NeuralNetwork> currentTraining;
+    private volatile NeuralNetworkTrainerTask currentTraining;
+    
+    /** Metrics of the last completed epoch of the current or last training. */
+    private volatile TrainingMetrics lastMetrics;
+    
+    /** Last reported epoch of the current or last training or {@code null}. */
+    private volatile TrainerEvent lastEpochEvent;
+    
+    /** Time the current or last training has been started at. */
+    private volatile long trainingStartNanos;
+    
+    /** Time the last training has finished at or 0 if it's running. */
+    private volatile long trainingEndNanos;
     
     /** Normalizer for neural network's inputs used to map inputs into a predefined range. */
     private final NeuralNetworkSamplesNormalizer sampleNormalizer;
@@ -155,6 +233,239 @@ public class NeuralNetworkTrainer {
             return this;
         }
         
+        /**
+         * Choose the optimization algorithm. The default is {@code TrainingAlgorithm.SCG}.
+         * @param algorithm The algorithm to train networks with.
+         * @return This builder.
+         * @throws NullPointerException if {@link algorithm} is null.
+         */
+        public Builder withAlgorithm(TrainingAlgorithm algorithm) {
+            if (algorithm == null) {
+                throw new NullPointerException("Algorithm cannot be null");
+            }
+            this.opts.algorithm = algorithm;
+            return this;
+        }
+        
+        /**
+         * Set the number of the last steps used by the L-BFGS algorithm
+         * to approximate the inverse Hessian. The default is 10.
+         * @param historySize The number of the remembered steps.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link historySize} is nonpositive.
+         */
+        public Builder withLbfgsHistorySize(int historySize) {
+            if (historySize <= 0) {
+                throw new IllegalArgumentException("History size cannot be nonpositive");
+            }
+            this.opts.lbfgsHistorySize = historySize;
+            return this;
+        }
+        
+        /**
+         * Set the number of threads used by the parallel algorithms.
+         * The default is the number of available processors.
+         * @param numThreads The number of threads.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link numThreads} is nonpositive.
+         */
+        public Builder withNumberOfThreads(int numThreads) {
+            if (numThreads <= 0) {
+                throw new IllegalArgumentException("Number of threads cannot be nonpositive");
+            }
+            this.opts.numThreads = numThreads;
+            return this;
+        }
+        
+        /**
+         * Set the max number of weights and biases of a network trained 
+         * with the Levenberg-Marquardt algorithm. Every training thread keeps
+         * a square matrix of this size, so bigger networks are trained with
+         * {@code TrainingAlgorithm.SCG} instead. The default is 2000.
+         * @param maxParameters The max number of weights and biases.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link maxParameters} is nonpositive.
+         */
+        public Builder withLevenbergMarquardtMaxParameters(int maxParameters) {
+            if (maxParameters <= 0) {
+                throw new IllegalArgumentException("Max number of parameters cannot be nonpositive");
+            }
+            this.opts.levenbergMarquardtMaxParameters = maxParameters;
+            return this;
+        }
+        
+        /**
+         * Set the learning rate of the {@code TrainingAlgorithm.HOGWILD_SGD}
+         * algorithm. The default is 0.5.
+         * @param learningRate The learning rate.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link learningRate} is nonpositive
+         * or is not a number.
+         */
+        public Builder withLearningRate(double learningRate) {
+            if (!(learningRate > 0) || Double.isInfinite(learningRate)) {
+                throw new IllegalArgumentException("Learning rate must be a positive number");
+            }
+            this.opts.learningRate = learningRate;
+            return this;
+        }
+        
+        /**
+         * Set the number of train samples the {@code TrainingAlgorithm.SUBSAMPLED_SCG}
+         * algorithm starts with. The default is 1000.
+         * @param initialSubsampleSize The initial number of samples.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link initialSubsampleSize} is nonpositive.
+         */
+        public Builder withInitialSubsampleSize(int initialSubsampleSize) {
+            if (initialSubsampleSize <= 0) {
+                throw new IllegalArgumentException("Initial subsample size cannot be nonpositive");
+            }
+            this.opts.initialSubsampleSize = initialSubsampleSize;
+            return this;
+        }
+        
+        /**
+         * Cache the summed inputs of the first hidden layer for the current
+         * weights and the current search direction, so that evaluating
+         * the network at new points along the direction doesn't recompute the
+         * first layer. Speeds up the training of networks with many inputs
+         * at the cost of {@code 2 * numTrainSamples * firstHiddenLayerSize}
+         * cached values. Used only by the {@code TrainingAlgorithm.SCG} algorithm.
+         * @param enabled Whether the cache is used.
+         * @return This builder.
+         */
+        public Builder withDirectionalForwardCache(boolean enabled) {
+            this.opts.directionalForwardCache = enabled;
+            return this;
+        }
+        
+        /**
+         * Periodically write the complete state of the optimization to the
+         * {@link file}, so that the training can be continued with
+         * {@code resumeTrain} after it has been canceled or the JVM has exited.
+         * The file is replaced atomically. Supported by the {@code TrainingAlgorithm.SCG}
+         * algorithm, other algorithms don't write checkpoints. By default
+         * checkpoints are not written.
+         * @param file Path of the checkpoint file.
+         * @return This builder.
+         * @throws NullPointerException if {@link file} is null.
+         */
+        public Builder withCheckpointFile(Path file) {
+            if (file == null) {
+                throw new NullPointerException("Checkpoint file cannot be null");
+            }
+            this.opts.checkpointFile = file;
+            return this;
+        }
+        
+        /**
+         * Set the number of epochs after which a checkpoint is written.
+         * The default is 100.
+         * @param epochs The number of epochs or 0 to write checkpoints
+         * only by time (see {@code withCheckpointInterval}).
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link epochs} is negative.
+         */
+        public Builder withCheckpointEveryEpochs(int epochs) {
+            if (epochs < 0) {
+                throw new IllegalArgumentException("Number of epochs between checkpoints cannot be negative");
+            }
+            this.opts.checkpointEveryEpochs = epochs;
+            return this;
+        }
+        
+        /**
+         * Set the time after which a checkpoint is written at the end of the
+         * current epoch. The default is 0.
+         * @param millis The time in milliseconds or 0 to write checkpoints
+         * only by the number of epochs (see {@code withCheckpointEveryEpochs}).
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link millis} is negative.
+         */
+        public Builder withCheckpointInterval(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("Time between checkpoints cannot be negative");
+            }
+            this.opts.checkpointIntervalMillis = millis;
+            return this;
+        }
+        
+        /**
+         * Limit the wall-clock duration of a training. When the time is over,
+         * the training stops after the chunk of samples being processed
+         * and completes normally with the better of
+         * the algorithm's current weights and the best published snapshot
+         * (see {@code withSnapshotInterval}). The default is 0.
+         * @param millis The max duration in milliseconds or 0 if not limited.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link millis} is negative.
+         */
+        public Builder withTimeLimit(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("Time limit cannot be negative");
+            }
+            this.opts.timeLimitMillis = millis;
+            return this;
+        }
+        
+        /**
+         * Set the min time between the snapshots of the best network published
+         * by a running training (see {@code getSnapshot}). Publishing only keeps
+         * a reference to the weights and biases, they are copied by
+         * {@code TrainingSnapshot.getNetwork} on the caller's thread. 
+         * The default is 1000.
+         * @param millis The time in milliseconds or 0 to disable the snapshots.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link millis} is negative.
+         */
+        public Builder withSnapshotInterval(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("Time between snapshots cannot be negative");
+            }
+            this.opts.snapshotIntervalMillis = millis;
+            return this;
+        }
+        
+        /**
+         * Report only every {@link epochs}-th completed epoch to the listeners.
+         * Unreported epochs don't create any events, which matters for small
+         * networks completing thousands of epochs per second. The default is 1.
+         * @param epochs The number of epochs between the reports.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link epochs} is nonpositive.
+         */
+        public Builder withEpochReportEvery(int epochs) {
+            this.opts.epochReportPolicy.setEveryEpochs(epochs);
+            return this;
+        }
+        
+        /**
+         * Report the completed epochs to the listeners at most once per
+         * {@link millis} milliseconds. The default is 0.
+         * @param millis The min time between the reports in milliseconds
+         * or 0 if not limited.
+         * @return This builder.
+         * @throws IllegalArgumentException if {@link millis} is negative.
+         */
+        public Builder withEpochReportInterval(long millis) {
+            this.opts.epochReportPolicy.setIntervalMillis(millis);
+            return this;
+        }
+        
+        /**
+         * Report to the listeners only the epochs whose performance is better
+         * than the best reported one. Combines with {@code withEpochReportEvery}
+         * and {@code withEpochReportInterval}: an epoch is reported if all
+         * the conditions hold. By default every epoch is reported.
+         * @param enabled Whether only the improving epochs are reported.
+         * @return This builder.
+         */
+        public Builder withEpochReportOnImprovement(boolean enabled) {
+            this.opts.epochReportPolicy.setOnImprovement(enabled);
+            return this;
+        }
+        
         // package for testing
         Builder withExecutor(ExecutorService executor) {
             if (executor == null) {
@@ -176,7 +487,7 @@ public class NeuralNetworkTrainer {
             else {
                 nnt = new NeuralNetworkTrainer(executor);
             }
-            nnt.options = this.opts;
+            nnt.options = this.opts.copy();
             
             return nnt;
         }
@@ -184,14 +495,18 @@ public class NeuralNetworkTrainer {
     
     // package for testing
     NeuralNetworkTrainer() {
-        this(TrainerExecutors.newExecutor());
+        this(TrainerExecutors.newExecutor(), TrainerExecutors.newIdleTimeoutExecutor());
     }
     
-    // package for testing
+    // package for testing: the executor also delivers the events
     NeuralNetworkTrainer(ExecutorService executor) {
+        this(executor, executor);
+    }
+    
+    private NeuralNetworkTrainer(ExecutorService executor, ExecutorService deliveryExecutor) {
         this.sampleNormalizer = new NeuralNetworkSamplesNormalizerAsym();
         this.targetNormalizer = new NeuralNetworkSamplesNormalizerAsym();
-        this.listeners = new LinkedList<>();
+        this.dispatcher = new ListenerDispatcher(deliveryExecutor);
         this.executor = executor;
     }
     
@@ -238,9 +553,100 @@ public class NeuralNetworkTrainer {
         return options.testSamplesRatio;
     }
     
+    /** Optimization algorithm used for training.
+     * @return {@code TrainingAlgorithm} used by this trainer.
+     */
+    public TrainingAlgorithm getAlgorithm() {
+        return options.algorithm;
+    }
+    
+    /** Number of the last steps remembered by the L-BFGS algorithm.
+     * @return {@code int} value of the L-BFGS history size.
+     */
+    public int getLbfgsHistorySize() {
+        return options.lbfgsHistorySize;
+    }
+    
+    /** Number of threads used by the parallel algorithms.
+     * @return {@code int} number of threads.
+     */
+    public int getNumberOfThreads() {
+        return options.numThreads;
+    }
+    
+    /** Max number of weights and biases of a network trained with 
+     * the Levenberg-Marquardt algorithm.
+     * @return {@code int} max number of parameters.
+     */
+    public int getLevenbergMarquardtMaxParameters() {
+        return options.levenbergMarquardtMaxParameters;
+    }
+    
+    /** Learning rate of the stochastic gradient descent.
+     * @return {@code double} value of the learning rate.
+     */
+    public double getLearningRate() {
+        return options.learningRate;
+    }
+    
+    /** Number of train samples the subsampled SCG starts with.
+     * @return {@code int} initial subsample size.
+     */
+    public int getInitialSubsampleSize() {
+        return options.initialSubsampleSize;
+    }
+    
+    /** File the checkpoints are written to.
+     * @return {@code Path} of the checkpoint file or {@code null} if
+     * checkpoints are not written.
+     */
+    public Path getCheckpointFile() {
+        return options.checkpointFile;
+    }
+    
+    /** Number of epochs after which a checkpoint is written.
+     * @return {@code int} number of epochs or 0 if not limited.
+     */
+    public int getCheckpointEveryEpochs() {
+        return options.checkpointEveryEpochs;
+    }
+    
+    /** Time after which a checkpoint is written.
+     * @return {@code long} time in milliseconds or 0 if not limited.
+     */
+    public long getCheckpointInterval() {
+        return options.checkpointIntervalMillis;
+    }
+    
+    /** Max wall-clock duration of a training.
+     * @return {@code long} time in milliseconds or 0 if not limited.
+     */
+    public long getTimeLimit() {
+        return options.timeLimitMillis;
+    }
+    
+    /** Min time between the snapshots published by a running training.
+     * @return {@code long} time in milliseconds or 0 if the snapshots are disabled.
+     */
+    public long getSnapshotInterval() {
+        return options.snapshotIntervalMillis;
+    }
+    
+    /** Whether the first layer's sums are cached along the search directions.
+     * @return {@code true} if the directional forward cache is used, 
+     * {@code false} otherwise.
+     */
+    public boolean isDirectionalForwardCacheEnabled() {
+        return options.directionalForwardCache;
+    }
+    
     /**
      * Register a listener that will be called when certain 
-     * training lifecycle events occur.
+     * training lifecycle events occur. The listeners are called on 
+     * a separate delivery thread, one event at a time, so a slow listener
+     * doesn't stall the training. If the listeners lag behind, they receive
+     * only the latest of the completed epochs; the completion and the cancellation
+     * of a training are always delivered. Can be called during a training.
      * @param listener A listener that will be called when certain 
      * training lifecycle events occur.
      * @throws NullPointerException if the {@link listener} is null.
@@ -249,7 +655,7 @@ public class NeuralNetworkTrainer {
         if (listener == null) {
             throw new NullPointerException("Listener cannot be null");
         }
-        listeners.add(listener);
+        dispatcher.addListener(listener);
     }
     
     /**
@@ -264,7 +670,7 @@ public class NeuralNetworkTrainer {
         if (listener == null) {
             throw new NullPointerException("Listener cannot be null");
         }
-        listeners.remove(listener);
+        dispatcher.removeListener(listener);
     }
     
     /**
@@ -273,9 +679,8 @@ public class NeuralNetworkTrainer {
      * the optimization at the time the event occurred.
      */
     private void notifyTrainingComplete(final TrainerEvent event) {
-        listeners.forEach((listener) -> {
-            listener.onTrainingComplete(event);
-        });
+        trainingEndNanos = System.nanoTime();
+        dispatcher.trainingComplete(event);
     }
     
     /**
@@ -284,9 +689,8 @@ public class NeuralNetworkTrainer {
      * the optimization at the time the event occurred.
      */
     private void notifyTrainingCanceled(final TrainerEvent event) {
-        listeners.forEach((listener) -> {
-            listener.onTrainingCanceled(event);
-        });
+        trainingEndNanos = System.nanoTime();
+        dispatcher.trainingCanceled(event);
     }
     
     /**
@@ -295,19 +699,34 @@ public class NeuralNetworkTrainer {
      * the optimization at the time the event occurred.
      */
     private void notifyTrainingEpochComplete(final TrainerEvent event) {
-        listeners.forEach((listener) -> {
-            listener.onTrainingEpochComplete(event);
-        });
+        lastEpochEvent = event;
+        TrainingMetrics metrics = event.getMetrics();
+        if (metrics != null) {
+            lastMetrics = metrics;
+        }
+        dispatcher.trainingEpochComplete(event);
+    }
+    
+    /**
+     * Metrics of the last completed epoch of the current or the last training.
+     * Can be called while the training is running.
+     * @return {@code TrainingMetrics} snapshot or {@code null} if no epoch
+     * of the current or the last training has been completed.
+     */
+    public TrainingMetrics getMetrics() {
+        return lastMetrics;
     }
     
     /** 
      * Request currently running training (if any) to stop, which will result into
      * the currently running training being canceled and the corresponding lifecycle event
-     * will be raised.
+     * will be raised. The training stops after the chunk of samples being processed
+     * rather than after the whole pass over the samples.
      */
     public void stopTraining() {
-        if (currentTraining != null && !currentTraining.isDone()) {
-            currentTraining.cancel(true);
+        NeuralNetworkTrainerTask training = currentTraining;
+        if (training != null && !training.isDone()) {
+            training.cancel(true);
         }
     }
     
@@ -317,7 +736,112 @@ public class NeuralNetworkTrainer {
      * last training has been finished (either completed or canceled), @{code false} otherwise
      */
     public boolean trainingFinished() {
-        return (currentTraining == null || currentTraining.isDone());
+        NeuralNetworkTrainerTask training = currentTraining;
+        return (training == null || training.isDone());
+    }
+    
+    /**
+     * Report only every {@link epochs}-th completed epoch to the listeners.
+     * Takes effect at the next epoch of the running training, if any.
+     * The default is set by {@code Builder.withEpochReportEvery}.
+     * @param epochs Number of epochs between the reports.
+     * @throws IllegalArgumentException if {@link epochs} is nonpositive.
+     */
+    public void setEpochReportEvery(int epochs) {
+        options.epochReportPolicy.setEveryEpochs(epochs);
+    }
+    
+    /** Number of epochs between the reports of the completed epochs.
+     * @return {@code int} number of epochs, 1 if every epoch is reported.
+     */
+    public int getEpochReportEvery() {
+        return options.epochReportPolicy.getEveryEpochs();
+    }
+    
+    /** Min time between the reports of the completed epochs.
+     * @return {@code long} time in milliseconds or 0 if not limited.
+     */
+    public long getEpochReportInterval() {
+        return options.epochReportPolicy.getIntervalMillis();
+    }
+    
+    /** Whether only the epochs improving the performance are reported.
+     * @return {@code true} if only the improving epochs are reported.
+     */
+    public boolean isEpochReportOnImprovement() {
+        return options.epochReportPolicy.isOnImprovement();
+    }
+    
+    /**
+     * Request the running training (if any) to write a checkpoint at the end 
+     * of its current epoch regardless of the configured checkpoint interval.
+     * Algorithms that don't support checkpoints ignore the request.
+     * @throws IllegalStateException if no checkpoint file is set 
+     * (see {@code Builder.withCheckpointFile}).
+     */
+    public void requestCheckpoint() {
+        if (options.checkpointFile == null) {
+            throw new IllegalStateException("Checkpoint file is not set");
+        }
+        NeuralNetworkTrainerTask training = currentTraining;
+        if (training != null && !training.isDone()) {
+            training.requestCheckpoint();
+        }
+    }
+    
+    /**
+     * Get the best network of the current or last training published so far
+     * without waiting for the training to finish. A running training publishes
+     * the network after its first epoch and then at most once per the snapshot
+     * interval (see {@code Builder.withSnapshotInterval}) if its performance
+     * has improved.
+     * @return The {@code TrainingSnapshot} or {@code null} if no training
+     * has been started or no snapshot has been published yet.
+     */
+    public TrainingSnapshot getSnapshot() {
+        NeuralNetworkTrainerTask training = currentTraining;
+        return training != null ? training.getSnapshot() : null;
+    }
+    
+    /** Last reported epoch of the current or last training or {@code null}. */
+    TrainerEvent getLastEpochEvent() {
+        return lastEpochEvent;
+    }
+    
+    /** 
+     * Number of threads computing the current or last training, 
+     * 0 if none has been started. 
+     */
+    int getTrainingThreadCount() {
+        NeuralNetworkTrainerTask training = currentTraining;
+        return training != null ? training.getThreadCount() : 0;
+    }
+    
+    /** 
+     * Epoch the current or last training has been started from, not 0 
+     * only for a resumed one. 
+     */
+    int getTrainingStartEpoch() {
+        NeuralNetworkTrainerTask training = currentTraining;
+        return training != null ? training.getStartEpoch() : 0;
+    }
+    
+    /** 
+     * Time elapsed since the start of the current or last training 
+     * until now or its finish (in nanoseconds), 0 if none has been started.
+     */
+    long getTrainingElapsedNanos() {
+        NeuralNetworkTrainerTask training = currentTraining;
+        if (training == null) {
+            return 0;
+        }
+        long start = trainingStartNanos;
+        long end = training.isDone() ? trainingEndNanos : 0;
+        if (end - start <= 0) {
+            // Running or its final event hasn't been handled yet
+            end = System.nanoTime();
+        }
+        return end - start;
     }
     
     /**
@@ -332,6 +856,39 @@ public class NeuralNetworkTrainer {
         sampleNormalizer.normalize(inputs);
     }
     
+    /**
+     * Copy the inputs and map the copy to a predefined range.
+     * @param inputs Inputs to be copied. Not changed by the call.
+     * @return Normalized copy of {@link inputs}.
+     */
+    double[][] normalizedCopyOfSamples(double[][] inputs) {
+        double[][] copy = deepCopy(inputs);
+        normalizeSamples(copy);
+        return copy;
+    }
+    
+    /**
+     * Copy the targets and map the copy to a predefined range.
+     * @param targets Targets to be copied. Not changed by the call.
+     * @return Normalized copy of {@link targets}.
+     */
+    double[][] normalizedCopyOfTargets(double[][] targets) {
+        double[][] copy = deepCopy(targets);
+        normalizeTargets(copy);
+        return copy;
+    }
+    
+    private static double[][] deepCopy(double[][] array) {
+        if (array == null) {
+            throw new NullPointerException("Samples cannot be null");
+        }
+        double[][] copy = array.clone();
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = array[i].clone();
+        }
+        return copy;
+    }
+    
     /**
      * Map targets to a predefined range. The {@code targets} contain 
      * the new normalized values after the call has finished.
@@ -360,18 +917,89 @@ public class NeuralNetworkTrainer {
         
         stopTraining();
         
+        start(newTask(nn, inputs, targets));
+    }
+    
+    /**
+     * Start (asynchronously) training of {@link nn} neural network continuing 
+     * from the state saved in the {@link checkpointFile} by a training with 
+     * the same algorithm, network topology and samples (see 
+     * {@code Builder.withCheckpointFile}). The epochs are counted from the
+     * checkpoint's epoch. Given the same samples, the resumed training performs
+     * exactly the same steps as an uninterrupted one would have.
+     * @param nn NeuralNetwork object providing the topology and the activation
+     * function. Its weights and biases are replaced by the saved ones.
+     * @param inputs Samples to use in training as inputs
+     * @param targets Desired (ideal) responses of {@link nn} neural network on {@link inputs}
+     * @param checkpointFile Path of the checkpoint file.
+     * @throws IOException if the checkpoint cannot be read.
+     * @throws NullPointerException if any argument is null.
+     * @throws IllegalArgumentException if the checkpoint has been written
+     * for another network, number of samples or algorithm.
+     */
+    public void resumeTrain(NeuralNetwork nn, double[][] inputs, double[][] targets,
+            Path checkpointFile) throws IOException {
+        checkStartTrainArguments(nn, inputs, targets);
+        if (checkpointFile == null) {
+            throw new NullPointerException("Checkpoint file cannot be null");
+        }
+        TrainingCheckpoint checkpoint = TrainingCheckpoint.read(checkpointFile);
+        checkpoint.checkMatches(nn, inputs.length, options.algorithm);
+        
+        stopTraining();
+        
         normalizeSamples(inputs);
         normalizeTargets(targets);
-        
-        NeuralNetworkTrainerTask newTraining = new NeuralNetworkTrainerTask(
-                nn, inputs, targets, options);
+        start(new NeuralNetworkTrainerTask(new NeuralNetworkTrainerWorker(
+                nn, inputs, targets, options, true, checkpoint)));
+    }
+    
+    private void start(NeuralNetworkTrainerTask newTraining) {
+        lastMetrics = null;
+        lastEpochEvent = null;
+        trainingEndNanos = 0;
+        trainingStartNanos = System.nanoTime();
         newTraining.setListener(trainingListener);
         this.currentTraining = newTraining;
         
-        executor.submit(currentTraining);
+        executor.submit(newTraining);
+    }
+    
+    /**
+     * Create a training task with the options of this trainer. The {@link inputs}
+     * and {@link targets} are normalized in place.
+     * @param nn NeuralNetwork object to train
+     * @param inputs Samples to use in training as inputs
+     * @param targets Desired (ideal) responses of {@link nn} neural network on {@link inputs}
+     * @return A new task that hasn't been started.
+     */
+    NeuralNetworkTrainerTask newTask(NeuralNetwork nn, double[][] inputs, double[][] targets) {
+        checkStartTrainArguments(nn, inputs, targets);
+        
+        normalizeSamples(inputs);
+        normalizeTargets(targets);
+        
+        return new NeuralNetworkTrainerTask(nn, inputs, targets, options);
+    }
+    
+    /**
+     * Create a training task with the options of this trainer on samples 
+     * that have already been normalized. The rows of the samples are not copied
+     * and can be shared read-only by many tasks.
+     * @param nn NeuralNetwork object to train
+     * @param preparedInputs Normalized samples to use in training as inputs
+     * @param preparedTargets Normalized desired responses of {@link nn} on {@link preparedInputs}
+     * @return A new task that hasn't been started.
+     */
+    NeuralNetworkTrainerTask newTaskOnPreparedSamples(NeuralNetwork nn, 
+            double[][] preparedInputs, double[][] preparedTargets) {
+        checkStartTrainArguments(nn, preparedInputs, preparedTargets);
+        
+        return new NeuralNetworkTrainerTask(new NeuralNetworkTrainerWorker(
+                nn, preparedInputs, preparedTargets, options, false));
     }
     
-    private void checkStartTrainArguments(NeuralNetwork nn, double[][] inputs, double[][] targets) {
+    static void checkStartTrainArguments(NeuralNetwork nn, double[][] inputs, double[][] targets) {
         if (nn == null || inputs == null || targets == null) {
             throw new NullPointerException("Arguments cannot be null");
         }
@@ -396,11 +1024,12 @@ public class NeuralNetworkTrainer {
      * or resulted in an exception.
      */
     public NeuralNetwork getTrainedNetwork() {
-        if (currentTraining == null) {
+        NeuralNetworkTrainerTask training = currentTraining;
+        if (training == null) {
             return null;
         }
         try {
-            return currentTraining.get();
+            return training.get();
         }
         catch(CancellationException | ExecutionException | InterruptedException e) {
             return null;
@@ -0,0 +1,175 @@
+package neuralnetwork.train;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * JMX MXBean exposing the progress of a {@code NeuralNetworkTrainer}'s 
+ * training and operations controlling it. The attributes are read from
+ * the last reported epoch (see {@code setEpochReportEvery}), so reading them
+ * doesn't slow the training down.
+ * <p>Registered with the platform MBean server under
+ * {@code neuralnetwork.train:type=NeuralNetworkTrainer,name=<name>}:</p>
+ * <pre>{@code
+ * NeuralNetworkTrainerControl control = new NeuralNetworkTrainerControl(trainer);
+ * control.register("digits");
+ * trainer.startTrain(nn, inputs, targets);
+ * ...
+ * control.unregister();
+ * }</pre>
+ * @author Konstantin Zhdanov
+ */
+public class NeuralNetworkTrainerControl implements NeuralNetworkTrainerControlMXBean {
+    
+    /** Domain of the registered names. */
+    public static final String DOMAIN = "neuralnetwork.train";
+    
+    /** Controlled trainer. */
+    private final NeuralNetworkTrainer trainer;
+    
+    /** Name this bean has been registered under or {@code null}. */
+    private ObjectName registeredName;
+    
+    /**
+     * Create a bean controlling the {@link trainer}.
+     * @param trainer Trainer to monitor and control.
+     * @throws NullPointerException if {@link trainer} is null.
+     */
+    public NeuralNetworkTrainerControl(NeuralNetworkTrainer trainer) {
+        if (trainer == null) {
+            throw new NullPointerException("Trainer cannot be null");
+        }
+        this.trainer = trainer;
+    }
+    
+    /**
+     * Name of a trainer's bean in the platform MBean server.
+     * @param name Name distinguishing the trainer, quoted if needed.
+     * @return The {@code ObjectName}.
+     * @throws NullPointerException if {@link name} is null.
+     */
+    public static ObjectName objectName(String name) {
+        if (name == null) {
+            throw new NullPointerException("Name cannot be null");
+        }
+        try {
+            return new ObjectName(DOMAIN + ":type=NeuralNetworkTrainer,name=" 
+                    + ObjectName.quote(name));
+        }
+        catch (JMException e) {
+            // Every quoted value is valid
+            throw new AssertionError(e);
+        }
+    }
+    
+    /**
+     * Register this bean with the platform MBean server.
+     * @param name Name distinguishing the trainer among the registered ones.
+     * @return The name the bean has been registered under.
+     * @throws JMException if a bean with the same name is already registered.
+     * @throws NullPointerException if {@link name} is null.
+     * @throws IllegalStateException if this bean is already registered.
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (registeredName != null) {
+            throw new IllegalStateException("Already registered as " + registeredName);
+        }
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+        return objectName;
+    }
+    
+    /**
+     * Unregister this bean from the platform MBean server. No-op if it isn't
+     * registered.
+     * @throws JMException if the bean cannot be unregistered.
+     */
+    public synchronized void unregister() throws JMException {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(registeredName)) {
+            server.unregisterMBean(registeredName);
+        }
+        registeredName = null;
+    }
+    
+    @Override
+    public int getEpoch() {
+        TrainerEvent event = trainer.getLastEpochEvent();
+        return event != null ? event.getEpoch() : 0;
+    }
+    
+    @Override
+    public int getMaxEpoch() {
+        return trainer.getMaxEpoch();
+    }
+    
+    @Override
+    public double getLoss() {
+        TrainerEvent event = trainer.getLastEpochEvent();
+        return event != null ? event.getPerformance() : Double.NaN;
+    }
+    
+    @Override
+    public double getSamplesPerSecond() {
+        TrainingMetrics metrics = trainer.getMetrics();
+        return metrics != null ? metrics.getSamplesPerSecond() : 0.0;
+    }
+    
+    @Override
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(trainer.getTrainingElapsedNanos());
+    }
+    
+    @Override
+    public long getEstimatedRemainingMillis() {
+        if (trainer.trainingFinished()) {
+            return 0;
+        }
+        TrainerEvent event = trainer.getLastEpochEvent();
+        // A resumed training has counted its epochs from the checkpoint's one
+        int epochsOfRun = event != null ? event.getEpoch() - trainer.getTrainingStartEpoch() : 0;
+        if (epochsOfRun <= 0) {
+            return -1;
+        }
+        double millisPerEpoch = (double)getElapsedMillis() / epochsOfRun;
+        int remainingEpochs = Math.max(0, trainer.getMaxEpoch() - event.getEpoch());
+        return Math.round(millisPerEpoch * remainingEpochs);
+    }
+    
+    @Override
+    public int getThreadCount() {
+        return trainer.getTrainingThreadCount();
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return !trainer.trainingFinished();
+    }
+    
+    @Override
+    public int getEpochReportEvery() {
+        return trainer.getEpochReportEvery();
+    }
+    
+    @Override
+    public void setEpochReportEvery(int epochs) {
+        trainer.setEpochReportEvery(epochs);
+    }
+    
+    @Override
+    public void stopTraining() {
+        trainer.stopTraining();
+    }
+    
+    @Override
+    public void checkpointNow() {
+        trainer.requestCheckpoint();
+    }
+}
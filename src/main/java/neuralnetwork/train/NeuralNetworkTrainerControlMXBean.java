@@ -0,0 +1,89 @@
+package neuralnetwork.train;
+
+/**
+ * Management interface of a {@code NeuralNetworkTrainer} registered with 
+ * JMX by {@code NeuralNetworkTrainerControl}, so that a long training can be
+ * watched and steered from JConsole, VisualVM or any other JMX client.
+ * @author Konstantin Zhdanov
+ */
+public interface NeuralNetworkTrainerControlMXBean {
+    
+    /**
+     * Number of the last reported epoch of the current or last training.
+     * @return The epoch's number or 0 if no epoch has been reported.
+     */
+    int getEpoch();
+    
+    /**
+     * Maximum number of epochs of the training.
+     * @return The max epoch.
+     */
+    int getMaxEpoch();
+    
+    /**
+     * Performance (error) on the training samples after the last reported epoch.
+     * @return The performance or {@code NaN} if no epoch has been reported.
+     */
+    double getLoss();
+    
+    /**
+     * Samples processed per second during the last reported epoch.
+     * @return The throughput or 0 if no epoch has been reported.
+     */
+    double getSamplesPerSecond();
+    
+    /**
+     * Time since the start of the current or last training until now or
+     * its finish.
+     * @return The time in milliseconds or 0 if no training has been started.
+     */
+    long getElapsedMillis();
+    
+    /**
+     * Estimated time until the training reaches its max epoch, extrapolated
+     * from the time of the epochs reported since the training has been started
+     * or resumed. Reaching the performance goal finishes the training earlier.
+     * @return The time in milliseconds, 0 if the training has finished or 
+     * -1 if unknown yet.
+     */
+    long getEstimatedRemainingMillis();
+    
+    /**
+     * Number of threads computing the current or last training, which can be
+     * less than configured, e.g. if Levenberg-Marquardt falls back to SCG.
+     * @return The number of threads or 0 if no training has been started.
+     */
+    int getThreadCount();
+    
+    /**
+     * Whether the training is running.
+     * @return {@code true} if a training has been started and hasn't finished.
+     */
+    boolean isRunning();
+    
+    /**
+     * Number of epochs between the reports of the completed epochs to
+     * the listeners.
+     * @return The number of epochs, 1 if every epoch is reported.
+     */
+    int getEpochReportEvery();
+    
+    /**
+     * Report only every {@link epochs}-th epoch to the listeners. Takes effect
+     * at the next epoch of the running training.
+     * @param epochs The number of epochs between the reports.
+     * @throws IllegalArgumentException if {@link epochs} is nonpositive.
+     */
+    void setEpochReportEvery(int epochs);
+    
+    /**
+     * Cancel the running training, if any.
+     */
+    void stopTraining();
+    
+    /**
+     * Write a checkpoint at the end of the running training's current epoch.
+     * @throws IllegalStateException if the trainer has no checkpoint file.
+     */
+    void checkpointNow();
+}
@@ -6,6 +6,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An implementation of {@code FutureTask<NeuralNetwork>} representing
@@ -18,6 +19,12 @@ class NeuralNetworkTrainerTask extends FutureTask<NeuralNetwork>{
     /** A worker object for performing the actual training. */
     private NeuralNetworkTrainerWorker worker;
     
+    /** 
+     * Whether either the worker has been started or the task has been
+     * canceled before the worker could start.
+     */
+    private final AtomicBoolean claimed;
+    
     /** A user-provided listener to be called when training events occur. */
     private volatile Listener listener;
     
@@ -25,12 +32,19 @@ class NeuralNetworkTrainerTask extends FutureTask<NeuralNetwork>{
      completed or canceled. */
     private volatile TrainerEvent finalEvent;
     
+    /** Whether the listener has been notified of the completion or cancellation. */
+    private final AtomicBoolean finalNotified = new AtomicBoolean();
+    
     /** Listener to be attached to the training worker thread. */
     private final Listener workerListener = 
             new Listener() {
                 @Override
                 public void onTrainingComplete(TrainerEvent event) {
                     NeuralNetworkTrainerTask.this.finalEvent = event;
+                    if (isCancelled()) {
+                        // Canceled after the worker's last check, the result is discarded
+                        NeuralNetworkTrainerTask.this.onTrainingCanceled(event);
+                    }
                 }
 
                 @Override
@@ -55,8 +69,19 @@ class NeuralNetworkTrainerTask extends FutureTask<NeuralNetwork>{
     }
     
     NeuralNetworkTrainerTask(NeuralNetworkTrainerWorker worker) {
-       super(worker);
+       this(worker, new AtomicBoolean());
+    }
+    
+    private NeuralNetworkTrainerTask(NeuralNetworkTrainerWorker worker, AtomicBoolean claimed) {
+       super(() -> {
+           if (!claimed.compareAndSet(false, true)) {
+               // Canceled before started
+               return null;
+           }
+           return worker.call();
+       });
        this.worker = worker;
+       this.claimed = claimed;
        this.worker.setListener(workerListener);
     }
 
@@ -84,6 +109,17 @@ class NeuralNetworkTrainerTask extends FutureTask<NeuralNetwork>{
                 assert false;
             }
         }
+        else if (claimed.compareAndSet(false, true)) {
+            // Canceled before the worker has been started
+            TrainerEvent event = new TrainerEvent(0, Double.NaN);
+            finalEvent = event;
+            onTrainingCanceled(event);
+        }
+        else if (finalEvent != null) {
+            // The worker has completed but the task has been canceled before
+            // its result could be set
+            onTrainingCanceled(finalEvent);
+        }
         // else - will be notified from the Worker class
     }
     
@@ -130,7 +166,41 @@ class NeuralNetworkTrainerTask extends FutureTask<NeuralNetwork>{
         }
     }
     
+    /**
+     * Get the best snapshot of the training published so far. Doesn't block.
+     * @return The {@code TrainingSnapshot} or {@code null}.
+     */
+    TrainingSnapshot getSnapshot() {
+        return worker.getSnapshot();
+    }
+    
+    /**
+     * Number of threads computing the training. Doesn't block.
+     * @return The number of threads or 0 if the training hasn't started.
+     */
+    int getThreadCount() {
+        return worker.getThreadCount();
+    }
+    
+    /**
+     * Number of the epochs completed before the training has been started.
+     * @return The number of the epochs, 0 unless the training is resumed.
+     */
+    int getStartEpoch() {
+        return worker.getStartEpoch();
+    }
+    
+    /**
+     * Request the worker to write a checkpoint at the end of its current epoch.
+     */
+    void requestCheckpoint() {
+        worker.requestCheckpoint();
+    }
+    
     private void onTrainingDone(TrainerEvent event) {
+        if (!finalNotified.compareAndSet(false, true)) {
+            return;
+        }
         Listener shapshotListener = listener;
         if (shapshotListener != null) {
             shapshotListener.onTrainingComplete(event);
@@ -145,6 +215,9 @@ class NeuralNetworkTrainerTask extends FutureTask<NeuralNetwork>{
     }
     
     private void onTrainingCanceled(TrainerEvent event) {
+        if (!finalNotified.compareAndSet(false, true)) {
+            return;
+        }
         Listener shapshotListener = listener;
         if (shapshotListener != null) {
             shapshotListener.onTrainingCanceled(event);
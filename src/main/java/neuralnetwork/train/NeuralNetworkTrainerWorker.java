@@ -2,6 +2,11 @@ package neuralnetwork.train;
 
 import neuralnetwork.NeuralNetwork;
 import neuralnetwork.util.Randomizer;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.concurrent.Callable;
 
 /**
@@ -14,6 +19,26 @@ import java.util.concurrent.Callable;
  */
 class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
     
+    /** 
+     * Number of samples evaluated before their gradients are computed, 
+     * so the phases of a gradient pass are timed per chunk of samples.
+     * The passes also check for the cancellation and the time limit once per chunk.
+     */
+    static final int PASS_CHUNK_SIZE = 64;
+    
+    /**
+     * Thrown by a pass over the samples when the training must stop, so that
+     * the engine keeps the state of its last completed pass. Caught by 
+     * {@code TrainingEngine.run}.
+     */
+    static final class TrainingStoppedException extends RuntimeException {
+        private static final long serialVersionUID = 4812735269130157762L;
+        
+        TrainingStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+    
     /** {@code NeuralNetwork} to train. */
     private final NeuralNetwork nn;
         
@@ -60,10 +85,95 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
      */
     private final int maxEpoch;
     
-    /** Parameters used for the SCG training algorithm. */
-    private final double minGradient = 0.0000001;
-    private final double lambdaInit = 0.0000001;
-    private final double sigma = 0.00001;
+    /** Optimization algorithm used for the training. */
+    private final TrainingAlgorithm algorithm;
+    
+    /** Number of the last steps remembered by the L-BFGS algorithm. */
+    private final int lbfgsHistorySize;
+    
+    /** Whether to cache the first layer's sums along the search directions. */
+    private final boolean useDirectionalForwardCache;
+    
+    /** Number of threads used by the parallel algorithms. */
+    private final int numThreads;
+    
+    /** 
+     * Max number of weights and biases of a network trained with the
+     * Levenberg-Marquardt algorithm.
+     */
+    private final int levenbergMarquardtMaxParameters;
+    
+    /** Learning rate of the stochastic gradient descent. */
+    private final double learningRate;
+    
+    /** Number of train samples the subsampled SCG starts with. */
+    private final int initialSubsampleSize;
+    
+    /** Evaluator of the trained network. */
+    private final NeuralNetworkEvaluator evaluator;
+    
+    /** Whether the samples' rows are copied or shared with the caller. */
+    private final boolean copySamples;
+    
+    /** File the checkpoints are written to or {@code null} if disabled. */
+    private final Path checkpointFile;
+    
+    /** Number of epochs between the checkpoints or 0 if not limited. */
+    private final int checkpointEveryEpochs;
+    
+    /** Time between the checkpoints (in nanoseconds) or 0 if not limited. */
+    private final long checkpointIntervalNanos;
+    
+    /** Time of the last checkpoint or of the training's start. */
+    private long lastCheckpointTime;
+    
+    /** Whether a checkpoint has been requested regardless of the interval. */
+    private volatile boolean checkpointRequested;
+    
+    /** Which completed epochs are reported to the listener. */
+    private final EpochReportPolicy epochReportPolicy;
+    
+    /** Time of the last reported epoch or of the training's start. */
+    private long lastEpochReportTime;
+    
+    /** Best reported performance or {@code NaN} if none has been reported. */
+    private double bestReportedPerformance = Double.NaN;
+    
+    /** Min time between the published snapshots (in nanoseconds) or 0 if disabled. */
+    private final long snapshotIntervalNanos;
+    
+    /** Max duration of the training (in nanoseconds) or 0 if not limited. */
+    private final long timeLimitNanos;
+    
+    /** Time the training must stop at if it's limited. Set before the first pass. */
+    private long deadline;
+    
+    /** Whether the training has been stopped by the time limit. */
+    private boolean timedOut = false;
+    
+    /** Time of the last published snapshot or whole set's evaluation for it. */
+    private long lastSnapshotTime;
+    
+    /** Best snapshot of the training published so far or {@code null}. */
+    private volatile TrainingSnapshot snapshot;
+    
+    /** Checkpoint to continue the training from or {@code null}. */
+    private final TrainingCheckpoint resumeFrom;
+    
+    /** Measurements of the current epoch. */
+    private final TrainingMetricsRecorder metrics = new TrainingMetricsRecorder();
+    
+    /** 
+     * Engine performing the training or {@code null} if not started. 
+     * Set by the training thread, read by the monitoring ones.
+     */
+    private volatile TrainingEngine engine;
+    
+    /** 
+     * Flight Recorder event of the current epoch or {@code null} if no 
+     * recording has enabled it when the epoch began. 
+     */
+    private FlightRecorderEvents.EpochEvent epochEvent;
     
     /** 
      * A training events listener attached to this worker.
@@ -89,11 +199,53 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
      * training algorithm.
      */
     public NeuralNetworkTrainerWorker(NeuralNetwork nn, double[][] inputs, double[][] targets, NeuralNetworkTrainer.Options opts) {
+        this(nn, inputs, targets, opts, true);
+    }
+    
+    /**
+     * Create a training task.
+     * @param nn a network to be trained.
+     * @param inputs an array of network's inputs to perform the training upon. 
+     * @param targets an array of network's ideal responses to the provided {@link inputs}.
+     * @param opts An object containing the chosen options of the 
+     * training algorithm.
+     * @param copySamples Whether to copy the samples. If {@code false}, 
+     * the rows of {@link inputs} and {@link targets} are shared with the caller 
+     * and must not be modified until the training has finished.
+     */
+    NeuralNetworkTrainerWorker(NeuralNetwork nn, double[][] inputs, double[][] targets, 
+            NeuralNetworkTrainer.Options opts, boolean copySamples) {
+        this(nn, inputs, targets, opts, copySamples, null);
+    }
+    
+    /**
+     * Create a training task continuing the training from a checkpoint.
+     * @param nn a network to be trained. Only its topology and activation
+     * function are used if {@link resumeFrom} is not null.
+     * @param inputs an array of network's inputs to perform the training upon. 
+     * @param targets an array of network's ideal responses to the provided {@link inputs}.
+     * @param opts An object containing the chosen options of the 
+     * training algorithm.
+     * @param copySamples Whether to copy the samples.
+     * @param resumeFrom Checkpoint to continue from or {@code null} to start
+     * a new training.
+     * @throws IllegalArgumentException if {@link resumeFrom} has been taken
+     * for another network, samples or algorithm.
+     */
+    NeuralNetworkTrainerWorker(NeuralNetwork nn, double[][] inputs, double[][] targets, 
+            NeuralNetworkTrainer.Options opts, boolean copySamples,
+            TrainingCheckpoint resumeFrom) {
+        if (resumeFrom != null) {
+            resumeFrom.checkMatches(nn, inputs.length, opts.algorithm);
+        }
         this.nn = new NeuralNetwork(nn); // defensive copy
 
+        this.copySamples = copySamples;
         this.expectedOutputs = targets.clone();
-        for (int i = 0; i < targets.length; i++) {
-            this.expectedOutputs[i] = targets[i].clone();
+        if (copySamples) {
+            for (int i = 0; i < targets.length; i++) {
+                this.expectedOutputs[i] = targets[i].clone();
+            }
         }
         
         this.maxEpoch = opts.maxEpoch;
@@ -101,6 +253,22 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
         this.trainSamplesRatio = opts.trainSamplesRatio;
         this.validationSamplesRatio = opts.validationSamplesRatio;
         this.testSamplesRatio = opts.testSamplesRatio;
+        this.algorithm = opts.algorithm;
+        this.lbfgsHistorySize = opts.lbfgsHistorySize;
+        this.useDirectionalForwardCache = opts.directionalForwardCache;
+        this.numThreads = opts.numThreads;
+        this.levenbergMarquardtMaxParameters = opts.levenbergMarquardtMaxParameters;
+        this.learningRate = opts.learningRate;
+        this.initialSubsampleSize = opts.initialSubsampleSize;
+        this.checkpointFile = opts.checkpointFile;
+        this.checkpointEveryEpochs = opts.checkpointEveryEpochs;
+        this.checkpointIntervalNanos = opts.checkpointIntervalMillis * 1_000_000L;
+        this.epochReportPolicy = opts.epochReportPolicy;
+        this.snapshotIntervalNanos = opts.snapshotIntervalMillis * 1_000_000L;
+        this.timeLimitNanos = opts.timeLimitMillis * 1_000_000L;
+        this.resumeFrom = resumeFrom;
+        
+        this.evaluator = new NeuralNetworkEvaluator(this.nn);
         
         splitSamplesIntoGroups(inputs);
     }
@@ -155,23 +323,159 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
     }
     
     private void notifyFinalStatus(int epochNum, double performance) {
-        TrainerEvent event = new TrainerEvent(epochNum, performance);
         if (cancelled) {
-            onTrainingCanceled(event);
+            onTrainingCanceled(new TrainerEvent(epochNum, performance));
         }
         else {
-            onTrainingComplete(event);
+            // The network isn't changed once the training has completed
+            onTrainingComplete(new TrainerEvent(epochNum, performance, nn));
         }
     }
     
-    private void notifyEpochComplete(int epochNum, double performance) {
-        TrainerEvent event = new TrainerEvent(epochNum + 1, performance);
+    void notifyEpochComplete(int epochNum, double performance) {
+        if (FlightRecorderEvents.AVAILABLE) {
+            recordEpochEvent(epochNum + 1, performance);
+        }
+        if (snapshotIntervalNanos > 0 && engine != null) {
+            publishSnapshotIfDue(epochNum + 1, performance);
+        }
+        metrics.epochComplete();
+        if (!epochReportPolicy.shouldReport(epochNum + 1, performance, 
+                bestReportedPerformance, lastEpochReportTime)) {
+            // The metrics keep accumulating until the next reported epoch
+            return;
+        }
+        lastEpochReportTime = System.nanoTime();
+        if (Double.isNaN(bestReportedPerformance) || performance < bestReportedPerformance) {
+            bestReportedPerformance = performance;
+        }
+        TrainerEvent event = new TrainerEvent(epochNum + 1, performance, 
+                metrics.endEpoch(epochNum + 1));
         onTrainingEpochComplete(event);
     }
     
-    private static class TrainStepResults {
+    /**
+     * Publish a snapshot of the {@link engine}'s weights if they are better
+     * than the published ones and the snapshot interval has passed.
+     * The first epoch is always published. If the engine's performance isn't
+     * computed over the whole training set, the whole set is evaluated
+     * at most once per interval and the snapshots compare its performances.
+     */
+    private void publishSnapshotIfDue(int epoch, double performance) {
+        TrainingSnapshot published = snapshot;
+        long now = System.nanoTime();
+        if (published != null && now - lastSnapshotTime < snapshotIntervalNanos) {
+            return;
+        }
+        if (!engine.isPerformanceOverTrainSet()) {
+            // The performances over different subsamples aren't comparable
+            performance = performanceOverTrainSetForWeights(engine.weights);
+            lastSnapshotTime = now;
+        }
+        if (published != null && !(performance < published.getPerformance())) {
+            return;
+        }
+        // Engines replace their weights instead of changing them, so they
+        // are published without a copy
+        snapshot = new TrainingSnapshot(epoch, performance, engine.weights, nn);
+        lastSnapshotTime = now;
+    }
+    
+    /**
+     * Get the best snapshot of the training published so far. Doesn't block.
+     * @return The {@code TrainingSnapshot} or {@code null} if none has been
+     * published yet.
+     */
+    TrainingSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Number of threads computing the training. Doesn't block.
+     * @return The engine's number of threads or 0 if the training hasn't
+     * started yet.
+     */
+    int getThreadCount() {
+        TrainingEngine curEngine = engine;
+        return curEngine != null ? curEngine.getThreadCount() : 0;
+    }
+    
+    /**
+     * Number of the epochs completed before this training, i.e. the epoch
+     * of the checkpoint it continues.
+     * @return The number of the epochs, 0 if the training starts anew.
+     */
+    int getStartEpoch() {
+        return resumeFrom != null ? resumeFrom.completedEpochs : 0;
+    }
+    
+    /**
+     * Commit the Flight Recorder event of the finished epoch and begin 
+     * the next epoch's one.
+     */
+    private void recordEpochEvent(int epoch, double performance) {
+        FlightRecorderEvents.EpochEvent event = epochEvent;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.epoch = epoch;
+                event.loss = performance;
+                event.lambda = engine != null ? engine.getDamping() : Double.NaN;
+                event.success = engine == null || engine.isLastStepAccepted();
+                event.commit();
+            }
+        }
+        epochEvent = beginEpochEvent();
+    }
+    
+    /**
+     * Begin the Flight Recorder event of an epoch.
+     * @return The event or {@code null} if no recording enables it.
+     */
+    private static FlightRecorderEvents.EpochEvent beginEpochEvent() {
+        if (!FlightRecorderEvents.isEpochEnabled()) {
+            return null;
+        }
+        FlightRecorderEvents.EpochEvent event = new FlightRecorderEvents.EpochEvent();
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Begin the Flight Recorder event of a pass over the samples.
+     * @return The event or {@code null} if no recording enables it.
+     */
+    private static FlightRecorderEvents.PassEvent beginPassEvent() {
+        if (!FlightRecorderEvents.isPassEnabled()) {
+            return null;
+        }
+        FlightRecorderEvents.PassEvent event = new FlightRecorderEvents.PassEvent();
+        event.begin();
+        return event;
+    }
+    
+    private static void commitPassEvent(FlightRecorderEvents.PassEvent event, 
+            String kind, int samples) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.samples = samples;
+            event.commit();
+        }
+    }
+    
+    /** Average performance and its gradient over the training set. */
+    static class TrainStepResults {
         NeuralNetworkWeights weightsDerivatives;
         double performance;
+        /** 
+         * Sum of the sample variances of the gradient's components.
+         * Computed only by {@code makeStepOverSamples}.
+         */
+        double gradientVariance;
     }
     
     /**
@@ -187,212 +491,330 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
     }
     
     /**
-     * Check interruption status and clear it.
+     * Check interruption status and clear it. Once interrupted, this worker
+     * is considered to be canceled. The training also has to stop once 
+     * the time limit has been reached, which completes it normally.
      * @return {@code boolean} value representing whether this worker
-     * has been interrupted and need to be canceled.
+     * has been interrupted or has reached the time limit and need to stop.
+     */
+    boolean cancelRequested() {
+        if (Thread.interrupted()) {
+            cancelled = true;
+        }
+        if (!cancelled && !timedOut && timeLimitReached()) {
+            timedOut = true;
+        }
+        return cancelled || timedOut;
+    }
+    
+    /**
+     * Whether the time limit of the training has been reached. Unlike
+     * {@code cancelRequested}, can be called by the threads helping 
+     * a parallel algorithm.
+     * @return {@code true} if the training is limited and its time is over.
+     */
+    boolean timeLimitReached() {
+        return timeLimitNanos > 0 && System.nanoTime() - deadline >= 0;
+    }
+    
+    /**
+     * Stop the current pass over the samples if the training must stop.
+     * Called by the passes once per chunk of samples on the training thread.
+     * @throws TrainingStoppedException if the training has been canceled or 
+     * has reached the time limit.
+     */
+    private void checkStop() {
+        if (cancelRequested()) {
+            throw new TrainingStoppedException();
+        }
+    }
+    
+    /**
+     * Copy of the network being trained. Its weights are updated only 
+     * when the training has finished.
+     * @return {@code NeuralNetwork} being trained.
      */
-    private boolean cancelRequested() {
-        return Thread.interrupted();
+    NeuralNetwork getNetwork() {
+        return nn;
     }
     
     /**
-     * Perform training of the associated network according to an algorithm 
-     * created in 
-     * "M. F. Meiller. A Scaled Conjugate Gradient Algorithm 
-     * for Fast Supervised Learning // Neural Networks, Vol. 6, pp. 525-533, 1993". 
+     * Evaluator of the network being trained.
+     * @return {@code NeuralNetworkEvaluator} of the trained network.
+     */
+    NeuralNetworkEvaluator getEvaluator() {
+        return evaluator;
+    }
+    
+    /**
+     * Recorder of the current epoch's measurements. Engines computing 
+     * the passes over the samples themselves record them there.
+     * @return {@code TrainingMetricsRecorder} of this worker.
+     */
+    TrainingMetricsRecorder getMetricsRecorder() {
+        return metrics;
+    }
+    
+    /**
+     * Samples used for training.
+     * @return Array of the train samples. The array is not copied.
+     */
+    double[][] getTrainSamples() {
+        return trainSamples;
+    }
+    
+    /**
+     * Max number of the training's iterations.
+     * @return Max number of epochs.
+     */
+    int getMaxEpoch() {
+        return maxEpoch;
+    }
+    
+    /**
+     * The value of the training's error which signalizes that the training
+     * should stop.
+     * @return Target performance.
+     */
+    double getPerformanceGoal() {
+        return performanceGoal;
+    }
+    
+    /**
+     * Create the engine performing the chosen optimization algorithm.
+     * @return A new {@code TrainingEngine}.
+     */
+    // package for testing
+    TrainingEngine newEngine() {
+        switch (algorithm) {
+            case LBFGS:
+                return new LbfgsTrainingEngine(this, lbfgsHistorySize);
+            case LEVENBERG_MARQUARDT:
+                if (NeuralNetworkWeights.newOf(nn).size() <= levenbergMarquardtMaxParameters) {
+                    return new LevenbergMarquardtTrainingEngine(this, numThreads);
+                }
+                // The Gauss-Newton system is too big to be solved directly
+                return new ScgTrainingEngine(this, useDirectionalForwardCache);
+            case RPROP:
+                return new RpropTrainingEngine(this);
+            case SUBSAMPLED_SCG:
+                return new SubsampledScgTrainingEngine(this, initialSubsampleSize);
+            case HOGWILD_SGD:
+                return new HogwildSgdTrainingEngine(this, numThreads, learningRate);
+            case SCG:
+            default:
+                return new ScgTrainingEngine(this, useDirectionalForwardCache);
+        }
+    }
+    
+    /**
+     * Perform training of the associated network according to the chosen
+     * algorithm (see {@link TrainingAlgorithm}).
      */
     public void train() {
-        double avgPerformance = 0.0;
-        int epochNum = 0;
-        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(nn);
+        TrainingEngine engine = newEngine();
+        this.engine = engine;
         try {
-            double lambda = lambdaInit;
-            double lambda_sup = 0.0;
-
-            int numConjugateDirections = getNumberOfConjugateDirections();
-
-            NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(nn);
-
-            TrainStepResults trainStepResults = makeStepOverTrainSet(weights, evaluator);
-            avgPerformance = trainStepResults.performance;
-
-            if (cancelRequested()) {
-                cancelled = true;
-                return;
-            }
-
-            NeuralNetworkWeights antigradientWeights = new NeuralNetworkWeights(trainStepResults.weightsDerivatives).multiply(-1);
-            NeuralNetworkWeights conjugateWeights = new NeuralNetworkWeights(antigradientWeights);
-            NeuralNetworkWeights nextWeights;
-            NeuralNetworkWeights s_k_weights;
-
-            boolean success = true;
-            double sigma_k;
-            double delta_k = 0.0;
-            double normConjugate;
-            double normGradient;
-            for (epochNum = 0; epochNum < maxEpoch; epochNum++) {
-                normConjugate = conjugateWeights.norm();
-                if (success) {
-                    sigma_k = sigma/normConjugate;
-                    // Calculate E'(w_k)
-                    trainStepResults = makeStepOverTrainSet(weights, evaluator);
-
-                    // Check interruption
-                    if (cancelRequested()) {
-                        cancelled = true;
-                        return;
-                    }
-
-                    NeuralNetworkWeights conjugateWeightsCopy = new NeuralNetworkWeights(conjugateWeights);
-                    // w_k + sigma_k p_k
-                    nextWeights = conjugateWeightsCopy.multiply(sigma_k).add(weights);
-
-                    // Calculate E'(w_k + sigma_k p_k)
-                    TrainStepResults nextTrainStepResults = makeStepOverTrainSet(nextWeights, evaluator);
-
-                    // Check interruption
-                    if (cancelRequested()) {
-                        cancelled = true;
-                        return;
-                    }
-
-                    // s_k = (E'(w_k + sigma_k p_k) - E'(w_k))/sigma_k
-                    s_k_weights = nextTrainStepResults.weightsDerivatives.
-                            subtract(trainStepResults.weightsDerivatives).multiply(1/sigma_k);
-
-                    delta_k = conjugateWeights.dot(s_k_weights);
-                }
-                
-                delta_k += (lambda - lambda_sup) * Math.pow(normConjugate,2);
-
-                if (delta_k <= 0) {
-                    lambda_sup = 2 * (lambda - delta_k / Math.pow(normConjugate, 2));
-                    delta_k = -delta_k + lambda * Math.pow(normConjugate, 2);
-                    lambda = lambda_sup;
-                }
-
-                // Calculate step size
-                double mu = conjugateWeights.dot(antigradientWeights);
-                double alpha = mu / delta_k;
-
-                // Calculate comparison parameter
-                // nextWeights = weights + alpha*conjugateWeights
-                NeuralNetworkWeights conjugateWeightsCopy = new NeuralNetworkWeights(conjugateWeights);
-                nextWeights = conjugateWeightsCopy.multiply(alpha).add(weights);
-
-                avgPerformance = performanceOverTrainSetForWeights(weights, evaluator);
-                double nextAvgPerformance = performanceOverTrainSetForWeights(nextWeights, evaluator);
-
-                double Delta_k = 2 * delta_k * (avgPerformance - nextAvgPerformance) / 
-                        Math.pow(mu,2);
-                normGradient = antigradientWeights.norm();
-
-                if (Delta_k >= 0) {
-                    // Can make a reduction in error at this step
-
-                    // w_k += alpha * p_k
-                    weights = nextWeights;
-
-                    trainStepResults = makeStepOverTrainSet(weights, evaluator);
-
-                    avgPerformance = trainStepResults.performance;
-
-                    // Check interruption
-                    if (cancelRequested()) {
-                        cancelled = true;
-                        return;
-                    }
-
-                    NeuralNetworkWeights nextAntigradientWeights = 
-                            new NeuralNetworkWeights(trainStepResults.weightsDerivatives).
-                                    multiply(-1);
-
-                    lambda_sup = 0;
-                    success = true;
-                    if ((epochNum + 1) % numConjugateDirections == 0) {
-                        // Restarting
-                        conjugateWeights = nextAntigradientWeights;
-                    }
-                    else {
-                        // Changing conjugate direction
-                        double factor = (Math.pow(nextAntigradientWeights.norm(), 2) - 
-                                antigradientWeights.dot(nextAntigradientWeights)) / mu;
-                        // p_k = nextAntiGrad + factor*p_k
-                        conjugateWeights.multiply(factor).add(nextAntigradientWeights);
-                    }
-                    antigradientWeights = new NeuralNetworkWeights(nextAntigradientWeights);
-
-                    if (Delta_k >= 0.75) {
-                        lambda /= 4;
-                    }
-                }
-                else {
-                    // Cannot reduce error any more
-                    success = false;
-                    lambda_sup = lambda;
-                }
-                if (Delta_k < 0.25) {
-                    lambda += delta_k*(1-Delta_k)/Math.pow(normConjugate, 2);
-                }
-
-                notifyEpochComplete(epochNum, avgPerformance);
-
-                if (normGradient <= minGradient) {
-                    // Optimum has been found
-                    // weigths - solution
-                    break;
-                }
-                if (avgPerformance < performanceGoal) {
-                    // Optimum has been found
-                    // weigths - solution
-                    break;
-                }
+            if (resumeFrom != null) {
+                engine.restore(resumeFrom);
             }
-
+            lastCheckpointTime = System.nanoTime();
+            lastEpochReportTime = lastCheckpointTime;
+            deadline = lastCheckpointTime + timeLimitNanos;
+            metrics.start();
+            epochEvent = beginEpochEvent();
+            engine.run();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot restore the training state", e);
         }
         finally {
+            NeuralNetworkWeights finalWeights = engine.weights;
+            double finalPerformance = engine.performance;
+            if (!cancelled && (timedOut || !engine.isPerformanceOverTrainSet())) {
+                // A stop within a pass may have left the performance of
+                // the previous weights, and a subsample's performance cannot
+                // be compared with the snapshots
+                finalPerformance = performanceOverTrainSet(finalWeights, null, 0.0, false);
+            }
+            TrainingSnapshot best = snapshot;
+            if (timedOut && best != null && best.getPerformance() < finalPerformance) {
+                // The algorithm has moved away from its best weights
+                finalWeights = best.getWeights();
+                finalPerformance = best.getPerformance();
+            }
             try {
-                weights.applyToNeuralNetwork(nn);
+                finalWeights.applyToNeuralNetwork(nn);
             }
             finally {
-                notifyFinalStatus(epochNum, avgPerformance);
+                notifyFinalStatus(engine.epochNum, finalPerformance);
+            }
+        }
+    }
+    
+    /**
+     * Write a checkpoint of the {@link engine}'s state if a checkpoint file
+     * is set, the engine supports checkpoints and the configured number
+     * of epochs or time has passed since the last checkpoint or a checkpoint
+     * has been requested (see {@code requestCheckpoint}). Called by
+     * the engine at the end of an epoch.
+     * @param engine Engine running the training.
+     * @throws UncheckedIOException if the checkpoint cannot be written.
+     */
+    void checkpointIfDue(TrainingEngine engine) {
+        if (checkpointFile == null || !engine.supportsCheckpoints()) {
+            return;
+        }
+        int completedEpochs = engine.epochNum + 1;
+        long now = System.nanoTime();
+        boolean due = checkpointRequested
+                || (checkpointEveryEpochs > 0 && completedEpochs % checkpointEveryEpochs == 0)
+                || (checkpointIntervalNanos > 0 && now - lastCheckpointTime >= checkpointIntervalNanos);
+        if (!due) {
+            return;
+        }
+        FlightRecorderEvents.CheckpointEvent event = null;
+        if (FlightRecorderEvents.isCheckpointEnabled()) {
+            event = new FlightRecorderEvents.CheckpointEvent();
+            event.begin();
+        }
+        try {
+            newCheckpoint(engine, completedEpochs).write(checkpointFile);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot write a checkpoint to " + checkpointFile, e);
+        }
+        lastCheckpointTime = now;
+        checkpointRequested = false;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.epoch = completedEpochs;
+                event.file = checkpointFile.toString();
+                event.commit();
             }
         }
     }
     
-    private double[] getExpectedOutputForTrainSample(int num) {
+    /**
+     * Request a checkpoint at the end of the current epoch regardless of
+     * the configured interval. Ignored if no checkpoint file is set or 
+     * the engine doesn't support checkpoints. Can be called from any thread.
+     */
+    void requestCheckpoint() {
+        checkpointRequested = true;
+    }
+    
+    private TrainingCheckpoint newCheckpoint(TrainingEngine engine, int completedEpochs)
+            throws IOException {
+        ByteArrayOutputStream engineState = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(engineState)) {
+            engine.writeState(out);
+        }
+        return new TrainingCheckpoint(algorithm, nn.getNumberInputs(),
+                nn.getHiddenLayerSizes().clone(), nn.getNumberOutputs(),
+                trainSamplesIndices, validationSamplesIndices, testSamplesIndices,
+                completedEpochs, engine.performance, engine.weights.toArray(),
+                engineState.toByteArray());
+    }
+    
+    /**
+     * Target output for the train sample.
+     * @param num Index of the train sample.
+     * @return Target output. The array is not copied.
+     */
+    double[] getExpectedOutputForTrainSample(int num) {
         return expectedOutputs[trainSamplesIndices[num]];
     }
     
-    private TrainStepResults makeStepOverTrainSet(NeuralNetworkWeights weights, 
-                                            NeuralNetworkEvaluator evaluator) {
+    /**
+     * Evaluate the network with {@link weights} on the train sample {@link trainSampleNum}.
+     * @param trainSampleNum Index of the train sample.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param forwardCache Cache of the first layer's sums or {@code null}
+     * if the cache isn't used.
+     * @param lineStep Step {@code alpha} such that {@link weights} are equal to
+     * {@code w + alpha*p}, where {@code w} and {@code p} are the base and the direction
+     * of the forward cache. Ignored if the cache isn't used.
+     * @return Response of the network on the sample.
+     */
+    private NeuralNetworkResponse evaluateTrainSample(int trainSampleNum, 
+                                            NeuralNetworkWeights weights,
+                                            DirectionalForwardCache forwardCache,
+                                            double lineStep) {
+        if (forwardCache == null) {
+            return evaluator.evaluateWithWeights(trainSamples[trainSampleNum], weights);
+        }
+        return evaluator.evaluateFromFirstLayerSums(
+                forwardCache.inputSumsAt(trainSampleNum, lineStep), weights);
+    }
+    
+    /**
+     * Compute the average performance and its gradient over the training set.
+     * @param weights Weights and biases to evaluate the network with.
+     * @return Performance and gradient at {@link weights}.
+     */
+    TrainStepResults makeStepOverTrainSet(NeuralNetworkWeights weights) {
+        return makeStepOverTrainSet(weights, null, 0.0);
+    }
+    
+    /**
+     * Compute the average performance and its gradient over the training set
+     * using the first layer's sums cached for the line {@code w + alpha*p}.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param forwardCache Cache of the first layer's sums or {@code null}
+     * if the cache isn't used.
+     * @param lineStep Step {@code alpha} along the cached direction 
+     * corresponding to {@link weights}.
+     * @return Performance and gradient at {@link weights}.
+     */
+    TrainStepResults makeStepOverTrainSet(NeuralNetworkWeights weights, 
+                                            DirectionalForwardCache forwardCache,
+                                            double lineStep) {
         NeuralNetworkWeights avgWeightsDerivs = new NeuralNetworkWeights(
                 nn.getNumberInputs(), 
                 nn.getHiddenLayerSizes(), 
                 nn.getNumberOutputs()
         );
+        FlightRecorderEvents.PassEvent passEvent = beginPassEvent();
         double performance, avgPerformance = 0.0;
-        for (int trainSampleNum = 0; trainSampleNum < trainSamples.length; trainSampleNum++) {
-            NeuralNetworkResponse trainResp = 
-                    evaluator.evaluateWithWeights(trainSamples[trainSampleNum], 
-                            weights);
-            performance = NeuralNetworkTrainer.error(
-                    trainResp.getOutputs(), 
-                    getExpectedOutputForTrainSample(trainSampleNum));
-            avgPerformance += performance;
-           
-            NeuralNetworkWeights weightsDerivs = evaluator.weightsDerivative(
-                    trainSamples[trainSampleNum], 
-                    getExpectedOutputForTrainSample(trainSampleNum), 
-                    trainResp,
-                    weights
-            );
-            avgWeightsDerivs.add(weightsDerivs);
+        long forwardNanos = 0, backpropNanos = 0;
+        NeuralNetworkResponse[] chunkResps = 
+                new NeuralNetworkResponse[Math.min(PASS_CHUNK_SIZE, trainSamples.length)];
+        for (int chunkFrom = 0; chunkFrom < trainSamples.length; chunkFrom += chunkResps.length) {
+            checkStop();
+            int chunkTo = Math.min(trainSamples.length, chunkFrom + chunkResps.length);
+            long start = System.nanoTime();
+            for (int trainSampleNum = chunkFrom; trainSampleNum < chunkTo; trainSampleNum++) {
+                NeuralNetworkResponse trainResp = 
+                        evaluateTrainSample(trainSampleNum, weights, forwardCache, lineStep);
+                performance = NeuralNetworkTrainer.error(
+                        trainResp.getOutputs(), 
+                        getExpectedOutputForTrainSample(trainSampleNum));
+                avgPerformance += performance;
+                chunkResps[trainSampleNum - chunkFrom] = trainResp;
+            }
+            long forwardEnd = System.nanoTime();
+            for (int trainSampleNum = chunkFrom; trainSampleNum < chunkTo; trainSampleNum++) {
+                evaluator.addWeightsDerivative(
+                        trainSamples[trainSampleNum], 
+                        getExpectedOutputForTrainSample(trainSampleNum), 
+                        chunkResps[trainSampleNum - chunkFrom],
+                        weights,
+                        avgWeightsDerivs
+                );
+            }
+            forwardNanos += forwardEnd - start;
+            backpropNanos += System.nanoTime() - forwardEnd;
         }
+        long reductionStart = System.nanoTime();
         avgPerformance /= trainSamples.length;
            
         avgWeightsDerivs.multiply(1.0/trainSamples.length);
+        double gradientNorm = avgWeightsDerivs.norm();
+        metrics.gradientPass(trainSamples.length, forwardNanos, backpropNanos, 
+                System.nanoTime() - reductionStart, gradientNorm);
+        commitPassEvent(passEvent, "gradient", trainSamples.length);
         
         TrainStepResults results = new TrainStepResults();
         results.performance = avgPerformance;
@@ -401,17 +823,150 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
         return results;
     }
     
-    private double performanceOverTrainSetForWeights(NeuralNetworkWeights weights, 
-                                                    NeuralNetworkEvaluator evaluator) {
+    /**
+     * Compute the average performance and its gradient over a part of 
+     * the training set, along with the variance of the samples' gradients.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param trainSampleNums Indices of the train samples to average over.
+     * @return Performance, gradient and gradient's variance at {@link weights}.
+     */
+    TrainStepResults makeStepOverSamples(NeuralNetworkWeights weights, int[] trainSampleNums) {
+        FlightRecorderEvents.PassEvent passEvent = beginPassEvent();
+        int nParameters = weights.size();
+        double[] sum = new double[nParameters];
+        double[] sumSquares = new double[nParameters];
+        double avgPerformance = 0.0;
+        long forwardNanos = 0, backpropNanos = 0;
+        NeuralNetworkResponse[] chunkResps = 
+                new NeuralNetworkResponse[Math.min(PASS_CHUNK_SIZE, trainSampleNums.length)];
+        for (int chunkFrom = 0; chunkFrom < trainSampleNums.length; chunkFrom += chunkResps.length) {
+            checkStop();
+            int chunkTo = Math.min(trainSampleNums.length, chunkFrom + chunkResps.length);
+            long start = System.nanoTime();
+            for (int i = chunkFrom; i < chunkTo; i++) {
+                int trainSampleNum = trainSampleNums[i];
+                NeuralNetworkResponse trainResp = 
+                        evaluator.evaluateWithWeights(trainSamples[trainSampleNum], weights);
+                avgPerformance += NeuralNetworkTrainer.error(
+                        trainResp.getOutputs(), 
+                        getExpectedOutputForTrainSample(trainSampleNum));
+                chunkResps[i - chunkFrom] = trainResp;
+            }
+            long forwardEnd = System.nanoTime();
+            for (int i = chunkFrom; i < chunkTo; i++) {
+                int trainSampleNum = trainSampleNums[i];
+                double[] derivs = evaluator.weightsDerivative(
+                        trainSamples[trainSampleNum], 
+                        getExpectedOutputForTrainSample(trainSampleNum), 
+                        chunkResps[i - chunkFrom],
+                        weights
+                ).toArray();
+                for (int j = 0; j < nParameters; j++) {
+                    sum[j] += derivs[j];
+                    sumSquares[j] += derivs[j] * derivs[j];
+                }
+            }
+            forwardNanos += forwardEnd - start;
+            backpropNanos += System.nanoTime() - forwardEnd;
+        }
+        long reductionStart = System.nanoTime();
+        int n = trainSampleNums.length;
+        double variance = 0.0;
+        if (n > 1) {
+            for (int i = 0; i < nParameters; i++) {
+                variance += Math.max(0.0, sumSquares[i] - sum[i] * sum[i] / n) / (n - 1);
+            }
+        }
+        for (int i = 0; i < nParameters; i++) {
+            sum[i] /= n;
+        }
         
+        TrainStepResults results = new TrainStepResults();
+        results.performance = avgPerformance / n;
+        results.weightsDerivatives = new NeuralNetworkWeights(weights).setFromArray(sum);
+        results.gradientVariance = variance;
+        metrics.gradientPass(n, forwardNanos, backpropNanos, 
+                System.nanoTime() - reductionStart, results.weightsDerivatives.norm());
+        commitPassEvent(passEvent, "gradient", n);
+        
+        return results;
+    }
+    
+    /**
+     * Compute the average performance over a part of the training set.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param trainSampleNums Indices of the train samples to average over.
+     * @return Performance at {@link weights}.
+     */
+    double performanceOverSamples(NeuralNetworkWeights weights, int[] trainSampleNums) {
+        FlightRecorderEvents.PassEvent passEvent = beginPassEvent();
+        long start = System.nanoTime();
+        double avgPerformance = 0.0;
+        for (int i = 0; i < trainSampleNums.length; i++) {
+            if (i % PASS_CHUNK_SIZE == 0) {
+                checkStop();
+            }
+            int trainSampleNum = trainSampleNums[i];
+            NeuralNetworkResponse trainResp = 
+                    evaluator.evaluateWithWeights(trainSamples[trainSampleNum], weights);
+            avgPerformance += NeuralNetworkTrainer.error(
+                    trainResp.getOutputs(), 
+                    getExpectedOutputForTrainSample(trainSampleNum));
+        }
+        metrics.forwardPass(trainSampleNums.length, System.nanoTime() - start);
+        commitPassEvent(passEvent, "forward", trainSampleNums.length);
+        return avgPerformance / trainSampleNums.length;
+    }
+    
+    /**
+     * Compute the average performance over the training set.
+     * @param weights Weights and biases to evaluate the network with.
+     * @return Performance at {@link weights}.
+     */
+    double performanceOverTrainSetForWeights(NeuralNetworkWeights weights) {
+        return performanceOverTrainSetForWeights(weights, null, 0.0);
+    }
+    
+    /**
+     * Compute the average performance over the training set
+     * using the first layer's sums cached for the line {@code w + alpha*p}.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param forwardCache Cache of the first layer's sums or {@code null}
+     * if the cache isn't used.
+     * @param lineStep Step {@code alpha} along the cached direction 
+     * corresponding to {@link weights}.
+     * @return Performance at {@link weights}.
+     */
+    double performanceOverTrainSetForWeights(NeuralNetworkWeights weights, 
+                                                    DirectionalForwardCache forwardCache,
+                                                    double lineStep) {
+        return performanceOverTrainSet(weights, forwardCache, lineStep, true);
+    }
+    
+    /**
+     * Compute the average performance over the training set.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param forwardCache Cache of the first layer's sums or {@code null}.
+     * @param lineStep Step along the cached direction corresponding to {@link weights}.
+     * @param stoppable Whether the pass stops once the training must stop.
+     * @return Performance at {@link weights}.
+     * @throws TrainingStoppedException if {@link stoppable} is {@code true} and
+     * the training has been canceled or has reached the time limit.
+     */
+    private double performanceOverTrainSet(NeuralNetworkWeights weights, 
+                                           DirectionalForwardCache forwardCache,
+                                           double lineStep, boolean stoppable) {
+        FlightRecorderEvents.PassEvent passEvent = beginPassEvent();
+        long start = System.nanoTime();
         double avgPerformance = 0;
         double performance;
 
         for (int trainSampleNum = 0; trainSampleNum < trainSamples.length; trainSampleNum++) {
+            if (stoppable && trainSampleNum % PASS_CHUNK_SIZE == 0) {
+                checkStop();
+            }
             NeuralNetworkResponse trainResp = 
-                    evaluator.evaluateWithWeights(trainSamples[trainSampleNum], 
-                            weights
-            );
+                    evaluateTrainSample(trainSampleNum, weights, forwardCache, lineStep);
 
             performance = NeuralNetworkTrainer.error(
                     trainResp.getOutputs(), 
@@ -420,27 +975,21 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
             avgPerformance += performance;
         }
         avgPerformance /= trainSamples.length;
+        metrics.forwardPass(trainSamples.length, System.nanoTime() - start);
+        commitPassEvent(passEvent, "forward", trainSamples.length);
         
         return avgPerformance;
     }
     
-    private int getNumberOfConjugateDirections() {
-        int numConjugateDirections = nn.getNumberOutputs() * 
-                nn.getHiddenLayerSize(nn.getNumberHiddenLayers() - 1) + 
-                nn.getNumberOutputs();
-        numConjugateDirections += nn.getNumberInputs()*nn.getHiddenLayerSize(0) + 
-                nn.getHiddenLayerSize(0);
-        for (int layerNum = 1; layerNum < nn.getNumberHiddenLayers(); layerNum++) {
-            numConjugateDirections += nn.getHiddenLayerSize(layerNum - 1)*
-                    nn.getHiddenLayerSize(layerNum) + 
-                    nn.getHiddenLayerSize(layerNum);
-        }
-        
-        return numConjugateDirections;
-    }
-    
     private void splitSamplesIntoGroups(double[][] samples) {
-        initSamplesIndices(samples.length);
+        if (resumeFrom != null) {
+            trainSamplesIndices = resumeFrom.trainSamplesIndices;
+            validationSamplesIndices = resumeFrom.validationSamplesIndices;
+            testSamplesIndices = resumeFrom.testSamplesIndices;
+        }
+        else {
+            initSamplesIndices(samples.length);
+        }
         
         trainSamples = copyTrainSamples(samples);
         validationSamples = copyValidationSamples(samples);
@@ -463,7 +1012,8 @@ class NeuralNetworkTrainerWorker implements Callable<NeuralNetwork> {
         double[][] copySubset = new double[indices.length][];
         
         for (int subsetElemNum = 0; subsetElemNum < indices.length; subsetElemNum++) {
-            copySubset[subsetElemNum] = samples[indices[subsetElemNum]].clone();
+            double[] sample = samples[indices[subsetElemNum]];
+            copySubset[subsetElemNum] = copySamples ? sample.clone() : sample;
         }
         
         return copySubset;
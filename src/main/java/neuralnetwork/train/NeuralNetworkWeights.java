@@ -305,4 +305,61 @@ class NeuralNetworkWeights {
     public double norm() {
         return Math.sqrt(this.dot(this));
     }
+    
+    /**
+     * Total number of weights and biases.
+     * @return {@code int} number of the parameters.
+     */
+    public int size() {
+        int size = 0;
+        for (int layerNum = 0; layerNum < weights.length; layerNum++) {
+            for (int curLayerNeuron = 0; curLayerNeuron < weights[layerNum].length; curLayerNeuron++) {
+                size += weights[layerNum][curLayerNeuron].length + 1;
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Copy the weights and biases into a flat array. The order is: for every layer,
+     * for every neuron of the layer, the weights of its connections with the 
+     * previous layer's neurons followed by its bias.
+     * @return A new array of {@code size()} values.
+     */
+    public double[] toArray() {
+        double[] values = new double[size()];
+        int pos = 0;
+        for (int layerNum = 0; layerNum < weights.length; layerNum++) {
+            for (int curLayerNeuron = 0; curLayerNeuron < weights[layerNum].length; curLayerNeuron++) {
+                double[] neuronWeights = weights[layerNum][curLayerNeuron];
+                System.arraycopy(neuronWeights, 0, values, pos, neuronWeights.length);
+                pos += neuronWeights.length;
+                values[pos++] = biases[layerNum][curLayerNeuron];
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Set the weights and biases from a flat array in the order of {@code toArray()}.
+     * @param values Array of {@code size()} values.
+     * @return This object.
+     * @throws IllegalArgumentException if the size of {@link values} is not 
+     * equal to {@code size()}.
+     */
+    public NeuralNetworkWeights setFromArray(double[] values) {
+        if (values.length != size()) {
+            throw new IllegalArgumentException("Array must be the same size as the number of weights and biases");
+        }
+        int pos = 0;
+        for (int layerNum = 0; layerNum < weights.length; layerNum++) {
+            for (int curLayerNeuron = 0; curLayerNeuron < weights[layerNum].length; curLayerNeuron++) {
+                double[] neuronWeights = weights[layerNum][curLayerNeuron];
+                System.arraycopy(values, pos, neuronWeights, 0, neuronWeights.length);
+                pos += neuronWeights.length;
+                biases[layerNum][curLayerNeuron] = values[pos++];
+            }
+        }
+        return this;
+    }
 }
@@ -0,0 +1,103 @@
+package neuralnetwork.train;
+
+import java.util.Arrays;
+
+/**
+ * Training engine implementing the improved resilient backpropagation method
+ * with weight-backtracking (iRprop+), as described in
+ * "C. Igel, M. Husken. Improving the Rprop Learning Algorithm //
+ * Proceedings of the Second International Symposium on Neural Computation,
+ * pp. 115-121, 2000".
+ * <p>Only the signs of the gradient's components are used, so the method
+ * is insensitive to badly scaled gradients. One epoch is exactly one pass
+ * over the training set computing both the performance and its gradient.</p>
+ * @author Konstantin Zhdanov
+ */
+class RpropTrainingEngine extends TrainingEngine {
+
+    /** Parameters used for the per-weight step sizes. */
+    private final double stepIncrease = 1.2;
+    private final double stepDecrease = 0.5;
+    private final double stepInit = 0.1;
+    private final double stepMax = 50;
+    private final double stepMin = 0.000001;
+
+    /**
+     * Create an iRprop+ engine.
+     * @param worker Worker running this engine.
+     */
+    RpropTrainingEngine(NeuralNetworkTrainerWorker worker) {
+        super(worker);
+    }
+
+    @Override
+    void runEpochs() {
+        NeuralNetworkTrainerWorker.TrainStepResults trainStepResults =
+                worker.makeStepOverTrainSet(weights);
+        if (worker.cancelRequested()) {
+            return;
+        }
+        performance = trainStepResults.performance;
+        double[] gradient = trainStepResults.weightsDerivatives.toArray();
+
+        double[] w = weights.toArray();
+        int nParameters = w.length;
+        double[] steps = new double[nParameters];
+        Arrays.fill(steps, stepInit);
+        double[] prevGradient = new double[nParameters];
+        double[] prevUpdate = new double[nParameters];
+        double prevPerformance = Double.POSITIVE_INFINITY;
+
+        int maxEpoch = worker.getMaxEpoch();
+        for (epochNum = 0; epochNum < maxEpoch; epochNum++) {
+            boolean errorIncreased = performance > prevPerformance;
+            for (int i = 0; i < nParameters; i++) {
+                double signChange = prevGradient[i] * gradient[i];
+                if (signChange > 0) {
+                    steps[i] = Math.min(steps[i] * stepIncrease, stepMax);
+                    prevUpdate[i] = -Math.signum(gradient[i]) * steps[i];
+                    w[i] += prevUpdate[i];
+                }
+                else if (signChange < 0) {
+                    steps[i] = Math.max(steps[i] * stepDecrease, stepMin);
+                    if (errorIncreased) {
+                        // Backtrack the last update of this weight
+                        w[i] -= prevUpdate[i];
+                    }
+                    prevUpdate[i] = 0.0;
+                    // Skip the adaptation in the next epoch
+                    gradient[i] = 0.0;
+                }
+                else {
+                    prevUpdate[i] = -Math.signum(gradient[i]) * steps[i];
+                    w[i] += prevUpdate[i];
+                }
+            }
+            double[] swap = prevGradient;
+            prevGradient = gradient;
+            gradient = swap;
+            prevPerformance = performance;
+
+            NeuralNetworkWeights nextWeights = new NeuralNetworkWeights(weights).setFromArray(w);
+            trainStepResults = worker.makeStepOverTrainSet(nextWeights);
+            if (worker.cancelRequested()) {
+                return;
+            }
+            weights = nextWeights;
+            performance = trainStepResults.performance;
+            double gradientNorm = trainStepResults.weightsDerivatives.norm();
+            System.arraycopy(trainStepResults.weightsDerivatives.toArray(), 0, gradient, 0, nParameters);
+
+            worker.notifyEpochComplete(epochNum, performance);
+
+            if (gradientNorm <= minGradient) {
+                // Optimum has been found
+                break;
+            }
+            if (performance < worker.getPerformanceGoal()) {
+                // Optimum has been found
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package neuralnetwork.train;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * Training engine implementing the algorithm created in
+ * "M. F. Meiller. A Scaled Conjugate Gradient Algorithm
+ * for Fast Supervised Learning // Neural Networks, Vol. 6, pp. 525-533, 1993".
+ * @author Konstantin Zhdanov
+ */
+class ScgTrainingEngine extends TrainingEngine {
+
+    /** Parameters used for the SCG training algorithm. */
+    private final double lambdaInit = 0.0000001;
+    private final double sigma = 0.00001;
+
+    /** Whether to cache the first layer's sums along the search directions. */
+    private final boolean useDirectionalForwardCache;
+
+    /** 
+     * State carried between the epochs, written to checkpoints.
+     * The directions are {@code null} until the first gradient is computed.
+     */
+    private double lambda = lambdaInit;
+    private double lambda_sup = 0.0;
+    private boolean success = true;
+    private double delta_k = 0.0;
+    private NeuralNetworkWeights antigradientWeights;
+    private NeuralNetworkWeights conjugateWeights;
+
+    /**
+     * Create an SCG engine.
+     * @param worker Worker running this engine.
+     * @param useDirectionalForwardCache Whether to cache the first layer's sums
+     * along the search directions.
+     */
+    ScgTrainingEngine(NeuralNetworkTrainerWorker worker, boolean useDirectionalForwardCache) {
+        super(worker);
+        this.useDirectionalForwardCache = useDirectionalForwardCache;
+    }
+
+    @Override
+    void runEpochs() {
+        int numConjugateDirections = getNumberOfConjugateDirections();
+
+        DirectionalForwardCache forwardCache = null;
+        if (useDirectionalForwardCache) {
+            forwardCache = new DirectionalForwardCache(worker.getEvaluator(),
+                    worker.getTrainSamples(), worker.getNetwork().getHiddenLayerSize(0));
+            forwardCache.setBase(weights);
+        }
+
+        NeuralNetworkTrainerWorker.TrainStepResults trainStepResults;
+        if (conjugateWeights == null) {
+            trainStepResults = stepAt(weights, forwardCache, 0.0);
+            performance = trainStepResults.performance;
+
+            if (worker.cancelRequested()) {
+                return;
+            }
+
+            antigradientWeights = new NeuralNetworkWeights(trainStepResults.weightsDerivatives).multiply(-1);
+            conjugateWeights = new NeuralNetworkWeights(antigradientWeights);
+        }
+        else if (forwardCache != null) {
+            // Restored from a checkpoint, p_k may be used without recomputing s_k
+            forwardCache.setDirection(conjugateWeights);
+        }
+        NeuralNetworkWeights nextWeights;
+        NeuralNetworkWeights s_k_weights;
+
+        double sigma_k;
+        double normConjugate;
+        double normGradient;
+        int maxEpoch = worker.getMaxEpoch();
+        for (; epochNum < maxEpoch; epochNum++) {
+            normConjugate = conjugateWeights.norm();
+            if (success) {
+                if (forwardCache != null) {
+                    // p_k has changed
+                    forwardCache.setDirection(conjugateWeights);
+                }
+                sigma_k = sigma/normConjugate;
+                // Calculate E'(w_k)
+                trainStepResults = stepAt(weights, forwardCache, 0.0);
+
+                // Check interruption
+                if (worker.cancelRequested()) {
+                    return;
+                }
+
+                NeuralNetworkWeights conjugateWeightsCopy = new NeuralNetworkWeights(conjugateWeights);
+                // w_k + sigma_k p_k
+                nextWeights = conjugateWeightsCopy.multiply(sigma_k).add(weights);
+
+                // Calculate E'(w_k + sigma_k p_k)
+                NeuralNetworkTrainerWorker.TrainStepResults nextTrainStepResults =
+                        stepAt(nextWeights, forwardCache, sigma_k);
+
+                // Check interruption
+                if (worker.cancelRequested()) {
+                    return;
+                }
+
+                // s_k = (E'(w_k + sigma_k p_k) - E'(w_k))/sigma_k
+                s_k_weights = nextTrainStepResults.weightsDerivatives.
+                        subtract(trainStepResults.weightsDerivatives).multiply(1/sigma_k);
+
+                delta_k = conjugateWeights.dot(s_k_weights);
+            }
+
+            delta_k += (lambda - lambda_sup) * Math.pow(normConjugate,2);
+
+            if (delta_k <= 0) {
+                lambda_sup = 2 * (lambda - delta_k / Math.pow(normConjugate, 2));
+                delta_k = -delta_k + lambda * Math.pow(normConjugate, 2);
+                lambda = lambda_sup;
+            }
+
+            // Calculate step size
+            double mu = conjugateWeights.dot(antigradientWeights);
+            double alpha = mu / delta_k;
+
+            // Calculate comparison parameter
+            // nextWeights = weights + alpha*conjugateWeights
+            NeuralNetworkWeights conjugateWeightsCopy = new NeuralNetworkWeights(conjugateWeights);
+            nextWeights = conjugateWeightsCopy.multiply(alpha).add(weights);
+
+            performance = performanceAt(weights, forwardCache, 0.0);
+            double nextAvgPerformance = performanceAt(nextWeights, forwardCache, alpha);
+
+            double Delta_k = 2 * delta_k * (performance - nextAvgPerformance) /
+                    Math.pow(mu,2);
+            normGradient = antigradientWeights.norm();
+
+            if (Delta_k >= 0) {
+                // Can make a reduction in error at this step
+
+                // w_k += alpha * p_k
+                weights = nextWeights;
+                if (forwardCache != null) {
+                    forwardCache.moveBase(alpha);
+                }
+
+                trainStepResults = stepAt(weights, forwardCache, 0.0);
+
+                performance = trainStepResults.performance;
+
+                // Check interruption
+                if (worker.cancelRequested()) {
+                    return;
+                }
+
+                boolean changedObjective = objectiveChanged(trainStepResults);
+                if (changedObjective) {
+                    trainStepResults = stepAt(weights, forwardCache, 0.0);
+                    performance = trainStepResults.performance;
+                    if (worker.cancelRequested()) {
+                        return;
+                    }
+                }
+
+                NeuralNetworkWeights nextAntigradientWeights =
+                        new NeuralNetworkWeights(trainStepResults.weightsDerivatives).
+                                multiply(-1);
+
+                lambda_sup = 0;
+                success = true;
+                if (changedObjective || (epochNum + 1) % numConjugateDirections == 0) {
+                    // Restarting
+                    conjugateWeights = nextAntigradientWeights;
+                    if (forwardCache != null) {
+                        // Drop the rounding errors accumulated by moving the base
+                        forwardCache.setBase(weights);
+                    }
+                }
+                else {
+                    // Changing conjugate direction
+                    double factor = (Math.pow(nextAntigradientWeights.norm(), 2) -
+                            antigradientWeights.dot(nextAntigradientWeights)) / mu;
+                    // p_k = nextAntiGrad + factor*p_k
+                    conjugateWeights.multiply(factor).add(nextAntigradientWeights);
+                }
+                antigradientWeights = new NeuralNetworkWeights(nextAntigradientWeights);
+
+                if (Delta_k >= 0.75) {
+                    lambda /= 4;
+                }
+            }
+            else {
+                // Cannot reduce error any more
+                success = false;
+                lambda_sup = lambda;
+            }
+            if (Delta_k < 0.25) {
+                lambda += delta_k*(1-Delta_k)/Math.pow(normConjugate, 2);
+            }
+
+            worker.notifyEpochComplete(epochNum, performance);
+            worker.checkpointIfDue(this);
+
+            if (normGradient <= minGradient) {
+                // Optimum has been found
+                // weigths - solution
+                break;
+            }
+            if (performanceGoalReached()) {
+                // Optimum has been found
+                // weigths - solution
+                break;
+            }
+        }
+    }
+
+    @Override
+    double getDamping() {
+        return lambda;
+    }
+
+    @Override
+    boolean isLastStepAccepted() {
+        return success;
+    }
+
+    @Override
+    boolean supportsCheckpoints() {
+        return true;
+    }
+
+    @Override
+    void writeState(DataOutputStream out) throws IOException {
+        out.writeDouble(lambda);
+        out.writeDouble(lambda_sup);
+        out.writeBoolean(success);
+        out.writeDouble(delta_k);
+        writeWeights(out, antigradientWeights);
+        writeWeights(out, conjugateWeights);
+    }
+
+    @Override
+    void readState(DataInputStream in) throws IOException {
+        lambda = in.readDouble();
+        lambda_sup = in.readDouble();
+        success = in.readBoolean();
+        delta_k = in.readDouble();
+        antigradientWeights = readWeights(in);
+        conjugateWeights = readWeights(in);
+    }
+
+    private static void writeWeights(DataOutputStream out, NeuralNetworkWeights w) throws IOException {
+        for (double value : w.toArray()) {
+            out.writeDouble(value);
+        }
+    }
+
+    private NeuralNetworkWeights readWeights(DataInputStream in) throws IOException {
+        double[] values = new double[weights.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return new NeuralNetworkWeights(weights).setFromArray(values);
+    }
+
+    /**
+     * Compute the performance and its gradient. Subclasses may evaluate them
+     * on a part of the training set.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param forwardCache Cache of the first layer's sums or {@code null}.
+     * @param lineStep Step along the cached direction corresponding to {@link weights}.
+     * @return Performance and gradient at {@link weights}.
+     */
+    NeuralNetworkTrainerWorker.TrainStepResults stepAt(NeuralNetworkWeights weights,
+            DirectionalForwardCache forwardCache, double lineStep) {
+        return worker.makeStepOverTrainSet(weights, forwardCache, lineStep);
+    }
+
+    /**
+     * Compute the performance. Subclasses may evaluate it on a part of
+     * the training set.
+     * @param weights Weights and biases to evaluate the network with.
+     * @param forwardCache Cache of the first layer's sums or {@code null}.
+     * @param lineStep Step along the cached direction corresponding to {@link weights}.
+     * @return Performance at {@link weights}.
+     */
+    double performanceAt(NeuralNetworkWeights weights,
+            DirectionalForwardCache forwardCache, double lineStep) {
+        return worker.performanceOverTrainSetForWeights(weights, forwardCache, lineStep);
+    }
+
+    /**
+     * Called after every accepted step. Subclasses may change the objective
+     * function here, in which case the gradient is recomputed and the
+     * search restarts along the antigradient.
+     * @param results Performance and gradient at the accepted weights.
+     * @return {@code true} if the objective function has changed.
+     */
+    boolean objectiveChanged(NeuralNetworkTrainerWorker.TrainStepResults results) {
+        return false;
+    }
+
+    /**
+     * Whether the training's performance goal has been reached at the current
+     * weights. Subclasses evaluating the performance on a part of the training
+     * set may check the goal on the whole set.
+     * @return {@code true} if the training should stop.
+     */
+    boolean performanceGoalReached() {
+        return performance < worker.getPerformanceGoal();
+    }
+
+    private int getNumberOfConjugateDirections() {
+        NeuralNetwork nn = worker.getNetwork();
+        int numConjugateDirections = nn.getNumberOutputs() *
+                nn.getHiddenLayerSize(nn.getNumberHiddenLayers() - 1) +
+                nn.getNumberOutputs();
+        numConjugateDirections += nn.getNumberInputs()*nn.getHiddenLayerSize(0) +
+                nn.getHiddenLayerSize(0);
+        for (int layerNum = 1; layerNum < nn.getNumberHiddenLayers(); layerNum++) {
+            numConjugateDirections += nn.getHiddenLayerSize(layerNum - 1)*
+                    nn.getHiddenLayerSize(layerNum) +
+                    nn.getHiddenLayerSize(layerNum);
+        }
+
+        return numConjugateDirections;
+    }
+}
@@ -0,0 +1,91 @@
+package neuralnetwork.train;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * A training run submitted to a {@code TrainingScheduler} by a runner
+ * coordinating several runs. Keeps the run's final event and lets the runner
+ * stop the run at any time, even before its job has been submitted.
+ * Subclasses observe the run's epochs by overriding {@code onTrainingEpochComplete}.
+ * @author Konstantin Zhdanov
+ */
+class ScheduledRun implements Listener {
+    
+    private volatile TrainingJob job;
+    private volatile boolean stopRequested = false;
+    private volatile TrainerEvent finalEvent;
+    
+    /** Counted down when the training has finished, even if canceled. */
+    private final CountDownLatch finished = new CountDownLatch(1);
+    
+    /**
+     * Submit the run's task.
+     * @param scheduler Scheduler to run the task.
+     * @param task The training task.
+     * @param priority Priority of the job.
+     */
+    void submit(TrainingScheduler scheduler, NeuralNetworkTrainerTask task, int priority) {
+        job = scheduler.submit(task, priority, this);
+        if (stopRequested) {
+            // Stopped before the job has been assigned
+            job.cancel(true);
+        }
+    }
+    
+    /** Cancel the run's job. */
+    void stop() {
+        stopRequested = true;
+        TrainingJob snapshotJob = job;
+        if (snapshotJob != null) {
+            snapshotJob.cancel(true);
+        }
+    }
+    
+    /**
+     * Whether {@code stop} has been called.
+     * @return {@code true} if the run has been requested to stop.
+     */
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+    
+    /**
+     * Wait for the training to finish and get the trained network.
+     * Unlike {@code TrainingJob.get}, waits for a canceled job's worker 
+     * to stop, so the partially trained network is returned.
+     * @return The trained network.
+     * @throws InterruptedException if the current thread has been interrupted.
+     * @throws ExecutionException if the training has thrown an exception.
+     */
+    NeuralNetwork awaitNetwork() throws InterruptedException, ExecutionException {
+        finished.await();
+        return job.get();
+    }
+    
+    /**
+     * The final event of the run.
+     * @return {@code TrainerEvent} of the completion or cancellation, 
+     * {@code null} if the run hasn't finished yet.
+     */
+    TrainerEvent getFinalEvent() {
+        return finalEvent;
+    }
+    
+    @Override
+    public void onTrainingComplete(TrainerEvent event) {
+        finalEvent = event;
+        finished.countDown();
+    }
+
+    @Override
+    public void onTrainingCanceled(TrainerEvent event) {
+        finalEvent = event;
+        finished.countDown();
+    }
+
+    @Override
+    public void onTrainingEpochComplete(TrainerEvent event) {
+    }
+}
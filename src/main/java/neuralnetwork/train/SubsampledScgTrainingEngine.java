@@ -0,0 +1,138 @@
+package neuralnetwork.train;
+
+import neuralnetwork.util.Randomizer;
+
+/**
+ * Training engine implementing the SCG algorithm over a growing random
+ * subsample of the training set.
+ * <p>After every accepted step the norm test of "R. H. Byrd, G. M. Chin,
+ * J. Nocedal, Y. Wu. Sample size selection in optimization methods for machine
+ * learning // Mathematical Programming, Vol. 134, pp. 127-155, 2012" is applied:
+ * the subsample {@code S} is kept while {@code Var_S(g_i)/|S| <= theta^2*|g_S|^2},
+ * where {@code Var_S(g_i)} is the sum of the variances of the samples' gradients
+ * and {@code g_S} is the average gradient. Otherwise a new, bigger subsample is
+ * drawn and the conjugate directions restart. Once the required size reaches
+ * the given fraction of the training set the whole set is used, which makes
+ * the engine an ordinary SCG near convergence.</p>
+ * <p>The performance reported for the epochs trained on a subsample is
+ * the subsample's one; the worker computes the final performance over
+ * the whole training set. Once the subsample's performance reaches
+ * the performance goal the whole set's performance is computed: if it has
+ * reached the goal too, the whole set is used to finish the training,
+ * otherwise the subsample is doubled. So the whole set is checked at most
+ * once per subsample.</p>
+ * @author Konstantin Zhdanov
+ */
+class SubsampledScgTrainingEngine extends ScgTrainingEngine {
+
+    /** Parameter of the norm test. */
+    private final double theta = 0.5;
+
+    /** Fraction of the training set at which the whole set is used. */
+    private final double fullBatchFraction = 0.5;
+
+    private final Randomizer randomizer = new Randomizer();
+
+    /** Indices of all train samples to draw from. */
+    private final int[] allSampleNums;
+
+    /** Indices of the current subsample or {@code null} if the whole set is used. */
+    private int[] sampleNums;
+
+    /**
+     * Create a subsampled SCG engine.
+     * @param worker Worker running this engine.
+     * @param initialSubsampleSize Number of train samples to start with.
+     * @throws IllegalArgumentException if {@link initialSubsampleSize} is nonpositive.
+     */
+    SubsampledScgTrainingEngine(NeuralNetworkTrainerWorker worker, int initialSubsampleSize) {
+        super(worker, false);
+        if (initialSubsampleSize <= 0) {
+            throw new IllegalArgumentException("Initial subsample size must be positive");
+        }
+        int nSamples = worker.getTrainSamples().length;
+        allSampleNums = new int[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            allSampleNums[i] = i;
+        }
+        drawSubsample(initialSubsampleSize);
+    }
+
+    /**
+     * Current number of samples the performance and its gradient are computed on.
+     * @return Subsample size.
+     */
+    int getSubsampleSize() {
+        return sampleNums == null ? allSampleNums.length : sampleNums.length;
+    }
+
+    @Override
+    NeuralNetworkTrainerWorker.TrainStepResults stepAt(NeuralNetworkWeights weights,
+            DirectionalForwardCache forwardCache, double lineStep) {
+        if (sampleNums == null) {
+            return worker.makeStepOverTrainSet(weights);
+        }
+        return worker.makeStepOverSamples(weights, sampleNums);
+    }
+
+    @Override
+    double performanceAt(NeuralNetworkWeights weights,
+            DirectionalForwardCache forwardCache, double lineStep) {
+        if (sampleNums == null) {
+            return worker.performanceOverTrainSetForWeights(weights);
+        }
+        return worker.performanceOverSamples(weights, sampleNums);
+    }
+
+    @Override
+    boolean performanceGoalReached() {
+        // The goal is checked over the whole set by objectiveChanged
+        return sampleNums == null && super.performanceGoalReached();
+    }
+
+    @Override
+    boolean isPerformanceOverTrainSet() {
+        return sampleNums == null;
+    }
+
+    @Override
+    boolean supportsCheckpoints() {
+        // The random subsample is not part of the SCG state
+        return false;
+    }
+
+    @Override
+    boolean objectiveChanged(NeuralNetworkTrainerWorker.TrainStepResults results) {
+        if (sampleNums == null) {
+            return false;
+        }
+        if (results.performance < worker.getPerformanceGoal()) {
+            // A lucky subsample can be below the goal while the whole set is not
+            if (worker.performanceOverTrainSetForWeights(weights) < worker.getPerformanceGoal()) {
+                drawSubsample(allSampleNums.length);
+            }
+            else {
+                drawSubsample((int) Math.min(allSampleNums.length, 2.0 * sampleNums.length));
+            }
+            return true;
+        }
+        double squaredNorm = Math.pow(results.weightsDerivatives.norm(), 2);
+        double estimateVariance = results.gradientVariance / sampleNums.length;
+        if (estimateVariance <= theta * theta * squaredNorm) {
+            return false;
+        }
+        double requiredSize = results.gradientVariance / (theta * theta * squaredNorm);
+        drawSubsample((int) Math.min(allSampleNums.length,
+                Math.max(requiredSize, sampleNums.length + 1.0)));
+        return true;
+    }
+
+    private void drawSubsample(int size) {
+        if (size >= fullBatchFraction * allSampleNums.length) {
+            sampleNums = null;
+        }
+        else {
+            sampleNums = randomizer.getRandomElements(allSampleNums, size, 0, allSampleNums.length);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package neuralnetwork.train;
 
+import neuralnetwork.NeuralNetwork;
+
 /**
  * A class for storing information about a neural network's training 
  * lifecycle event.
@@ -8,13 +10,36 @@ package neuralnetwork.train;
 public class TrainerEvent {
     private final int epoch;
     private final double performance;
+    private final TrainingMetrics metrics;
+    private final NeuralNetwork trainedNetwork;
     
     public TrainerEvent(int epoch, double performance) {
+        this(epoch, performance, null, null);
+    }
+    
+    /**
+     * Create an event of a training's completion.
+     * @param epoch Number of the completed epochs.
+     * @param performance Final performance of the training.
+     * @param trainedNetwork The trained network, not changed afterwards.
+     */
+    public TrainerEvent(int epoch, double performance, NeuralNetwork trainedNetwork) {
+        this(epoch, performance, null, trainedNetwork);
+    }
+    
+    TrainerEvent(int epoch, double performance, TrainingMetrics metrics) {
+        this(epoch, performance, metrics, null);
+    }
+    
+    private TrainerEvent(int epoch, double performance, TrainingMetrics metrics, 
+            NeuralNetwork trainedNetwork) {
         if (epoch < 0) {
             throw new IllegalArgumentException("Number of epochs cannot be negative");
         }
         this.epoch = epoch;
         this.performance = performance;
+        this.metrics = metrics;
+        this.trainedNetwork = trainedNetwork;
     }
     
     /**
@@ -32,4 +57,23 @@ public class TrainerEvent {
     public double getPerformance() {
         return performance;
     }
+    
+    /**
+     * Metrics of the epoch if this event is an epoch's completion.
+     * @return {@code TrainingMetrics} or {@code null}.
+     */
+    TrainingMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * The network trained by the training this event completes. Unlike
+     * the trainer's {@code getTrainedNetwork}, doesn't depend on the trainings
+     * started after this one.
+     * @return A copy of the trained network or {@code null} if this event
+     * is not a training's completion.
+     */
+    public NeuralNetwork getTrainedNetwork() {
+        return trainedNetwork != null ? new NeuralNetwork(trainedNetwork) : null;
+    }
 }
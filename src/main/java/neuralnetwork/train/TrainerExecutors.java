@@ -2,7 +2,10 @@ package neuralnetwork.train;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for creating daemon-threaded executors.
@@ -23,6 +26,14 @@ public class TrainerExecutors {
     private final static DaemonThreadFactory DEFAULT_FACTORY = 
             new DaemonThreadFactory();
     
+    /**
+     * Get a {@code ThreadFactory} creating daemon threads.
+     * @return A daemon {@code ThreadFactory}.
+     */
+    static ThreadFactory daemonThreadFactory() {
+        return DEFAULT_FACTORY;
+    }
+    
     /**
      * Create a new single-threaded {@code ExecutorService} instance which 
      * creates only daemon threads.
@@ -32,4 +43,31 @@ public class TrainerExecutors {
         ExecutorService executor = Executors.newSingleThreadExecutor(DEFAULT_FACTORY);
         return executor;
     }
+    
+    /**
+     * Create a new single-threaded {@code ExecutorService} instance whose
+     * daemon thread exits after a second without tasks.
+     * @return A single-daemon-threaded {@code ExecutorService} instance.
+     */
+    static ExecutorService newIdleTimeoutExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), DEFAULT_FACTORY);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * Create a new {@code ExecutorService} instance with a fixed number of
+     * daemon threads.
+     * @param nThreads Number of threads.
+     * @return A fixed-size daemon-threaded {@code ExecutorService} instance.
+     * @throws IllegalArgumentException if {@link nThreads} is nonpositive.
+     */
+    public static ExecutorService newFixedExecutor(int nThreads) {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads, DEFAULT_FACTORY);
+        return executor;
+    }
 }
@@ -0,0 +1,58 @@
+package neuralnetwork.train;
+
+/**
+ * Enumeration of the optimization algorithms supported by {@code NeuralNetworkTrainer}.
+ * @author Konstantin Zhdanov
+ */
+public enum TrainingAlgorithm {
+    /**
+     * Scaled Conjugate Gradients method
+     * ("M. F. Moller. A Scaled Conjugate Gradient Algorithm
+     * for Fast Supervised Learning // Neural Networks, Vol. 6, pp. 525-533, 1993").
+     */
+    SCG,
+
+    /**
+     * Limited-memory BFGS quasi-Newton method with a line search satisfying
+     * the strong Wolfe conditions
+     * ("J. Nocedal, S. J. Wright. Numerical Optimization, 2nd ed., Springer, 2006",
+     * algorithms 7.4, 7.5, 3.5 and 3.6).
+     */
+    LBFGS,
+
+    /**
+     * Levenberg-Marquardt method with the Gauss-Newton approximation of 
+     * the cross-entropy's Hessian. Converges in few epochs for small networks.
+     * Networks with more weights and biases than the configured maximum
+     * are trained with {@code SCG} instead.
+     */
+    LEVENBERG_MARQUARDT,
+
+    /**
+     * Improved resilient backpropagation with weight-backtracking (iRprop+)
+     * ("C. Igel, M. Husken. Improving the Rprop Learning Algorithm //
+     * Proceedings of the Second International Symposium on Neural Computation,
+     * pp. 115-121, 2000"). Makes one pass over the training set per epoch.
+     */
+    RPROP,
+
+    /**
+     * Scaled Conjugate Gradients method computing the performance and its
+     * gradient on a random subsample of the training set. The subsample
+     * grows whenever the variance of the samples' gradients is too big
+     * relative to the gradient's norm ("R. H. Byrd, G. M. Chin, J. Nocedal, Y. Wu.
+     * Sample size selection in optimization methods for machine learning //
+     * Mathematical Programming, Vol. 134, pp. 127-155, 2012"), until the whole
+     * training set is used. Suitable for large training sets.
+     */
+    SUBSAMPLED_SCG,
+
+    /**
+     * Asynchronous stochastic gradient descent: several threads update
+     * the shared weights without locking after every sample
+     * ("F. Niu, B. Recht, C. Re, S. J. Wright. Hogwild!: A Lock-Free Approach
+     * to Parallelizing Stochastic Gradient Descent // NIPS 2011").
+     * Suitable for large training sets.
+     */
+    HOGWILD_SGD;
+}
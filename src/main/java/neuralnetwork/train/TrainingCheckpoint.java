@@ -0,0 +1,219 @@
+package neuralnetwork.train;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * Snapshot of a training taken at the end of an epoch: the algorithm,
+ * the topology of the network, the split of the samples into the training,
+ * validation and test sets, the number of completed epochs, the performance,
+ * the weights and biases and the engine's own state.
+ * <p>The snapshot is stored in a compact binary file. The file is written
+ * to a temporary file in the same directory first and then renamed, so that
+ * a crash during the writing leaves the previous checkpoint intact.</p>
+ * @author Konstantin Zhdanov
+ */
+class TrainingCheckpoint {
+
+    /** First bytes of a checkpoint file ("NNCK"). */
+    private static final int MAGIC = 0x4E4E434B;
+
+    /** Version of the file format. */
+    private static final int VERSION = 1;
+
+    final TrainingAlgorithm algorithm;
+    final int nInputs;
+    final int[] hiddenLayerSizes;
+    final int nOutputs;
+    final int[] trainSamplesIndices;
+    final int[] validationSamplesIndices;
+    final int[] testSamplesIndices;
+    /** Number of epochs completed before the snapshot was taken. */
+    final int completedEpochs;
+    final double performance;
+    /** Weights and biases in the order of {@code NeuralNetworkWeights.toArray()}. */
+    final double[] weights;
+    /** State written by {@code TrainingEngine.writeState}. */
+    final byte[] engineState;
+
+    TrainingCheckpoint(TrainingAlgorithm algorithm, int nInputs, int[] hiddenLayerSizes,
+            int nOutputs, int[] trainSamplesIndices, int[] validationSamplesIndices,
+            int[] testSamplesIndices, int completedEpochs, double performance,
+            double[] weights, byte[] engineState) {
+        this.algorithm = algorithm;
+        this.nInputs = nInputs;
+        this.hiddenLayerSizes = hiddenLayerSizes;
+        this.nOutputs = nOutputs;
+        this.trainSamplesIndices = trainSamplesIndices;
+        this.validationSamplesIndices = validationSamplesIndices;
+        this.testSamplesIndices = testSamplesIndices;
+        this.completedEpochs = completedEpochs;
+        this.performance = performance;
+        this.weights = weights;
+        this.engineState = engineState;
+    }
+
+    /**
+     * Check that the checkpoint has been taken while training {@link nn}
+     * on {@link nSamples} samples with the {@link algorithm}.
+     * @param nn Network to resume the training of.
+     * @param nSamples Number of all samples.
+     * @param algorithm Algorithm to resume the training with.
+     * @throws IllegalArgumentException if the checkpoint doesn't match.
+     */
+    void checkMatches(NeuralNetwork nn, int nSamples, TrainingAlgorithm algorithm) {
+        if (this.algorithm != algorithm) {
+            throw new IllegalArgumentException("Checkpoint has been taken by the "
+                    + this.algorithm + " algorithm");
+        }
+        if (nInputs != nn.getNumberInputs() || nOutputs != nn.getNumberOutputs()
+                || !Arrays.equals(hiddenLayerSizes, nn.getHiddenLayerSizes())) {
+            throw new IllegalArgumentException("Checkpoint has been taken for a network "
+                    + "of another topology");
+        }
+        int nIndices = trainSamplesIndices.length + validationSamplesIndices.length
+                + testSamplesIndices.length;
+        if (nIndices != nSamples) {
+            throw new IllegalArgumentException("Checkpoint has been taken for "
+                    + nIndices + " samples");
+        }
+        for (int[] indices : new int[][] {trainSamplesIndices, validationSamplesIndices, testSamplesIndices}) {
+            for (int index : indices) {
+                if (index < 0 || index >= nSamples) {
+                    throw new IllegalArgumentException("Checkpoint has an invalid sample index");
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream for reading the engine's state.
+     * @return A new stream over {@code engineState}.
+     */
+    DataInputStream engineStateInput() {
+        return new DataInputStream(new ByteArrayInputStream(engineState));
+    }
+
+    /**
+     * Write the checkpoint to the {@link file} atomically replacing it.
+     * @param file Path of the checkpoint file.
+     * @throws IOException if an I/O error occurs.
+     */
+    void write(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tmp.toFile());
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(algorithm.name());
+                out.writeInt(nInputs);
+                writeInts(out, hiddenLayerSizes);
+                out.writeInt(nOutputs);
+                writeInts(out, trainSamplesIndices);
+                writeInts(out, validationSamplesIndices);
+                writeInts(out, testSamplesIndices);
+                out.writeInt(completedEpochs);
+                out.writeDouble(performance);
+                out.writeInt(weights.length);
+                for (double value : weights) {
+                    out.writeDouble(value);
+                }
+                out.writeInt(engineState.length);
+                out.write(engineState);
+                out.flush();
+                // The data must be on the disk before the rename
+                fileOut.getFD().sync();
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Read a checkpoint from the {@link file}.
+     * @param file Path of the checkpoint file.
+     * @return The read checkpoint.
+     * @throws IOException if an I/O error occurs or the file is not
+     * a valid checkpoint.
+     */
+    static TrainingCheckpoint read(Path file) throws IOException {
+        try (InputStream fileIn = Files.newInputStream(file);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a training checkpoint: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            TrainingAlgorithm algorithm;
+            try {
+                algorithm = TrainingAlgorithm.valueOf(in.readUTF());
+            }
+            catch (IllegalArgumentException e) {
+                throw new IOException("Unknown training algorithm in checkpoint", e);
+            }
+            int nInputs = in.readInt();
+            int[] hiddenLayerSizes = readInts(in);
+            int nOutputs = in.readInt();
+            int[] trainSamplesIndices = readInts(in);
+            int[] validationSamplesIndices = readInts(in);
+            int[] testSamplesIndices = readInts(in);
+            int completedEpochs = in.readInt();
+            double performance = in.readDouble();
+            double[] weights = new double[checkLength(in.readInt())];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = in.readDouble();
+            }
+            byte[] engineState = new byte[checkLength(in.readInt())];
+            in.readFully(engineState);
+            return new TrainingCheckpoint(algorithm, nInputs, hiddenLayerSizes, nOutputs,
+                    trainSamplesIndices, validationSamplesIndices, testSamplesIndices,
+                    completedEpochs, performance, weights, engineState);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[checkLength(in.readInt())];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static int checkLength(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Corrupted checkpoint");
+        }
+        return length;
+    }
+}
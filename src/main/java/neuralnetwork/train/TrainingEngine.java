@@ -0,0 +1,147 @@
+package neuralnetwork.train;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Base class for the optimization algorithms run by {@code NeuralNetworkTrainerWorker}.
+ * An engine iteratively changes the weights starting from the network's ones,
+ * using the worker to compute the performance and its gradient over the
+ * training set, to check for cancellation and to report completed epochs.
+ * The worker applies the engine's {@code weights} to the trained network
+ * and reports the final status when the engine's {@code run} method returns.
+ * @author Konstantin Zhdanov
+ */
+abstract class TrainingEngine {
+
+    /** Worker running this engine. */
+    final NeuralNetworkTrainerWorker worker;
+
+    /**
+     * Current (best accepted) weights and biases. A step assigns new weights 
+     * instead of changing these in place once the training has started: 
+     * the worker publishes them in snapshots without copying.
+     */
+    NeuralNetworkWeights weights;
+
+    /** Number of the current training iteration (epoch). */
+    int epochNum = 0;
+
+    /** Performance of the network with the current weights. */
+    double performance = 0.0;
+    
+    /** Norm of the gradient at which the optimum is considered found. */
+    final double minGradient = 0.0000001;
+
+    /**
+     * Create an engine starting with the current weights of the worker's network.
+     * @param worker Worker running this engine.
+     */
+    TrainingEngine(NeuralNetworkTrainerWorker worker) {
+        if (worker == null) {
+            throw new NullPointerException("Worker cannot be null");
+        }
+        this.worker = worker;
+        this.weights = NeuralNetworkWeights.newOf(worker.getNetwork());
+    }
+
+    /**
+     * Perform the training. Returns when a stopping criterion is met or when
+     * the cancellation has been requested or the time limit has been reached.
+     */
+    final void run() {
+        try {
+            runEpochs();
+        }
+        catch (NeuralNetworkTrainerWorker.TrainingStoppedException e) {
+            // Stopped within a pass, the state of the last completed step is kept
+        }
+    }
+
+    /**
+     * Perform the training's epochs until a stopping criterion is met or
+     * the worker's {@code cancelRequested} returns {@code true}. The worker's
+     * passes over the samples stop the training within a pass by throwing
+     * {@code TrainingStoppedException}.
+     */
+    abstract void runEpochs();
+
+    /**
+     * Number of threads computing the training.
+     * @return The number of threads, 1 for the sequential algorithms.
+     */
+    int getThreadCount() {
+        return 1;
+    }
+
+    /**
+     * Damping of the steps after the last epoch, e.g. the SCG lambda.
+     * @return The damping or {@code NaN} if the algorithm doesn't damp its steps.
+     */
+    double getDamping() {
+        return Double.NaN;
+    }
+
+    /**
+     * Whether {@code performance} is computed over the whole training set,
+     * so that it can be compared with the performances of the other epochs.
+     * @return {@code true} if the performance is over the whole training set.
+     * The default is {@code true}.
+     */
+    boolean isPerformanceOverTrainSet() {
+        return true;
+    }
+
+    /**
+     * Whether the step made in the last epoch has reduced the performance.
+     * @return {@code true} if the step has been accepted. The default is {@code true}.
+     */
+    boolean isLastStepAccepted() {
+        return true;
+    }
+
+    /**
+     * Whether the engine can write its state to a {@code TrainingCheckpoint}
+     * and continue the training from it.
+     * @return {@code true} if checkpoints are supported. The default is {@code false}.
+     */
+    boolean supportsCheckpoints() {
+        return false;
+    }
+
+    /**
+     * Write the state needed to continue the training other than the weights,
+     * the epoch number and the performance.
+     * @param out Stream to write the state to.
+     * @throws IOException if an I/O error occurs.
+     */
+    void writeState(DataOutputStream out) throws IOException {
+    }
+
+    /**
+     * Read the state written by {@code writeState}.
+     * @param in Stream to read the state from.
+     * @throws IOException if an I/O error occurs.
+     */
+    void readState(DataInputStream in) throws IOException {
+    }
+
+    /**
+     * Continue the training from the {@link checkpoint} when {@code run} is called.
+     * @param checkpoint Checkpoint written by an engine of the same class.
+     * @throws IllegalStateException if checkpoints are not supported.
+     * @throws IOException if the engine's state cannot be read.
+     */
+    void restore(TrainingCheckpoint checkpoint) throws IOException {
+        if (!supportsCheckpoints()) {
+            throw new IllegalStateException("Algorithm doesn't support checkpoints");
+        }
+        weights.setFromArray(checkpoint.weights);
+        epochNum = checkpoint.completedEpochs;
+        performance = checkpoint.performance;
+        try (DataInputStream in = checkpoint.engineStateInput()) {
+            readState(in);
+        }
+    }
+}
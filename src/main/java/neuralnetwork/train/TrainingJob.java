@@ -0,0 +1,165 @@
+package neuralnetwork.train;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * A training submitted to a {@code TrainingScheduler}.
+ * <p>The job is a {@code Future} of the trained network. Like 
+ * {@code NeuralNetworkTrainer}'s training, a canceled job's {@code get} methods 
+ * return the partially trained network instead of throwing.</p>
+ * <p>Listeners registered with the job are called from the scheduler's thread 
+ * running the job. A job canceled before it has started is reported via 
+ * {@code onTrainingCanceled} with zero epochs and {@code NaN} performance.</p>
+ * @author Konstantin Zhdanov
+ */
+public class TrainingJob implements Future<NeuralNetwork> {
+    
+    /** The actual training. */
+    private final NeuralNetworkTrainerTask task;
+    
+    /** Priority of this job, the higher the sooner it is started. */
+    private final int priority;
+    
+    /** Submission order of this job among the jobs of equal priority. */
+    private final long sequenceNum;
+    
+    /** Listeners of this job's training events. */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    
+    private final Listener taskListener = new Listener() {
+        @Override
+        public void onTrainingComplete(TrainerEvent event) {
+            listeners.forEach((listener) -> listener.onTrainingComplete(event));
+        }
+
+        @Override
+        public void onTrainingCanceled(TrainerEvent event) {
+            listeners.forEach((listener) -> listener.onTrainingCanceled(event));
+        }
+
+        @Override
+        public void onTrainingEpochComplete(TrainerEvent event) {
+            listeners.forEach((listener) -> listener.onTrainingEpochComplete(event));
+        }
+    };
+    
+    TrainingJob(NeuralNetworkTrainerTask task, int priority, long sequenceNum) {
+        this.task = task;
+        this.priority = priority;
+        this.sequenceNum = sequenceNum;
+        this.task.setListener(taskListener);
+    }
+    
+    /**
+     * Priority of this job. Jobs with higher priority are started first,
+     * jobs with equal priority are started in the order of submission.
+     * @return {@code int} value of the priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+    
+    long getSequenceNum() {
+        return sequenceNum;
+    }
+    
+    NeuralNetworkTrainerTask getTask() {
+        return task;
+    }
+    
+    /**
+     * Get the best network of this job's training published so far without
+     * waiting for the job to finish (see {@code NeuralNetworkTrainer.getSnapshot}).
+     * @return The {@code TrainingSnapshot} or {@code null} if none has been
+     * published yet.
+     */
+    public TrainingSnapshot getSnapshot() {
+        return task.getSnapshot();
+    }
+    
+    /**
+     * Register a listener that will be called when this job's 
+     * training lifecycle events occur. Events that have occurred before
+     * the registration are not delivered to the {@link listener}.
+     * @param listener A listener of this job's training events.
+     * @throws NullPointerException if the {@link listener} is null.
+     */
+    public void registerListener(Listener listener) {
+        if (listener == null) {
+            throw new NullPointerException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove the {@link listener}, so that its methods will not be called 
+     * when this job's training events occur. If the {@link listener} hasn't
+     * been registered, this method is equivalent to no-op.
+     * @param listener A listener to be removed.
+     * @throws NullPointerException if the {@link listener} is null.
+     */
+    public void removeListener(Listener listener) {
+        if (listener == null) {
+            throw new NullPointerException("Listener cannot be null");
+        }
+        listeners.remove(listener);
+    }
+
+    /**
+     * Cancel this job. A queued job will never start, a running job
+     * stops within its current pass over the samples, after the chunk
+     * of samples being processed.
+     * @param mayInterruptIfRunning Whether to stop a running job.
+     * @return {@code false} if the job could not be canceled, typically 
+     * because it has already finished.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return task.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return task.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return task.isDone();
+    }
+
+    /**
+     * Wait for the job to finish and get the trained network.
+     * @return A new {@code NeuralNetwork} object representing the trained network,
+     * partially trained if the job has been canceled.
+     * @throws InterruptedException if the current thread has been interrupted 
+     * while waiting.
+     * @throws ExecutionException if the training has thrown an exception.
+     */
+    @Override
+    public NeuralNetwork get() throws InterruptedException, ExecutionException {
+        return task.get();
+    }
+
+    /**
+     * Wait at most the given time for the job to finish and get the trained network.
+     * @param timeout Value of maximum time to wait for the result in {@link unit}
+     * @param unit Unit of {@link timeout} value
+     * @return A new {@code NeuralNetwork} object representing the trained network,
+     * partially trained if the job has been canceled.
+     * @throws InterruptedException if the current thread has been interrupted 
+     * while waiting.
+     * @throws ExecutionException if the training has thrown an exception.
+     * @throws TimeoutException if the wait timed out.
+     */
+    @Override
+    public NeuralNetwork get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return task.get(timeout, unit);
+    }
+}
@@ -0,0 +1,156 @@
+package neuralnetwork.train;
+
+/**
+ * Snapshot of the measurements of one training epoch: how many passes over
+ * the samples the algorithm made, how fast the samples were processed and
+ * how the epoch's time was split between the phases of the computation.
+ * If the trainer doesn't report every epoch (see 
+ * {@code NeuralNetworkTrainer.Builder.withEpochReportEvery}), the snapshot
+ * covers all the epochs since the previous reported one.
+ * <p>The times are wall-clock times of the training thread. For the
+ * algorithms computing the gradient in parallel (Levenberg-Marquardt and
+ * Hogwild SGD) the forward evaluations of the gradient passes are included
+ * in the backpropagation time.</p>
+ * @author Konstantin Zhdanov
+ */
+public class TrainingMetrics {
+    private final int epoch;
+    private final int epochs;
+    private final long epochNanos;
+    private final int forwardPasses;
+    private final int gradientPasses;
+    private final long samples;
+    private final long forwardNanos;
+    private final long backpropNanos;
+    private final long reductionNanos;
+    private final double gradientNorm;
+    private final long allocatedBytes;
+
+    TrainingMetrics(int epoch, int epochs, long epochNanos, int forwardPasses, int gradientPasses,
+            long samples, long forwardNanos, long backpropNanos, long reductionNanos,
+            double gradientNorm, long allocatedBytes) {
+        this.epoch = epoch;
+        this.epochs = epochs;
+        this.epochNanos = epochNanos;
+        this.forwardPasses = forwardPasses;
+        this.gradientPasses = gradientPasses;
+        this.samples = samples;
+        this.forwardNanos = forwardNanos;
+        this.backpropNanos = backpropNanos;
+        this.reductionNanos = reductionNanos;
+        this.gradientNorm = gradientNorm;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Number of the epoch, the same as {@code TrainerEvent.getEpoch()}.
+     * @return The epoch's number.
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Number of the measured epochs, more than one if the previous epochs
+     * haven't been reported.
+     * @return The number of epochs ending with {@code getEpoch()}.
+     */
+    public int getEpochs() {
+        return epochs;
+    }
+
+    /**
+     * Duration of the measured epochs.
+     * @return {@code long} number of nanoseconds.
+     */
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    /**
+     * Number of passes over the samples computing only the performance,
+     * e.g. the line search's evaluations.
+     * @return {@code int} number of the forward passes.
+     */
+    public int getForwardPasses() {
+        return forwardPasses;
+    }
+
+    /**
+     * Number of passes over the samples computing the performance and its gradient.
+     * @return {@code int} number of the gradient passes.
+     */
+    public int getGradientPasses() {
+        return gradientPasses;
+    }
+
+    /**
+     * Number of samples evaluated by all the passes of the epoch.
+     * A pass over a subset of the samples counts only the subset.
+     * @return {@code long} number of the evaluated samples.
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Number of samples evaluated per second of the epoch.
+     * @return Samples per second or 0 if the epoch took no measurable time.
+     */
+    public double getSamplesPerSecond() {
+        return epochNanos > 0 ? samples * 1e9 / epochNanos : 0.0;
+    }
+
+    /**
+     * Time of evaluating the network's response on the samples.
+     * @return {@code long} number of nanoseconds.
+     */
+    public long getForwardNanos() {
+        return forwardNanos;
+    }
+
+    /**
+     * Time of backpropagating the errors and summing the samples' gradients.
+     * @return {@code long} number of nanoseconds.
+     */
+    public long getBackpropNanos() {
+        return backpropNanos;
+    }
+
+    /**
+     * Time of combining the summed gradients into the average one and
+     * computing its norm.
+     * @return {@code long} number of nanoseconds.
+     */
+    public long getReductionNanos() {
+        return reductionNanos;
+    }
+
+    /**
+     * Time spent by the algorithm outside of the passes over the samples,
+     * mostly by the operations on the vectors of weights (search directions,
+     * steps, updates of the history).
+     * @return {@code long} number of nanoseconds.
+     */
+    public long getVectorOpsNanos() {
+        return Math.max(0, epochNanos - forwardNanos - backpropNanos - reductionNanos);
+    }
+
+    /**
+     * Euclidean norm of the last gradient computed in the epoch.
+     * @return The norm or {@code NaN} if the algorithm doesn't compute
+     * the full gradient.
+     */
+    public double getGradientNorm() {
+        return gradientNorm;
+    }
+
+    /**
+     * Bytes allocated on the heap by the training thread during the epoch.
+     * The allocations of the threads helping a parallel algorithm are not counted.
+     * @return {@code long} number of bytes or -1 if the JVM cannot measure them.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
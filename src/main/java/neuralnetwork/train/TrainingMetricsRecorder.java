@@ -0,0 +1,123 @@
+package neuralnetwork.train;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Accumulates the measurements of the epochs since the last snapshot and creates
+ * {@code TrainingMetrics} snapshots. Used by the training thread only.
+ * @author Konstantin Zhdanov
+ */
+final class TrainingMetricsRecorder {
+
+    /** Bean measuring the threads' allocations or {@code null} if not supported. */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationsBean();
+
+    /** Bytes allocated by the calling thread at the epoch's start or -1 if unknown. */
+    private long allocatedAtEpochStart = -1;
+    private long epochStart = System.nanoTime();
+    private int epochs;
+    private int forwardPasses;
+    private int gradientPasses;
+    private long samples;
+    private long forwardNanos;
+    private long backpropNanos;
+    private long reductionNanos;
+    private double gradientNorm = Double.NaN;
+
+    private static com.sun.management.ThreadMXBean allocationsBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+                if (threads.isThreadAllocatedMemorySupported()
+                        && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        }
+        catch (LinkageError | SecurityException e) {
+            // Not a HotSpot-compatible JVM
+        }
+        return null;
+    }
+
+    /** 
+     * Start measuring the first epoch on the calling thread. Until called,
+     * the epochs are measured from the creation and their allocations are unknown.
+     */
+    void start() {
+        resetEpoch();
+    }
+
+    /**
+     * Record a pass computing only the performance.
+     * @param nSamples Number of the evaluated samples.
+     * @param nanos Time of the pass.
+     */
+    void forwardPass(int nSamples, long nanos) {
+        forwardPasses++;
+        samples += nSamples;
+        forwardNanos += nanos;
+    }
+
+    /**
+     * Record a pass computing the performance and its gradient.
+     * @param nSamples Number of the evaluated samples.
+     * @param forward Time of the forward evaluations.
+     * @param backprop Time of the backpropagation.
+     * @param reduction Time of averaging the gradient.
+     * @param norm Norm of the gradient or {@code NaN} if not computed.
+     */
+    void gradientPass(int nSamples, long forward, long backprop, long reduction, double norm) {
+        gradientPasses++;
+        samples += nSamples;
+        forwardNanos += forward;
+        backpropNanos += backprop;
+        reductionNanos += reduction;
+        gradientNorm = norm;
+    }
+
+    /**
+     * Record the end of an epoch, which is measured along with the next ones
+     * until the snapshot.
+     */
+    void epochComplete() {
+        epochs++;
+    }
+    
+    /**
+     * Create the snapshot of the epochs completed since the last one and start
+     * measuring the next epoch.
+     * @param epoch Number of the last completed epoch.
+     * @return A new {@code TrainingMetrics}.
+     */
+    TrainingMetrics endEpoch(int epoch) {
+        TrainingMetrics metrics = new TrainingMetrics(epoch, epochs, System.nanoTime() - epochStart,
+                forwardPasses, gradientPasses, samples,
+                forwardNanos, backpropNanos, reductionNanos, gradientNorm,
+                allocatedAtEpochStart >= 0 ? allocatedBytes() - allocatedAtEpochStart : -1);
+        resetEpoch();
+        return metrics;
+    }
+
+    private void resetEpoch() {
+        epochs = 0;
+        forwardPasses = 0;
+        gradientPasses = 0;
+        samples = 0;
+        forwardNanos = 0;
+        backpropNanos = 0;
+        reductionNanos = 0;
+        gradientNorm = Double.NaN;
+        allocatedAtEpochStart = allocatedBytes();
+        epochStart = System.nanoTime();
+    }
+
+    /** Bytes allocated by the calling thread or -1 if not supported. */
+    private static long allocatedBytes() {
+        if (ALLOCATIONS == null) {
+            return -1;
+        }
+        return ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
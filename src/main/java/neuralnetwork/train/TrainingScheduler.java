@@ -0,0 +1,182 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * Scheduler running many trainings over a shared bounded pool of daemon threads.
+ * <p>A job is submitted with a {@code NeuralNetworkTrainer} whose options
+ * and normalizers are used for the training; the trainer's own executor, 
+ * listeners and current training are not involved, so one trainer can be used 
+ * for any number of concurrent jobs. Submission never blocks: jobs wait in 
+ * an unbounded queue ordered by priority and then by submission order.</p>
+ * <p>Note that the parallel algorithms (see {@link TrainingAlgorithm}) start
+ * their own threads in addition to the scheduler's ones.</p>
+ * @author Konstantin Zhdanov
+ */
+public class TrainingScheduler {
+    
+    /** Runnable queued to the pool, ordered by the job's priority. */
+    private static class QueuedJob implements Runnable {
+        final TrainingJob job;
+
+        QueuedJob(TrainingJob job) {
+            this.job = job;
+        }
+        
+        @Override
+        public void run() {
+            job.getTask().run();
+        }
+    }
+    
+    private static final Comparator<Runnable> PRIORITY_ORDER = (r1, r2) -> {
+        TrainingJob job1 = ((QueuedJob)r1).job;
+        TrainingJob job2 = ((QueuedJob)r2).job;
+        int byPriority = Integer.compare(job2.getPriority(), job1.getPriority());
+        if (byPriority != 0) {
+            return byPriority;
+        }
+        return Long.compare(job1.getSequenceNum(), job2.getSequenceNum());
+    };
+    
+    /** Pool running the jobs. */
+    private final ThreadPoolExecutor executor;
+    
+    /** Counter of the submitted jobs. */
+    private final AtomicLong submittedJobs = new AtomicLong();
+    
+    /**
+     * Create a scheduler running as many jobs at once as there are 
+     * available processors.
+     */
+    public TrainingScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create a scheduler running at most {@link nThreads} jobs at once.
+     * @param nThreads Number of the pool's threads.
+     * @throws IllegalArgumentException if {@link nThreads} is nonpositive.
+     */
+    public TrainingScheduler(int nThreads) {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads cannot be nonpositive");
+        }
+        this.executor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(11, PRIORITY_ORDER),
+                TrainerExecutors.daemonThreadFactory());
+    }
+    
+    /**
+     * Submit a training with the default priority 0.
+     * @see #submit(NeuralNetworkTrainer, NeuralNetwork, double[][], double[][], int, Listener)
+     */
+    public TrainingJob submit(NeuralNetworkTrainer trainer, NeuralNetwork nn, 
+            double[][] inputs, double[][] targets) {
+        return submit(trainer, nn, inputs, targets, 0, null);
+    }
+    
+    /**
+     * Submit a training with the given priority.
+     * @see #submit(NeuralNetworkTrainer, NeuralNetwork, double[][], double[][], int, Listener)
+     */
+    public TrainingJob submit(NeuralNetworkTrainer trainer, NeuralNetwork nn, 
+            double[][] inputs, double[][] targets, int priority) {
+        return submit(trainer, nn, inputs, targets, priority, null);
+    }
+    
+    /**
+     * Submit a training of {@link nn} neural network on {@link inputs} samples 
+     * with {@link targets} results for them. The {@link inputs} and {@link targets}
+     * are normalized in place by the {@link trainer}'s normalizers, as done by
+     * {@code NeuralNetworkTrainer.startTrain}.
+     * @param trainer Trainer providing the options of the training.
+     * @param nn NeuralNetwork object to train
+     * @param inputs Samples to use in training as inputs
+     * @param targets Desired (ideal) responses of {@link nn} neural network on {@link inputs}
+     * @param priority Priority of the job, the higher the sooner it is started.
+     * @param listener Listener registered with the job before it is queued, 
+     * so that it receives all of the job's events, or {@code null}.
+     * @return The submitted job.
+     * @throws NullPointerException if any argument except {@link listener} is null.
+     * @throws IllegalArgumentException if the sizes of the samples don't match
+     * the network.
+     * @throws IllegalStateException if the scheduler has been shut down.
+     */
+    public TrainingJob submit(NeuralNetworkTrainer trainer, NeuralNetwork nn, 
+            double[][] inputs, double[][] targets, int priority, Listener listener) {
+        if (trainer == null) {
+            throw new NullPointerException("Trainer cannot be null");
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Scheduler has been shut down");
+        }
+        return submit(trainer.newTask(nn, inputs, targets), priority, listener);
+    }
+    
+    /**
+     * Submit a training task.
+     * @param task The task to run.
+     * @param priority Priority of the job, the higher the sooner it is started.
+     * @param listener Listener registered with the job before it is queued or {@code null}.
+     * @return The submitted job.
+     * @throws IllegalStateException if the scheduler has been shut down.
+     */
+    TrainingJob submit(NeuralNetworkTrainerTask task, int priority, Listener listener) {
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Scheduler has been shut down");
+        }
+        TrainingJob job = new TrainingJob(task, priority, submittedJobs.getAndIncrement());
+        if (listener != null) {
+            job.registerListener(listener);
+        }
+        executor.execute(new QueuedJob(job));
+        return job;
+    }
+    
+    /**
+     * Max number of jobs running at once.
+     * @return {@code int} number of the pool's threads.
+     */
+    public int getNumberOfThreads() {
+        return executor.getMaximumPoolSize();
+    }
+    
+    /**
+     * Number of jobs waiting to be started.
+     * @return {@code int} number of queued jobs.
+     */
+    public int getNumberOfQueuedJobs() {
+        return executor.getQueue().size();
+    }
+    
+    /**
+     * Cancel all queued and running jobs and stop accepting new ones.
+     * @return Jobs that have been queued and never started.
+     */
+    public List<TrainingJob> shutdownNow() {
+        List<Runnable> queued = executor.shutdownNow();
+        List<TrainingJob> notStarted = new ArrayList<>(queued.size());
+        for (Runnable runnable : queued) {
+            TrainingJob job = ((QueuedJob)runnable).job;
+            job.cancel(false);
+            notStarted.add(job);
+        }
+        return notStarted;
+    }
+    
+    /**
+     * Whether the scheduler has been shut down.
+     * @return {@code true} if {@code shutdownNow} has been called.
+     */
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+}
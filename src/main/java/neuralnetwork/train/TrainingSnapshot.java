@@ -0,0 +1,70 @@
+package neuralnetwork.train;
+
+import neuralnetwork.ActivationFunction;
+import neuralnetwork.NeuralNetwork;
+
+/**
+ * The best network of a running training published so far, see 
+ * {@code NeuralNetworkTrainer.getSnapshot}. The training thread only keeps
+ * a reference to the engine's weights and biases; they are copied into 
+ * the network created by {@code getNetwork} on the caller's thread.
+ * @author Konstantin Zhdanov
+ */
+public final class TrainingSnapshot {
+    private final int epoch;
+    private final double performance;
+    private final NeuralNetworkWeights weights;
+    private final int nInputs;
+    private final int[] hiddenLayerSizes;
+    private final int nOutputs;
+    private final ActivationFunction activationFunction;
+    
+    /**
+     * Create a snapshot of the trained network.
+     * @param epoch Number of the epoch after which the snapshot has been taken.
+     * @param performance Performance of the weights.
+     * @param weights Weights and biases not changed afterwards.
+     * @param nn Trained network providing the topology and the activation function.
+     */
+    TrainingSnapshot(int epoch, double performance, NeuralNetworkWeights weights, NeuralNetwork nn) {
+        this.epoch = epoch;
+        this.performance = performance;
+        this.weights = weights;
+        this.nInputs = nn.getNumberInputs();
+        this.hiddenLayerSizes = nn.getHiddenLayerSizes().clone();
+        this.nOutputs = nn.getNumberOutputs();
+        this.activationFunction = nn.getActivationFunction();
+    }
+    
+    /**
+     * Number of the epoch after which the snapshot has been taken.
+     * @return The epoch's number.
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+    
+    /**
+     * Performance (error) on the training samples of the snapshot's network.
+     * @return The performance value.
+     */
+    public double getPerformance() {
+        return performance;
+    }
+    
+    /** Weights and biases of the snapshot, must not be changed. */
+    NeuralNetworkWeights getWeights() {
+        return weights;
+    }
+    
+    /**
+     * Create the network with the snapshot's weights and biases.
+     * @return A new {@code NeuralNetwork} owned by the caller.
+     */
+    public NeuralNetwork getNetwork() {
+        NeuralNetwork nn = new NeuralNetwork(nInputs, hiddenLayerSizes, nOutputs);
+        nn.setActivationFunction(activationFunction);
+        weights.applyToNeuralNetwork(nn);
+        return nn;
+    }
+}
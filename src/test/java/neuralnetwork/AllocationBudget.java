@@ -0,0 +1,95 @@
+package neuralnetwork;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+
+/**
+ * Measures the bytes allocated on the heap by an operation with
+ * {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes} and
+ * asserts them against a budget. Tests using it are skipped on JVMs
+ * that don't support measuring the allocations.
+ * <p>The operation is run on the calling thread until it is compiled, so
+ * the budget applies to the steady state. Since the JIT may remove
+ * allocations that don't escape, a budget is an upper bound.</p>
+ * @author Konstantin Zhdanov
+ */
+public class AllocationBudget {
+
+    /** Number of runs of the operation before measuring. */
+    private static final int WARMUP_OPERATIONS = 20_000;
+
+    /** Number of measured runs of the operation. */
+    private static final int MEASURED_OPERATIONS = 1_000;
+
+    private AllocationBudget() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("Allocation measurement is not supported",
+                bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+        Assume.assumeTrue("Allocation measurement is not supported",
+                threadBean.isThreadAllocatedMemorySupported());
+        if (!threadBean.isThreadAllocatedMemoryEnabled()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threadBean;
+    }
+
+    /**
+     * Measure the average bytes allocated by one run of the {@link operation}
+     * in the steady state.
+     * @param operation Operation to measure.
+     * @param warmupOperations Number of runs before measuring.
+     * @param measuredOperations Number of measured runs.
+     * @return Average number of bytes allocated per run.
+     */
+    public static double bytesPerOperation(Runnable operation,
+            int warmupOperations, int measuredOperations) {
+        com.sun.management.ThreadMXBean bean = threadBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < warmupOperations; i++) {
+            operation.run();
+        }
+        // The measurement itself allocates, the empty measurement is subtracted
+        long overhead = bean.getThreadAllocatedBytes(threadId);
+        overhead = bean.getThreadAllocatedBytes(threadId) - overhead;
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < measuredOperations; i++) {
+            operation.run();
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before - overhead;
+        return Math.max(0, allocated) / (double)measuredOperations;
+    }
+
+    /**
+     * Assert that one run of the {@link operation} allocates at most
+     * {@link budgetBytes} in the steady state.
+     * @param operationName Name of the operation used in the failure message.
+     * @param budgetBytes Max number of bytes per run.
+     * @param operation Operation to measure.
+     */
+    public static void assertWithinBudget(String operationName, long budgetBytes,
+            Runnable operation) {
+        assertWithinBudget(operationName, budgetBytes, operation,
+                WARMUP_OPERATIONS, MEASURED_OPERATIONS);
+    }
+
+    /**
+     * Assert that one run of the {@link operation} allocates at most
+     * {@link budgetBytes} in the steady state.
+     * @param operationName Name of the operation used in the failure message.
+     * @param budgetBytes Max number of bytes per run.
+     * @param operation Operation to measure.
+     * @param warmupOperations Number of runs before measuring.
+     * @param measuredOperations Number of measured runs.
+     */
+    public static void assertWithinBudget(String operationName, long budgetBytes,
+            Runnable operation, int warmupOperations, int measuredOperations) {
+        double bytes = bytesPerOperation(operation, warmupOperations, measuredOperations);
+        Assert.assertTrue(String.format("%s allocates %.0f bytes per operation, the budget is %d",
+                operationName, bytes, budgetBytes), bytes <= budgetBytes);
+    }
+}
@@ -0,0 +1,88 @@
+package neuralnetwork;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import neuralnetwork.init.Initializer;
+import neuralnetwork.train.NeuralNetworkEvaluator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static neuralnetwork.TestUtils.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class CompiledNeuralNetworkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private NeuralNetwork nn;
+
+    @Before
+    public void initTestCase() {
+        nn = new NeuralNetwork(3, new int[] {4, 2}, 2, Initializer.ofStdRandomRange(13));
+        nn.setActivationFunction(ActivationFunctions.TAN);
+    }
+
+    @Test
+    public void testGetOutput_CompiledFromNetwork_SameAsHeapNetwork() {
+        CompiledNeuralNetwork compiled = CompiledNeuralNetwork.of(nn);
+        NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(nn);
+        double[][] inputs = {{0, 0, 0}, {1, -0.5, 0.25}, {0.3, 0.7, 1}};
+
+        for (double[] input : inputs) {
+            Assert.assertArrayEquals(evaluator.getOutput(input), compiled.getOutput(input), 0.0);
+        }
+    }
+
+    @Test
+    public void testGetOutput_NetworkChangedAfterCompiling_ResultNotChanged() {
+        CompiledNeuralNetwork compiled = CompiledNeuralNetwork.of(nn);
+        double[] input = {1, 2, 3};
+        double[] before = compiled.getOutput(input);
+
+        nn.setBias(1, 0, nn.getBias(1, 0) + 1);
+
+        Assert.assertArrayEquals(before, compiled.getOutput(input), 0.0);
+    }
+
+    @Test
+    public void testRead_NamedModel_ReturnSameAsCompiledNetwork() throws IOException {
+        NamedNeuralNetwork named = new NamedNeuralNetwork(nn, "scorer");
+        Path file = folder.getRoot().toPath().resolve("model.nnb");
+        NeuralNetworkFormat.write(named, file);
+
+        CompiledNeuralNetwork read = CompiledNeuralNetwork.read(file);
+
+        double[] input = {0.3, -0.2, 0.9};
+        Assert.assertArrayEquals(CompiledNeuralNetwork.of(named).getOutput(input),
+                read.getOutput(input), 0.0);
+        Assert.assertEquals("scorer", read.getName());
+        Assert.assertEquals(named.getSignature(), read.getSignature());
+        Assert.assertEquals(named.toString(), read.toString());
+        Assert.assertEquals(8L * (4 * 4 + 2 * 5 + 2 * 3), read.getWeightBytes());
+    }
+
+    @Test
+    public void testToNeuralNetwork_AnyNetwork_ReturnEqualNN() {
+        CompiledNeuralNetwork compiled = CompiledNeuralNetwork.of(nn);
+
+        NeuralNetwork copy = compiled.toNeuralNetwork();
+
+        assertNNEquals(nn, copy);
+        Assert.assertEquals(NeuralNetwork.class, copy.getClass());
+        Assert.assertNull(compiled.getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetOutput_WrongInputSize_Throws() {
+        CompiledNeuralNetwork.of(nn).getOutput(new double[4]);
+
+        Assert.fail();
+    }
+}
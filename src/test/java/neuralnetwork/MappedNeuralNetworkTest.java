@@ -0,0 +1,105 @@
+package neuralnetwork;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import neuralnetwork.init.Initializer;
+import neuralnetwork.train.NeuralNetworkEvaluator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static neuralnetwork.TestUtils.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class MappedNeuralNetworkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private NeuralNetwork nn;
+    private Path file;
+
+    @Before
+    public void initTestCase() throws IOException {
+        nn = new NeuralNetwork(3, new int[] {4, 2}, 2, Initializer.ofStdRandomRange(11));
+        nn.setActivationFunction(ActivationFunctions.TAN);
+        file = folder.getRoot().toPath().resolve("model.nnb");
+        NeuralNetworkFormat.write(nn, file);
+    }
+
+    @Test
+    public void testGetOutput_AnyInput_SameAsHeapNetwork() throws IOException {
+        MappedNeuralNetwork mapped = MappedNeuralNetwork.map(file);
+        NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(nn);
+        double[][] inputs = {{0, 0, 0}, {1, -0.5, 0.25}, {0.3, 0.7, 1}};
+
+        for (double[] input : inputs) {
+            Assert.assertArrayEquals(evaluator.getOutput(input), mapped.getOutput(input), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetOutput_WrongInputSize_Throws() throws IOException {
+        MappedNeuralNetwork mapped = MappedNeuralNetwork.map(file);
+
+        mapped.getOutput(new double[2]);
+
+        Assert.fail();
+    }
+
+    @Test
+    public void testToNeuralNetwork_NamedModel_ReturnEqualNamedNN() throws IOException {
+        NamedNeuralNetwork named = new NamedNeuralNetwork(nn, "scorer");
+        NeuralNetworkFormat.write(named, file);
+
+        MappedNeuralNetwork mapped = MappedNeuralNetwork.map(file);
+        NeuralNetwork copy = mapped.toNeuralNetwork();
+
+        assertNNEquals(named, copy);
+        Assert.assertEquals("scorer", ((NamedNeuralNetwork)copy).getName());
+        Assert.assertEquals("scorer", mapped.getName());
+        Assert.assertEquals(named.toString(), mapped.toString());
+    }
+
+    @Test
+    public void testGetters_AnyModel_ReturnStoredTopology() throws IOException {
+        MappedNeuralNetwork mapped = MappedNeuralNetwork.map(file);
+
+        Assert.assertEquals(3, mapped.getNumberInputs());
+        Assert.assertArrayEquals(new int[] {4, 2}, mapped.getHiddenLayerSizes());
+        Assert.assertEquals(2, mapped.getNumberOutputs());
+        Assert.assertEquals(ActivationFunctions.TAN, mapped.getActivationFunction());
+        Assert.assertNull(mapped.getName());
+        Assert.assertEquals(nn.getSignature(), mapped.getSignature());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMap_CorruptedModel_Throws() throws IOException {
+        corruptLastWeight();
+
+        MappedNeuralNetwork.map(file);
+
+        Assert.fail();
+    }
+
+    @Test
+    public void testMap_CorruptedModelWithoutVerification_Ok() throws IOException {
+        corruptLastWeight();
+
+        MappedNeuralNetwork mapped = MappedNeuralNetwork.map(file, false);
+
+        Assert.assertEquals(2, mapped.getOutput(new double[3]).length);
+    }
+
+    private void corruptLastWeight() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 10] ^= 1;
+        Files.write(file, bytes);
+    }
+}
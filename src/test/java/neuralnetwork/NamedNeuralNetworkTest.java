@@ -223,6 +223,24 @@ public class NamedNeuralNetworkTest {
         Assert.assertEquals("String format is different", expected, actual);
     }
     
+    @Test
+    public void testSerialization_StreamOfEarlierVersion_ReadEqualObject() 
+            throws IOException, ClassNotFoundException {
+        // Written by the default serialization with the arrays of arrays
+        NeuralNetwork expected = new NeuralNetwork(3, new int[] {4, 2}, 2, 
+                Initializer.ofStdRandomRange(5));
+        expected.setActivationFunction(ActivationFunctions.TAN);
+        
+        NamedNeuralNetwork readNN;
+        try (ObjectInputStream ois = new ObjectInputStream(getClass().
+                getResourceAsStream("legacy-named-network.ser"))) {
+            readNN = (NamedNeuralNetwork)ois.readObject();
+        }
+        
+        assertNNEquals(expected, readNN);
+        Assert.assertEquals("legacy", readNN.getName());
+    }
+    
     @Test
     public void testSerialization_WriteToObjectStream_ReadEqualStructureAndWeightsAndNameObject() {
         int nInputs = 2;
@@ -0,0 +1,172 @@
+package neuralnetwork;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import neuralnetwork.init.Initializer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static neuralnetwork.TestUtils.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class NeuralNetworkFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static NeuralNetwork newNetwork() {
+        return new NeuralNetwork(3, new int[] {4, 2}, 2, Initializer.ofStdRandomRange(7));
+    }
+
+    private static byte[] toBytes(NeuralNetwork nn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NeuralNetworkFormat.write(nn, Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static NeuralNetwork fromBytes(byte[] bytes) throws IOException {
+        return NeuralNetworkFormat.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void testWriteRead_File_ReturnEqualNN() throws IOException {
+        NeuralNetwork nn = newNetwork();
+        Path file = folder.getRoot().toPath().resolve("model.nnb");
+
+        NeuralNetworkFormat.write(nn, file);
+        NeuralNetwork read = NeuralNetworkFormat.read(file);
+
+        assertNNEquals(nn, read);
+        Assert.assertEquals(NeuralNetwork.class, read.getClass());
+    }
+
+    @Test
+    public void testWriteRead_NamedNetworkWithTan_ReturnEqualNamedNN() throws IOException {
+        NamedNeuralNetwork nn = new NamedNeuralNetwork(newNetwork(), "Сеть 1");
+        nn.setActivationFunction(ActivationFunctions.TAN);
+
+        NeuralNetwork read = fromBytes(toBytes(nn));
+
+        assertNNEquals(nn, read);
+        Assert.assertEquals(ActivationFunctions.TAN, read.getActivationFunction());
+        Assert.assertEquals("Сеть 1", ((NamedNeuralNetwork)read).getName());
+    }
+
+    @Test
+    public void testWrite_AnyNetwork_WeightsLittleEndianAfterAlignedHeader() throws IOException {
+        NeuralNetwork nn = newNetwork();
+
+        ByteBuffer bytes = ByteBuffer.wrap(toBytes(nn)).order(ByteOrder.LITTLE_ENDIAN);
+
+        int headerLength = bytes.getInt(8);
+        Assert.assertEquals(0, headerLength % 8);
+        Assert.assertEquals(nn.getWeight(0, 0, 0), bytes.getDouble(headerLength), 0.0);
+        Assert.assertEquals(nn.getWeight(0, 2, 0), bytes.getDouble(headerLength + 16), 0.0);
+        Assert.assertEquals(nn.getBias(0, 0), bytes.getDouble(headerLength + 24), 0.0);
+        Assert.assertEquals(headerLength + 8 * (4 * 4 + 2 * 5 + 2 * 3) + 8, bytes.capacity());
+    }
+
+    @Test
+    public void testRead_TwoModelsInStream_ReadBoth() throws IOException {
+        NeuralNetwork first = newNetwork();
+        NeuralNetwork second = new NamedNeuralNetwork(2, new int[] {1}, 1, "second");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NeuralNetworkFormat.write(first, Channels.newChannel(bytes));
+        NeuralNetworkFormat.write(second, Channels.newChannel(bytes));
+
+        ReadableByteChannel channel =
+                Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNNEquals(first, NeuralNetworkFormat.read(channel));
+        assertNNEquals(second, NeuralNetworkFormat.read(channel));
+    }
+
+    @Test
+    public void testReadHeader_NamedModel_ReturnStoredTopology() throws IOException {
+        NamedNeuralNetwork nn = new NamedNeuralNetwork(newNetwork(), "scorer");
+        Path file = folder.getRoot().toPath().resolve("model.nnb");
+        NeuralNetworkFormat.write(nn, file);
+
+        NeuralNetworkFormat.Header header = NeuralNetworkFormat.readHeader(file);
+
+        Assert.assertEquals(3, header.getNumberInputs());
+        Assert.assertArrayEquals(new int[] {4, 2}, header.getHiddenLayerSizes());
+        Assert.assertEquals(2, header.getNumberOutputs());
+        Assert.assertEquals(nn.getActivationFunction(), header.getActivationFunction());
+        Assert.assertEquals("scorer", header.getName());
+        Assert.assertEquals(4 * 4 + 2 * 5 + 2 * 3, header.getNumberParameters());
+        Assert.assertEquals(nn.getSignature(), header.getSignature());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_CorruptedWeight_Throws() throws IOException {
+        byte[] bytes = toBytes(newNetwork());
+        bytes[bytes.length - 20] ^= 1;
+
+        fromBytes(bytes);
+
+        Assert.fail();
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_Truncated_Throws() throws IOException {
+        byte[] bytes = toBytes(newNetwork());
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        fromBytes(truncated);
+
+        Assert.fail();
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_NotModel_Throws() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[64]);
+
+        NeuralNetworkFormat.read(file);
+
+        Assert.fail();
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_NewerVersion_Throws() throws IOException {
+        byte[] bytes = toBytes(newNetwork());
+        bytes[4] = NeuralNetworkFormat.VERSION + 1;
+
+        fromBytes(bytes);
+
+        Assert.fail();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrite_CustomActivationFunction_Throws() throws IOException {
+        NeuralNetwork nn = newNetwork();
+        nn.setActivationFunction(new ActivationFunction() {
+            @Override
+            public double valueAt(double at) {
+                return at;
+            }
+
+            @Override
+            public double derivativeValueAt(double at) {
+                return 1;
+            }
+        });
+
+        toBytes(nn);
+
+        Assert.fail();
+    }
+}
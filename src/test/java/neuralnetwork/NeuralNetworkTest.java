@@ -1147,6 +1147,39 @@ public class NeuralNetworkTest {
         Assert.assertEquals("String format is different", expected, actual);
     }
     
+    @Test
+    public void testSerialization_StreamOfEarlierVersion_ReadEqualObject() 
+            throws IOException, ClassNotFoundException {
+        // Written by the default serialization with the arrays of arrays
+        NeuralNetwork expected = new NeuralNetwork(3, new int[] {4, 2}, 2, 
+                Initializer.ofStdRandomRange(5));
+        expected.setActivationFunction(ActivationFunctions.TAN);
+        
+        NeuralNetwork readNN;
+        try (ObjectInputStream ois = new ObjectInputStream(getClass().
+                getResourceAsStream("legacy-network.ser"))) {
+            readNN = (NeuralNetwork)ois.readObject();
+        }
+        
+        assertNNEquals(expected, readNN);
+        Assert.assertEquals(ActivationFunctions.TAN, readNN.getActivationFunction());
+        Assert.assertEquals(expected.getSignature(), readNN.getSignature());
+    }
+    
+    @Test
+    public void testSerialization_BigNetwork_SizeCloseToWeightsBytes() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(100, new int[] {50, 20}, 10);
+        int nParameters = 50 * 101 + 20 * 51 + 10 * 21;
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(nn);
+        }
+        
+        Assert.assertTrue("Serialized size is " + out.size(), 
+                out.size() < 8 * nParameters + 1024);
+    }
+    
     @Test
     public void testSerialization_WriteToObjectStream_ReadEqualStructureAndWeightsObject() {
         int nInputs = 2;
@@ -216,4 +216,38 @@ public class InitializerTest {
             assertTrue(bias <= maxBiasesValue);
         }
     }
+    
+    @Test
+    public void testOfStdRandomRange_SameSeed_SameValues() {
+        System.out.println("ofStdRandomRange");
+        Initializer first = Initializer.ofStdRandomRange(42);
+        Initializer second = Initializer.ofStdRandomRange(42);
+        
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first.supplyWeight(0, i, 0), second.supplyWeight(0, i, 0), 0.0);
+            assertEquals(first.supplyBias(0, i), second.supplyBias(0, i), 0.0);
+        }
+    }
+    
+    @Test
+    public void testOfCustomRandomRange_SeedPassed_ValuesInCorrectRange() {
+        System.out.println("ofCustomRandomRange");
+        Initializer result = Initializer.ofCustomRandomRange(-2.0, -1.0, 3.0, 4.0, 7);
+        
+        for (int i = 0; i < 10; i++) {
+            double weight = result.supplyWeight(0, i, 0);
+            double bias = result.supplyBias(0, i);
+            assertTrue(weight >= -2.0 && weight <= -1.0);
+            assertTrue(bias >= 3.0 && bias <= 4.0);
+        }
+    }
+    
+    @Test
+    public void testOfCustomRandomRange_DifferentSeeds_DifferentValues() {
+        System.out.println("ofCustomRandomRange");
+        Initializer first = Initializer.ofCustomRandomRange(-1.0, 1.0, -1.0, 1.0, 1);
+        Initializer second = Initializer.ofCustomRandomRange(-1.0, 1.0, -1.0, 1.0, 2);
+        
+        assertNotEquals(first.supplyWeight(0, 0, 0), second.supplyWeight(0, 0, 0), 0.0);
+    }
 }
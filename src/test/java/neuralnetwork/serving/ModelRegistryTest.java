@@ -0,0 +1,187 @@
+package neuralnetwork.serving;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import neuralnetwork.CompiledNeuralNetwork;
+import neuralnetwork.NamedNeuralNetwork;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.NeuralNetworkFormat;
+import neuralnetwork.init.Initializer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class ModelRegistryTest {
+
+    /** Size of the weights and biases of the models written by {@code writeModel}. */
+    private static final long MODEL_BYTES = 8L * (4 * 3 + 2 * 5);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void initTestCase() {
+        directory = folder.getRoot().toPath();
+    }
+
+    private NeuralNetwork writeModel(String fileName, String name) throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(2, new int[] {4}, 2, Initializer.ofStdRandomRange(3));
+        if (name != null) {
+            nn = new NamedNeuralNetwork(nn, name);
+        }
+        NeuralNetworkFormat.write(nn, directory.resolve(fileName));
+        return nn;
+    }
+
+    @Test
+    public void testGet_SameModelTwice_OneMissOneHit() throws IOException {
+        NeuralNetwork nn = writeModel("a.nnb", "alpha");
+        ModelRegistry registry = new ModelRegistry.Builder(directory).build();
+
+        CompiledNeuralNetwork first = registry.get("alpha");
+        CompiledNeuralNetwork second = registry.get("alpha", nn.getSignature());
+
+        Assert.assertSame(first, second);
+        ModelRegistry.Stats stats = registry.getStats();
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertEquals(1, stats.getHits());
+        Assert.assertEquals(1, stats.getLoads());
+        Assert.assertEquals(1, stats.getCachedModels());
+        Assert.assertEquals(MODEL_BYTES, stats.getCachedWeightBytes());
+    }
+
+    @Test
+    public void testGet_UnnamedModel_IndexedByFileName() throws IOException {
+        writeModel("beta.nnb", null);
+        writeModel("ignored.bin", "gamma");
+        ModelRegistry registry = new ModelRegistry.Builder(directory).build();
+
+        Assert.assertNotNull(registry.get("beta"));
+        Assert.assertNull(registry.get("gamma"));
+        Assert.assertEquals(1, registry.getNames().size());
+    }
+
+    @Test
+    public void testGet_UnknownSignature_ReturnNull() throws IOException {
+        writeModel("a.nnb", "alpha");
+        ModelRegistry registry = new ModelRegistry.Builder(directory).build();
+
+        Assert.assertNull(registry.get("alpha", "(1, 1)"));
+        Assert.assertEquals(0, registry.getStats().getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGet_SameNameDifferentSignatures_Throws() throws IOException {
+        writeModel("a.nnb", "alpha");
+        NeuralNetworkFormat.write(new NamedNeuralNetwork(1, new int[] {1}, 1, "alpha"),
+                directory.resolve("b.nnb"));
+        ModelRegistry registry = new ModelRegistry.Builder(directory).build();
+
+        registry.get("alpha");
+
+        Assert.fail();
+    }
+
+    @Test
+    public void testGet_CacheFull_LeastRecentlyUsedEvicted() throws IOException {
+        writeModel("a.nnb", "a");
+        writeModel("b.nnb", "b");
+        writeModel("c.nnb", "c");
+        ModelRegistry registry = new ModelRegistry.Builder(directory)
+                .withMaxWeightBytes(2 * MODEL_BYTES)
+                .build();
+
+        registry.get("a");
+        registry.get("b");
+        registry.get("a");
+        registry.get("c");
+
+        ModelRegistry.Stats stats = registry.getStats();
+        Assert.assertEquals(1, stats.getEvictions());
+        Assert.assertEquals(2, stats.getCachedModels());
+        Assert.assertEquals(2 * MODEL_BYTES, stats.getCachedWeightBytes());
+
+        registry.get("a");
+        Assert.assertEquals(3, registry.getStats().getLoads());
+        registry.get("b");
+        Assert.assertEquals(4, registry.getStats().getLoads());
+    }
+
+    @Test
+    public void testGet_ModelBiggerThanCache_ReturnedNotCached() throws IOException {
+        writeModel("a.nnb", "a");
+        ModelRegistry registry = new ModelRegistry.Builder(directory)
+                .withMaxWeightBytes(MODEL_BYTES - 1)
+                .build();
+
+        Assert.assertNotNull(registry.get("a"));
+        Assert.assertEquals(0, registry.getStats().getCachedModels());
+    }
+
+    @Test
+    public void testRefresh_FileDeleted_ModelEvicted() throws IOException {
+        writeModel("a.nnb", "a");
+        ModelRegistry registry = new ModelRegistry.Builder(directory).build();
+        registry.get("a");
+
+        Files.delete(directory.resolve("a.nnb"));
+        registry.refresh();
+
+        Assert.assertNull(registry.get("a"));
+        Assert.assertEquals(0, registry.getStats().getCachedModels());
+        Assert.assertEquals(1, registry.getStats().getEvictions());
+    }
+
+    @Test
+    public void testGet_ConcurrentRequests_OneLoad() throws Exception {
+        writeModel("a.nnb", "a");
+        ModelRegistry registry = new ModelRegistry.Builder(directory).build();
+        int nThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompiledNeuralNetwork>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < nThreads; i++) {
+                results.add(executor.submit((Callable<CompiledNeuralNetwork>)() -> {
+                    start.await();
+                    return registry.get("a");
+                }));
+            }
+            start.countDown();
+            CompiledNeuralNetwork first = results.get(0).get();
+            for (Future<CompiledNeuralNetwork> result : results) {
+                Assert.assertSame(first, result.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        ModelRegistry.Stats stats = registry.getStats();
+        Assert.assertEquals(1, stats.getLoads());
+        Assert.assertEquals(nThreads, stats.getHits() + stats.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithMaxWeightBytes_Zero_Throws() {
+        new ModelRegistry.Builder(directory).withMaxWeightBytes(0);
+
+        Assert.fail();
+    }
+}
@@ -0,0 +1,132 @@
+package neuralnetwork.serving;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import neuralnetwork.CompiledNeuralNetwork;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import neuralnetwork.train.Listener;
+import neuralnetwork.train.NeuralNetworkEvaluator;
+import neuralnetwork.train.NeuralNetworkTrainer;
+import neuralnetwork.train.TrainerEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class ServingModelTest {
+
+    private static NeuralNetwork newNetwork(long seed) {
+        return new NeuralNetwork(3, new int[] {5}, 1, Initializer.ofStdRandomRange(seed));
+    }
+
+    @Test
+    public void testPublish_NewModel_ReturnPreviousModel() {
+        CompiledNeuralNetwork first = CompiledNeuralNetwork.of(newNetwork(1));
+        ServingModel serving = new ServingModel(first);
+
+        CompiledNeuralNetwork previous = serving.publish(newNetwork(2));
+
+        Assert.assertSame(first, previous);
+        Assert.assertNotSame(first, serving.get());
+    }
+
+    @Test
+    public void testGetOutput_NetworkChangedAfterPublishing_ResultNotChanged() {
+        NeuralNetwork nn = newNetwork(1);
+        ServingModel serving = new ServingModel();
+        serving.publish(nn);
+        double[] input = {0.1, 0.2, 0.3};
+        double[] before = serving.getOutput(input);
+
+        nn.setBias(1, 0, nn.getBias(1, 0) + 1);
+
+        Assert.assertArrayEquals(before, serving.getOutput(input), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetOutput_NothingPublished_Throws() {
+        new ServingModel().getOutput(new double[3]);
+
+        Assert.fail();
+    }
+
+    @Test
+    public void testGetOutput_ConcurrentPublishing_EveryOutputOfOneModel() throws InterruptedException {
+        CompiledNeuralNetwork first = CompiledNeuralNetwork.of(newNetwork(1));
+        CompiledNeuralNetwork second = CompiledNeuralNetwork.of(newNetwork(5));
+        double[] input = {0.4, 0.5, 0.6};
+        double firstOutput = first.getOutput(input)[0];
+        double secondOutput = second.getOutput(input)[0];
+        ServingModel serving = new ServingModel(first);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Double> torn = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                double output = serving.getOutput(input)[0];
+                if (output != firstOutput && output != secondOutput) {
+                    torn.set(output);
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 10000; i++) {
+            serving.publish(i % 2 == 0 ? second : first);
+        }
+        stop.set(true);
+        reader.join();
+
+        Assert.assertNull(torn.get());
+    }
+
+    @Test
+    public void testSubscribe_TrainingComplete_TrainedNetworkPublished() throws InterruptedException {
+        NeuralNetwork nn = newNetwork(1);
+        NeuralNetworkTrainer trainer = new NeuralNetworkTrainer.Builder().withMaxEpoch(5).build();
+        ServingModel serving = new ServingModel(CompiledNeuralNetwork.of(nn));
+        serving.subscribe(trainer);
+        CountDownLatch complete = new CountDownLatch(1);
+        trainer.registerListener(new Listener() {
+            @Override
+            public void onTrainingComplete(TrainerEvent event) {
+                complete.countDown();
+            }
+
+            @Override
+            public void onTrainingCanceled(TrainerEvent event) {
+            }
+
+            @Override
+            public void onTrainingEpochComplete(TrainerEvent event) {
+            }
+        });
+
+        trainer.startTrain(nn, new double[][] {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}},
+                new double[][] {{1}, {0}, {0.5}});
+
+        Assert.assertTrue(complete.await(10, TimeUnit.SECONDS));
+        double[] input = {0.2, 0.4, 0.6};
+        NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(trainer.getTrainedNetwork());
+        Assert.assertArrayEquals(evaluator.getOutput(input), serving.getOutput(input), 0.0);
+    }
+
+    @Test
+    public void testSubscribe_CompletionEvent_EventsNetworkPublished() {
+        NeuralNetwork nn = newNetwork(3);
+        NeuralNetworkTrainer trainer = new NeuralNetworkTrainer.Builder().build();
+        ServingModel serving = new ServingModel();
+        Listener listener = serving.subscribe(trainer);
+
+        // The trainer has no finished training to return
+        listener.onTrainingComplete(new TrainerEvent(5, 0.1, nn));
+
+        double[] input = {0.2, 0.4, 0.6};
+        NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(nn);
+        Assert.assertArrayEquals(evaluator.getOutput(input), serving.getOutput(input), 0.0);
+    }
+}
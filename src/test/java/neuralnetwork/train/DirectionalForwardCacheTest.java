@@ -0,0 +1,123 @@
+package neuralnetwork.train;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static neuralnetwork.TestUtils.DELTA;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class DirectionalForwardCacheTest {
+
+    private NeuralNetwork nn;
+    private NeuralNetworkEvaluator evaluator;
+    private double[][] samples;
+    private NeuralNetworkWeights base;
+    private NeuralNetworkWeights direction;
+
+    @Before
+    public void setUpTestCase() {
+        nn = new NeuralNetwork(4, new int[]{3, 2}, 1,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        evaluator = new NeuralNetworkEvaluator(nn);
+        samples = new double[][]{{0, 0, 0, 0}, {1, 0.5, 0.25, 0}, {0.3, 0.7, 0.1, 0.9}};
+        base = NeuralNetworkWeights.newOf(nn);
+        direction = NeuralNetworkWeights.newOf(
+                new NeuralNetwork(4, new int[]{3, 2}, 1,
+                        Initializer.ofCustomRandomRange(-1, 1, -1, 1)));
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        evaluator = null;
+        samples = null;
+        base = null;
+        direction = null;
+    }
+
+    private NeuralNetworkWeights pointAt(double alpha) {
+        return new NeuralNetworkWeights(direction).multiply(alpha).add(base);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructor_NullSamples_Throws() {
+        new DirectionalForwardCache(evaluator, null, 3);
+
+        fail("The test case must throw");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroLayerSize_Throws() {
+        new DirectionalForwardCache(evaluator, samples, 0);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testInputSumsAt_ZeroStep_SameAsBaseSums() {
+        DirectionalForwardCache instance = new DirectionalForwardCache(evaluator, samples, 3);
+        instance.setBase(base);
+
+        for (int i = 0; i < samples.length; i++) {
+            assertArrayEquals(evaluator.firstLayerInputSums(samples[i], base),
+                    instance.inputSumsAt(i, 0.0), DELTA);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInputSumsAt_NonZeroStepDirectionNotSet_Throws() {
+        DirectionalForwardCache instance = new DirectionalForwardCache(evaluator, samples, 3);
+        instance.setBase(base);
+
+        instance.inputSumsAt(0, 0.5);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testInputSumsAt_NonZeroStep_SameAsSumsOfPointOnLine() {
+        double alpha = 0.37;
+        DirectionalForwardCache instance = new DirectionalForwardCache(evaluator, samples, 3);
+        instance.setBase(base);
+        instance.setDirection(direction);
+
+        NeuralNetworkWeights point = pointAt(alpha);
+        for (int i = 0; i < samples.length; i++) {
+            assertArrayEquals(evaluator.firstLayerInputSums(samples[i], point),
+                    instance.inputSumsAt(i, alpha), DELTA);
+        }
+    }
+
+    @Test
+    public void testMoveBase_Step_BaseSumsOfMovedPoint() {
+        double alpha = -1.3;
+        DirectionalForwardCache instance = new DirectionalForwardCache(evaluator, samples, 3);
+        instance.setBase(base);
+        instance.setDirection(direction);
+
+        instance.moveBase(alpha);
+
+        NeuralNetworkWeights point = pointAt(alpha);
+        for (int i = 0; i < samples.length; i++) {
+            assertArrayEquals(evaluator.firstLayerInputSums(samples[i], point),
+                    instance.inputSumsAt(i, 0.0), DELTA);
+        }
+    }
+
+    @Test
+    public void testInputSumsAt_ReturnedArrayChanged_CacheStaysSame() {
+        DirectionalForwardCache instance = new DirectionalForwardCache(evaluator, samples, 3);
+        instance.setBase(base);
+        double[] expResult = instance.inputSumsAt(1, 0.0);
+
+        instance.inputSumsAt(1, 0.0)[0] += 10;
+
+        assertArrayEquals(expResult, instance.inputSumsAt(1, 0.0), DELTA);
+    }
+}
@@ -0,0 +1,87 @@
+package neuralnetwork.train;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class EpochReportPolicyTest {
+    
+    private EpochReportPolicy instance;
+    
+    @Before
+    public void initTestCase() {
+        instance = new EpochReportPolicy();
+    }
+    
+    @Test
+    public void testShouldReport_Default_EveryEpochReported() {
+        System.out.println("testShouldReport_Default_EveryEpochReported");
+        long now = System.nanoTime();
+        
+        for (int epoch = 1; epoch <= 5; epoch++) {
+            assertTrue(instance.shouldReport(epoch, 1.0, 0.5, now));
+        }
+    }
+    
+    @Test
+    public void testShouldReport_EveryThreeEpochs_OnlyMultiplesReported() {
+        System.out.println("testShouldReport_EveryThreeEpochs_OnlyMultiplesReported");
+        instance.setEveryEpochs(3);
+        long now = System.nanoTime();
+        
+        assertFalse(instance.shouldReport(1, 1.0, Double.NaN, now));
+        assertFalse(instance.shouldReport(2, 1.0, Double.NaN, now));
+        assertTrue(instance.shouldReport(3, 1.0, Double.NaN, now));
+        assertTrue(instance.shouldReport(6, 1.0, Double.NaN, now));
+    }
+    
+    @Test
+    public void testShouldReport_OnImprovement_OnlyBetterPerformanceReported() {
+        System.out.println("testShouldReport_OnImprovement_OnlyBetterPerformanceReported");
+        instance.setOnImprovement(true);
+        long now = System.nanoTime();
+        
+        assertTrue("First epoch must be reported", instance.shouldReport(1, 1.0, Double.NaN, now));
+        assertFalse(instance.shouldReport(2, 1.0, 1.0, now));
+        assertFalse(instance.shouldReport(2, Double.NaN, 1.0, now));
+        assertTrue(instance.shouldReport(2, 0.9, 1.0, now));
+    }
+    
+    @Test
+    public void testShouldReport_Interval_ReportedOnlyAfterInterval() {
+        System.out.println("testShouldReport_Interval_ReportedOnlyAfterInterval");
+        instance.setIntervalMillis(60000);
+        long now = System.nanoTime();
+        
+        assertFalse(instance.shouldReport(1, 1.0, Double.NaN, now));
+        assertTrue(instance.shouldReport(1, 1.0, Double.NaN, now - 61_000_000_000L));
+    }
+    
+    @Test
+    public void testCopy_ChangedAfterCopy_CopyUnchanged() {
+        System.out.println("testCopy_ChangedAfterCopy_CopyUnchanged");
+        instance.setEveryEpochs(2);
+        instance.setIntervalMillis(100);
+        EpochReportPolicy copy = new EpochReportPolicy(instance);
+        
+        instance.setEveryEpochs(5);
+        instance.setOnImprovement(true);
+        
+        assertEquals(2, copy.getEveryEpochs());
+        assertEquals(100, copy.getIntervalMillis());
+        assertFalse(copy.isOnImprovement());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetIntervalMillis_Negative_Throw() {
+        System.out.println("testSetIntervalMillis_Negative_Throw");
+        
+        instance.setIntervalMillis(-1);
+        
+        fail("The test case must throw");
+    }
+}
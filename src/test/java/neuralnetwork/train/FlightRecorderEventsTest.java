@@ -0,0 +1,99 @@
+package neuralnetwork.train;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class FlightRecorderEventsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUpTestCase() {
+        Assume.assumeTrue("No Flight Recorder", FlightRecorderEvents.AVAILABLE);
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws IOException {
+        Path file = folder.getRoot().toPath().resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("neuralnetwork.TrainingEpoch");
+            recording.enable("neuralnetwork.TrainingPass");
+            recording.enable("neuralnetwork.InferenceBatch");
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter((event) -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testTrain_TwoEpochs_EpochAndPassEventsRecorded() throws IOException {
+        System.out.println("testTrain_TwoEpochs_EpochAndPassEventsRecorded");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 2;
+        opts.performanceGoal = 0;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targets = {{1}, {0}, {0.5}};
+        NeuralNetwork nn = new NeuralNetwork(3, new int[] {2}, 1, Initializer.ofStdRandomRange(1));
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        List<RecordedEvent> events = record(worker::train);
+
+        List<RecordedEvent> epochs = ofType(events, "neuralnetwork.TrainingEpoch");
+        assertEquals(2, epochs.size());
+        assertEquals(1, epochs.get(0).getInt("epoch"));
+        assertEquals(2, epochs.get(1).getInt("epoch"));
+        assertFalse(Double.isNaN(epochs.get(1).getDouble("lambda")));
+        List<RecordedEvent> passes = ofType(events, "neuralnetwork.TrainingPass");
+        assertTrue(passes.stream().anyMatch((pass) -> "gradient".equals(pass.getString("kind"))));
+        assertTrue(passes.stream().allMatch((pass) -> pass.getInt("samples") == 3));
+    }
+
+    @Test
+    public void testIsInferenceEnabled_OnlyDuringRecording_True() throws IOException {
+        System.out.println("testIsInferenceEnabled_OnlyDuringRecording_True");
+        boolean[] enabledDuringRecording = new boolean[1];
+        
+        record(() -> enabledDuringRecording[0] = FlightRecorderEvents.isInferenceEnabled());
+        
+        assertTrue(enabledDuringRecording[0]);
+        assertFalse(FlightRecorderEvents.isInferenceEnabled());
+    }
+
+    @Test
+    public void testGetOutputs_Batch_InferenceEventWithBatchSize() throws IOException {
+        System.out.println("testGetOutputs_Batch_InferenceEventWithBatchSize");
+        NeuralNetwork nn = new NeuralNetwork(3, new int[] {2}, 1, Initializer.ofStdRandomRange(1));
+        NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(nn);
+
+        List<RecordedEvent> events = record(() -> evaluator.getOutputs(new double[5][3]));
+
+        List<RecordedEvent> batches = ofType(events, "neuralnetwork.InferenceBatch");
+        assertEquals(1, batches.size());
+        assertEquals(5, batches.get(0).getInt("size"));
+    }
+}
@@ -0,0 +1,128 @@
+package neuralnetwork.train;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class HogwildSgdTrainingEngineTest {
+
+    private NeuralNetwork nn;
+    private NeuralNetworkTrainer.Options opts;
+    private double[][] inputs;
+    private double[][] targets;
+
+    @Before
+    public void setUpTestCase() {
+        nn = new NeuralNetwork(2, new int[]{4}, 2,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.HOGWILD_SGD;
+        opts.maxEpoch = 200;
+        opts.performanceGoal = 1e-6;
+        inputs = new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}, {0.5, 0.5},
+                                {0.2, 0.8}, {0.8, 0.2}, {0.9, 0.9}};
+        targets = new double[][]{{0, 1}, {1, 0}, {1, 0}, {0, 1}, {0.5, 0.5},
+                                 {1, 0}, {1, 0}, {0, 1}};
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        opts = null;
+        inputs = null;
+        targets = null;
+    }
+
+    private double performanceOf(NeuralNetwork network) {
+        double performance = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performance += NeuralNetworkTrainer.error(network, inputs[i], targets[i]);
+        }
+        return performance / inputs.length;
+    }
+
+    private void assertPerformanceDecreased(int nThreads) {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        HogwildSgdTrainingEngine instance = new HogwildSgdTrainingEngine(worker, nThreads, 0.5);
+        double performanceBefore = performanceOf(nn);
+
+        instance.run();
+
+        NeuralNetwork trained = new NeuralNetwork(nn);
+        instance.weights.applyToNeuralNetwork(trained);
+        double performanceAfter = performanceOf(trained);
+        assertEquals(performanceAfter, instance.performance, 1e-10);
+        if (performanceAfter >= performanceBefore) {
+            fail("Couldn't decrease performance");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroThreads_Throws() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        new HogwildSgdTrainingEngine(worker, 0, 0.5);
+
+        fail("The test case must throw");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroLearningRate_Throws() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        new HogwildSgdTrainingEngine(worker, 1, 0.0);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testRun_OneThread_PerformanceDecreased() {
+        assertPerformanceDecreased(1);
+    }
+
+    @Test
+    public void testRun_SeveralThreads_PerformanceDecreased() {
+        assertPerformanceDecreased(4);
+    }
+
+    @Test
+    public void testRun_SeveralThreads_ListenerNotifiedInEpochOrder() {
+        final int[] epochs = new int[1];
+        opts.maxEpoch = 10;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        worker.setListener(new Listener() {
+            @Override public void onTrainingComplete(TrainerEvent event) { }
+            @Override public void onTrainingCanceled(TrainerEvent event) { }
+            @Override public void onTrainingEpochComplete(TrainerEvent event) {
+                epochs[0]++;
+                assertEquals(epochs[0], event.getEpoch());
+            }
+        });
+        HogwildSgdTrainingEngine instance = new HogwildSgdTrainingEngine(worker, 3, 0.5);
+
+        instance.run();
+
+        assertEquals(opts.maxEpoch, epochs[0]);
+    }
+
+    @Test
+    public void testRun_ThreadInterrupted_NoEpochsAndWorkerCanceled() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        HogwildSgdTrainingEngine instance = new HogwildSgdTrainingEngine(worker, 1, 0.5);
+        NeuralNetworkWeights weightsBefore = new NeuralNetworkWeights(instance.weights);
+
+        Thread.currentThread().interrupt();
+        instance.run();
+
+        assertEquals(0, instance.epochNum);
+        assertEquals(0.0, new NeuralNetworkWeights(instance.weights).subtract(weightsBefore).norm(), 0.0);
+        assertTrue("Worker is not canceled", worker.cancelRequested());
+    }
+}
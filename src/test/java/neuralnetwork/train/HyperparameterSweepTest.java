@@ -0,0 +1,181 @@
+package neuralnetwork.train;
+
+import java.util.List;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestUtils;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class HyperparameterSweepTest {
+    
+    private double[][] inputs;
+    private double[][] targets;
+    private TrainingScheduler scheduler;
+    
+    @Before
+    public void initTestCase() {
+        inputs = new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+        targets = new double[][]{{0}, {1}, {1}, {0}};
+        scheduler = new TrainingScheduler(1);
+    }
+    
+    @After
+    public void cleanUpTestCase() {
+        scheduler.shutdownNow();
+        scheduler = null;
+        inputs = null;
+        targets = null;
+    }
+    
+    private static NeuralNetwork network(int hiddenSize) {
+        return new NeuralNetwork(2, new int[]{hiddenSize}, 1, 
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+    }
+    
+    private static NeuralNetworkTrainer trainer(int maxEpoch) {
+        return new NeuralNetworkTrainer.Builder().withMaxEpoch(maxEpoch).
+                withPerformanceGoal(1e-300).build();
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testBuilder_NullInputs_Throw() {
+        System.out.println("testBuilder_NullInputs_Throw");
+        
+        new HyperparameterSweep.Builder(null, targets);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilder_DifferentNumberOfInputsAndTargets_Throw() {
+        System.out.println("testBuilder_DifferentNumberOfInputsAndTargets_Throw");
+        
+        new HyperparameterSweep.Builder(inputs, new double[][]{{0}});
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testBuild_NoConfigurations_Throw() {
+        System.out.println("testBuild_NoConfigurations_Throw");
+        
+        new HyperparameterSweep.Builder(inputs, targets).build();
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuild_NetworkOfWrongSize_Throw() {
+        System.out.println("testBuild_NetworkOfWrongSize_Throw");
+        NeuralNetwork wrong = new NeuralNetwork(3, new int[]{2}, 1, 
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        
+        new HyperparameterSweep.Builder(inputs, targets).
+                addConfiguration(network(2), trainer(1)).
+                addConfiguration(wrong, trainer(1)).build();
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithMinEpochs_Zero_Throw() {
+        System.out.println("testBuilderWithMinEpochs_Zero_Throw");
+        
+        new HyperparameterSweep.Builder(inputs, targets).withMinEpochs(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithReductionFactor_One_Throw() {
+        System.out.println("testBuilderWithReductionFactor_One_Throw");
+        
+        new HyperparameterSweep.Builder(inputs, targets).withReductionFactor(1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testPromoted_ReductionFactorTwo_BestHalfPromoted() {
+        System.out.println("testPromoted_ReductionFactorTwo_BestHalfPromoted");
+        HyperparameterSweep instance = new HyperparameterSweep.Builder(inputs, targets).
+                addConfiguration(network(2), trainer(1)).build();
+        
+        assertTrue(instance.promoted(0, 1.0));
+        assertFalse(instance.promoted(0, 2.0));
+        assertTrue(instance.promoted(0, 0.5));
+        assertFalse(instance.promoted(0, 3.0));
+        assertTrue("Rungs must be independent", instance.promoted(1, 5.0));
+    }
+    
+    @Test
+    public void testRun_SeveralConfigurations_AllResultsSortedByPerformance() throws Exception {
+        System.out.println("testRun_SeveralConfigurations_AllResultsSortedByPerformance");
+        int maxEpoch = 16;
+        HyperparameterSweep instance = new HyperparameterSweep.Builder(inputs, targets).
+                withScheduler(scheduler).withMinEpochs(2).
+                addConfiguration(network(2), trainer(maxEpoch)).
+                addConfiguration(network(3), trainer(maxEpoch)).
+                addConfiguration(network(4), trainer(maxEpoch)).
+                addConfiguration(network(5), trainer(maxEpoch)).build();
+        
+        List<HyperparameterSweep.Result> results = instance.run();
+        
+        assertEquals(4, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue("Results are not sorted", 
+                    results.get(i - 1).getFinalEvent().getPerformance() <= 
+                    results.get(i).getFinalEvent().getPerformance());
+        }
+        for (HyperparameterSweep.Result result : results) {
+            assertNotNull(result.getNetwork());
+            if (result.getConfigurationNum() == 0) {
+                // The first run reaches every rung first on one thread
+                assertFalse("First run has been stopped", result.isStoppedEarly());
+            }
+            if (result.isStoppedEarly()) {
+                assertTrue("Stopped run completed all epochs", 
+                        result.getFinalEvent().getEpoch() < maxEpoch);
+            }
+        }
+    }
+    
+    @Test
+    public void testRun_RungEpochsNotReported_RunsEvaluatedAtLaterEpochs() throws Exception {
+        System.out.println("testRun_RungEpochsNotReported_RunsEvaluatedAtLaterEpochs");
+        HyperparameterSweep.Builder builder = new HyperparameterSweep.Builder(inputs, targets).
+                withScheduler(scheduler).withMinEpochs(2);
+        for (int hiddenSize = 2; hiddenSize <= 5; hiddenSize++) {
+            builder.addConfiguration(network(hiddenSize), new NeuralNetworkTrainer.Builder().
+                    withMaxEpoch(16).withPerformanceGoal(1e-300).
+                    withEpochReportEvery(3).build());
+        }
+        HyperparameterSweep instance = builder.build();
+        
+        instance.run();
+        
+        // Not promoted only if the four runs have been recorded at the first rung
+        assertFalse("First rung hasn't been evaluated", instance.promoted(0, Double.MAX_VALUE));
+    }
+    
+    @Test
+    public void testRun_SamplesPassedToBuilder_SamplesNotChanged() throws Exception {
+        System.out.println("testRun_SamplesPassedToBuilder_SamplesNotChanged");
+        inputs = new double[][]{{0, 0}, {0, 2}, {2, 0}, {2, 2}};
+        double[][] inputsBefore = {{0, 0}, {0, 2}, {2, 0}, {2, 2}};
+        HyperparameterSweep instance = new HyperparameterSweep.Builder(inputs, targets).
+                withScheduler(scheduler).
+                addConfiguration(network(2), trainer(2)).build();
+        
+        instance.run();
+        
+        TestUtils.assertArraysEqual(inputsBefore, inputs);
+    }
+}
@@ -0,0 +1,113 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.List;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class LbfgsTrainingEngineTest {
+
+    private NeuralNetwork nn;
+    private NeuralNetworkTrainer.Options opts;
+    private double[][] inputs;
+    private double[][] targets;
+
+    @Before
+    public void setUpTestCase() {
+        nn = new NeuralNetwork(2, new int[]{4}, 2,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.LBFGS;
+        opts.maxEpoch = 30;
+        opts.performanceGoal = 1e-6;
+        inputs = new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}, {0.5, 0.5}};
+        targets = new double[][]{{0, 1}, {1, 0}, {1, 0}, {0, 1}, {0.5, 0.5}};
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        opts = null;
+        inputs = null;
+        targets = null;
+    }
+
+    private double performanceOf(NeuralNetwork network) {
+        double performance = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performance += NeuralNetworkTrainer.error(network, inputs[i], targets[i]);
+        }
+        return performance / inputs.length;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroHistorySize_Throws() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        new LbfgsTrainingEngine(worker, 0);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testRun_ThirtyEpochs_PerformanceDecreased() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        LbfgsTrainingEngine instance = new LbfgsTrainingEngine(worker, 5);
+        double performanceBefore = performanceOf(nn);
+
+        instance.run();
+
+        NeuralNetwork trained = new NeuralNetwork(nn);
+        instance.weights.applyToNeuralNetwork(trained);
+        double performanceAfter = performanceOf(trained);
+        assertEquals(performanceAfter, instance.performance, 1e-10);
+        if (performanceAfter >= performanceBefore) {
+            fail("Couldn't decrease performance");
+        }
+    }
+
+    @Test
+    public void testRun_ThirtyEpochs_EpochPerformanceNeverIncreases() {
+        final List<Double> performances = new ArrayList<>();
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        worker.setListener(new Listener() {
+            @Override public void onTrainingComplete(TrainerEvent event) { }
+            @Override public void onTrainingCanceled(TrainerEvent event) { }
+            @Override public void onTrainingEpochComplete(TrainerEvent event) {
+                performances.add(event.getPerformance());
+            }
+        });
+        LbfgsTrainingEngine instance = new LbfgsTrainingEngine(worker, 5);
+
+        instance.run();
+
+        assertFalse("No epoch has been completed", performances.isEmpty());
+        for (int i = 1; i < performances.size(); i++) {
+            if (performances.get(i) > performances.get(i - 1)) {
+                fail("Performance increased at epoch " + (i + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testRun_ThreadInterrupted_NoEpochsAndWeightsNotChanged() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        LbfgsTrainingEngine instance = new LbfgsTrainingEngine(worker, 5);
+        NeuralNetworkWeights weightsBefore = new NeuralNetworkWeights(instance.weights);
+
+        Thread.currentThread().interrupt();
+        instance.run();
+
+        assertEquals(0, instance.epochNum);
+        assertEquals(0.0, new NeuralNetworkWeights(instance.weights).subtract(weightsBefore).norm(), 0.0);
+        assertTrue("Worker is not canceled", worker.cancelRequested());
+    }
+}
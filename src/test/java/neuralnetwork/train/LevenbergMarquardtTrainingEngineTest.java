@@ -0,0 +1,154 @@
+package neuralnetwork.train;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class LevenbergMarquardtTrainingEngineTest {
+
+    private NeuralNetwork nn;
+    private NeuralNetworkTrainer.Options opts;
+    private double[][] inputs;
+    private double[][] targets;
+
+    @Before
+    public void setUpTestCase() {
+        nn = new NeuralNetwork(2, new int[]{4}, 2,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.LEVENBERG_MARQUARDT;
+        opts.maxEpoch = 20;
+        opts.performanceGoal = 1e-6;
+        inputs = new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}, {0.5, 0.5}};
+        targets = new double[][]{{0, 1}, {1, 0}, {1, 0}, {0, 1}, {0.5, 0.5}};
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        opts = null;
+        inputs = null;
+        targets = null;
+    }
+
+    private double performanceOf(NeuralNetwork network) {
+        double performance = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performance += NeuralNetworkTrainer.error(network, inputs[i], targets[i]);
+        }
+        return performance / inputs.length;
+    }
+
+    private NeuralNetwork trainedBy(LevenbergMarquardtTrainingEngine engine) {
+        NeuralNetwork trained = new NeuralNetwork(nn);
+        engine.weights.applyToNeuralNetwork(trained);
+        return trained;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroThreads_Throws() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        new LevenbergMarquardtTrainingEngine(worker, 0);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testRun_OneThread_PerformanceDecreased() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        LevenbergMarquardtTrainingEngine instance = new LevenbergMarquardtTrainingEngine(worker, 1);
+        double performanceBefore = performanceOf(nn);
+
+        instance.run();
+
+        double performanceAfter = performanceOf(trainedBy(instance));
+        assertEquals(performanceAfter, instance.performance, 1e-10);
+        if (performanceAfter >= performanceBefore) {
+            fail("Couldn't decrease performance");
+        }
+    }
+
+    @Test
+    public void testRun_OneEpochSeveralThreads_SameWeightsAsOneThread() {
+        opts.maxEpoch = 1;
+        opts.trainSamplesRatio = 100;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        LevenbergMarquardtTrainingEngine serial = new LevenbergMarquardtTrainingEngine(worker, 1);
+        LevenbergMarquardtTrainingEngine parallel = new LevenbergMarquardtTrainingEngine(worker, 3);
+
+        serial.run();
+        parallel.run();
+
+        assertArrayEquals(serial.weights.toArray(), parallel.weights.toArray(), 1e-9);
+    }
+
+    @Test
+    public void testRun_ThreadInterrupted_NoEpochsAndWorkerCanceled() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        LevenbergMarquardtTrainingEngine instance = new LevenbergMarquardtTrainingEngine(worker, 2);
+
+        Thread.currentThread().interrupt();
+        instance.run();
+
+        assertEquals(0, instance.epochNum);
+        assertTrue("Worker is not canceled", worker.cancelRequested());
+    }
+
+    @Test
+    public void testTrain_ThreadInterruptedSeveralThreads_TrainingCanceled() {
+        opts.numThreads = 2;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        worker.setListener(listener);
+
+        Thread.currentThread().interrupt();
+        worker.train();
+
+        Mockito.verify(listener).onTrainingCanceled(Mockito.any(TrainerEvent.class));
+        Mockito.verify(listener, Mockito.never()).onTrainingComplete(Mockito.any(TrainerEvent.class));
+        Thread.interrupted();
+    }
+
+    @Test
+    public void testRun_SeveralEpochsSeveralThreads_SameWeightsAsOneThread() {
+        opts.maxEpoch = 5;
+        opts.trainSamplesRatio = 100;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        LevenbergMarquardtTrainingEngine serial = new LevenbergMarquardtTrainingEngine(worker, 1);
+        LevenbergMarquardtTrainingEngine parallel = new LevenbergMarquardtTrainingEngine(worker, 3);
+
+        serial.run();
+        parallel.run();
+
+        assertEquals(serial.epochNum, parallel.epochNum);
+        assertArrayEquals(serial.weights.toArray(), parallel.weights.toArray(), 1e-9);
+    }
+
+    @Test
+    public void testNewEngine_TooManyParameters_FallsBackToScg() {
+        opts.levenbergMarquardtMaxParameters = 5;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        TrainingEngine engine = worker.newEngine();
+
+        assertTrue("Engine is not SCG", engine instanceof ScgTrainingEngine);
+    }
+
+    @Test
+    public void testNewEngine_FewParameters_LevenbergMarquardt() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        TrainingEngine engine = worker.newEngine();
+
+        assertTrue("Engine is not Levenberg-Marquardt", engine instanceof LevenbergMarquardtTrainingEngine);
+    }
+}
@@ -0,0 +1,123 @@
+package neuralnetwork.train;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class ListenerDispatcherTest {
+    
+    /** Tasks submitted to the executor and not run yet. */
+    private Queue<Runnable> submitted;
+    private ListenerDispatcher instance;
+    private Listener listener;
+    
+    @Before
+    public void initTestCase() {
+        submitted = new ArrayDeque<>();
+        Executor manualExecutor = submitted::add;
+        instance = new ListenerDispatcher(manualExecutor);
+        listener = Mockito.mock(Listener.class);
+        instance.addListener(listener);
+    }
+    
+    private void runSubmitted() {
+        Runnable task;
+        while ((task = submitted.poll()) != null) {
+            task.run();
+        }
+    }
+    
+    @Test
+    public void testTrainingEpochComplete_ThreeEventsBeforeDelivery_OnlyLatestDelivered() {
+        System.out.println("testTrainingEpochComplete_ThreeEventsBeforeDelivery_OnlyLatestDelivered");
+        
+        instance.trainingEpochComplete(new TrainerEvent(1, 0.3));
+        instance.trainingEpochComplete(new TrainerEvent(2, 0.2));
+        instance.trainingEpochComplete(new TrainerEvent(3, 0.1));
+        runSubmitted();
+        
+        ArgumentCaptor<TrainerEvent> events = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener).onTrainingEpochComplete(events.capture());
+        assertEquals(3, events.getValue().getEpoch());
+    }
+    
+    @Test
+    public void testTrainingComplete_EpochEventsBeforeAndAfter_DeliveredInOrder() {
+        System.out.println("testTrainingComplete_EpochEventsBeforeAndAfter_DeliveredInOrder");
+        
+        instance.trainingEpochComplete(new TrainerEvent(1, 0.3));
+        instance.trainingComplete(new TrainerEvent(1, 0.3));
+        instance.trainingEpochComplete(new TrainerEvent(1, 0.5));
+        runSubmitted();
+        
+        InOrder inOrder = Mockito.inOrder(listener);
+        inOrder.verify(listener).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+        inOrder.verify(listener).onTrainingComplete(Mockito.any(TrainerEvent.class));
+        inOrder.verify(listener).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+    }
+    
+    @Test
+    public void testTrainingCanceled_QueueFull_NotDropped() {
+        System.out.println("testTrainingCanceled_QueueFull_NotDropped");
+        for (int i = 0; i < ListenerDispatcher.QUEUE_CAPACITY; i++) {
+            instance.trainingComplete(new TrainerEvent(1, 0.1));
+        }
+        
+        instance.trainingEpochComplete(new TrainerEvent(2, 0.1));
+        instance.trainingCanceled(new TrainerEvent(2, 0.1));
+        runSubmitted();
+        
+        Mockito.verify(listener, Mockito.times(ListenerDispatcher.QUEUE_CAPACITY))
+                .onTrainingComplete(Mockito.any(TrainerEvent.class));
+        Mockito.verify(listener, Mockito.never()).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+        Mockito.verify(listener).onTrainingCanceled(Mockito.any(TrainerEvent.class));
+    }
+    
+    @Test
+    public void testTrainingComplete_ListenerThrowsError_LaterEventsDelivered() {
+        System.out.println("testTrainingComplete_ListenerThrowsError_LaterEventsDelivered");
+        Mockito.doThrow(new AssertionError("Listener failed")).
+                when(listener).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+        instance.trainingEpochComplete(new TrainerEvent(1, 0.3));
+        try {
+            runSubmitted();
+            fail("The error must be thrown by the delivery task");
+        }
+        catch (AssertionError e) {
+            assertEquals("Listener failed", e.getMessage());
+        }
+        
+        instance.trainingComplete(new TrainerEvent(1, 0.3));
+        runSubmitted();
+        
+        Mockito.verify(listener).onTrainingComplete(Mockito.any(TrainerEvent.class));
+    }
+    
+    @Test
+    public void testAddListener_CalledByListenerDuringDelivery_NewListenerGetsNextEvents() {
+        System.out.println("testAddListener_CalledByListenerDuringDelivery_NewListenerGetsNextEvents");
+        Listener added = Mockito.mock(Listener.class);
+        Mockito.doAnswer((invocation) -> {
+            instance.addListener(added);
+            return null;
+        }).when(listener).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+        
+        instance.trainingEpochComplete(new TrainerEvent(1, 0.1));
+        runSubmitted();
+        instance.trainingComplete(new TrainerEvent(1, 0.1));
+        runSubmitted();
+        
+        Mockito.verify(added, Mockito.never()).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+        Mockito.verify(added).onTrainingComplete(Mockito.any(TrainerEvent.class));
+    }
+}
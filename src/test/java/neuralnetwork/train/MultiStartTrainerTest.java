@@ -0,0 +1,125 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestUtils;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class MultiStartTrainerTest {
+    
+    private double[][] inputs;
+    private double[][] targets;
+    private NeuralNetwork nn;
+    private TrainingScheduler scheduler;
+    
+    @Before
+    public void initTestCase() {
+        inputs = new double[][]{{0, 0}, {0, 2}, {2, 0}, {2, 2}};
+        targets = new double[][]{{0}, {1}, {1}, {0}};
+        nn = new NeuralNetwork(2, new int[]{3}, 1);
+        scheduler = new TrainingScheduler(1);
+    }
+    
+    @After
+    public void cleanUpTestCase() {
+        scheduler.shutdownNow();
+        scheduler = null;
+        nn = null;
+        inputs = null;
+        targets = null;
+    }
+    
+    private static NeuralNetworkTrainer trainer(int maxEpoch, double performanceGoal) {
+        return new NeuralNetworkTrainer.Builder().withMaxEpoch(maxEpoch).
+                withPerformanceGoal(performanceGoal).build();
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testBuilder_NullTrainer_Throw() {
+        System.out.println("testBuilder_NullTrainer_Throw");
+        
+        new MultiStartTrainer.Builder(null);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithNumberOfStarts_Zero_Throw() {
+        System.out.println("testBuilderWithNumberOfStarts_Zero_Throw");
+        
+        new MultiStartTrainer.Builder(trainer(1, 1e-3)).withNumberOfStarts(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testBuilderWithInitializers_Null_Throw() {
+        System.out.println("testBuilderWithInitializers_Null_Throw");
+        
+        new MultiStartTrainer.Builder(trainer(1, 1e-3)).withInitializers(null);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testTrain_GoalNotReached_AllRunsCompletedBestHasLeastPerformance() throws Exception {
+        System.out.println("testTrain_GoalNotReached_AllRunsCompletedBestHasLeastPerformance");
+        final List<Long> seeds = Collections.synchronizedList(new ArrayList<>());
+        MultiStartTrainer instance = new MultiStartTrainer.Builder(trainer(5, 1e-300)).
+                withNumberOfStarts(3).withSeed(5).withScheduler(scheduler).
+                withInitializers((seed) -> {
+                    seeds.add(seed);
+                    return Initializer.ofCustomRandomRange(-1, 1, -1, 1, seed);
+                }).build();
+        
+        MultiStartTrainer.Result result = instance.train(nn, inputs, targets);
+        
+        assertEquals(Arrays.asList(5L, 6L, 7L), seeds);
+        assertEquals(3, result.getRuns().size());
+        for (MultiStartTrainer.Run run : result.getRuns()) {
+            assertFalse("Run has been stopped", run.isStoppedEarly());
+            assertEquals(5, run.getFinalEvent().getEpoch());
+            assertTrue(result.getBestRun().getFinalEvent().getPerformance() <= 
+                    run.getFinalEvent().getPerformance());
+        }
+        assertSame(result.getBestRun().getNetwork(), result.getBestNetwork());
+    }
+    
+    @Test
+    public void testTrain_FirstRunReachesGoal_OtherRunsStopped() throws Exception {
+        System.out.println("testTrain_FirstRunReachesGoal_OtherRunsStopped");
+        MultiStartTrainer instance = new MultiStartTrainer.Builder(trainer(1000, 100)).
+                withNumberOfStarts(3).withSeed(1).withScheduler(scheduler).build();
+        
+        MultiStartTrainer.Result result = instance.train(nn, inputs, targets);
+        
+        List<MultiStartTrainer.Run> runs = result.getRuns();
+        assertFalse("First run has been stopped", runs.get(0).isStoppedEarly());
+        assertTrue("Second run hasn't been stopped", runs.get(1).isStoppedEarly());
+        assertTrue("Third run hasn't been stopped", runs.get(2).isStoppedEarly());
+        assertSame(runs.get(0), result.getBestRun());
+    }
+    
+    @Test
+    public void testTrain_SamplesPassed_SamplesNotChanged() throws Exception {
+        System.out.println("testTrain_SamplesPassed_SamplesNotChanged");
+        double[][] inputsBefore = {{0, 0}, {0, 2}, {2, 0}, {2, 2}};
+        MultiStartTrainer instance = new MultiStartTrainer.Builder(trainer(2, 1e-3)).
+                withNumberOfStarts(2).withScheduler(scheduler).build();
+        
+        instance.train(nn, inputs, targets);
+        
+        TestUtils.assertArraysEqual(inputsBefore, inputs);
+    }
+}
@@ -2,7 +2,9 @@ package neuralnetwork.train;
 
 import neuralnetwork.ActivationFunction;
 import neuralnetwork.ActivationFunctions;
+import neuralnetwork.AllocationBudget;
 import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.mockito.Matchers;
@@ -186,6 +188,94 @@ public class NeuralNetworkEvaluatorTest {
         assertArraysEqual(expResult.neuronsOutputs, result.neuronsOutputs);
     }
 
+    /**
+     * Test of firstLayerInputSums method, of class NeuralNetworkEvaluator.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testFirstLayerInputSums_NullWeights_Throws() {
+        double[] input = {1, 0.5, 0.3};
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(nn);
+        
+        instance.firstLayerInputSums(input, null);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testFirstLayerInputSums_ValidWeights_CorrectResult() {
+        double[] input = {1, 0.5, 0.3};
+        NeuralNetworkWeights newWeights = NeuralNetworkWeights.newOf(nn);
+        newWeights.setWeight(0, 0, 0, 2.1);
+        newWeights.setWeight(0, 2, 1, -1.0);
+        newWeights.setBias(0, 1, 0.5);
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(nn);
+        
+        double[] result = instance.firstLayerInputSums(input, newWeights);
+        
+        assertArrayEquals(new double[]{2.1*1, -1.0*0.3 + 0.5}, result, DELTA);
+    }
+    
+    /**
+     * Test of evaluateFromFirstLayerSums method, of class NeuralNetworkEvaluator.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvaluateFromFirstLayerSums_WrongSizedSums_Throws() {
+        double[] sums = {1, 0.5, 0.3};
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(nn);
+        
+        instance.evaluateFromFirstLayerSums(sums, NeuralNetworkWeights.newOf(nn));
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testEvaluateFromFirstLayerSums_SumsOfInput_SameAsEvaluateWithWeights() {
+        double[] input = {1, 0.5, 0.3};
+        NeuralNetworkWeights newWeights = NeuralNetworkWeights.newOf(nn);
+        newWeights.setWeight(0, 0, 0, 2.1);
+        newWeights.setWeight(1, 1, 1, 4.0);
+        newWeights.setBias(0, 1, 0.5);
+        newWeights.setBias(1, 1, 5.9);
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(nn);
+        NeuralNetworkResponse expResult = instance.evaluateWithWeights(input, newWeights);
+        
+        NeuralNetworkResponse result = instance.evaluateFromFirstLayerSums(
+                instance.firstLayerInputSums(input, newWeights), newWeights);
+        
+        assertArraysEqual(expResult.neuronsInputSums, result.neuronsInputSums);
+        assertArraysEqual(expResult.neuronsOutputs, result.neuronsOutputs);
+    }
+
+    /**
+     * Test of outputSumsJacobian method, of class NeuralNetworkEvaluator.
+     */
+    @Test
+    public void testOutputSumsJacobian_RandomNN_SameAsFiniteDifferences() {
+        NeuralNetwork realNN = new NeuralNetwork(3, new int[]{4, 2}, 2,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        double[] input = {1, 0.5, 0.3};
+        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(realNN);
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(realNN);
+        NeuralNetworkResponse resp = instance.evaluateWithWeights(input, weights);
+        
+        double[][] result = instance.outputSumsJacobian(input, resp, weights);
+        
+        final double h = 1e-6;
+        double[] values = weights.toArray();
+        assertEquals(2, result.length);
+        for (int param = 0; param < values.length; param++) {
+            double[] shifted = values.clone();
+            shifted[param] += h;
+            NeuralNetworkResponse respShifted = instance.evaluateWithWeights(input, 
+                    new NeuralNetworkWeights(weights).setFromArray(shifted));
+            for (int outputNum = 0; outputNum < 2; outputNum++) {
+                double expected = (respShifted.getNeuronInputSum(2, outputNum) - 
+                        resp.getNeuronInputSum(2, outputNum)) / h;
+                assertEquals(expected, result[outputNum][param], 1e-5);
+            }
+        }
+    }
+
     @Test(expected = NullPointerException.class)
     public void testGetOutput_NullInputs_Throws() {
         double[] input = null;
@@ -231,4 +321,26 @@ public class NeuralNetworkEvaluatorTest {
         assertArrayEquals(neuronOutputs[1], result, DELTA);
     }
     
+    @Test
+    public void testGetOutput_SteadyState_AllocatesOnlyLayerArrays() {
+        NeuralNetwork realNN = new NeuralNetwork(16, new int[]{32}, 4, Initializer.ofStdRandomRange(1));
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(realNN);
+        double[] input = new double[16];
+        
+        // Summed inputs and outputs of 32 + 4 neurons, ~700 bytes,
+        // the weights (~5 KB) must not be copied
+        AllocationBudget.assertWithinBudget("getOutput", 1024, 
+                () -> instance.getOutput(input));
+    }
+    
+    @Test
+    public void testEvaluateWithWeights_SteadyState_AllocatesOnlyResponse() {
+        NeuralNetwork realNN = new NeuralNetwork(16, new int[]{32}, 4, Initializer.ofStdRandomRange(1));
+        NeuralNetworkEvaluator instance = new NeuralNetworkEvaluator(realNN);
+        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(realNN);
+        double[] input = new double[16];
+        
+        AllocationBudget.assertWithinBudget("evaluateWithWeights", 1024, 
+                () -> instance.evaluateWithWeights(input, weights));
+    }
 }
@@ -0,0 +1,141 @@
+package neuralnetwork.train;
+
+import java.lang.management.ManagementFactory;
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestUtils;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class NeuralNetworkTrainerControlTest {
+    
+    private MBeanServer server;
+    private NeuralNetworkTrainer trainer;
+    private NeuralNetworkTrainerControl instance;
+    
+    @Before
+    public void initTestCase() {
+        server = ManagementFactory.getPlatformMBeanServer();
+        trainer = new NeuralNetworkTrainer.Builder().
+                withMaxEpoch(3).
+                withAlgorithm(TrainingAlgorithm.HOGWILD_SGD).
+                withNumberOfThreads(2).
+                withExecutor(TestUtils.getDirectExecutor()).
+                build();
+        instance = new NeuralNetworkTrainerControl(trainer);
+    }
+    
+    @After
+    public void cleanUpTestCase() throws JMException {
+        instance.unregister();
+    }
+    
+    @Test
+    public void testRegister_ValidName_AttributesReadableViaServer() throws JMException {
+        System.out.println("testRegister_ValidName_AttributesReadableViaServer");
+        NeuralNetwork nn = new NeuralNetwork(3, new int[] {2}, 1, Initializer.ofStdRandomRange(1));
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targets = {{1}, {0}, {0.5}};
+        
+        ObjectName name = instance.register("test, \"quoted\"");
+        trainer.startTrain(nn, inputs, targets);
+        
+        assertEquals(NeuralNetworkTrainerControl.objectName("test, \"quoted\""), name);
+        assertEquals(3, server.getAttribute(name, "Epoch"));
+        assertEquals(3, server.getAttribute(name, "MaxEpoch"));
+        assertFalse(Double.isNaN((Double)server.getAttribute(name, "Loss")));
+        assertTrue((Double)server.getAttribute(name, "SamplesPerSecond") > 0);
+        assertTrue((Long)server.getAttribute(name, "ElapsedMillis") >= 0);
+        assertEquals(0L, server.getAttribute(name, "EstimatedRemainingMillis"));
+        assertEquals(2, server.getAttribute(name, "ThreadCount"));
+        assertEquals(false, server.getAttribute(name, "Running"));
+    }
+    
+    @Test
+    public void testGetAttributes_NoTraining_ReturnUnknownValues() {
+        System.out.println("testGetAttributes_NoTraining_ReturnUnknownValues");
+        
+        assertEquals(0, instance.getEpoch());
+        assertTrue(Double.isNaN(instance.getLoss()));
+        assertEquals(0.0, instance.getSamplesPerSecond(), 0.0);
+        assertEquals(0, instance.getElapsedMillis());
+        assertFalse(instance.isRunning());
+    }
+    
+    @Test
+    public void testGetThreadCount_LevenbergMarquardtFallsBackToScg_OneThread() {
+        System.out.println("testGetThreadCount_LevenbergMarquardtFallsBackToScg_OneThread");
+        trainer = new NeuralNetworkTrainer.Builder().
+                withMaxEpoch(3).
+                withAlgorithm(TrainingAlgorithm.LEVENBERG_MARQUARDT).
+                withLevenbergMarquardtMaxParameters(1).
+                withNumberOfThreads(2).
+                withExecutor(TestUtils.getDirectExecutor()).
+                build();
+        instance = new NeuralNetworkTrainerControl(trainer);
+        NeuralNetwork nn = new NeuralNetwork(3, new int[] {2}, 1, Initializer.ofStdRandomRange(1));
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targets = {{1}, {0}, {0.5}};
+        
+        trainer.startTrain(nn, inputs, targets);
+        
+        assertEquals(1, instance.getThreadCount());
+    }
+    
+    @Test
+    public void testGetThreadCount_NoTraining_Zero() {
+        System.out.println("testGetThreadCount_NoTraining_Zero");
+        
+        assertEquals(0, instance.getThreadCount());
+    }
+    
+    @Test
+    public void testSetAttribute_EpochReportEvery_TrainerChanged() throws JMException {
+        System.out.println("testSetAttribute_EpochReportEvery_TrainerChanged");
+        ObjectName name = instance.register("test");
+        
+        server.setAttribute(name, new Attribute("EpochReportEvery", 10));
+        
+        assertEquals(10, trainer.getEpochReportEvery());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testCheckpointNow_NoCheckpointFile_Throw() {
+        System.out.println("testCheckpointNow_NoCheckpointFile_Throw");
+        
+        instance.checkpointNow();
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testUnregister_Registered_NotRegisteredAnymore() throws JMException {
+        System.out.println("testUnregister_Registered_NotRegisteredAnymore");
+        ObjectName name = instance.register("test");
+        
+        instance.unregister();
+        
+        assertFalse(server.isRegistered(name));
+    }
+    
+    @Test(expected = JMException.class)
+    public void testRegister_NameOfAnotherTrainer_Throw() throws JMException {
+        System.out.println("testRegister_NameOfAnotherTrainer_Throw");
+        instance.register("test");
+        NeuralNetworkTrainerControl other = new NeuralNetworkTrainerControl(trainer);
+        
+        other.register("test");
+        
+        fail("The test case must throw");
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.After;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.Before;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 
@@ -205,4 +206,39 @@ public class NeuralNetworkTrainerTaskTest {
         assertSame("Paritally trained neural network is different", expected, result);
     }
     
+    @Test
+    public void testCancel_NotStarted_OnTrainingCanceledCalledOnceWorkerNotCalled() throws Exception {
+        System.out.println("testCancel_NotStarted_OnTrainingCanceledCalledOnceWorkerNotCalled");
+        Listener listener = Mockito.mock(Listener.class);
+        NeuralNetworkTrainerTask instance = new NeuralNetworkTrainerTask(worker);
+        instance.setListener(listener);
+        
+        instance.cancel(true);
+        instance.run();
+        
+        Mockito.verify(listener, Mockito.times(1)).onTrainingCanceled(Mockito.any(TrainerEvent.class));
+        Mockito.verify(worker, Mockito.never()).call();
+    }
+    
+    @Test
+    public void testCancel_AfterWorkerCompleted_OnTrainingCanceledCalledOnce() throws Exception {
+        System.out.println("testCancel_AfterWorkerCompleted_OnTrainingCanceledCalledOnce");
+        Listener listener = Mockito.mock(Listener.class);
+        ArgumentCaptor<Listener> workerListener = ArgumentCaptor.forClass(Listener.class);
+        NeuralNetworkTrainerTask instance = new NeuralNetworkTrainerTask(worker);
+        Mockito.verify(worker).setListener(workerListener.capture());
+        instance.setListener(listener);
+        Mockito.when(worker.call()).thenAnswer((invocation) -> {
+            workerListener.getValue().onTrainingComplete(new TrainerEvent(1, 0.5));
+            // Canceled before the task could set the result. Not interrupting,
+            // since the worker runs on the test's thread
+            instance.cancel(false);
+            return nn;
+        });
+        
+        instance.run();
+        
+        Mockito.verify(listener, Mockito.times(1)).onTrainingCanceled(Mockito.any(TrainerEvent.class));
+        Mockito.verify(listener, Mockito.never()).onTrainingComplete(Mockito.any(TrainerEvent.class));
+    }
 }
@@ -3,12 +3,21 @@ package neuralnetwork.train;
 import neuralnetwork.ActivationFunctions;
 import neuralnetwork.NeuralNetwork;
 import neuralnetwork.TestUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 
@@ -240,6 +249,288 @@ public class NeuralNetworkTrainerTest {
         }
     }
     
+    @Test
+    public void testBuilderBuild_InvokedDefault_DirectionalForwardCacheDisabled() {
+        System.out.println("testBuilderBuild_InvokedDefault_DirectionalForwardCacheDisabled");
+        
+        NeuralNetworkTrainer trainer = builder.build();
+        
+        assertFalse("Directional forward cache is enabled by default", trainer.isDirectionalForwardCacheEnabled());
+    }
+    
+    @Test
+    public void testBuilderWithDirectionalForwardCache_True_CacheEnabled() {
+        System.out.println("testBuilderWithDirectionalForwardCache_True_CacheEnabled");
+        
+        NeuralNetworkTrainer trainer = builder.withDirectionalForwardCache(true).build();
+        
+        assertTrue("Directional forward cache hasn't been saved", trainer.isDirectionalForwardCacheEnabled());
+    }
+    
+    @Test
+    public void testBuilderBuild_InvokedDefault_AlgorithmIsScg() {
+        System.out.println("testBuilderBuild_InvokedDefault_AlgorithmIsScg");
+        
+        NeuralNetworkTrainer trainer = builder.build();
+        
+        assertEquals("Default algorithm is not SCG", TrainingAlgorithm.SCG, trainer.getAlgorithm());
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testBuilderWithAlgorithm_NullArgument_Throw() {
+        System.out.println("testBuilderWithAlgorithm_NullArgument_Throw");
+        
+        builder.withAlgorithm(null);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testBuilderWithAlgorithm_Lbfgs_AlgorithmIsLbfgs() {
+        System.out.println("testBuilderWithAlgorithm_Lbfgs_AlgorithmIsLbfgs");
+        
+        NeuralNetworkTrainer trainer = builder.withAlgorithm(TrainingAlgorithm.LBFGS).build();
+        
+        assertEquals("Algorithm hasn't been saved", TrainingAlgorithm.LBFGS, trainer.getAlgorithm());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithLbfgsHistorySize_ArgumentZero_Throw() {
+        System.out.println("testBuilderWithLbfgsHistorySize_ArgumentZero_Throw");
+        
+        builder.withLbfgsHistorySize(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetLbfgsHistorySize_ValuePassedToBuilder_ReturnSameValue() {
+        System.out.println("testGetLbfgsHistorySize_ValuePassedToBuilder_ReturnSameValue");
+        
+        NeuralNetworkTrainer trainer = builder.withLbfgsHistorySize(7).build();
+        
+        assertEquals("History size hasn't been saved", 7, trainer.getLbfgsHistorySize());
+    }
+    
+    @Test
+    public void testGetTrainedNetwork_LbfgsTrainingFinished_ReturnDifferentNN() {
+        System.out.println("testGetTrainedNetwork_LbfgsTrainingFinished_ReturnDifferentNN");
+        NeuralNetworkTrainer instance = builder.withExecutor(serialExecutor).
+                withAlgorithm(TrainingAlgorithm.LBFGS).withMaxEpoch(5).build();
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        TestUtils.assertNNNotEquals(nn, instance.getTrainedNetwork());
+    }
+    
+    @Test
+    public void testGetTrainedNetwork_RpropTrainingFinished_ReturnDifferentNN() {
+        System.out.println("testGetTrainedNetwork_RpropTrainingFinished_ReturnDifferentNN");
+        NeuralNetworkTrainer instance = builder.withExecutor(serialExecutor).
+                withAlgorithm(TrainingAlgorithm.RPROP).withMaxEpoch(5).build();
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        TestUtils.assertNNNotEquals(nn, instance.getTrainedNetwork());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithLearningRate_ArgumentZero_Throw() {
+        System.out.println("testBuilderWithLearningRate_ArgumentZero_Throw");
+        
+        builder.withLearningRate(0.0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithLearningRate_ArgumentNaN_Throw() {
+        System.out.println("testBuilderWithLearningRate_ArgumentNaN_Throw");
+        
+        builder.withLearningRate(Double.NaN);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetLearningRate_ValuePassedToBuilder_ReturnSameValue() {
+        System.out.println("testGetLearningRate_ValuePassedToBuilder_ReturnSameValue");
+        
+        NeuralNetworkTrainer trainer = builder.withLearningRate(0.25).build();
+        
+        assertEquals("Learning rate hasn't been saved", 0.25, trainer.getLearningRate(), 0.0);
+    }
+    
+    @Test
+    public void testGetTrainedNetwork_HogwildSgdTrainingFinished_ReturnDifferentNN() {
+        System.out.println("testGetTrainedNetwork_HogwildSgdTrainingFinished_ReturnDifferentNN");
+        NeuralNetworkTrainer instance = builder.withExecutor(serialExecutor).
+                withAlgorithm(TrainingAlgorithm.HOGWILD_SGD).withNumberOfThreads(2).
+                withMaxEpoch(5).build();
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        TestUtils.assertNNNotEquals(nn, instance.getTrainedNetwork());
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testBuilderWithCheckpointFile_ArgumentNull_Throw() {
+        System.out.println("testBuilderWithCheckpointFile_ArgumentNull_Throw");
+        
+        builder.withCheckpointFile(null);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithCheckpointEveryEpochs_ArgumentNegative_Throw() {
+        System.out.println("testBuilderWithCheckpointEveryEpochs_ArgumentNegative_Throw");
+        
+        builder.withCheckpointEveryEpochs(-1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithCheckpointInterval_ArgumentNegative_Throw() {
+        System.out.println("testBuilderWithCheckpointInterval_ArgumentNegative_Throw");
+        
+        builder.withCheckpointInterval(-1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetCheckpointOptions_ValuesPassedToBuilder_ReturnSameValues() {
+        System.out.println("testGetCheckpointOptions_ValuesPassedToBuilder_ReturnSameValues");
+        Path file = Paths.get("checkpoint");
+        
+        NeuralNetworkTrainer trainer = builder.withCheckpointFile(file).
+                withCheckpointEveryEpochs(0).withCheckpointInterval(60000).build();
+        
+        assertEquals("Checkpoint file hasn't been saved", file, trainer.getCheckpointFile());
+        assertEquals("Checkpoint epochs haven't been saved", 0, trainer.getCheckpointEveryEpochs());
+        assertEquals("Checkpoint interval hasn't been saved", 60000, trainer.getCheckpointInterval());
+    }
+    
+    @Test
+    public void testResumeTrain_CheckpointOfCanceledTraining_ContinuesFromCheckpointEpoch() 
+            throws IOException {
+        System.out.println("testResumeTrain_CheckpointOfCanceledTraining_ContinuesFromCheckpointEpoch");
+        Path file = Files.createTempFile("checkpoint", null);
+        try {
+            NeuralNetworkTrainer first = builder.withExecutor(serialExecutor).
+                    withMaxEpoch(3).withPerformanceGoal(1e-10).
+                    withCheckpointFile(file).withCheckpointEveryEpochs(1).build();
+            first.startTrain(nn, inputs, targetResponses);
+            Listener listener = Mockito.mock(Listener.class);
+            NeuralNetworkTrainer second = new NeuralNetworkTrainer.Builder().
+                    withExecutor(serialExecutor).withMaxEpoch(5).withPerformanceGoal(1e-10).build();
+            second.registerListener(listener);
+            
+            second.resumeTrain(nn, new double[][]{{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}},
+                    new double[][]{{1}, {0}, {0.5}}, file);
+            
+            Mockito.verify(listener, Mockito.never()).onTrainingEpochComplete(
+                    Matchers.argThat(new ArgumentMatcher<TrainerEvent>() {
+                        @Override
+                        public boolean matches(Object event) {
+                            return ((TrainerEvent)event).getEpoch() <= 3;
+                        }
+                    }));
+            Mockito.verify(listener, Mockito.times(2)).onTrainingEpochComplete(Matchers.any());
+            TestUtils.assertNNNotEquals(first.getTrainedNetwork(), second.getTrainedNetwork());
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testResumeTrain_OtherAlgorithm_Throw() throws IOException {
+        System.out.println("testResumeTrain_OtherAlgorithm_Throw");
+        Path file = Files.createTempFile("checkpoint", null);
+        try {
+            NeuralNetworkTrainer first = builder.withExecutor(serialExecutor).
+                    withCheckpointFile(file).withCheckpointEveryEpochs(1).build();
+            first.startTrain(nn, inputs, targetResponses);
+            NeuralNetworkTrainer second = new NeuralNetworkTrainer.Builder().
+                    withExecutor(serialExecutor).withAlgorithm(TrainingAlgorithm.LBFGS).build();
+            
+            second.resumeTrain(nn, inputs, targetResponses, file);
+            
+            fail("The test case must throw");
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithInitialSubsampleSize_ArgumentZero_Throw() {
+        System.out.println("testBuilderWithInitialSubsampleSize_ArgumentZero_Throw");
+        
+        builder.withInitialSubsampleSize(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetInitialSubsampleSize_ValuePassedToBuilder_ReturnSameValue() {
+        System.out.println("testGetInitialSubsampleSize_ValuePassedToBuilder_ReturnSameValue");
+        
+        NeuralNetworkTrainer trainer = builder.withInitialSubsampleSize(500).build();
+        
+        assertEquals("Initial subsample size hasn't been saved", 500, trainer.getInitialSubsampleSize());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithNumberOfThreads_ArgumentZero_Throw() {
+        System.out.println("testBuilderWithNumberOfThreads_ArgumentZero_Throw");
+        
+        builder.withNumberOfThreads(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetNumberOfThreads_ValuePassedToBuilder_ReturnSameValue() {
+        System.out.println("testGetNumberOfThreads_ValuePassedToBuilder_ReturnSameValue");
+        
+        NeuralNetworkTrainer trainer = builder.withNumberOfThreads(3).build();
+        
+        assertEquals("Number of threads hasn't been saved", 3, trainer.getNumberOfThreads());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithLevenbergMarquardtMaxParameters_ArgumentNegative_Throw() {
+        System.out.println("testBuilderWithLevenbergMarquardtMaxParameters_ArgumentNegative_Throw");
+        
+        builder.withLevenbergMarquardtMaxParameters(-1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetLevenbergMarquardtMaxParameters_ValuePassedToBuilder_ReturnSameValue() {
+        System.out.println("testGetLevenbergMarquardtMaxParameters_ValuePassedToBuilder_ReturnSameValue");
+        
+        NeuralNetworkTrainer trainer = builder.withLevenbergMarquardtMaxParameters(300).build();
+        
+        assertEquals("Max number of parameters hasn't been saved", 300, trainer.getLevenbergMarquardtMaxParameters());
+    }
+    
+    @Test
+    public void testGetTrainedNetwork_LevenbergMarquardtTrainingFinished_ReturnDifferentNN() {
+        System.out.println("testGetTrainedNetwork_LevenbergMarquardtTrainingFinished_ReturnDifferentNN");
+        NeuralNetworkTrainer instance = builder.withExecutor(serialExecutor).
+                withAlgorithm(TrainingAlgorithm.LEVENBERG_MARQUARDT).withMaxEpoch(3).build();
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        TestUtils.assertNNNotEquals(nn, instance.getTrainedNetwork());
+    }
+    
     @Test
     public void testBuilderWithExecutor_StartTrainCalled_ExecutorSubmitMethodCalled() {
         System.out.println("testBuilderWithExecutor_StartTrainCalled_ExecutorSubmitCalled");
@@ -359,6 +650,192 @@ public class NeuralNetworkTrainerTest {
         Mockito.verify(listener, Mockito.times(2)).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
     }
     
+    @Test
+    public void testRegisterListener_MetricsListenerTwoEpochsFinished_OnEpochMetricsCalledTwice() {
+        System.out.println("testRegisterListener_MetricsListenerTwoEpochsFinished_OnEpochMetricsCalledTwice");
+        MetricsListener listener = Mockito.mock(MetricsListener.class);
+        
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(2).
+                withExecutor(serialExecutor).
+                build();
+        instance.registerListener(listener);
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        ArgumentCaptor<TrainingMetrics> metrics = ArgumentCaptor.forClass(TrainingMetrics.class);
+        Mockito.verify(listener, Mockito.times(2)).onEpochMetrics(metrics.capture());
+        assertEquals(1, metrics.getAllValues().get(0).getEpoch());
+        assertEquals(2, metrics.getAllValues().get(1).getEpoch());
+        assertSame(metrics.getAllValues().get(1), instance.getMetrics());
+    }
+    
+    @Test
+    public void testGetMetrics_NoTraining_ReturnNull() {
+        System.out.println("testGetMetrics_NoTraining_ReturnNull");
+        NeuralNetworkTrainer instance = builder.build();
+        
+        assertNull(instance.getMetrics());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetEpochReportEvery_ArgumentZero_Throw() {
+        System.out.println("testSetEpochReportEvery_ArgumentZero_Throw");
+        NeuralNetworkTrainer instance = builder.build();
+        
+        instance.setEpochReportEvery(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testSetEpochReportEvery_ChangedOnOneTrainer_OtherTrainerOfSameBuilderUnchanged() {
+        System.out.println("testSetEpochReportEvery_ChangedOnOneTrainer_OtherTrainerOfSameBuilderUnchanged");
+        NeuralNetworkTrainer instance = builder.build();
+        NeuralNetworkTrainer other = builder.build();
+        
+        instance.setEpochReportEvery(5);
+        
+        assertEquals(5, instance.getEpochReportEvery());
+        assertEquals(1, other.getEpochReportEvery());
+    }
+    
+    @Test
+    public void testSetEpochReportEvery_TwoFourEpochsFinished_OnTrainingEpochCompleteCalledTwice() {
+        System.out.println("testSetEpochReportEvery_TwoFourEpochsFinished_OnTrainingEpochCompleteCalledTwice");
+        MetricsListener listener = Mockito.mock(MetricsListener.class);
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(4).
+                withExecutor(serialExecutor).
+                build();
+        instance.registerListener(listener);
+        instance.setEpochReportEvery(2);
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        Mockito.verify(listener, Mockito.times(2)).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
+        Mockito.verify(listener, Mockito.times(2)).onEpochMetrics(Mockito.any(TrainingMetrics.class));
+        assertEquals(4, instance.getMetrics().getEpoch());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithEpochReportEvery_ArgumentZero_Throw() {
+        System.out.println("testBuilderWithEpochReportEvery_ArgumentZero_Throw");
+        
+        builder.withEpochReportEvery(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithEpochReportInterval_ArgumentNegative_Throw() {
+        System.out.println("testBuilderWithEpochReportInterval_ArgumentNegative_Throw");
+        
+        builder.withEpochReportInterval(-1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetEpochReportOptions_ValuesPassedToBuilder_ReturnSameValues() {
+        System.out.println("testGetEpochReportOptions_ValuesPassedToBuilder_ReturnSameValues");
+        
+        NeuralNetworkTrainer trainer = builder.withEpochReportEvery(10).
+                withEpochReportInterval(500).withEpochReportOnImprovement(true).build();
+        
+        assertEquals("Report epochs haven't been saved", 10, trainer.getEpochReportEvery());
+        assertEquals("Report interval hasn't been saved", 500, trainer.getEpochReportInterval());
+        assertTrue("Report on improvement hasn't been saved", trainer.isEpochReportOnImprovement());
+    }
+    
+    @Test
+    public void testBuilderWithEpochReportEvery_TwoFourEpochsFinished_MetricsCoverTwoEpochs() {
+        System.out.println("testBuilderWithEpochReportEvery_TwoFourEpochsFinished_MetricsCoverTwoEpochs");
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(4).
+                withEpochReportEvery(2).
+                withExecutor(serialExecutor).
+                build();
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        TrainingMetrics metrics = instance.getMetrics();
+        assertEquals(4, metrics.getEpoch());
+        assertEquals(2, metrics.getEpochs());
+        assertTrue(metrics.getGradientPasses() >= 2);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithTimeLimit_ArgumentNegative_Throw() {
+        System.out.println("testBuilderWithTimeLimit_ArgumentNegative_Throw");
+        
+        builder.withTimeLimit(-1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(timeout = 10000)
+    public void testBuilderWithTimeLimit_UnlimitedEpochs_TrainingCompletedInTime() {
+        System.out.println("testBuilderWithTimeLimit_UnlimitedEpochs_TrainingCompletedInTime");
+        Listener listener = Mockito.mock(Listener.class);
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(Integer.MAX_VALUE).
+                withTimeLimit(100).
+                withExecutor(serialExecutor).
+                build();
+        instance.registerListener(listener);
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        assertEquals(100, instance.getTimeLimit());
+        assertNotNull(instance.getTrainedNetwork());
+        Mockito.verify(listener).onTrainingComplete(Mockito.any(TrainerEvent.class));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderWithSnapshotInterval_ArgumentNegative_Throw() {
+        System.out.println("testBuilderWithSnapshotInterval_ArgumentNegative_Throw");
+        
+        builder.withSnapshotInterval(-1);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testGetSnapshot_NoTraining_ReturnNull() {
+        System.out.println("testGetSnapshot_NoTraining_ReturnNull");
+        NeuralNetworkTrainer instance = builder.build();
+        
+        assertNull(instance.getSnapshot());
+    }
+    
+    @Test
+    public void testGetSnapshot_TrainingFinished_SnapshotNetworkRespondsLikeItsPerformance() {
+        System.out.println("testGetSnapshot_TrainingFinished_SnapshotNetworkRespondsLikeItsPerformance");
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(3).
+                withSnapshotInterval(60000).
+                withExecutor(serialExecutor).
+                build();
+        
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        TrainingSnapshot snapshot = instance.getSnapshot();
+        NeuralNetwork network = snapshot.getNetwork();
+        double error = 0;
+        for (int i = 0; i < inputs.length; i++) {
+            error += NeuralNetworkTrainer.error(network, inputs[i], targetResponses[i]);
+        }
+        assertEquals(1, snapshot.getEpoch());
+        assertEquals(snapshot.getPerformance(), error / inputs.length, 1e-9);
+        assertNotSame(network, snapshot.getNetwork());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testRequestCheckpoint_NoCheckpointFile_Throw() {
+        System.out.println("testRequestCheckpoint_NoCheckpointFile_Throw");
+        NeuralNetworkTrainer instance = builder.build();
+        
+        instance.requestCheckpoint();
+        
+        fail("The test case must throw");
+    }
+    
     @Test
     public void testRegisterListener_TwoListenersTrainingTwoEpochsFinished_OnTrainingEpochCompleteCalledTwiceOnEachListener() {
         System.out.println("testRegisterListener_TwoListenersTrainingTwoEpochsFinished_OnTrainingEpochCompleteCalledTwiceOnEachListener");
@@ -563,16 +1040,56 @@ public class NeuralNetworkTrainerTest {
     }
     
     @Test
-    public void testTrainingFinished_RealExecutorTrainingTenEpochStartedNotFinished_ReturnsFalse() {
-        System.out.println("testTrainingFinished_RealExecutorTrainingTenEpochStartedNotFinished_ReturnsFalse");
-        NeuralNetworkTrainer instance = builder.withMaxEpoch(10).build();
+    public void testTrainingFinished_RealExecutorTrainingStartedNotFinished_ReturnsFalse() {
+        System.out.println("testTrainingFinished_RealExecutorTrainingStartedNotFinished_ReturnsFalse");
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(Integer.MAX_VALUE).build();
         boolean expResult = false;
         instance.startTrain(nn, inputs, targetResponses);
         
         boolean result = instance.trainingFinished();
+        instance.stopTraining();
         
         assertEquals(expResult, result);
     }
+    
+    @Test
+    public void testRegisterListener_RealExecutorListenerBlocked_TrainingFinishesAndLatestEventsDelivered() 
+            throws InterruptedException {
+        System.out.println("testRegisterListener_RealExecutorListenerBlocked_TrainingFinishesAndLatestEventsDelivered");
+        NeuralNetworkTrainer instance = builder.withMaxEpoch(10).build();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        List<Integer> epochs = new CopyOnWriteArrayList<>();
+        instance.registerListener(new Listener() {
+            @Override
+            public void onTrainingComplete(TrainerEvent event) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onTrainingCanceled(TrainerEvent event) {
+            }
+
+            @Override
+            public void onTrainingEpochComplete(TrainerEvent event) {
+                epochs.add(event.getEpoch());
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        instance.startTrain(nn, inputs, targetResponses);
+        
+        assertNotNull("Listener has stalled the training", instance.getTrainedNetwork());
+        release.countDown();
+        
+        assertTrue("Completion hasn't been delivered", completed.await(10, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(10), epochs.get(epochs.size() - 1));
+        assertTrue("Epoch events haven't been coalesced", epochs.size() < 10);
+    }
 
     /**
      * Test of startTrain method, of class NeuralNetworkTrainer.
@@ -1,13 +1,19 @@
 package neuralnetwork.train;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import neuralnetwork.ActivationFunction;
 import neuralnetwork.ActivationFunctions;
+import neuralnetwork.AllocationBudget;
 import neuralnetwork.NeuralNetwork;
 import neuralnetwork.TestUtils;
+import neuralnetwork.init.Initializer;
 import org.junit.After;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.Before;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 
@@ -102,6 +108,195 @@ public class NeuralNetworkTrainerWorkerTest {
         Mockito.verify(listener, Mockito.times(2)).onTrainingEpochComplete(Mockito.any(TrainerEvent.class));
     }
     
+    @Test
+    public void testSetListener_ValidListenerTwoEpochsFinished_EpochEventsCarryMetrics() {
+        System.out.println("testSetListener_ValidListenerTwoEpochsFinished_EpochEventsCarryMetrics");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 2;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        instance.setListener(listener);
+        
+        instance.train();
+        
+        ArgumentCaptor<TrainerEvent> events = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener, Mockito.times(2)).onTrainingEpochComplete(events.capture());
+        for (TrainerEvent event : events.getAllValues()) {
+            TrainingMetrics metrics = event.getMetrics();
+            assertEquals(event.getEpoch(), metrics.getEpoch());
+            assertTrue(metrics.getGradientPasses() >= 1);
+            assertEquals(3 * (metrics.getForwardPasses() + metrics.getGradientPasses()), 
+                    metrics.getSamples());
+            assertTrue(metrics.getSamplesPerSecond() > 0);
+            assertTrue(metrics.getGradientNorm() >= 0);
+            assertTrue(metrics.getForwardNanos() + metrics.getBackpropNanos() 
+                    + metrics.getReductionNanos() <= metrics.getEpochNanos());
+        }
+    }
+    
+    @Test
+    public void testSetListener_EpochReportEveryTwoFourEpochsFinished_EveryOtherEpochReported() {
+        System.out.println("testSetListener_EpochReportEveryTwoFourEpochsFinished_EveryOtherEpochReported");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 4;
+        opts.performanceGoal = 0;
+        opts.epochReportPolicy.setEveryEpochs(2);
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        instance.setListener(listener);
+        
+        instance.train();
+        
+        ArgumentCaptor<TrainerEvent> events = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener, Mockito.times(2)).onTrainingEpochComplete(events.capture());
+        assertEquals(2, events.getAllValues().get(0).getEpoch());
+        assertEquals(4, events.getAllValues().get(1).getEpoch());
+    }
+    
+    @Test
+    public void testGetSnapshot_LongSnapshotIntervalThreeEpochsFinished_FirstEpochPublished() {
+        System.out.println("testGetSnapshot_LongSnapshotIntervalThreeEpochsFinished_FirstEpochPublished");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 3;
+        opts.performanceGoal = 0;
+        opts.snapshotIntervalMillis = 60000;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        instance.setListener(listener);
+        
+        instance.train();
+        
+        TrainingSnapshot snapshot = instance.getSnapshot();
+        ArgumentCaptor<TrainerEvent> events = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener, Mockito.times(3)).onTrainingEpochComplete(events.capture());
+        assertEquals(1, snapshot.getEpoch());
+        assertEquals(events.getAllValues().get(0).getPerformance(), snapshot.getPerformance(), 0.0);
+        NeuralNetwork snapshotNetwork = snapshot.getNetwork();
+        assertArrayEquals(nn.getHiddenLayerSizes(), snapshotNetwork.getHiddenLayerSizes());
+        assertSame(nn.getActivationFunction(), snapshotNetwork.getActivationFunction());
+    }
+    
+    @Test
+    public void testGetSnapshot_SubsampledScg_PerformanceOverWholeTrainSet() {
+        System.out.println("testGetSnapshot_SubsampledScg_PerformanceOverWholeTrainSet");
+        NeuralNetwork network = new NeuralNetwork(2, new int[] {4}, 1, 
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.SUBSAMPLED_SCG;
+        opts.initialSubsampleSize = 2;
+        opts.maxEpoch = 3;
+        opts.performanceGoal = 0;
+        opts.snapshotIntervalMillis = 60000;
+        double[][] inputs = new double[40][];
+        double[][] targetResponses = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            // The same target keeps the norm test from growing the subsample
+            inputs[i] = new double[] {i / 40.0, 0.5};
+            targetResponses[i] = new double[] {0.9};
+        }
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(network, inputs, targetResponses, opts);
+        
+        instance.train();
+        
+        TrainingSnapshot snapshot = instance.getSnapshot();
+        assertEquals(instance.performanceOverTrainSetForWeights(snapshot.getWeights()), 
+                snapshot.getPerformance(), TestUtils.DELTA);
+    }
+    
+    @Test
+    public void testGetSnapshot_SnapshotsDisabled_ReturnNull() {
+        System.out.println("testGetSnapshot_SnapshotsDisabled_ReturnNull");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 2;
+        opts.snapshotIntervalMillis = 0;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        
+        instance.train();
+        
+        assertNull(instance.getSnapshot());
+    }
+    
+    @Test(timeout = 10000)
+    public void testTrain_TimeLimitReached_CompletedBeforeMaxEpoch() {
+        System.out.println("testTrain_TimeLimitReached_CompletedBeforeMaxEpoch");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = Integer.MAX_VALUE;
+        opts.performanceGoal = 0;
+        opts.timeLimitMillis = 50;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        instance.setListener(listener);
+        
+        instance.train();
+        
+        ArgumentCaptor<TrainerEvent> event = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener).onTrainingComplete(event.capture());
+        Mockito.verify(listener, Mockito.never()).onTrainingCanceled(Mockito.any(TrainerEvent.class));
+        assertTrue(event.getValue().getEpoch() < Integer.MAX_VALUE);
+        assertFalse(Double.isNaN(event.getValue().getPerformance()));
+    }
+    
+    @Test
+    public void testMakeStepOverTrainSet_ThreadInterrupted_StoppedWithinPassAndCanceled() {
+        System.out.println("testMakeStepOverTrainSet_ThreadInterrupted_StoppedWithinPassAndCanceled");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        double[][] inputs = new double[3 * NeuralNetworkTrainerWorker.PASS_CHUNK_SIZE][];
+        double[][] targetResponses = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new double[] {0.5, 0.5, 0.5};
+            targetResponses[i] = new double[] {0.5};
+        }
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        
+        Thread.currentThread().interrupt();
+        try {
+            instance.makeStepOverTrainSet(NeuralNetworkWeights.newOf(nn));
+            fail("The pass must stop");
+        }
+        catch (NeuralNetworkTrainerWorker.TrainingStoppedException e) {
+            // Expected
+        }
+        
+        assertTrue(instance.cancelRequested());
+        assertFalse("Interruption hasn't been consumed", Thread.interrupted());
+    }
+    
+    @Test
+    public void testRequestCheckpoint_NoCheckpointsByInterval_CheckpointWrittenAfterFirstEpoch() 
+            throws IOException {
+        System.out.println("testRequestCheckpoint_NoCheckpointsByInterval_CheckpointWrittenAfterFirstEpoch");
+        Path file = Files.createTempFile("checkpoint", null);
+        try {
+            Files.delete(file);
+            NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+            opts.maxEpoch = 3;
+            opts.performanceGoal = 0;
+            opts.checkpointFile = file;
+            opts.checkpointEveryEpochs = 0;
+            double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+            double[][] targetResponses = {{1}, {0}, {0.5}};
+            NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+            
+            instance.requestCheckpoint();
+            instance.train();
+            
+            assertEquals(1, TrainingCheckpoint.read(file).completedEpochs);
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
     @Test
     public void testSetListener_ValidListenerTrainingThreadInterrupted_OnTrainingCancelledCalled() {
         System.out.println("testSetListener_ValidListenerTrainingThreadInterrupted_OnTrainingCancelledCalled");
@@ -301,9 +496,159 @@ public class NeuralNetworkTrainerWorkerTest {
         
     }
 
+    @Test
+    public void testTrain_TenEpochsDirectionalForwardCache_PerformanceDecreased() {
+        System.out.println("testTrain_TenEpochsDirectionalForwardCache_PerformanceDecreased");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 10;
+        opts.directionalForwardCache = true;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        
+        NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(nn);
+        double performanceBefore = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            NeuralNetworkResponse resp = evaluator.evaluate(inputs[i]);
+            performanceBefore += NeuralNetworkTrainer.error(resp.getOutputs(), targetResponses[i]);
+        }
+        performanceBefore /= inputs.length;
+        
+        instance.train();
+        
+        NeuralNetwork trainedNN = instance.getTrainedNeuralNetwork();
+        double performanceAfter = 0.0;
+        NeuralNetworkEvaluator evaluatorAfter = new NeuralNetworkEvaluator(trainedNN);
+        for (int i = 0; i < inputs.length; i++) {
+            NeuralNetworkResponse resp = evaluatorAfter.evaluate(inputs[i]);
+            performanceAfter += NeuralNetworkTrainer.error(resp.getOutputs(), targetResponses[i]);
+        }
+        performanceAfter /= inputs.length;
+               
+        System.out.println("Before: " + performanceBefore + ", after: " + performanceAfter);
+        if (performanceBefore <= performanceAfter) {
+            fail("Couldn't decrease performance");
+        }
+    }
+    
+    @Test
+    public void testTrain_TenEpochsDirectionalForwardCache_SameWeightsAsWithoutCache() {
+        System.out.println("testTrain_TenEpochsDirectionalForwardCache_SameWeightsAsWithoutCache");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 10;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        
+        NeuralNetworkTrainerWorker uncached = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        uncached.train();
+        opts.directionalForwardCache = true;
+        NeuralNetworkTrainerWorker cached = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        cached.train();
+        
+        double[][][] expectedWeights = TestUtils.extractNNWeights(uncached.getTrainedNeuralNetwork());
+        double[][][] actualWeights = TestUtils.extractNNWeights(cached.getTrainedNeuralNetwork());
+        for (int i = 0; i < expectedWeights.length; i++) {
+            for (int j = 0; j < expectedWeights[i].length; j++) {
+                assertArrayEquals(expectedWeights[i][j], actualWeights[i][j], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testTrain_TenEpochsLbfgs_PerformanceDecreased() {
+        System.out.println("testTrain_TenEpochsLbfgs_PerformanceDecreased");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 10;
+        opts.algorithm = TrainingAlgorithm.LBFGS;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        
+        double performanceBefore = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performanceBefore += NeuralNetworkTrainer.error(nn, inputs[i], targetResponses[i]);
+        }
+        performanceBefore /= inputs.length;
+        
+        instance.train();
+        
+        NeuralNetwork trainedNN = instance.getTrainedNeuralNetwork();
+        double performanceAfter = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performanceAfter += NeuralNetworkTrainer.error(trainedNN, inputs[i], targetResponses[i]);
+        }
+        performanceAfter /= inputs.length;
+               
+        System.out.println("Before: " + performanceBefore + ", after: " + performanceAfter);
+        if (performanceBefore <= performanceAfter) {
+            fail("Couldn't decrease performance");
+        }
+    }
+    
+    @Test
+    public void testSetListener_LbfgsTrainingThreadInterrupted_OnTrainingCancelledCalled() {
+        System.out.println("testSetListener_LbfgsTrainingThreadInterrupted_OnTrainingCancelledCalled");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 1;
+        opts.algorithm = TrainingAlgorithm.LBFGS;
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        instance.setListener(listener);
+        
+        Thread.currentThread().interrupt();
+        instance.train();
+        
+        Mockito.verify(listener).onTrainingCanceled(Mockito.any(TrainerEvent.class));
+        Mockito.verify(listener, Mockito.never()).onTrainingComplete(Mockito.any(TrainerEvent.class));
+    }
+
     /**
      * Test of getTrainedNeuralNetwork method, of class NeuralNetworkTrainerWorker.
      */
+    @Test
+    public void testMakeStepOverSamples_AllSamples_SameAsMakeStepOverTrainSet() {
+        System.out.println("testMakeStepOverSamples_AllSamples_SameAsMakeStepOverTrainSet");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(instance.getNetwork());
+        
+        NeuralNetworkTrainerWorker.TrainStepResults expected = instance.makeStepOverTrainSet(weights);
+        NeuralNetworkTrainerWorker.TrainStepResults result = 
+                instance.makeStepOverSamples(weights, new int[]{2, 0, 1});
+        
+        assertEquals(expected.performance, result.performance, 1e-12);
+        assertArrayEquals(expected.weightsDerivatives.toArray(), result.weightsDerivatives.toArray(), 1e-12);
+        assertEquals(expected.performance, 
+                instance.performanceOverSamples(weights, new int[]{0, 1, 2}), 1e-12);
+    }
+    
+    @Test
+    public void testMakeStepOverSamples_SameSampleTwice_ZeroVariance() {
+        System.out.println("testMakeStepOverSamples_SameSampleTwice_ZeroVariance");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        double[][] inputs = {{0, 0, 0}, {1, 1, 1}, {0.5, 0.5, 0.5}};
+        double[][] targetResponses = {{1}, {0}, {0.5}};
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(nn, inputs, targetResponses, opts);
+        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(instance.getNetwork());
+        
+        NeuralNetworkTrainerWorker.TrainStepResults same = 
+                instance.makeStepOverSamples(weights, new int[]{1, 1});
+        NeuralNetworkTrainerWorker.TrainStepResults different = 
+                instance.makeStepOverSamples(weights, new int[]{0, 1});
+        
+        assertEquals(0.0, same.gradientVariance, 1e-12);
+        if (different.gradientVariance <= 0) {
+            fail("Variance of different samples' gradients must be positive");
+        }
+    }
+    
     @Test
     public void testGetTrainedNeuralNetwork_NotTrained_ReturnEqualNN() {
         System.out.println("testGetTrainedNeuralNetwork_NotTrained_ReturnEqualNN");
@@ -355,5 +700,27 @@ public class NeuralNetworkTrainerWorkerTest {
         assertSame("Activation function changed", nn.getActivationFunction(), result.getActivationFunction());
     }
     
-    
+    @Test
+    public void testMakeStepOverTrainSet_SteadyState_PerSampleAllocationWithinBudget() {
+        System.out.println("testMakeStepOverTrainSet_SteadyState_PerSampleAllocationWithinBudget");
+        NeuralNetwork realNN = new NeuralNetwork(16, new int[]{32}, 1, Initializer.ofStdRandomRange(1));
+        int nSamples = 100;
+        double[][] inputs = new double[nSamples][16];
+        double[][] targetResponses = new double[nSamples][1];
+        for (int i = 0; i < nSamples; i++) {
+            inputs[i][i % 16] = 1;
+            targetResponses[i][0] = i % 2;
+        }
+        NeuralNetworkTrainerWorker instance = new NeuralNetworkTrainerWorker(
+                realNN, inputs, targetResponses, new NeuralNetworkTrainer.Options());
+        NeuralNetworkWeights weights = NeuralNetworkWeights.newOf(instance.getNetwork());
+        
+        // Per sample only the neurons' arrays (~1.5 KB) may be allocated, 
+        // the gradient (~5 KB) is allocated once per step
+        double bytesPerStep = AllocationBudget.bytesPerOperation(
+                () -> instance.makeStepOverTrainSet(weights), 500, 50);
+        assertTrue("makeStepOverTrainSet allocates " + bytesPerStep / nSamples 
+                + " bytes per sample, the budget is 2048", 
+                bytesPerStep / nSamples <= 2048);
+    }
 }
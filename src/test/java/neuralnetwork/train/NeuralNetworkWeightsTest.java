@@ -1322,4 +1322,51 @@ public class NeuralNetworkWeightsTest {
         
         Assert.fail();
     }
+    
+    @Test
+    public void testSize_TwoHiddenLayers_ReturnsNumberOfWeightsAndBiases() {
+        NeuralNetworkWeights instance = new NeuralNetworkWeights(3, new int[]{2, 4}, 1);
+        
+        Assert.assertEquals(3*2 + 2 + 2*4 + 4 + 4*1 + 1, instance.size());
+    }
+    
+    @Test
+    public void testToArray_ValuesSet_NeuronWeightsFollowedByBias() {
+        NeuralNetworkWeights instance = new NeuralNetworkWeights(2, new int[]{1}, 2);
+        instance.setWeight(0, 0, 0, 1);
+        instance.setWeight(0, 1, 0, 2);
+        instance.setBias(0, 0, 3);
+        instance.setWeight(1, 0, 0, 4);
+        instance.setBias(1, 0, 5);
+        instance.setWeight(1, 0, 1, 6);
+        instance.setBias(1, 1, 7);
+        
+        Assert.assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6, 7}, instance.toArray(), DELTA);
+    }
+    
+    @Test
+    public void testSetFromArray_ArrayOfToArray_EqualObject() {
+        NeuralNetworkWeights src = new NeuralNetworkWeights(3, new int[]{2, 4}, 2);
+        double[] values = new double[src.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i*0.5 - 3;
+        }
+        src.setFromArray(values);
+        
+        NeuralNetworkWeights instance = new NeuralNetworkWeights(3, new int[]{2, 4}, 2).
+                setFromArray(src.toArray());
+        
+        assertArraysEqual(src.weights, instance.weights);
+        assertArraysEqual(src.biases, instance.biases);
+        Assert.assertArrayEquals(values, instance.toArray(), DELTA);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetFromArray_WrongSizedArray_Throws() {
+        NeuralNetworkWeights instance = new NeuralNetworkWeights(3, new int[]{2, 4}, 2);
+        
+        instance.setFromArray(new double[instance.size() - 1]);
+        
+        Assert.fail();
+    }
 }
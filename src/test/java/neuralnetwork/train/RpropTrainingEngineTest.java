@@ -0,0 +1,98 @@
+package neuralnetwork.train;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class RpropTrainingEngineTest {
+
+    private NeuralNetwork nn;
+    private NeuralNetworkTrainer.Options opts;
+    private double[][] inputs;
+    private double[][] targets;
+
+    @Before
+    public void setUpTestCase() {
+        nn = new NeuralNetwork(2, new int[]{4}, 2,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.RPROP;
+        opts.maxEpoch = 50;
+        opts.performanceGoal = 1e-6;
+        inputs = new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}, {0.5, 0.5}};
+        targets = new double[][]{{0, 1}, {1, 0}, {1, 0}, {0, 1}, {0.5, 0.5}};
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        opts = null;
+        inputs = null;
+        targets = null;
+    }
+
+    private double performanceOf(NeuralNetwork network) {
+        double performance = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performance += NeuralNetworkTrainer.error(network, inputs[i], targets[i]);
+        }
+        return performance / inputs.length;
+    }
+
+    @Test
+    public void testRun_FiftyEpochs_PerformanceDecreased() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        RpropTrainingEngine instance = new RpropTrainingEngine(worker);
+        double performanceBefore = performanceOf(nn);
+
+        instance.run();
+
+        NeuralNetwork trained = new NeuralNetwork(nn);
+        instance.weights.applyToNeuralNetwork(trained);
+        double performanceAfter = performanceOf(trained);
+        assertEquals(performanceAfter, instance.performance, 1e-10);
+        if (performanceAfter >= performanceBefore) {
+            fail("Couldn't decrease performance");
+        }
+    }
+
+    @Test
+    public void testRun_FiftyEpochs_ListenerNotifiedInEpochOrder() {
+        final int[] epochs = new int[1];
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        worker.setListener(new Listener() {
+            @Override public void onTrainingComplete(TrainerEvent event) { }
+            @Override public void onTrainingCanceled(TrainerEvent event) { }
+            @Override public void onTrainingEpochComplete(TrainerEvent event) {
+                epochs[0]++;
+                assertEquals(epochs[0], event.getEpoch());
+            }
+        });
+        RpropTrainingEngine instance = new RpropTrainingEngine(worker);
+
+        instance.run();
+
+        assertTrue("No epoch has been completed", epochs[0] > 0);
+    }
+
+    @Test
+    public void testRun_ThreadInterrupted_NoEpochsAndWeightsNotChanged() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        RpropTrainingEngine instance = new RpropTrainingEngine(worker);
+        NeuralNetworkWeights weightsBefore = new NeuralNetworkWeights(instance.weights);
+
+        Thread.currentThread().interrupt();
+        instance.run();
+
+        assertEquals(0, instance.epochNum);
+        assertEquals(0.0, new NeuralNetworkWeights(instance.weights).subtract(weightsBefore).norm(), 0.0);
+        assertTrue("Worker is not canceled", worker.cancelRequested());
+    }
+}
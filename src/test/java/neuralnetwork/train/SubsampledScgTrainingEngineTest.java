@@ -0,0 +1,211 @@
+package neuralnetwork.train;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class SubsampledScgTrainingEngineTest {
+
+    private NeuralNetwork nn;
+    private NeuralNetworkTrainer.Options opts;
+    private double[][] inputs;
+    private double[][] targets;
+
+    @Before
+    public void setUpTestCase() {
+        nn = new NeuralNetwork(2, new int[]{4}, 1,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        opts = new NeuralNetworkTrainer.Options();
+        opts.algorithm = TrainingAlgorithm.SUBSAMPLED_SCG;
+        opts.maxEpoch = 100;
+        opts.performanceGoal = 1e-6;
+        int nSamples = 200;
+        inputs = new double[nSamples][];
+        targets = new double[nSamples][];
+        for (int i = 0; i < nSamples; i++) {
+            double x = (i % 20) / 19.0;
+            double y = (i / 20) / 9.0;
+            inputs[i] = new double[]{x, y};
+            targets[i] = new double[]{x > y ? 0.9 : 0.1};
+        }
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        opts = null;
+        inputs = null;
+        targets = null;
+    }
+
+    private double performanceOf(NeuralNetwork network) {
+        double performance = 0.0;
+        for (int i = 0; i < inputs.length; i++) {
+            performance += NeuralNetworkTrainer.error(network, inputs[i], targets[i]);
+        }
+        return performance / inputs.length;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroInitialSubsampleSize_Throws() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        new SubsampledScgTrainingEngine(worker, 0);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testConstructor_SmallInitialSubsampleSize_SubsampleUsed() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 10);
+
+        assertEquals(10, instance.getSubsampleSize());
+    }
+
+    private NeuralNetworkTrainerWorker.TrainStepResults resultsWithPerformance(double performance) {
+        NeuralNetworkTrainerWorker.TrainStepResults results = new NeuralNetworkTrainerWorker.TrainStepResults();
+        results.performance = performance;
+        return results;
+    }
+
+    @Test
+    public void testPerformanceGoalReached_SubsampleBelowGoal_False() {
+        opts.performanceGoal = 0.01;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 10);
+        instance.performance = 0.0;
+
+        boolean reached = instance.performanceGoalReached();
+
+        assertFalse(reached);
+    }
+
+    @Test
+    public void testPerformanceGoalReached_WholeSetBelowGoal_True() {
+        opts.performanceGoal = 0.01;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 150);
+        instance.performance = 0.0;
+
+        boolean reached = instance.performanceGoalReached();
+
+        assertTrue(reached);
+    }
+
+    @Test
+    public void testObjectiveChanged_SubsampleBelowGoalWholeSetAbove_SubsampleDoubled() {
+        opts.performanceGoal = 0.01;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 10);
+
+        boolean changed = instance.objectiveChanged(resultsWithPerformance(0.0));
+
+        assertTrue(performanceOf(nn) > opts.performanceGoal);
+        assertTrue(changed);
+        assertEquals(20, instance.getSubsampleSize());
+    }
+
+    @Test
+    public void testObjectiveChanged_SubsampleAndWholeSetBelowGoal_WholeSetUsed() {
+        opts.performanceGoal = 10.0;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 10);
+
+        boolean changed = instance.objectiveChanged(resultsWithPerformance(0.0));
+
+        assertTrue(changed);
+        assertEquals(inputs.length, instance.getSubsampleSize());
+    }
+
+    @Test
+    public void testConstructor_InitialSubsampleSizeOverHalf_WholeSetUsed() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 150);
+
+        assertEquals(inputs.length, instance.getSubsampleSize());
+    }
+
+    @Test
+    public void testTrain_SmallInitialSubsample_FinalPerformanceOverWholeSetDecreased() {
+        opts.initialSubsampleSize = 10;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        worker.setListener(listener);
+        double performanceBefore = performanceOf(nn);
+
+        worker.train();
+
+        ArgumentCaptor<TrainerEvent> event = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener).onTrainingComplete(event.capture());
+        double performanceAfter = performanceOf(worker.getTrainedNeuralNetwork());
+        assertEquals(performanceAfter, event.getValue().getPerformance(), 1e-10);
+        if (performanceAfter >= performanceBefore) {
+            fail("Couldn't decrease performance");
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTrain_TimeLimitReached_FinalPerformanceOverWholeSet() {
+        // A pass over the subsample takes longer than the time limit
+        nn = new NeuralNetwork(2, new int[]{50}, 1,
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+        inputs = new double[20000][];
+        targets = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new double[]{i / 20000.0, (i % 100) / 100.0};
+            targets[i] = new double[]{0.9};
+        }
+        opts.initialSubsampleSize = 5000;
+        opts.maxEpoch = Integer.MAX_VALUE;
+        opts.performanceGoal = 0;
+        opts.timeLimitMillis = 1;
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        Listener listener = Mockito.mock(Listener.class);
+        worker.setListener(listener);
+
+        worker.train();
+
+        ArgumentCaptor<TrainerEvent> event = ArgumentCaptor.forClass(TrainerEvent.class);
+        Mockito.verify(listener).onTrainingComplete(event.capture());
+        assertEquals(performanceOf(worker.getTrainedNeuralNetwork()), 
+                event.getValue().getPerformance(), 1e-10);
+    }
+
+    @Test
+    public void testRun_SmallInitialSubsample_SubsampleGrown() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 10);
+
+        instance.run();
+
+        if (instance.getSubsampleSize() <= 10) {
+            fail("Subsample hasn't grown");
+        }
+    }
+
+    @Test
+    public void testRun_ThreadInterrupted_NoEpochsAndWorkerCanceled() {
+        NeuralNetworkTrainerWorker worker = new NeuralNetworkTrainerWorker(nn, inputs, targets, opts);
+        SubsampledScgTrainingEngine instance = new SubsampledScgTrainingEngine(worker, 10);
+        NeuralNetworkWeights weightsBefore = new NeuralNetworkWeights(instance.weights);
+
+        Thread.currentThread().interrupt();
+        instance.run();
+
+        assertEquals(0, instance.epochNum);
+        assertEquals(0.0, new NeuralNetworkWeights(instance.weights).subtract(weightsBefore).norm(), 0.0);
+        assertTrue("Worker is not canceled", worker.cancelRequested());
+    }
+}
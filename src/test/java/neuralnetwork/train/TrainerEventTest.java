@@ -1,5 +1,6 @@
 package neuralnetwork.train;
 
+import neuralnetwork.NeuralNetwork;
 import neuralnetwork.TestUtils;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -58,5 +59,34 @@ public class TrainerEventTest {
         
         assertEquals(expectedPerformance, result, TestUtils.DELTA);
     }
+
+    /**
+     * Test of getTrainedNetwork method, of class TrainerEvent.
+     */
+    @Test
+    public void testGetTrainedNetwork_NoNetworkPassed_ReturnNull() {
+        System.out.println("testGetTrainedNetwork_NoNetworkPassed_ReturnNull");
+        TrainerEvent instance = new TrainerEvent(1, 0.1);
+
+        NeuralNetwork result = instance.getTrainedNetwork();
+        
+        assertNull(result);
+    }
+
+    /**
+     * Test of getTrainedNetwork method, of class TrainerEvent.
+     */
+    @Test
+    public void testGetTrainedNetwork_NetworkPassed_ReturnCopy() {
+        System.out.println("testGetTrainedNetwork_NetworkPassed_ReturnCopy");
+        NeuralNetwork nn = new NeuralNetwork(2, new int[] {3}, 1);
+        TrainerEvent instance = new TrainerEvent(1, 0.1, nn);
+
+        NeuralNetwork result = instance.getTrainedNetwork();
+        
+        assertNotNull(result);
+        assertNotSame(nn, result);
+        assertEquals(nn.getWeight(0, 0, 0), result.getWeight(0, 0, 0), TestUtils.DELTA);
+    }
     
 }
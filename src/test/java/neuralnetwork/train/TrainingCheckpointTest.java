@@ -0,0 +1,189 @@
+package neuralnetwork.train;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import neuralnetwork.ActivationFunctions;
+import neuralnetwork.NeuralNetwork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class TrainingCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    NeuralNetwork nn;
+    double[][] inputs;
+    double[][] targetResponses;
+
+    @Before
+    public void initTestCase() {
+        int nInputs = 3;
+        int[] hiddenLayerSizes = {2, 3};
+        int nOutputs = 1;
+        nn = Mockito.mock(NeuralNetwork.class);
+        Mockito.when(nn.getBias(Matchers.anyInt(), Matchers.anyInt())).thenReturn(0.1);
+        Mockito.when(nn.getWeight(Matchers.anyInt(), Matchers.anyInt(), Matchers.anyInt())).thenReturn(0.1);
+        Mockito.when(nn.getActivationFunction()).thenReturn(ActivationFunctions.SIGMOID);
+        Mockito.when(nn.getNumberInputs()).thenReturn(nInputs);
+        Mockito.when(nn.getNumberOutputs()).thenReturn(nOutputs);
+        Mockito.when(nn.getHiddenLayerSizes()).thenReturn(hiddenLayerSizes);
+        Mockito.when(nn.getNumberHiddenLayers()).thenReturn(hiddenLayerSizes.length);
+        Mockito.when(nn.getHiddenLayerSize(0)).thenReturn(hiddenLayerSizes[0]);
+        Mockito.when(nn.getHiddenLayerSize(1)).thenReturn(hiddenLayerSizes[1]);
+
+        inputs = new double[][]{{0, 0, 0}, {1, 0, 1}, {0, 1, 1}, {1, 1, 0}, {0.5, 0.5, 0.5}};
+        targetResponses = new double[][]{{1}, {0}, {0}, {1}, {0.5}};
+    }
+
+    @After
+    public void cleanUpTestCase() {
+        nn = null;
+        inputs = null;
+        targetResponses = null;
+    }
+
+    private TrainingCheckpoint newCheckpoint(int completedEpochs) {
+        return new TrainingCheckpoint(TrainingAlgorithm.SCG, 3, new int[] {2, 3}, 1,
+                new int[] {4, 0, 2}, new int[] {1}, new int[] {3}, completedEpochs, 0.25,
+                new double[] {0.1, -0.2, 0.3}, new byte[] {1, 2, 3});
+    }
+
+    @Test
+    public void testWriteRead_ValidCheckpoint_ReadEqualValues() throws IOException {
+        System.out.println("testWriteRead_ValidCheckpoint_ReadEqualValues");
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+
+        newCheckpoint(7).write(file);
+        TrainingCheckpoint read = TrainingCheckpoint.read(file);
+
+        assertEquals(TrainingAlgorithm.SCG, read.algorithm);
+        assertEquals(3, read.nInputs);
+        assertArrayEquals(new int[] {2, 3}, read.hiddenLayerSizes);
+        assertEquals(1, read.nOutputs);
+        assertArrayEquals(new int[] {4, 0, 2}, read.trainSamplesIndices);
+        assertArrayEquals(new int[] {1}, read.validationSamplesIndices);
+        assertArrayEquals(new int[] {3}, read.testSamplesIndices);
+        assertEquals(7, read.completedEpochs);
+        assertEquals(0.25, read.performance, 0.0);
+        assertArrayEquals(new double[] {0.1, -0.2, 0.3}, read.weights, 0.0);
+        assertArrayEquals(new byte[] {1, 2, 3}, read.engineState);
+    }
+
+    @Test
+    public void testWrite_ExistingCheckpoint_ReplacedWithoutTemporaryFiles() throws IOException {
+        System.out.println("testWrite_ExistingCheckpoint_ReplacedWithoutTemporaryFiles");
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+
+        newCheckpoint(7).write(file);
+        newCheckpoint(8).write(file);
+
+        assertEquals(8, TrainingCheckpoint.read(file).completedEpochs);
+        assertEquals("Temporary file has been left", 1, folder.getRoot().list().length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_NotCheckpointFile_Throw() throws IOException {
+        System.out.println("testRead_NotCheckpointFile_Throw");
+        Path file = folder.newFile().toPath();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(42);
+            out.writeInt(1);
+        }
+
+        TrainingCheckpoint.read(file);
+
+        fail("The test case must throw");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckMatches_OtherAlgorithm_Throw() {
+        System.out.println("testCheckMatches_OtherAlgorithm_Throw");
+
+        newCheckpoint(7).checkMatches(nn, inputs.length, TrainingAlgorithm.LBFGS);
+
+        fail("The test case must throw");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckMatches_OtherNumberOfSamples_Throw() {
+        System.out.println("testCheckMatches_OtherNumberOfSamples_Throw");
+
+        newCheckpoint(7).checkMatches(nn, inputs.length + 1, TrainingAlgorithm.SCG);
+
+        fail("The test case must throw");
+    }
+
+    @Test
+    public void testCheckMatches_SameTraining_Ok() {
+        System.out.println("testCheckMatches_SameTraining_Ok");
+
+        newCheckpoint(7).checkMatches(nn, inputs.length, TrainingAlgorithm.SCG);
+    }
+
+    @Test
+    public void testResume_ScgCheckpointAtTenthEpoch_SameResultAsUninterruptedTraining() throws IOException {
+        System.out.println("testResume_ScgCheckpointAtTenthEpoch_SameResultAsUninterruptedTraining");
+        final Path file = folder.getRoot().toPath().resolve("checkpoint");
+        final Path snapshot = folder.getRoot().toPath().resolve("snapshot");
+        NeuralNetworkTrainer.Options opts = new NeuralNetworkTrainer.Options();
+        opts.maxEpoch = 20;
+        opts.performanceGoal = 1e-10;
+        opts.trainSamplesRatio = 60;
+        opts.validationSamplesRatio = 20;
+        opts.testSamplesRatio = 20;
+        opts.checkpointFile = file;
+        opts.checkpointEveryEpochs = 10;
+
+        NeuralNetworkTrainerWorker uninterrupted = new NeuralNetworkTrainerWorker(
+                nn, inputs, targetResponses, opts);
+        uninterrupted.setListener(new Listener() {
+            @Override
+            public void onTrainingEpochComplete(TrainerEvent event) {
+                if (event.getEpoch() == 11) {
+                    // The file still holds the checkpoint of the 10th epoch
+                    try {
+                        Files.copy(file, snapshot, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+
+            @Override
+            public void onTrainingComplete(TrainerEvent event) {
+            }
+
+            @Override
+            public void onTrainingCanceled(TrainerEvent event) {
+            }
+        });
+        uninterrupted.train();
+
+        TrainingCheckpoint checkpoint = TrainingCheckpoint.read(snapshot);
+        assertEquals(10, checkpoint.completedEpochs);
+        opts.checkpointFile = null;
+        NeuralNetworkTrainerWorker resumed = new NeuralNetworkTrainerWorker(
+                nn, inputs, targetResponses, opts, true, checkpoint);
+        resumed.train();
+
+        assertArrayEquals("Resumed training has diverged",
+                NeuralNetworkWeights.newOf(uninterrupted.getTrainedNeuralNetwork()).toArray(),
+                NeuralNetworkWeights.newOf(resumed.getTrainedNeuralNetwork()).toArray(), 0.0);
+        assertEquals(20, TrainingCheckpoint.read(file).completedEpochs);
+    }
+}
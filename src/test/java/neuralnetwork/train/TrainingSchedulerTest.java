@@ -0,0 +1,234 @@
+package neuralnetwork.train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestUtils;
+import neuralnetwork.init.Initializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Konstantin Zhdanov
+ */
+public class TrainingSchedulerTest {
+    
+    private TrainingScheduler scheduler;
+    private NeuralNetwork nn;
+    
+    @Before
+    public void initTestCase() {
+        nn = new NeuralNetwork(2, new int[]{3}, 1, 
+                Initializer.ofCustomRandomRange(-1, 1, -1, 1));
+    }
+    
+    @After
+    public void cleanUpTestCase() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        scheduler = null;
+        nn = null;
+    }
+    
+    private static double[][] inputs() {
+        return new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    }
+    
+    private static double[][] targets() {
+        return new double[][]{{0}, {1}, {1}, {0}};
+    }
+    
+    private static NeuralNetworkTrainer trainer(int maxEpoch) {
+        return new NeuralNetworkTrainer.Builder().withMaxEpoch(maxEpoch).
+                withPerformanceGoal(1e-300).build();
+    }
+    
+    /** 
+     * Submit a job occupying a thread until {@link release} is counted down 
+     * or the thread is interrupted, and wait for it to start.
+     */
+    private TrainingJob submitBlockingJob(final CountDownLatch release) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        TrainingJob job = scheduler.submit(trainer(1), nn, 
+                inputs(), targets(), Integer.MAX_VALUE, new Listener() {
+            @Override public void onTrainingComplete(TrainerEvent event) { }
+            @Override public void onTrainingCanceled(TrainerEvent event) { }
+            @Override public void onTrainingEpochComplete(TrainerEvent event) {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue("Blocking job hasn't started", started.await(10, TimeUnit.SECONDS));
+        return job;
+    }
+    
+    private static Listener completionRecorder(final List<String> completed, final String name) {
+        return new Listener() {
+            @Override public void onTrainingComplete(TrainerEvent event) {
+                completed.add(name);
+            }
+            @Override public void onTrainingCanceled(TrainerEvent event) { }
+            @Override public void onTrainingEpochComplete(TrainerEvent event) { }
+        };
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ZeroThreads_Throw() {
+        System.out.println("testConstructor_ZeroThreads_Throw");
+        
+        new TrainingScheduler(0);
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testSubmit_NullTrainer_Throw() {
+        System.out.println("testSubmit_NullTrainer_Throw");
+        scheduler = new TrainingScheduler(1);
+        
+        scheduler.submit(null, nn, inputs(), targets());
+        
+        fail("The test case must throw");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubmit_WrongSampleSize_Throw() {
+        System.out.println("testSubmit_WrongSampleSize_Throw");
+        scheduler = new TrainingScheduler(1);
+        
+        scheduler.submit(trainer(1), nn, new double[][]{{0, 0, 0}}, new double[][]{{0}});
+        
+        fail("The test case must throw");
+    }
+    
+    @Test
+    public void testSubmit_JobFinished_ReturnTrainedNN() throws Exception {
+        System.out.println("testSubmit_JobFinished_ReturnTrainedNN");
+        scheduler = new TrainingScheduler(2);
+        
+        TrainingJob job = scheduler.submit(trainer(5), nn, inputs(), targets());
+        NeuralNetwork result = job.get(10, TimeUnit.SECONDS);
+        
+        assertTrue("Job is not done", job.isDone());
+        TestUtils.assertNNNotEquals(nn, result);
+    }
+    
+    @Test
+    public void testSubmit_SeveralJobsOneTrainer_AllFinished() throws Exception {
+        System.out.println("testSubmit_SeveralJobsOneTrainer_AllFinished");
+        scheduler = new TrainingScheduler(3);
+        NeuralNetworkTrainer trainer = trainer(5);
+        List<TrainingJob> jobs = new ArrayList<>();
+        
+        for (int i = 0; i < 6; i++) {
+            jobs.add(scheduler.submit(trainer, nn, inputs(), targets()));
+        }
+        
+        for (TrainingJob job : jobs) {
+            assertNotNull(job.get(10, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    public void testSubmit_PoolBusy_ReturnsWithoutBlockingAndJobQueued() throws Exception {
+        System.out.println("testSubmit_PoolBusy_ReturnsWithoutBlockingAndJobQueued");
+        scheduler = new TrainingScheduler(1);
+        CountDownLatch release = new CountDownLatch(1);
+        submitBlockingJob(release);
+        
+        TrainingJob queued = scheduler.submit(trainer(1), nn, inputs(), targets());
+        
+        assertFalse("Queued job is done", queued.isDone());
+        assertEquals(1, scheduler.getNumberOfQueuedJobs());
+        release.countDown();
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testSubmit_DifferentPriorities_HigherPriorityStartedFirst() throws Exception {
+        System.out.println("testSubmit_DifferentPriorities_HigherPriorityStartedFirst");
+        scheduler = new TrainingScheduler(1);
+        List<String> completed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        submitBlockingJob(release);
+        
+        TrainingJob low = scheduler.submit(trainer(1), nn, inputs(), targets(), 
+                1, completionRecorder(completed, "low"));
+        TrainingJob first = scheduler.submit(trainer(1), nn, inputs(), targets(), 
+                5, completionRecorder(completed, "first"));
+        TrainingJob second = scheduler.submit(trainer(1), nn, inputs(), targets(), 
+                5, completionRecorder(completed, "second"));
+        release.countDown();
+        low.get(10, TimeUnit.SECONDS);
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        
+        assertEquals(Arrays.asList("first", "second", "low"), completed);
+    }
+    
+    @Test
+    public void testCancel_QueuedJob_OnTrainingCanceledCalledAndGetReturnsNN() throws Exception {
+        System.out.println("testCancel_QueuedJob_OnTrainingCanceledCalledAndGetReturnsNN");
+        scheduler = new TrainingScheduler(1);
+        final List<TrainerEvent> canceled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        submitBlockingJob(release);
+        TrainingJob queued = scheduler.submit(trainer(1), nn, inputs(), targets());
+        queued.registerListener(new Listener() {
+            @Override public void onTrainingComplete(TrainerEvent event) { }
+            @Override public void onTrainingCanceled(TrainerEvent event) {
+                canceled.add(event);
+            }
+            @Override public void onTrainingEpochComplete(TrainerEvent event) { }
+        });
+        
+        boolean result = queued.cancel(true);
+        release.countDown();
+        
+        assertTrue("Queued job hasn't been canceled", result);
+        assertTrue("Queued job is not canceled", queued.isCancelled());
+        assertEquals(1, canceled.size());
+        assertEquals(0, canceled.get(0).getEpoch());
+        TestUtils.assertNNEquals(nn, queued.get());
+    }
+    
+    @Test
+    public void testShutdownNow_JobsQueued_ReturnQueuedJobsCanceled() throws Exception {
+        System.out.println("testShutdownNow_JobsQueued_ReturnQueuedJobsCanceled");
+        scheduler = new TrainingScheduler(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TrainingJob blocking = submitBlockingJob(release);
+        TrainingJob queued = scheduler.submit(trainer(1), nn, inputs(), targets());
+        
+        List<TrainingJob> result = scheduler.shutdownNow();
+        
+        assertEquals(Collections.singletonList(queued), result);
+        assertTrue("Queued job is not canceled", queued.isCancelled());
+        assertNotNull(blocking.get(10, TimeUnit.SECONDS));
+        assertTrue("Scheduler is not shut down", scheduler.isShutdown());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testSubmit_AfterShutdown_Throw() {
+        System.out.println("testSubmit_AfterShutdown_Throw");
+        scheduler = new TrainingScheduler(1);
+        scheduler.shutdownNow();
+        
+        scheduler.submit(trainer(1), nn, inputs(), targets());
+        
+        fail("The test case must throw");
+    }
+}